@@ -0,0 +1,29 @@
+package com.tencent.supersonic.benchmark;
+
+import com.tencent.supersonic.StandaloneLauncher;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the standalone launcher on the embedded H2 demo database, the demo models are created on
+ * startup. The context is shared by the benchmarks of a JMH fork.
+ */
+public class BenchmarkApplication {
+
+    private static ConfigurableApplicationContext context;
+
+    public static synchronized ConfigurableApplicationContext start() {
+        if (context == null) {
+            context = new SpringApplicationBuilder(StandaloneLauncher.class).profiles("benchmark")
+                    .run();
+        }
+        return context;
+    }
+
+    public static synchronized void stop() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+}
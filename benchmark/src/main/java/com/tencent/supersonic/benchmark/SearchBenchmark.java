@@ -0,0 +1,61 @@
+package com.tencent.supersonic.benchmark;
+
+import com.tencent.supersonic.headless.chat.knowledge.HanlpMapResult;
+import com.tencent.supersonic.headless.chat.knowledge.SearchService;
+import com.tencent.supersonic.headless.server.service.DataSetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/** Prefix search on the dictionary of the demo schema and dimension values. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"周", "超音数", "访问"})
+    private String key;
+
+    private Map<Long, List<Long>> modelIdToDataSetIds;
+
+    private Set<Long> dataSetIds;
+
+    @Setup
+    public void setup() {
+        ApplicationContext context = BenchmarkApplication.start();
+        modelIdToDataSetIds = context.getBean(DataSetService.class).getModelIdToDataSetIds();
+        dataSetIds = modelIdToDataSetIds.values().stream().flatMap(Collection::stream)
+                .collect(Collectors.toSet());
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkApplication.stop();
+    }
+
+    @Benchmark
+    public List<HanlpMapResult> prefixSearch() {
+        return SearchService.prefixSearch(key, SearchService.SEARCH_SIZE, modelIdToDataSetIds,
+                dataSetIds);
+    }
+}
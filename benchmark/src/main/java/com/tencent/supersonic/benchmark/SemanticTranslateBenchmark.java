@@ -0,0 +1,82 @@
+package com.tencent.supersonic.benchmark;
+
+import com.tencent.supersonic.common.pojo.User;
+import com.tencent.supersonic.headless.api.pojo.response.DataSetResp;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticTranslateResp;
+import com.tencent.supersonic.headless.chat.utils.QueryReqBuilder;
+import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
+import com.tencent.supersonic.headless.server.service.DataSetService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translates S2SQL of the demo data sets to physical SQL, the translation cache is disabled in the
+ * benchmark profile so every invocation runs the parser and optimizer chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SemanticTranslateBenchmark {
+
+    private static final Map<String, String> DATA_SETS = Map.of("S2VisitsDemo", "超音数数据集",
+            "S2SingerDemo", "歌手数据集", "S2CompanyDemo", "企业数据集");
+
+    private static final Map<String, String> SQLS = Map.of("S2VisitsDemo",
+            "SELECT 部门, SUM(访问次数) AS 总访问次数 FROM 超音数数据集 WHERE 数据日期 >= '2024-11-15' "
+                    + "AND 数据日期 <= '2024-12-15' GROUP BY 部门 ORDER BY SUM(访问次数) DESC LIMIT 10",
+            "S2SingerDemo",
+            "SELECT 流派, SUM(播放量) AS 总播放量 FROM 歌手数据集 GROUP BY 流派 ORDER BY SUM(播放量) DESC",
+            "S2CompanyDemo", "SELECT 品牌名称, SUM(营收) AS 总营收 FROM 企业数据集 GROUP BY 品牌名称");
+
+    @Param({"S2VisitsDemo", "S2SingerDemo", "S2CompanyDemo"})
+    private String demo;
+
+    private SemanticLayerService semanticLayerService;
+
+    private DataSetResp dataSet;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        ApplicationContext context = BenchmarkApplication.start();
+        semanticLayerService = context.getBean(SemanticLayerService.class);
+        List<DataSetResp> dataSets = context.getBean(DataSetService.class)
+                .getDataSets(DATA_SETS.get(demo), User.getDefaultUser());
+        if (dataSets.isEmpty()) {
+            throw new IllegalStateException("demo data set not found:" + DATA_SETS.get(demo));
+        }
+        dataSet = dataSets.get(0);
+        sql = SQLS.get(demo);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkApplication.stop();
+    }
+
+    @Benchmark
+    public SemanticTranslateResp translate() throws Exception {
+        // the request is modified during translation
+        return semanticLayerService.translate(QueryReqBuilder.buildS2SQLReq(sql, dataSet),
+                User.getDefaultUser());
+    }
+}
@@ -0,0 +1,76 @@
+package com.tencent.supersonic.benchmark;
+
+import com.tencent.supersonic.common.jsqlparser.SqlReplaceHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
+import net.sf.jsqlparser.statement.select.Select;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** The jsqlparser helpers run by the correctors on every parsed S2SQL. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlHelperBenchmark {
+
+    private static final Map<String, String> SQLS = Map.of("simple",
+            "SELECT 部门, SUM(访问次数) AS 总访问次数 FROM 超音数数据集 WHERE 数据日期 >= '2024-11-15' "
+                    + "AND 数据日期 <= '2024-12-15' GROUP BY 部门 ORDER BY SUM(访问次数) DESC LIMIT 10",
+            "subQuery",
+            "SELECT 用户, 访问次数 FROM (SELECT 用户, SUM(访问次数) AS 访问次数 FROM 超音数数据集 "
+                    + "WHERE 数据日期 >= '2024-11-15' GROUP BY 用户) t WHERE 访问次数 > "
+                    + "(SELECT AVG(访问次数) FROM 超音数数据集)",
+            "with",
+            "WITH 部门访问 AS (SELECT 部门, SUM(访问次数) AS pv FROM 超音数数据集 "
+                    + "WHERE 数据日期 >= '2024-08-29' GROUP BY 部门) "
+                    + "SELECT 部门, pv FROM 部门访问 WHERE pv > 100 ORDER BY pv DESC");
+
+    @Param({"simple", "subQuery", "with"})
+    private String query;
+
+    private String sql;
+
+    private Map<String, String> fieldNameMap;
+
+    @Setup
+    public void setup() {
+        sql = SQLS.get(query);
+        fieldNameMap = new HashMap<>();
+        fieldNameMap.put("部门", "department");
+        fieldNameMap.put("用户", "user_name");
+        fieldNameMap.put("访问次数", "pv");
+        fieldNameMap.put("数据日期", "imp_date");
+    }
+
+    @Benchmark
+    public Select parse() {
+        return SqlSelectHelper.getSelect(sql);
+    }
+
+    @Benchmark
+    public String replaceFields() {
+        // the helper adds the aliases to the map
+        return SqlReplaceHelper.replaceFields(sql, new HashMap<>(fieldNameMap));
+    }
+
+    @Benchmark
+    public List<String> getAllSelectFields() {
+        return SqlSelectHelper.getAllSelectFields(sql);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tencent.supersonic.benchmark;
+
+import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.utils.SqlUtils;
+import com.tencent.supersonic.headless.server.service.DatabaseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Reads query results of the demo database into a {@link SemanticQueryResp}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SqlUtilsBenchmark {
+
+    private static final String TABLE = "s2_benchmark_result";
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private SqlUtils sqlUtils;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        ApplicationContext context = BenchmarkApplication.start();
+        DatabaseResp database = context.getBean(DatabaseService.class).getDatabase(1L);
+        sqlUtils = context.getBean(SqlUtils.class).init(database);
+
+        JdbcTemplate jdbcTemplate = sqlUtils.jdbcTemplate();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (imp_date VARCHAR(10), "
+                + "user_name VARCHAR(64), department VARCHAR(64), pv BIGINT, stay_hours DOUBLE)");
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[] {String.format("2024-%02d-%02d", i % 12 + 1, i % 28 + 1),
+                    "user_" + i, "department_" + i % 20, (long) i, i * 0.5});
+            if (batch.size() == 5000) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " VALUES (?, ?, ?, ?, ?)",
+                        batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " VALUES (?, ?, ?, ?, ?)", batch);
+        }
+        sql = "SELECT imp_date, user_name, department, pv, stay_hours FROM " + TABLE;
+    }
+
+    @TearDown
+    public void tearDown() {
+        sqlUtils.jdbcTemplate().execute("DROP TABLE IF EXISTS " + TABLE);
+        BenchmarkApplication.stop();
+    }
+
+    @Benchmark
+    public SemanticQueryResp queryInternal() {
+        SemanticQueryResp queryResp = new SemanticQueryResp();
+        sqlUtils.queryInternal(sql, queryResp);
+        return queryResp;
+    }
+}
@@ -2,8 +2,6 @@ package com.tencent.supersonic.chat.server.memory;
 
 import com.tencent.supersonic.chat.api.pojo.enums.MemoryReviewResult;
 import com.tencent.supersonic.chat.api.pojo.enums.MemoryStatus;
-import com.tencent.supersonic.chat.api.pojo.request.ChatMemoryFilter;
-import com.tencent.supersonic.chat.api.pojo.request.ChatMemoryUpdateReq;
 import com.tencent.supersonic.chat.server.agent.Agent;
 import com.tencent.supersonic.chat.server.pojo.ChatMemory;
 import com.tencent.supersonic.chat.server.service.AgentService;
@@ -21,14 +19,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
@@ -54,6 +57,13 @@ public class MemoryReviewTask {
     @Autowired
     private AgentService agentService;
 
+    @Autowired
+    @Qualifier("memoryReviewExecutor")
+    private ThreadPoolExecutor memoryReviewExecutor;
+
+    @Value("${s2.memory.review.page.size:100}")
+    private int pageSize;
+
     public MemoryReviewTask() {
         ChatAppManager.register(APP_KEY,
                 ChatApp.builder().prompt(INSTRUCTION).name("记忆启用评估").appModule(AppModule.CHAT)
@@ -67,47 +77,66 @@ public class MemoryReviewTask {
             if (!agent.enableMemoryReview()) {
                 continue;
             }
-            ChatMemoryFilter chatMemoryFilter =
-                    ChatMemoryFilter.builder().agentId(agent.getId()).build();
-            memoryService.getMemories(chatMemoryFilter).forEach(memory -> {
-                try {
-                    processMemory(memory, agent);
-                } catch (Exception e) {
-                    log.error("Exception occurred while processing memory with id {}: {}",
-                            memory.getId(), e.getMessage(), e);
-                }
-            });
+            try {
+                reviewAgent(agent);
+            } catch (Exception e) {
+                log.error("Exception occurred while reviewing memories of agent {}: {}",
+                        agent.getId(), e.getMessage(), e);
+            }
         }
     }
 
-    private void processMemory(ChatMemory m, Agent agent) {
-        if (Objects.isNull(agent)) {
-            log.warn("Agent id {} not found or memory review disabled", m.getAgentId());
-            return;
-        }
-
-        // if either LLM or human has reviewed, just return
-        if (Objects.nonNull(m.getLlmReviewRet()) || Objects.nonNull(m.getHumanReviewRet())) {
-            return;
-        }
-
+    /**
+     * Reviews the unreviewed memories of the agent page by page, the memories of a page are
+     * reviewed concurrently and their results saved at once. Memories whose review fails are passed
+     * over and retried in the next round.
+     */
+    private void reviewAgent(Agent agent) {
         ChatApp chatApp = agent.getChatAppConfig().get(APP_KEY);
-        if (Objects.isNull(chatApp) || !chatApp.isEnable()) {
+        ChatLanguageModel chatLanguageModel =
+                ModelProvider.getChatModel(ModelConfigHelper.getChatModelConfig(chatApp));
+        if (Objects.isNull(chatLanguageModel)) {
+            log.debug("ChatLanguageModel not found for agent:{}", agent.getId());
             return;
         }
+        long lastId = 0L;
+        while (true) {
+            List<ChatMemory> memories =
+                    memoryService.getUnreviewedMemories(agent.getId(), lastId, pageSize);
+            if (memories.isEmpty()) {
+                return;
+            }
+            lastId = memories.get(memories.size() - 1).getId();
+            List<CompletableFuture<ChatMemory>> futures = memories.stream()
+                    .map(memory -> CompletableFuture.supplyAsync(
+                            () -> processMemory(memory, chatApp, chatLanguageModel),
+                            memoryReviewExecutor))
+                    .collect(Collectors.toList());
+            List<ChatMemory> reviewed = futures.stream().map(CompletableFuture::join)
+                    .filter(Objects::nonNull).collect(Collectors.toList());
+            memoryService.batchUpdateLlmReviews(reviewed, User.getDefaultUser());
+            log.debug("agent:{} memories reviewed:{}/{}", agent.getId(), reviewed.size(),
+                    memories.size());
+            if (memories.size() < pageSize) {
+                return;
+            }
+        }
+    }
 
-        String promptStr = createPromptString(m, chatApp.getPrompt());
-        Prompt prompt = PromptTemplate.from(promptStr).apply(Collections.EMPTY_MAP);
-
-        ChatLanguageModel chatLanguageModel =
-                ModelProvider.getChatModel(ModelConfigHelper.getChatModelConfig(chatApp));
-        if (Objects.nonNull(chatLanguageModel)) {
+    /** returns the reviewed memory, or null if the review failed */
+    private ChatMemory processMemory(ChatMemory m, ChatApp chatApp,
+            ChatLanguageModel chatLanguageModel) {
+        try {
+            String promptStr = createPromptString(m, chatApp.getPrompt());
+            Prompt prompt = PromptTemplate.from(promptStr).apply(Collections.EMPTY_MAP);
             String response = chatLanguageModel.generate(prompt.toUserMessage()).content().text();
             keyPipelineLog.info("MemoryReviewTask modelReq:\n{} \nmodelResp:\n{}", promptStr,
                     response);
-            processResponse(response, m);
-        } else {
-            log.debug("ChatLanguageModel not found for agent:{}", agent.getId());
+            return processResponse(response, m);
+        } catch (Exception e) {
+            log.error("Exception occurred while processing memory with id {}: {}", m.getId(),
+                    e.getMessage(), e);
+            return null;
         }
     }
 
@@ -116,19 +145,17 @@ public class MemoryReviewTask {
                 m.getS2sql());
     }
 
-    private void processResponse(String response, ChatMemory m) {
+    private ChatMemory processResponse(String response, ChatMemory m) {
         Matcher matcher = OUTPUT_PATTERN.matcher(response);
-        if (matcher.find()) {
-            m.setLlmReviewRet(MemoryReviewResult.getMemoryReviewResult(matcher.group(1)));
-            m.setLlmReviewCmt(matcher.group(2));
-            // directly enable memory if the LLM determines it positive
-            if (MemoryReviewResult.POSITIVE.equals(m.getLlmReviewRet())) {
-                m.setStatus(MemoryStatus.ENABLED);
-            }
-            ChatMemoryUpdateReq memoryUpdateReq = ChatMemoryUpdateReq.builder().id(m.getId())
-                    .status(m.getStatus()).llmReviewRet(m.getLlmReviewRet())
-                    .llmReviewCmt(m.getLlmReviewCmt()).build();
-            memoryService.updateMemory(memoryUpdateReq, User.getDefaultUser());
+        if (!matcher.find()) {
+            return null;
+        }
+        m.setLlmReviewRet(MemoryReviewResult.getMemoryReviewResult(matcher.group(1)));
+        m.setLlmReviewCmt(matcher.group(2));
+        // directly enable memory if the LLM determines it positive
+        if (MemoryReviewResult.POSITIVE.equals(m.getLlmReviewRet())) {
+            m.setStatus(MemoryStatus.ENABLED);
         }
+        return m;
     }
 }
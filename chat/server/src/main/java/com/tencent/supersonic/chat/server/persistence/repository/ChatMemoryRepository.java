@@ -10,6 +10,8 @@ public interface ChatMemoryRepository {
 
     void updateMemory(ChatMemoryDO chatMemoryDO);
 
+    void batchUpdate(List<ChatMemoryDO> chatMemoryDOs);
+
     void batchDelete(List<Long> ids);
 
     ChatMemoryDO getMemory(Long id);
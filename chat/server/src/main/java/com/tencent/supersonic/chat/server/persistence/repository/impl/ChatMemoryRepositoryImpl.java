@@ -30,6 +30,15 @@ public class ChatMemoryRepositoryImpl implements ChatMemoryRepository {
         chatMemoryMapper.updateById(chatMemoryDO);
     }
 
+    @Override
+    public void batchUpdate(List<ChatMemoryDO> chatMemoryDOs) {
+        if (CollectionUtils.isEmpty(chatMemoryDOs)) {
+            return;
+        }
+        // only the non-null fields are updated, in one jdbc batch
+        chatMemoryMapper.updateById(chatMemoryDOs);
+    }
+
     @Override
     public void batchDelete(List<Long> ids) {
         if (CollectionUtils.isEmpty(ids)) {
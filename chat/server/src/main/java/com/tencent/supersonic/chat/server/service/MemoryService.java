@@ -20,4 +20,9 @@ public interface MemoryService {
 
     List<ChatMemory> getMemories(ChatMemoryFilter chatMemoryFilter);
 
+    /** memories of the agent reviewed neither by LLM nor by human, with ids after the last id */
+    List<ChatMemory> getUnreviewedMemories(Integer agentId, Long lastId, int limit);
+
+    void batchUpdateLlmReviews(List<ChatMemory> memories, User user);
+
 }
@@ -26,9 +26,12 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -158,6 +161,43 @@ public class MemoryServiceImpl implements MemoryService, CommandLineRunner {
         return chatMemoryDOS.stream().map(this::getMemory).collect(Collectors.toList());
     }
 
+    @Override
+    public List<ChatMemory> getUnreviewedMemories(Integer agentId, Long lastId, int limit) {
+        QueryWrapper<ChatMemoryDO> queryWrapper = new QueryWrapper<>();
+        queryWrapper.lambda().eq(ChatMemoryDO::getAgentId, agentId)
+                .isNull(ChatMemoryDO::getLlmReviewRet).isNull(ChatMemoryDO::getHumanReviewRet)
+                .gt(ChatMemoryDO::getId, lastId).orderByAsc(ChatMemoryDO::getId);
+        PageHelper.startPage(1, limit, false);
+        List<ChatMemoryDO> chatMemoryDOS = chatMemoryRepository.getMemories(queryWrapper);
+        return chatMemoryDOS.stream().map(this::getMemory).collect(Collectors.toList());
+    }
+
+    @Override
+    public void batchUpdateLlmReviews(List<ChatMemory> memories, User user) {
+        List<ChatMemoryDO> chatMemoryDOS = new ArrayList<>();
+        Map<Integer, List<Text2SQLExemplar>> agentToExemplars = new HashMap<>();
+        Date now = new Date();
+        for (ChatMemory memory : memories) {
+            ChatMemoryDO chatMemoryDO = new ChatMemoryDO();
+            chatMemoryDO.setId(memory.getId());
+            chatMemoryDO.setStatus(memory.getStatus().toString());
+            chatMemoryDO.setLlmReviewRet(memory.getLlmReviewRet().toString());
+            chatMemoryDO.setLlmReviewCmt(memory.getLlmReviewCmt());
+            chatMemoryDO.setUpdatedAt(now);
+            chatMemoryDO.setUpdatedBy(user.getName());
+            chatMemoryDOS.add(chatMemoryDO);
+            if (MemoryStatus.ENABLED.equals(memory.getStatus())) {
+                agentToExemplars.computeIfAbsent(memory.getAgentId(), k -> new ArrayList<>())
+                        .add(Text2SQLExemplar.builder().question(memory.getQuestion())
+                                .sideInfo(memory.getSideInfo()).dbSchema(memory.getDbSchema())
+                                .sql(memory.getS2sql()).build());
+            }
+        }
+        chatMemoryRepository.batchUpdate(chatMemoryDOS);
+        agentToExemplars.forEach((agentId, exemplars) -> exemplarService
+                .storeExemplars(embeddingConfig.getMemoryCollectionName(agentId), exemplars));
+    }
+
     public void enableMemory(ChatMemoryDO memory) {
         memory.setStatus(MemoryStatus.ENABLED.toString());
         exemplarService.storeExemplar(embeddingConfig.getMemoryCollectionName(memory.getAgentId()),
@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.BiPredicate;
 
 @Slf4j
 public abstract class BaseNode<V> implements Comparable<BaseNode> {
@@ -42,8 +43,6 @@ public abstract class BaseNode<V> implements Comparable<BaseNode> {
      */
     protected V value;
 
-    protected String prefix = null;
-
     public BaseNode<V> transition(String path, int begin) {
         BaseNode<V> cur = this;
         for (int i = begin; i < path.length(); ++i) {
@@ -272,44 +271,43 @@ public abstract class BaseNode<V> implements Comparable<BaseNode> {
     @Override
     public String toString() {
         return "BaseNode{" + "child=" + Arrays.toString(child) + ", status=" + status + ", c=" + c
-                + ", value=" + value + ", prefix='" + prefix + '\'' + '}';
-    }
-
-    public void walkNode(Set<Map.Entry<String, V>> entrySet, Set<Long> modelIdOrDataSetIds) {
-        if (status == Status.WORD_MIDDLE_2 || status == Status.WORD_END_3) {
-            log.debug("walkNode before:{}", value.toString());
-            List natures = new LoadRemoveService().removeNatures((List) value, modelIdOrDataSetIds);
-            String name = this.prefix != null ? this.prefix + c : "" + c;
-            log.debug("walkNode name:{},after:{},natures:{}", name, (List) value, natures);
-            entrySet.add(new TrieEntry(name, (V) natures));
-        }
+                + ", value=" + value + '}';
     }
 
     /**
-     * * walk limit
+     * walk limit, visits the words under this node breadth first, that is by length and then in
+     * dictionary order, until the visitor returns false. The walk state is kept per call, so
+     * concurrent walks on a shared trie do not interfere.
      *
-     * @param sb
-     * @param entrySet
+     * @param prefix the word before this node
+     * @param modelIdOrDataSetIds natures of other models or data sets are removed
+     * @param visitor receives each word with its natures, returns false to stop the walk
      */
-    public void walkLimit(StringBuilder sb, Set<Map.Entry<String, V>> entrySet,
-            Set<Long> modelIdOrDataSetIds) {
-        Queue<BaseNode> queue = new ArrayDeque<>();
-        this.prefix = sb.toString();
-        queue.add(this);
-        while (!queue.isEmpty()) {
-            BaseNode root = queue.poll();
-            if (root == null) {
-                continue;
+    public void walkLimit(String prefix, Set<Long> modelIdOrDataSetIds,
+            BiPredicate<String, V> visitor) {
+        LoadRemoveService loadRemoveService = new LoadRemoveService();
+        Queue<BaseNode> nodes = new ArrayDeque<>();
+        Queue<String> prefixes = new ArrayDeque<>();
+        nodes.add(this);
+        prefixes.add(prefix);
+        while (!nodes.isEmpty()) {
+            BaseNode node = nodes.poll();
+            String word = prefixes.poll() + node.c;
+            if (node.status == Status.WORD_MIDDLE_2 || node.status == Status.WORD_END_3) {
+                V natures =
+                        (V) loadRemoveService.removeNatures((List) node.value, modelIdOrDataSetIds);
+                if (!visitor.test(word, natures)) {
+                    return;
+                }
             }
-            root.walkNode(entrySet, modelIdOrDataSetIds);
-            if (root.child == null) {
+            BaseNode[] children = node.child;
+            if (children == null) {
                 continue;
             }
-            String prefix = root.prefix + root.c;
-            for (BaseNode node : root.child) {
-                if (Objects.nonNull(node)) {
-                    node.prefix = prefix;
-                    queue.add(node);
+            for (BaseNode child : children) {
+                if (Objects.nonNull(child)) {
+                    nodes.add(child);
+                    prefixes.add(word);
                 }
             }
         }
@@ -29,9 +29,11 @@ public class ThreadPoolConfig {
 
     @Bean("mapExecutor")
     public ThreadPoolExecutor getMapExecutor() {
-        return new ThreadPoolExecutor(8, 16, 60 * 3, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        // a request takes at most one slot per thread, MapTaskExecutor runs rejected batches itself
+        return new ThreadPoolExecutor(8, 16, 60 * 3, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1024),
                 new ThreadFactoryBuilder().setNameFormat("supersonic-map-pool-").build(),
-                new ThreadPoolExecutor.CallerRunsPolicy());
+                new ThreadPoolExecutor.AbortPolicy());
     }
 
     @Bean("chatExecutor")
@@ -41,4 +43,45 @@ public class ThreadPoolConfig {
                 new ThreadFactoryBuilder().setNameFormat("supersonic-chat-pool-").build(),
                 new ThreadPoolExecutor.CallerRunsPolicy());
     }
+
+    @Bean("workflowExecutor")
+    public ThreadPoolExecutor getWorkflowExecutor() {
+        return new ThreadPoolExecutor(8, 16, 60 * 3, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(256),
+                new ThreadFactoryBuilder().setNameFormat("supersonic-workflow-pool-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean("dictExecutor")
+    public ThreadPoolExecutor getDictExecutor() {
+        return new ThreadPoolExecutor(8, 16, 60 * 3, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1024),
+                new ThreadFactoryBuilder().setNameFormat("supersonic-dict-pool-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean("embeddingExecutor")
+    public ThreadPoolExecutor getEmbeddingExecutor() {
+        return new ThreadPoolExecutor(8, 16, 60 * 3, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1024),
+                new ThreadFactoryBuilder().setNameFormat("supersonic-embedding-pool-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean("sqlGenExecutor")
+    public ThreadPoolExecutor getSqlGenExecutor() {
+        // threads mostly wait for the model, so there are more of them than cores
+        return new ThreadPoolExecutor(16, 32, 60 * 3, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1024),
+                new ThreadFactoryBuilder().setNameFormat("supersonic-sqlgen-pool-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean("memoryReviewExecutor")
+    public ThreadPoolExecutor getMemoryReviewExecutor() {
+        return new ThreadPoolExecutor(4, 8, 60 * 3, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1024),
+                new ThreadFactoryBuilder().setNameFormat("supersonic-memory-review-pool-").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 }
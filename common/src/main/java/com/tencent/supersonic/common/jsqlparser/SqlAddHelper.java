@@ -125,12 +125,20 @@ public class SqlAddHelper {
         if (!(selectStatement instanceof PlainSelect)) {
             return sql;
         }
+        addWhere(selectStatement, expression);
+        return selectStatement.toString();
+    }
+
+    /** ands the expression to the where clause of the parsed statement in place */
+    public static void addWhere(Select selectStatement, Expression expression) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
         PlainSelect plainSelect = (PlainSelect) selectStatement;
 
         Expression where = plainSelect.getWhere();
 
         addWhere(plainSelect, where, expression);
-        return selectStatement.toString();
     }
 
     private static void addWhere(PlainSelect plainSelect, Expression where, Expression expression) {
@@ -315,6 +323,15 @@ public class SqlAddHelper {
         if (!(selectStatement instanceof PlainSelect)) {
             return sql;
         }
+        addHaving(selectStatement, fieldNames);
+        return selectStatement.toString();
+    }
+
+    /** moves the filters on the fields from where to having in the parsed statement in place */
+    public static void addHaving(Select selectStatement, Set<String> fieldNames) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
 
         PlainSelect plainSelect = (PlainSelect) selectStatement;
         // replace metric to 1 and 1 and add having metric
@@ -334,7 +351,7 @@ public class SqlAddHelper {
                 }
             }
         }
-        return SqlRemoveHelper.removeNumberFilter(selectStatement.toString());
+        SqlRemoveHelper.removeNumberFilter(selectStatement);
     }
 
     public static String addHaving(String sql, List<Expression> expressionList) {
@@ -367,12 +384,19 @@ public class SqlAddHelper {
         if (!(selectStatement instanceof PlainSelect)) {
             return sql;
         }
+        addParenthesisToWhere(selectStatement);
+        return selectStatement.toString();
+    }
+
+    public static void addParenthesisToWhere(Select selectStatement) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
         PlainSelect plainSelect = (PlainSelect) selectStatement;
         Expression where = plainSelect.getWhere();
         if (Objects.nonNull(where)) {
             Parenthesis parenthesis = new Parenthesis(where);
             plainSelect.setWhere(parenthesis);
         }
-        return selectStatement.toString();
     }
 }
@@ -80,6 +80,14 @@ public class SqlRemoveHelper {
         if (isInvalidSelect(selectStatement)) {
             return sql;
         }
+        removeSameFieldFromSelect(selectStatement);
+        return selectStatement.toString();
+    }
+
+    public static void removeSameFieldFromSelect(Select selectStatement) {
+        if (isInvalidSelect(selectStatement)) {
+            return;
+        }
         List<SelectItem<?>> selectItems = ((PlainSelect) selectStatement).getSelectItems();
         Set<String> fields = new HashSet<>();
         selectItems.removeIf(selectItem -> {
@@ -91,7 +99,6 @@ public class SqlRemoveHelper {
             return false;
         });
         ((PlainSelect) selectStatement).setSelectItems(selectItems);
-        return selectStatement.toString();
     }
 
     public static String removeWhereCondition(String sql, Set<String> removeFieldNames) {
@@ -99,13 +106,22 @@ public class SqlRemoveHelper {
         if (!(selectStatement instanceof PlainSelect)) {
             return sql;
         }
+        removeWhereCondition(selectStatement, removeFieldNames);
+        return selectStatement.toString();
+    }
+
+    /** removes the where conditions of the fields from the parsed statement in place */
+    public static void removeWhereCondition(Select selectStatement, Set<String> removeFieldNames) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
         selectStatement.accept(new SelectVisitorAdapter() {
             @Override
             public void visit(PlainSelect plainSelect) {
                 removeWhereCondition(plainSelect.getWhere(), removeFieldNames);
             }
         });
-        return removeNumberFilter(selectStatement.toString());
+        removeNumberFilter(selectStatement);
     }
 
     private static void removeWhereCondition(Expression whereExpression,
@@ -121,6 +137,14 @@ public class SqlRemoveHelper {
         if (isInvalidSelect(selectStatement)) {
             return sql;
         }
+        removeNumberFilter(selectStatement);
+        return selectStatement.toString();
+    }
+
+    public static void removeNumberFilter(Select selectStatement) {
+        if (isInvalidSelect(selectStatement)) {
+            return;
+        }
         Expression where = ((PlainSelect) selectStatement).getWhere();
         Expression having = ((PlainSelect) selectStatement).getHaving();
         try {
@@ -131,7 +155,6 @@ public class SqlRemoveHelper {
         } catch (Exception e) {
             log.info("replaceFunction has an exception:{}", e.toString());
         }
-        return selectStatement.toString();
     }
 
     private static void removeWhereExpression(Expression whereExpression,
@@ -271,12 +294,21 @@ public class SqlRemoveHelper {
 
     public static String removeGroupBy(String sql, Set<String> fields) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
-        if (isInvalidSelect(selectStatement)) {
+        if (isInvalidSelect(selectStatement)
+                || ((PlainSelect) selectStatement).getGroupBy() == null) {
             return sql;
         }
+        removeGroupBy(selectStatement, fields);
+        return selectStatement.toString();
+    }
+
+    public static void removeGroupBy(Select selectStatement, Set<String> fields) {
+        if (isInvalidSelect(selectStatement)) {
+            return;
+        }
         GroupByElement groupByElement = ((PlainSelect) selectStatement).getGroupBy();
         if (groupByElement == null) {
-            return sql;
+            return;
         }
         ExpressionList groupByExpressionList = groupByElement.getGroupByExpressionList();
         groupByExpressionList.getExpressions().removeIf(expression -> {
@@ -289,7 +321,6 @@ public class SqlRemoveHelper {
         if (CollectionUtils.isEmpty(groupByExpressionList.getExpressions())) {
             ((PlainSelect) selectStatement).setGroupByElement(null);
         }
-        return selectStatement.toString();
     }
 
     public static String removeSelect(String sql, Set<String> fields) {
@@ -297,6 +328,14 @@ public class SqlRemoveHelper {
         if (isInvalidSelect(selectStatement)) {
             return sql;
         }
+        removeSelect(selectStatement, fields);
+        return selectStatement.toString();
+    }
+
+    public static void removeSelect(Select selectStatement, Set<String> fields) {
+        if (isInvalidSelect(selectStatement)) {
+            return;
+        }
         List<SelectItem<?>> selectItems = ((PlainSelect) selectStatement).getSelectItems();
         Iterator<SelectItem<?>> iterator = selectItems.iterator();
         while (iterator.hasNext()) {
@@ -313,7 +352,6 @@ public class SqlRemoveHelper {
         if (selectItems.isEmpty()) {
             selectItems.add(new SelectItem(new AllColumns()));
         }
-        return selectStatement.toString();
     }
 
     public static Expression filteredExpression(Expression where, SqlEditEnum sqlEditEnum)
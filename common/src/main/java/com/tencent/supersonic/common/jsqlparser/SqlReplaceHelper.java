@@ -86,6 +86,15 @@ public class SqlReplaceHelper {
         if (!(selectStatement instanceof PlainSelect)) {
             return sql;
         }
+        replaceValue(selectStatement, filedNameToValueMap, exactReplace);
+        return selectStatement.toString();
+    }
+
+    public static void replaceValue(Select selectStatement,
+            Map<String, Map<String, String>> filedNameToValueMap, boolean exactReplace) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
         List<PlainSelect> plainSelects = SqlSelectHelper.getPlainSelect(selectStatement);
         for (PlainSelect plainSelect : plainSelects) {
             Expression where = plainSelect.getWhere();
@@ -95,7 +104,6 @@ public class SqlReplaceHelper {
                 where.accept(visitor);
             }
         }
-        return selectStatement.toString();
     }
 
     public static String replaceFieldNameByValue(String sql,
@@ -104,6 +112,15 @@ public class SqlReplaceHelper {
         if (!(selectStatement instanceof PlainSelect)) {
             return sql;
         }
+        replaceFieldNameByValue(selectStatement, fieldValueToFieldNames);
+        return selectStatement.toString();
+    }
+
+    public static void replaceFieldNameByValue(Select selectStatement,
+            Map<String, Set<String>> fieldValueToFieldNames) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
         List<PlainSelect> plainSelectList = new ArrayList<>();
         plainSelectList.add((PlainSelect) selectStatement);
         List<PlainSelect> plainSelects = SqlSelectHelper.getPlainSelects(plainSelectList);
@@ -114,7 +131,6 @@ public class SqlReplaceHelper {
                 where.accept(visitor);
             }
         }
-        return selectStatement.toString();
     }
 
     public static void getFromSelect(FromItem fromItem, List<PlainSelect> plainSelectList) {
@@ -146,8 +162,14 @@ public class SqlReplaceHelper {
     public static String replaceFields(String sql, Map<String, String> fieldNameMap,
             boolean exactReplace) {
         Select selectStatement = SqlSelectHelper.getSelect(sql);
+        replaceFields(selectStatement, fieldNameMap, exactReplace);
+        return selectStatement.toString();
+    }
+
+    public static void replaceFields(Select selectStatement, Map<String, String> fieldNameMap,
+            boolean exactReplace) {
         // alias field should not be replaced
-        Set<String> aliases = SqlSelectHelper.getAliasFields(sql);
+        Set<String> aliases = SqlSelectHelper.getAllAliasFields(selectStatement);
         aliases.forEach(alias -> fieldNameMap.put(alias, alias));
 
         Set<Select> plainSelectList = SqlSelectHelper.getAllSelect(selectStatement);
@@ -161,7 +183,6 @@ public class SqlReplaceHelper {
                         (SetOperationList) plainSelect);
             }
         }
-        return selectStatement.toString();
     }
 
     private static void replaceFieldsInPlainOneSelect(Map<String, String> fieldNameMap,
@@ -267,13 +288,21 @@ public class SqlReplaceHelper {
         if (!(selectStatement instanceof PlainSelect)) {
             return sql;
         }
+        replaceFunction(selectStatement, functionMap, functionCall);
+        return selectStatement.toString();
+    }
+
+    public static void replaceFunction(Select selectStatement, Map<String, String> functionMap,
+            Map<String, UnaryOperator> functionCall) {
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
         List<PlainSelect> plainSelectList = new ArrayList<>();
         plainSelectList.add((PlainSelect) selectStatement);
         List<PlainSelect> plainSelects = SqlSelectHelper.getPlainSelects(plainSelectList);
         for (PlainSelect plainSelect : plainSelects) {
             replaceFunction(functionMap, functionCall, plainSelect);
         }
-        return selectStatement.toString();
     }
 
     private static void replaceFunction(Map<String, String> functionMap,
@@ -1,5 +1,7 @@
 package com.tencent.supersonic.common.jsqlparser;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.tencent.supersonic.common.util.StringUtil;
@@ -51,6 +53,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +62,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SqlSelectHelper {
 
+    /**
+     * parsed statements shared by the read-only lookups, a corrector pass asks many of them for the
+     * same sql. The cached trees must never be handed out or modified.
+     */
+    private static final Cache<String, Select> PARSED_SELECT_CACHE =
+            Caffeine.newBuilder().maximumSize(2000).expireAfterAccess(10, TimeUnit.MINUTES).build();
+
     public static List<FieldExpression> getFilterExpression(String sql) {
         List<PlainSelect> plainSelectList = getPlainSelect(sql);
         Set<FieldExpression> result = new HashSet<>();
@@ -82,7 +92,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getWhereFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getCachedPlainSelect(sql);
         if (CollectionUtils.isEmpty(plainSelectList)) {
             return new ArrayList<>();
         }
@@ -101,7 +111,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> gePureSelectFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getCachedPlainSelect(sql);
         Set<String> result = new HashSet<>();
         plainSelectList.stream().forEach(plainSelect -> {
             List<SelectItem<?>> selectItems = plainSelect.getSelectItems();
@@ -117,7 +127,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getSelectFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getCachedPlainSelect(sql);
         if (CollectionUtils.isEmpty(plainSelectList)) {
             return new ArrayList<>();
         }
@@ -145,7 +155,12 @@ public class SqlSelectHelper {
     }
 
     public static Set<String> getAliasFields(String sql) {
-        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(sql));
+        return getAllAliasFields(getCachedSelect(sql));
+    }
+
+    /** aliases of the select items of the statement and all of its sub queries */
+    public static Set<String> getAllAliasFields(Select selectStatement) {
+        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(selectStatement));
         Set<String> aliasFields = new HashSet<>();
         plainSelects.forEach(select -> {
             aliasFields.addAll(getAliasFields(select));
@@ -181,7 +196,7 @@ public class SqlSelectHelper {
     }
 
     public static Boolean hasSubSelect(String sql) {
-        Select selectStatement = getSelect(sql);
+        Select selectStatement = getCachedSelect(sql);
         if (selectStatement == null) {
             return false;
         }
@@ -242,6 +257,18 @@ public class SqlSelectHelper {
         return (Select) statement;
     }
 
+    private static Select getCachedSelect(String sql) {
+        if (StringUtils.isBlank(sql)) {
+            return getSelect(sql);
+        }
+        // parse errors are thrown and not cached
+        return PARSED_SELECT_CACHE.get(sql, SqlSelectHelper::getSelect);
+    }
+
+    private static List<PlainSelect> getCachedPlainSelect(String sql) {
+        return getPlainSelect(getCachedSelect(sql));
+    }
+
     public static List<PlainSelect> getPlainSelects(List<PlainSelect> plainSelectList) {
         List<PlainSelect> plainSelects = new ArrayList<>();
         for (PlainSelect plainSelect : plainSelectList) {
@@ -282,7 +309,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getAllSelectFields(String sql) {
-        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(sql));
+        List<PlainSelect> plainSelects = getPlainSelects(getCachedPlainSelect(sql));
         Set<String> results = new HashSet<>();
         Set<String> aliases = new HashSet<>();
         for (PlainSelect plainSelect : plainSelects) {
@@ -432,7 +459,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getOrderByFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getCachedPlainSelect(sql);
         Set<String> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -478,7 +505,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getGroupByFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getCachedPlainSelect(sql);
         HashSet<String> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -503,12 +530,12 @@ public class SqlSelectHelper {
     }
 
     public static String getTableName(String sql) {
-        Table table = getTable(sql);
+        Table table = getTable(getCachedSelect(sql));
         return StringUtil.replaceBackticks(table.getName());
     }
 
     public static List<String> getAggregateFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getCachedPlainSelect(sql);
         Set<String> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -532,7 +559,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getAggregateAsFields(String sql) {
-        List<PlainSelect> plainSelectList = getPlainSelect(sql);
+        List<PlainSelect> plainSelectList = getCachedPlainSelect(sql);
         Set<String> result = new HashSet<>();
         for (PlainSelect plainSelect : plainSelectList) {
             if (Objects.isNull(plainSelect)) {
@@ -561,7 +588,7 @@ public class SqlSelectHelper {
     }
 
     public static boolean hasGroupBy(String sql) {
-        Select selectStatement = getSelect(sql);
+        Select selectStatement = getCachedSelect(sql);
 
         if (!(selectStatement instanceof PlainSelect)) {
             return false;
@@ -634,7 +661,7 @@ public class SqlSelectHelper {
     }
 
     public static Boolean hasWith(String sql) {
-        Select selectStatement = getSelect(sql);
+        Select selectStatement = getCachedSelect(sql);
         if (selectStatement == null) {
             return false;
         }
@@ -677,7 +704,7 @@ public class SqlSelectHelper {
     }
 
     public static List<String> getWithName(String sql) {
-        Select selectStatement = getSelect(sql);
+        Select selectStatement = getCachedSelect(sql);
         if (selectStatement == null) {
             return new ArrayList<>();
         }
@@ -693,14 +720,16 @@ public class SqlSelectHelper {
     }
 
     public static Table getTable(String sql) {
-        Select selectStatement = getSelect(sql);
+        return getTable(getSelect(sql));
+    }
+
+    private static Table getTable(Select selectStatement) {
         if (selectStatement == null) {
             return null;
         }
         List<PlainSelect> plainSelectList = getWithItem(selectStatement);
         if (!CollectionUtils.isEmpty(plainSelectList)) {
-            Table table = getTable(plainSelectList.get(0).toString());
-            return table;
+            return getTable(plainSelectList.get(0));
         }
         if (selectStatement instanceof PlainSelect) {
             PlainSelect plainSelect = (PlainSelect) selectStatement;
@@ -709,9 +738,7 @@ public class SqlSelectHelper {
             }
             if (plainSelect.getFromItem() instanceof ParenthesedSelect) {
 
-                PlainSelect subSelect =
-                        ((ParenthesedSelect) plainSelect.getFromItem()).getPlainSelect();
-                return getTable(subSelect.getSelectBody().toString());
+                return getTable(((ParenthesedSelect) plainSelect.getFromItem()).getPlainSelect());
             }
 
         } else if (selectStatement instanceof SetOperationList) {
@@ -724,7 +751,7 @@ public class SqlSelectHelper {
     }
 
     public static String getDbTableName(String sql) {
-        Table table = getTable(sql);
+        Table table = getTable(getCachedSelect(sql));
         return table.getFullyQualifiedName();
     }
 
@@ -787,7 +814,7 @@ public class SqlSelectHelper {
     }
 
     public static Boolean hasLimit(String querySql) {
-        Select selectStatement = SqlSelectHelper.getSelect(querySql);
+        Select selectStatement = getCachedSelect(querySql);
         if (selectStatement instanceof PlainSelect) {
             PlainSelect plainSelect = selectStatement.getPlainSelect();
             Limit limit = plainSelect.getLimit();
@@ -811,7 +838,7 @@ public class SqlSelectHelper {
     }
 
     public static Map<String, Set<String>> getFieldsWithSubQuery(String sql) {
-        List<PlainSelect> plainSelects = getPlainSelects(getPlainSelect(sql));
+        List<PlainSelect> plainSelects = getPlainSelects(getCachedPlainSelect(sql));
         Map<String, Set<String>> results = new HashMap<>();
         for (PlainSelect plainSelect : plainSelects) {
             getFieldsWithSubQuery(plainSelect, results);
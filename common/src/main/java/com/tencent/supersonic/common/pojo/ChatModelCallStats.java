@@ -0,0 +1,35 @@
+package com.tencent.supersonic.common.pojo;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ChatModelCallStats {
+
+    /** provider, base url and model name */
+    private String model;
+
+    private Long callCount;
+
+    private Long failedCount;
+
+    /** calls answered by an identical call in flight */
+    private Long coalescedCount;
+
+    /** calls given up as no permit was free before the model timeout */
+    private Long rejectedCount;
+
+    /** total call cost in milliseconds, waiting for a permit included */
+    private Long callTime;
+
+    private Long maxCallTime;
+
+    private Long inputTokenCount;
+
+    private Long outputTokenCount;
+
+    private Integer activeCount;
+
+    private Integer waitingCount;
+}
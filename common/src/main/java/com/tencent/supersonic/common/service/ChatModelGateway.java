@@ -0,0 +1,18 @@
+package com.tencent.supersonic.common.service;
+
+import com.tencent.supersonic.common.pojo.ChatModelCallStats;
+import com.tencent.supersonic.common.pojo.ChatModelConfig;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+
+import java.util.List;
+
+/**
+ * Guards the calls to chat models. Calls to the same model share a number of permits and a rate
+ * limit, identical calls in flight at the same time are sent once.
+ */
+public interface ChatModelGateway {
+
+    ChatLanguageModel wrap(ChatModelConfig modelConfig, ChatLanguageModel chatModel);
+
+    List<ChatModelCallStats> getStats();
+}
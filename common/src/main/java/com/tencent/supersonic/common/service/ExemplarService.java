@@ -7,6 +7,8 @@ import java.util.List;
 public interface ExemplarService {
     void storeExemplar(String collection, Text2SQLExemplar exemplar);
 
+    void storeExemplars(String collection, List<Text2SQLExemplar> exemplars);
+
     void removeExemplar(String collection, Text2SQLExemplar exemplar);
 
     List<Text2SQLExemplar> recallExemplars(String collection, String query, int num);
@@ -0,0 +1,254 @@
+package com.tencent.supersonic.common.service.impl;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.tencent.supersonic.common.pojo.ChatModelCallStats;
+import com.tencent.supersonic.common.pojo.ChatModelConfig;
+import com.tencent.supersonic.common.service.ChatModelGateway;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Calls to a model, identified by its provider, base url and model name, share a fixed number of
+ * permits and an optional rate limit. A call waits for both no longer than the timeout of its
+ * model, then it fails instead of piling up behind a slow provider. A call identical to one in
+ * flight, same model settings and same messages, waits for the answer of that call.
+ */
+@Service
+public class ChatModelGatewayImpl implements ChatModelGateway {
+
+    private static final long DEFAULT_TIMEOUT_SECONDS = 60;
+
+    private final boolean enable;
+
+    private final int maxConcurrency;
+
+    private final double rateLimit;
+
+    private final Map<String, ModelGate> gates = new ConcurrentHashMap<>();
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlightCalls =
+            new ConcurrentHashMap<>();
+
+    public ChatModelGatewayImpl(@Value("${s2.llm.gateway.enable:true}") boolean enable,
+            @Value("${s2.llm.gateway.max.concurrency:8}") int maxConcurrency,
+            @Value("${s2.llm.gateway.rate.limit:0}") double rateLimit) {
+        this.enable = enable;
+        this.maxConcurrency = maxConcurrency;
+        this.rateLimit = rateLimit;
+    }
+
+    @Override
+    public ChatLanguageModel wrap(ChatModelConfig modelConfig, ChatLanguageModel chatModel) {
+        if (!enable) {
+            return chatModel;
+        }
+        String model = String.join(",", modelConfig.getProvider(), modelConfig.getBaseUrl(),
+                modelConfig.getModelName());
+        ModelGate gate = gates.computeIfAbsent(model, ModelGate::new);
+        long timeout =
+                TimeUnit.SECONDS.toMillis(modelConfig.getTimeOut() == null ? DEFAULT_TIMEOUT_SECONDS
+                        : modelConfig.getTimeOut());
+        // answers differ with the sampling settings, so they are part of the call identity
+        String settings = String.join(",", model, String.valueOf(modelConfig.getTemperature()),
+                String.valueOf(modelConfig.getTopP()));
+        return new GatedChatLanguageModel(chatModel, gate, settings, timeout);
+    }
+
+    @Override
+    public List<ChatModelCallStats> getStats() {
+        List<ChatModelCallStats> stats = new ArrayList<>();
+        for (ModelGate gate : gates.values()) {
+            stats.add(ChatModelCallStats.builder().model(gate.model).callCount(gate.callCount.sum())
+                    .failedCount(gate.failedCount.sum()).coalescedCount(gate.coalescedCount.sum())
+                    .rejectedCount(gate.rejectedCount.sum()).callTime(gate.callTime.sum())
+                    .maxCallTime(gate.maxCallTime.get()).inputTokenCount(gate.inputTokenCount.sum())
+                    .outputTokenCount(gate.outputTokenCount.sum())
+                    .activeCount(maxConcurrency - gate.permits.availablePermits())
+                    .waitingCount(gate.permits.getQueueLength()).build());
+        }
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T call(ModelGate gate, List<Object> callKey, long timeout, Supplier<T> call,
+            Function<T, TokenUsage> tokenUsage) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight =
+                callKey == null ? null : inFlightCalls.putIfAbsent(callKey, future);
+        if (inFlight != null) {
+            gate.coalescedCount.increment();
+            try {
+                return (T) inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            T result = callGated(gate, timeout, call, tokenUsage);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (callKey != null) {
+                inFlightCalls.remove(callKey, future);
+            }
+        }
+    }
+
+    private <T> T callGated(ModelGate gate, long timeout, Supplier<T> call,
+            Function<T, TokenUsage> tokenUsage) {
+        long start = System.currentTimeMillis();
+        gate.callCount.increment();
+        acquire(gate, start, timeout);
+        try {
+            T result = call.get();
+            TokenUsage usage = result == null ? null : tokenUsage.apply(result);
+            if (usage != null) {
+                gate.inputTokenCount
+                        .add(usage.inputTokenCount() == null ? 0 : usage.inputTokenCount());
+                gate.outputTokenCount
+                        .add(usage.outputTokenCount() == null ? 0 : usage.outputTokenCount());
+            }
+            return result;
+        } catch (RuntimeException e) {
+            gate.failedCount.increment();
+            throw e;
+        } finally {
+            gate.permits.release();
+            long cost = System.currentTimeMillis() - start;
+            gate.callTime.add(cost);
+            gate.maxCallTime.accumulateAndGet(cost, Math::max);
+        }
+    }
+
+    private void acquire(ModelGate gate, long start, long timeout) {
+        boolean acquired;
+        try {
+            acquired = gate.permits.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+            if (acquired && gate.rateLimiter != null) {
+                long remaining = Math.max(0, timeout - (System.currentTimeMillis() - start));
+                if (!gate.rateLimiter.tryAcquire(1, remaining, TimeUnit.MILLISECONDS)) {
+                    gate.permits.release();
+                    acquired = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for model:" + gate.model, e);
+        }
+        if (!acquired) {
+            gate.rejectedCount.increment();
+            throw new RuntimeException(String.format("model:%s is busy, no call slot within %sms",
+                    gate.model, timeout));
+        }
+    }
+
+    private class ModelGate {
+
+        private final String model;
+
+        private final Semaphore permits = new Semaphore(maxConcurrency, true);
+
+        private final RateLimiter rateLimiter =
+                rateLimit > 0 ? RateLimiter.create(rateLimit) : null;
+
+        private final LongAdder callCount = new LongAdder();
+
+        private final LongAdder failedCount = new LongAdder();
+
+        private final LongAdder coalescedCount = new LongAdder();
+
+        private final LongAdder rejectedCount = new LongAdder();
+
+        private final LongAdder callTime = new LongAdder();
+
+        private final AtomicLong maxCallTime = new AtomicLong();
+
+        private final LongAdder inputTokenCount = new LongAdder();
+
+        private final LongAdder outputTokenCount = new LongAdder();
+
+        private ModelGate(String model) {
+            this.model = model;
+        }
+    }
+
+    private class GatedChatLanguageModel implements ChatLanguageModel {
+
+        private final ChatLanguageModel delegate;
+
+        private final ModelGate gate;
+
+        private final String settings;
+
+        private final long timeout;
+
+        private GatedChatLanguageModel(ChatLanguageModel delegate, ModelGate gate, String settings,
+                long timeout) {
+            this.delegate = delegate;
+            this.gate = gate;
+            this.settings = settings;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Response<AiMessage> generate(List<ChatMessage> messages) {
+            return call(gate, Arrays.asList(settings, messages), timeout,
+                    () -> delegate.generate(messages), Response::tokenUsage);
+        }
+
+        @Override
+        public Response<AiMessage> generate(List<ChatMessage> messages,
+                List<ToolSpecification> toolSpecifications) {
+            return call(gate, Arrays.asList(settings, messages, toolSpecifications), timeout,
+                    () -> delegate.generate(messages, toolSpecifications), Response::tokenUsage);
+        }
+
+        @Override
+        public Response<AiMessage> generate(List<ChatMessage> messages,
+                ToolSpecification toolSpecification) {
+            return call(gate, Arrays.asList(settings, messages, toolSpecification), timeout,
+                    () -> delegate.generate(messages, toolSpecification), Response::tokenUsage);
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest chatRequest) {
+            return call(gate, null, timeout, () -> delegate.chat(chatRequest),
+                    ChatResponse::tokenUsage);
+        }
+
+        @Override
+        public Set<Capability> supportedCapabilities() {
+            return delegate.supportedCapabilities();
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.tencent.supersonic.common.service.impl;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.tencent.supersonic.common.config.EmbeddingModelParameterConfig;
+import com.tencent.supersonic.common.pojo.EmbeddingModelConfig;
 import com.tencent.supersonic.common.service.EmbeddingService;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
@@ -21,16 +24,27 @@ import dev.langchain4j.store.embedding.filter.Filter;
 import dev.langchain4j.store.embedding.filter.MetadataFilterBuilder;
 import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,28 +54,133 @@ public class EmbeddingServiceImpl implements EmbeddingService {
     private Cache<String, Boolean> cache = CacheBuilder.newBuilder().maximumSize(10000)
             .expireAfterWrite(10, TimeUnit.HOURS).build();
 
+    /** content hash of the segments last added, by collection name and query id */
+    private final Cache<List<String>, String> segmentHashes =
+            CacheBuilder.newBuilder().maximumSize(100000).build();
+
+    @Autowired
+    private EmbeddingModelParameterConfig embeddingModelParameterConfig;
+
+    @Autowired
+    @Qualifier("embeddingExecutor")
+    private ThreadPoolExecutor embeddingExecutor;
+
+    /** segments embedded by one call of the embedding model */
+    @Value("${s2.embedding.batch.size:64}")
+    private int batchSize;
+
+    /** batches embedded concurrently by one call of addQuery */
+    @Value("${s2.embedding.batch.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * Embeds the segments in batches on the embedding executor and replaces them in the store. A
+     * segment whose text, metadata and embedding model are unchanged since it was last added is
+     * skipped, so periodic reloads only embed what changed.
+     */
     @Override
     public void addQuery(String collectionName, List<TextSegment> queries) {
         EmbeddingStore embeddingStore =
                 EmbeddingStoreFactoryProvider.getFactory().create(collectionName);
+        EmbeddingModelConfig modelConfig = embeddingModelParameterConfig.convert();
+        EmbeddingModel embeddingModel = ModelProvider.getEmbeddingModel(modelConfig);
+        String modelKey = String.join(",", modelConfig.getProvider(), modelConfig.getBaseUrl(),
+                modelConfig.getModelName(), modelConfig.getModelPath());
+        addQuery(collectionName, queries, embeddingStore, embeddingModel, modelKey);
+    }
+
+    void addQuery(String collectionName, List<TextSegment> queries, EmbeddingStore embeddingStore,
+            EmbeddingModel embeddingModel, String modelKey) {
+        // the last segment of a query id wins, as if the segments were added in turn
+        Map<Object, TextSegment> uniqueQueries = new LinkedHashMap<>();
         for (TextSegment query : queries) {
-            String question = query.text();
-            try {
-                EmbeddingModel embeddingModel = ModelProvider.getEmbeddingModel();
-                Embedding embedding = embeddingModel.embed(question).content();
+            String queryId = TextSegmentConvert.getQueryId(query);
+            uniqueQueries.put(queryId == null ? query : queryId, query);
+        }
+        Map<TextSegment, String> segmentToHash = new LinkedHashMap<>();
+        for (TextSegment query : uniqueQueries.values()) {
+            String hash = getSegmentHash(modelKey, query);
+            String queryId = TextSegmentConvert.getQueryId(query);
+            if (queryId != null && hash
+                    .equals(segmentHashes.getIfPresent(getSegmentKey(collectionName, queryId)))) {
+                continue;
+            }
+            segmentToHash.put(query, hash);
+        }
+        if (segmentToHash.isEmpty()) {
+            return;
+        }
+        List<List<TextSegment>> batches =
+                Lists.partition(new ArrayList<>(segmentToHash.keySet()), Math.max(1, batchSize));
+        AtomicInteger nextBatch = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int i = nextBatch.getAndIncrement(); i < batches.size(); i =
+                    nextBatch.getAndIncrement()) {
+                addBatch(collectionName, embeddingStore, embeddingModel, batches.get(i),
+                        segmentToHash);
+            }
+        };
+        int workers = Math.min(Math.max(1, parallelism), batches.size());
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(worker, embeddingExecutor);
+        }
+        CompletableFuture.allOf(futures).join();
+        log.debug("{} of {} segments embedded into {}", segmentToHash.size(), queries.size(),
+                collectionName);
+    }
+
+    private void addBatch(String collectionName, EmbeddingStore embeddingStore,
+            EmbeddingModel embeddingModel, List<TextSegment> batch,
+            Map<TextSegment, String> segmentToHash) {
+        List<Embedding> embeddings;
+        try {
+            embeddings = embeddingModel.embedAll(batch).content();
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.error("embeddingModel embed error question: {}, embeddingStore: {}",
+                        batch.get(0).text(), embeddingStore.getClass().getSimpleName(), e);
+                return;
+            }
+            // embed one by one to skip only the segments that fail
+            log.warn("embeddingModel embedAll error, embed {} segments one by one", batch.size(),
+                    e);
+            batch.forEach(query -> addBatch(collectionName, embeddingStore, embeddingModel,
+                    Lists.newArrayList(query), segmentToHash));
+            return;
+        }
+        try {
+            List<String> queryIds = batch.stream().map(TextSegmentConvert::getQueryId)
+                    .filter(Objects::nonNull).collect(Collectors.toList());
+            if (CollectionUtils.isNotEmpty(queryIds)) {
                 MetadataFilterBuilder filterBuilder =
                         new MetadataFilterBuilder(TextSegmentConvert.QUERY_ID);
-                Filter filter = filterBuilder.isEqualTo(TextSegmentConvert.getQueryId(query));
-                embeddingStore.removeAll(filter);
-                embeddingStore.add(embedding, query);
-                cache.put(TextSegmentConvert.getQueryId(query), true);
-            } catch (Exception e) {
-                log.error("embeddingModel embed error question: {}, embeddingStore: {}", question,
-                        embeddingStore.getClass().getSimpleName(), e);
+                embeddingStore.removeAll(filterBuilder.isIn(queryIds));
+            }
+            embeddingStore.addAll(embeddings, batch);
+            for (TextSegment query : batch) {
+                String queryId = TextSegmentConvert.getQueryId(query);
+                if (queryId != null) {
+                    cache.put(queryId, true);
+                    segmentHashes.put(getSegmentKey(collectionName, queryId),
+                            segmentToHash.get(query));
+                }
             }
+        } catch (Exception e) {
+            log.error("embeddingStore add error, collectionName: {}, embeddingStore: {}",
+                    collectionName, embeddingStore.getClass().getSimpleName(), e);
         }
     }
 
+    private List<String> getSegmentKey(String collectionName, String queryId) {
+        return Arrays.asList(collectionName, queryId);
+    }
+
+    private String getSegmentHash(String modelKey, TextSegment query) {
+        return DigestUtils.sha256Hex(String.join("\n", modelKey, query.text(),
+                String.valueOf(new TreeMap<>(query.metadata().toMap()))));
+    }
+
     private boolean existSegment(String collectionName, EmbeddingStore embeddingStore,
             TextSegment query, Embedding embedding) {
         String queryId = TextSegmentConvert.getQueryId(query);
@@ -100,7 +219,10 @@ public class EmbeddingServiceImpl implements EmbeddingService {
                         new MetadataFilterBuilder(TextSegmentConvert.QUERY_ID);
                 Filter filter = filterBuilder.isIn(queryIds);
                 embeddingStore.removeAll(filter);
-                queryIds.stream().forEach(queryId -> cache.put(queryId, false));
+                queryIds.stream().forEach(queryId -> {
+                    cache.put(queryId, false);
+                    segmentHashes.invalidate(getSegmentKey(collectionName, queryId));
+                });
             }
 
         } catch (Exception e) {
@@ -115,10 +237,20 @@ public class EmbeddingServiceImpl implements EmbeddingService {
                 EmbeddingStoreFactoryProvider.getFactory().create(collectionName);
         EmbeddingModel embeddingModel = ModelProvider.getEmbeddingModel();
         Map<String, Object> filterCondition = retrieveQuery.getFilterCondition();
-        return retrieveQuery
-                .getQueryTextsList().stream().map(queryText -> retrieveSingleQuery(queryText,
-                        embeddingModel, embeddingStore, filterCondition, num))
-                .collect(Collectors.toList());
+        List<String> queryTexts = retrieveQuery.getQueryTextsList();
+        if (CollectionUtils.isEmpty(queryTexts)) {
+            return new ArrayList<>();
+        }
+        // one embedding call for all query texts
+        List<Embedding> embeddings = embeddingModel
+                .embedAll(queryTexts.stream().map(TextSegment::from).collect(Collectors.toList()))
+                .content();
+        List<RetrieveQueryResult> results = new ArrayList<>();
+        for (int i = 0; i < queryTexts.size(); i++) {
+            results.add(retrieveSingleQuery(queryTexts.get(i), embeddings.get(i), embeddingStore,
+                    filterCondition, num));
+        }
+        return results;
     }
 
     @Override
@@ -131,11 +263,11 @@ public class EmbeddingServiceImpl implements EmbeddingService {
             embeddingStore.removeAll();
         }
         cache.invalidateAll();
+        segmentHashes.invalidateAll();
     }
 
-    private RetrieveQueryResult retrieveSingleQuery(String queryText, EmbeddingModel embeddingModel,
+    private RetrieveQueryResult retrieveSingleQuery(String queryText, Embedding embeddedText,
             EmbeddingStore embeddingStore, Map<String, Object> filterCondition, int num) {
-        Embedding embeddedText = embeddingModel.embed(queryText).content();
         Filter filter = createCombinedFilter(filterCondition);
         EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
                 .queryEmbedding(embeddedText).filter(filter).maxResults(num).build();
@@ -42,12 +42,20 @@ public class ExemplarServiceImpl implements ExemplarService, CommandLineRunner {
     private EmbeddingService embeddingService;
 
     public void storeExemplar(String collection, Text2SQLExemplar exemplar) {
-        Metadata metadata = Metadata
-                .from(JsonUtil.toMap(JsonUtil.toString(exemplar), String.class, Object.class));
-        TextSegment segment = TextSegment.from(exemplar.getQuestion(), metadata);
-        TextSegmentConvert.addQueryId(segment, exemplar.getQuestion());
+        storeExemplars(collection, Lists.newArrayList(exemplar));
+    }
 
-        embeddingService.addQuery(collection, Lists.newArrayList(segment));
+    public void storeExemplars(String collection, List<Text2SQLExemplar> exemplars) {
+        List<TextSegment> segments = Lists.newArrayList();
+        for (Text2SQLExemplar exemplar : exemplars) {
+            Metadata metadata = Metadata
+                    .from(JsonUtil.toMap(JsonUtil.toString(exemplar), String.class, Object.class));
+            TextSegment segment = TextSegment.from(exemplar.getQuestion(), metadata);
+            TextSegmentConvert.addQueryId(segment, exemplar.getQuestion());
+            segments.add(segment);
+        }
+        // embedded in batches by the embedding service
+        embeddingService.addQuery(collection, segments);
     }
 
     public void removeExemplar(String collection, Text2SQLExemplar exemplar) {
@@ -17,7 +17,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
@@ -44,7 +45,7 @@ public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
     public synchronized EmbeddingStore createEmbeddingStore(String collectionName) {
         InMemoryEmbeddingStore<TextSegment> embeddingStore = reloadFromPersistFile(collectionName);
         if (Objects.isNull(embeddingStore)) {
-            embeddingStore = new InMemoryEmbeddingStore();
+            embeddingStore = new InMemoryEmbeddingStore<>(collectionName);
         }
         return embeddingStore;
     }
@@ -61,7 +62,8 @@ public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
                     && !collectionName.equals(embeddingConfig.getMetaCollectionName())
                     && !collectionName.equals(embeddingConfig.getText2sqlCollectionName())) {
                 embeddingStore = InMemoryEmbeddingStore.fromFile(filePath);
-                embeddingStore.entries = new CopyOnWriteArraySet<>(embeddingStore.entries);
+                embeddingStore.entries = newConcurrentSet(embeddingStore.entries);
+                embeddingStore.setCollectionName(collectionName);
                 log.info("embeddingStore reload from file:{}", filePath);
             }
         } catch (Exception e) {
@@ -70,6 +72,12 @@ public class InMemoryEmbeddingStoreFactory extends BaseEmbeddingStoreFactory {
         return embeddingStore;
     }
 
+    private static <T> Set<T> newConcurrentSet(Set<T> set) {
+        Set<T> concurrentSet = ConcurrentHashMap.newKeySet();
+        concurrentSet.addAll(set);
+        return concurrentSet;
+    }
+
     public synchronized void persistFile() {
         if (MapUtils.isEmpty(super.collectionNameToStore)) {
             return;
@@ -3,6 +3,7 @@ package dev.langchain4j.provider;
 import com.tencent.supersonic.common.config.EmbeddingModelParameterConfig;
 import com.tencent.supersonic.common.pojo.ChatModelConfig;
 import com.tencent.supersonic.common.pojo.EmbeddingModelConfig;
+import com.tencent.supersonic.common.service.ChatModelGateway;
 import com.tencent.supersonic.common.util.ContextUtils;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
@@ -34,7 +35,12 @@ public class ModelProvider {
         }
         ModelFactory modelFactory = factories.get(modelConfig.getProvider().toUpperCase());
         if (modelFactory != null) {
-            return modelFactory.createChatModel(modelConfig);
+            ChatLanguageModel chatModel = modelFactory.createChatModel(modelConfig);
+            // outside of an application context, e.g. in unit tests, models are not gated
+            if (ContextUtils.getContext() == null) {
+                return chatModel;
+            }
+            return ContextUtils.getBean(ChatModelGateway.class).wrap(modelConfig, chatModel);
         }
 
         throw new RuntimeException(
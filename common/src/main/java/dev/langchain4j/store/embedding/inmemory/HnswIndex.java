@@ -0,0 +1,541 @@
+package dev.langchain4j.store.embedding.inmemory;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A nearest neighbour index over the entries of an {@link InMemoryEmbeddingStore}. Entries are
+ * partitioned by the value of a metadata key, entries without it fall into a default partition, and
+ * a search whose filter pins that key only visits the matching partitions. Each partition keeps its
+ * vectors in one contiguous float array and is guarded by a lock of its own, so inserts into
+ * different partitions do not contend. The entries of the store are updated under the same lock as
+ * the partition, so they never disagree with the index. Small partitions are scanned exactly,
+ * larger ones are searched through a hierarchical navigable small world graph. Removed entries stay
+ * in the graph to keep it connected until half of a partition is removed, then the partition is
+ * rebuilt.
+ */
+class HnswIndex<Embedded> {
+
+    /** partitions up to this size are scanned exactly */
+    static final int EXACT_SEARCH_THRESHOLD = 2000;
+
+    private static final int M = 16;
+
+    private static final int MAX_M0 = 2 * M;
+
+    private static final int EF_CONSTRUCTION = 100;
+
+    private static final int EF_SEARCH = 128;
+
+    private static final double LEVEL_MULTIPLIER = 1 / Math.log(M);
+
+    private static final Comparator<Candidate> BY_SIMILARITY =
+            Comparator.comparingDouble(c -> c.similarity);
+
+    private final String partitionKey;
+
+    private final String defaultPartition;
+
+    private final Set<InMemoryEmbeddingStore.Entry<Embedded>> entries;
+
+    private final Map<String, Partition<Embedded>> partitions = new ConcurrentHashMap<>();
+
+    /** indexes the entries, which are then only changed through this index */
+    HnswIndex(String partitionKey, String defaultPartition,
+            Set<InMemoryEmbeddingStore.Entry<Embedded>> entries) {
+        this.partitionKey = partitionKey;
+        this.defaultPartition = defaultPartition;
+        this.entries = entries;
+        new ArrayList<>(entries).forEach(entry -> getPartition(entry).load(entry));
+    }
+
+    void add(InMemoryEmbeddingStore.Entry<Embedded> entry) {
+        getPartition(entry).add(entry);
+    }
+
+    void remove(Collection<String> ids) {
+        Set<String> idSet = ids instanceof Set ? (Set<String>) ids : new HashSet<>(ids);
+        partitions.values().forEach(partition -> partition.remove(idSet));
+    }
+
+    /** removes the entries whose metadata the filter accepts */
+    void remove(Filter filter) {
+        Set<String> partitionValues = getPartitionValues(filter);
+        for (Map.Entry<String, Partition<Embedded>> entry : partitions.entrySet()) {
+            if (partitionValues == null || partitionValues.contains(entry.getKey())) {
+                entry.getValue().remove(filter);
+            }
+        }
+    }
+
+    void clear() {
+        partitions.values().forEach(Partition::clear);
+    }
+
+    /**
+     * Returns the best matches reaching the minimum score, best first. The filter is tested on
+     * every returned match.
+     */
+    List<EmbeddingMatch<Embedded>> search(float[] query, int maxResults, double minScore,
+            Filter filter) {
+        PriorityQueue<EmbeddingMatch<Embedded>> matches =
+                new PriorityQueue<>(Comparator.comparingDouble(EmbeddingMatch::score));
+        Set<String> partitionValues = filter == null ? null : getPartitionValues(filter);
+        double queryNorm = norm(query, 0, query.length);
+        for (Map.Entry<String, Partition<Embedded>> entry : partitions.entrySet()) {
+            if (partitionValues != null && !partitionValues.contains(entry.getKey())) {
+                continue;
+            }
+            entry.getValue().search(query, queryNorm, maxResults, minScore, filter, matches);
+        }
+        List<EmbeddingMatch<Embedded>> result = new ArrayList<>(matches);
+        result.sort(Comparator.comparingDouble(EmbeddingMatch<Embedded>::score).reversed());
+        return result;
+    }
+
+    private Partition<Embedded> getPartition(InMemoryEmbeddingStore.Entry<Embedded> entry) {
+        String partition = defaultPartition;
+        if (entry.embedded instanceof TextSegment) {
+            Object value = ((TextSegment) entry.embedded).metadata().toMap().get(partitionKey);
+            if (value != null) {
+                partition = value.toString();
+            }
+        }
+        return partitions.computeIfAbsent(partition, k -> new Partition<>(entries));
+    }
+
+    /** values of the partition key a filter accepts, null if it accepts any */
+    private Set<String> getPartitionValues(Filter filter) {
+        if (filter instanceof IsEqualTo isEqualTo && partitionKey.equals(isEqualTo.key())) {
+            Set<String> values = new HashSet<>();
+            values.add(String.valueOf(isEqualTo.comparisonValue()));
+            return values;
+        }
+        if (filter instanceof IsIn isIn && partitionKey.equals(isIn.key())) {
+            Set<String> values = new HashSet<>();
+            isIn.comparisonValues().forEach(value -> values.add(String.valueOf(value)));
+            return values;
+        }
+        if (filter instanceof Or or) {
+            Set<String> left = getPartitionValues(or.left());
+            Set<String> right = getPartitionValues(or.right());
+            if (left == null || right == null) {
+                return null;
+            }
+            left.addAll(right);
+            return left;
+        }
+        if (filter instanceof And and) {
+            Set<String> left = getPartitionValues(and.left());
+            Set<String> right = getPartitionValues(and.right());
+            if (left == null || right == null) {
+                return left == null ? right : left;
+            }
+            left.retainAll(right);
+            return left;
+        }
+        return null;
+    }
+
+    private static double norm(float[] vectors, int offset, int dimension) {
+        double sum = 0;
+        for (int i = offset; i < offset + dimension; i++) {
+            sum += vectors[i] * vectors[i];
+        }
+        return Math.sqrt(sum);
+    }
+
+    private static class Candidate {
+
+        private final int node;
+
+        private final double similarity;
+
+        private Candidate(int node, double similarity) {
+            this.node = node;
+            this.similarity = similarity;
+        }
+    }
+
+    private static class Partition<Embedded> {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private final Set<InMemoryEmbeddingStore.Entry<Embedded>> entries;
+
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        private final List<InMemoryEmbeddingStore.Entry<Embedded>> nodes = new ArrayList<>();
+
+        /** links.get(node)[level] holds the neighbours of the node on that level */
+        private final List<int[][]> links = new ArrayList<>();
+
+        private final Map<String, Integer> idToNode = new HashMap<>();
+
+        private final BitSet removed = new BitSet();
+
+        private int dimension = -1;
+
+        private float[] vectors = new float[0];
+
+        private double[] norms = new double[0];
+
+        private int entryPoint = -1;
+
+        private int maxLevel = -1;
+
+        private Partition(Set<InMemoryEmbeddingStore.Entry<Embedded>> entries) {
+            this.entries = entries;
+        }
+
+        /** indexes an entry already in the entries of the store */
+        private void load(InMemoryEmbeddingStore.Entry<Embedded> entry) {
+            lock.writeLock().lock();
+            try {
+                insert(entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void add(InMemoryEmbeddingStore.Entry<Embedded> entry) {
+            lock.writeLock().lock();
+            try {
+                insert(entry);
+                entries.add(entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void remove(Set<String> ids) {
+            lock.writeLock().lock();
+            try {
+                removeNodes(ids);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void remove(Filter filter) {
+            lock.writeLock().lock();
+            try {
+                List<String> ids = new ArrayList<>();
+                for (Map.Entry<String, Integer> idNode : idToNode.entrySet()) {
+                    Embedded embedded = nodes.get(idNode.getValue()).embedded;
+                    if (embedded instanceof TextSegment) {
+                        if (filter.test(((TextSegment) embedded).metadata())) {
+                            ids.add(idNode.getKey());
+                        }
+                    } else if (embedded != null) {
+                        throw new UnsupportedOperationException("Not supported yet.");
+                    }
+                }
+                removeNodes(ids);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void clear() {
+            lock.writeLock().lock();
+            try {
+                idToNode.values().forEach(node -> entries.remove(nodes.get(node)));
+                reset();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeNodes(Collection<String> ids) {
+            boolean changed = false;
+            for (String id : ids) {
+                Integer node = idToNode.remove(id);
+                if (node != null) {
+                    entries.remove(nodes.get(node));
+                    removed.set(node);
+                    changed = true;
+                }
+            }
+            if (changed && removed.cardinality() * 2 > nodes.size()) {
+                rebuild();
+            }
+        }
+
+        private void search(float[] query, double queryNorm, int maxResults, double minScore,
+                Filter filter, PriorityQueue<EmbeddingMatch<Embedded>> matches) {
+            PriorityQueue<EmbeddingMatch<Embedded>> partitionMatches =
+                    new PriorityQueue<>(matches.comparator());
+            lock.readLock().lock();
+            try {
+                if (idToNode.isEmpty()) {
+                    return;
+                }
+                checkDimension(query.length);
+                if (nodes.size() <= EXACT_SEARCH_THRESHOLD) {
+                    scan(query, queryNorm, maxResults, minScore, filter, partitionMatches);
+                } else {
+                    // a filter may reject most candidates, so look further before giving up
+                    int ef = Math.max(EF_SEARCH, maxResults) * (filter == null ? 1 : 4);
+                    for (Candidate candidate : searchGraph(query, queryNorm, ef)) {
+                        offer(candidate.node, candidate.similarity, maxResults, minScore, filter,
+                                partitionMatches);
+                    }
+                    if (filter != null && partitionMatches.size() < maxResults) {
+                        partitionMatches.clear();
+                        scan(query, queryNorm, maxResults, minScore, filter, partitionMatches);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (EmbeddingMatch<Embedded> match : partitionMatches) {
+                matches.add(match);
+                if (matches.size() > maxResults) {
+                    matches.poll();
+                }
+            }
+        }
+
+        private void scan(float[] query, double queryNorm, int maxResults, double minScore,
+                Filter filter, PriorityQueue<EmbeddingMatch<Embedded>> matches) {
+            for (int node = 0; node < nodes.size(); node++) {
+                offer(node, similarity(query, queryNorm, node), maxResults, minScore, filter,
+                        matches);
+            }
+        }
+
+        private void offer(int node, double similarity, int maxResults, double minScore,
+                Filter filter, PriorityQueue<EmbeddingMatch<Embedded>> matches) {
+            if (removed.get(node)) {
+                return;
+            }
+            double score = RelevanceScore.fromCosineSimilarity(similarity);
+            if (score < minScore) {
+                return;
+            }
+            if (matches.size() >= maxResults && score <= matches.peek().score()) {
+                return;
+            }
+            InMemoryEmbeddingStore.Entry<Embedded> entry = nodes.get(node);
+            if (filter != null && entry.embedded instanceof TextSegment
+                    && !filter.test(((TextSegment) entry.embedded).metadata())) {
+                return;
+            }
+            matches.add(new EmbeddingMatch<>(score, entry.id, entry.embedding, entry.embedded));
+            if (matches.size() > maxResults) {
+                matches.poll();
+            }
+        }
+
+        private void insert(InMemoryEmbeddingStore.Entry<Embedded> entry) {
+            float[] vector = entry.embedding.vector();
+            if (dimension < 0) {
+                dimension = vector.length;
+            }
+            checkDimension(vector.length);
+            Integer existing = idToNode.get(entry.id);
+            if (existing != null) {
+                entries.remove(nodes.get(existing));
+                removed.set(existing);
+            }
+            int node = nodes.size();
+            if ((node + 1) * dimension > vectors.length) {
+                int capacity = Math.max(16, node * 2);
+                float[] newVectors = new float[capacity * dimension];
+                System.arraycopy(vectors, 0, newVectors, 0, node * dimension);
+                vectors = newVectors;
+                double[] newNorms = new double[capacity];
+                System.arraycopy(norms, 0, newNorms, 0, node);
+                norms = newNorms;
+            }
+            System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+            norms[node] = norm(vectors, node * dimension, dimension);
+            nodes.add(entry);
+            idToNode.put(entry.id, node);
+
+            int level = (int) (-Math.log(1 - random.nextDouble()) * LEVEL_MULTIPLIER);
+            int[][] nodeLinks = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                nodeLinks[l] = new int[0];
+            }
+            links.add(nodeLinks);
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            double queryNorm = norms[node];
+            Candidate nearest =
+                    new Candidate(entryPoint, similarity(vector, queryNorm, entryPoint));
+            for (int l = maxLevel; l > level; l--) {
+                nearest = greedySearch(vector, queryNorm, nearest, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> candidates =
+                        searchLayer(vector, queryNorm, nearest, EF_CONSTRUCTION, l);
+                int maxLinks = l == 0 ? MAX_M0 : M;
+                int[] neighbours = candidates.stream().filter(c -> c.node != node).limit(maxLinks)
+                        .mapToInt(c -> c.node).toArray();
+                nodeLinks[l] = neighbours;
+                for (int neighbour : neighbours) {
+                    connect(neighbour, node, l, maxLinks);
+                }
+                nearest = candidates.get(0);
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+        }
+
+        /** links the node to the neighbour, dropping the neighbour's farthest link if full */
+        private void connect(int neighbour, int node, int level, int maxLinks) {
+            int[] neighbourLinks = links.get(neighbour)[level];
+            int[] newLinks = new int[neighbourLinks.length + 1];
+            System.arraycopy(neighbourLinks, 0, newLinks, 0, neighbourLinks.length);
+            newLinks[neighbourLinks.length] = node;
+            if (newLinks.length > maxLinks) {
+                int offset = neighbour * dimension;
+                double neighbourNorm = norms[neighbour];
+                List<Candidate> candidates = new ArrayList<>(newLinks.length);
+                for (int link : newLinks) {
+                    candidates.add(
+                            new Candidate(link, similarity(vectors, offset, neighbourNorm, link)));
+                }
+                candidates.sort(BY_SIMILARITY.reversed());
+                newLinks = candidates.stream().limit(maxLinks).mapToInt(c -> c.node).toArray();
+            }
+            links.get(neighbour)[level] = newLinks;
+        }
+
+        private List<Candidate> searchGraph(float[] query, double queryNorm, int ef) {
+            Candidate nearest = new Candidate(entryPoint, similarity(query, queryNorm, entryPoint));
+            for (int l = maxLevel; l > 0; l--) {
+                nearest = greedySearch(query, queryNorm, nearest, l);
+            }
+            return searchLayer(query, queryNorm, nearest, ef, 0);
+        }
+
+        private Candidate greedySearch(float[] query, double queryNorm, Candidate start,
+                int level) {
+            Candidate nearest = start;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int neighbour : links.get(nearest.node)[level]) {
+                    double similarity = similarity(query, queryNorm, neighbour);
+                    if (similarity > nearest.similarity) {
+                        nearest = new Candidate(neighbour, similarity);
+                        changed = true;
+                    }
+                }
+            }
+            return nearest;
+        }
+
+        /** the ef nodes nearest to the query found on the level, nearest first */
+        private List<Candidate> searchLayer(float[] query, double queryNorm, Candidate start,
+                int ef, int level) {
+            BitSet visited = new BitSet(nodes.size());
+            visited.set(start.node);
+            PriorityQueue<Candidate> candidates = new PriorityQueue<>(BY_SIMILARITY.reversed());
+            PriorityQueue<Candidate> nearest = new PriorityQueue<>(BY_SIMILARITY);
+            candidates.add(start);
+            nearest.add(start);
+            while (!candidates.isEmpty()) {
+                Candidate candidate = candidates.poll();
+                if (nearest.size() >= ef && candidate.similarity < nearest.peek().similarity) {
+                    break;
+                }
+                int[][] nodeLinks = links.get(candidate.node);
+                if (level >= nodeLinks.length) {
+                    continue;
+                }
+                for (int neighbour : nodeLinks[level]) {
+                    if (visited.get(neighbour)) {
+                        continue;
+                    }
+                    visited.set(neighbour);
+                    double similarity = similarity(query, queryNorm, neighbour);
+                    if (nearest.size() < ef || similarity > nearest.peek().similarity) {
+                        Candidate next = new Candidate(neighbour, similarity);
+                        candidates.add(next);
+                        nearest.add(next);
+                        if (nearest.size() > ef) {
+                            nearest.poll();
+                        }
+                    }
+                }
+            }
+            List<Candidate> result = new ArrayList<>(nearest);
+            result.sort(BY_SIMILARITY.reversed());
+            return result;
+        }
+
+        private void rebuild() {
+            List<InMemoryEmbeddingStore.Entry<Embedded>> live = new ArrayList<>(idToNode.size());
+            for (int node = 0; node < nodes.size(); node++) {
+                if (!removed.get(node)) {
+                    live.add(nodes.get(node));
+                }
+            }
+            reset();
+            live.forEach(this::insert);
+        }
+
+        private void reset() {
+            nodes.clear();
+            links.clear();
+            idToNode.clear();
+            removed.clear();
+            vectors = new float[0];
+            norms = new double[0];
+            entryPoint = -1;
+            maxLevel = -1;
+        }
+
+        private void checkDimension(int length) {
+            if (dimension >= 0 && length != dimension) {
+                throw new IllegalArgumentException(String.format(
+                        "Length of vector a (%s) must be equal to the length of vector b (%s)",
+                        length, dimension));
+            }
+        }
+
+        private double similarity(float[] query, double queryNorm, int node) {
+            return similarity(query, 0, queryNorm, node);
+        }
+
+        private double similarity(float[] query, int queryOffset, double queryNorm, int node) {
+            double dot = 0;
+            int offset = node * dimension;
+            for (int i = 0; i < dimension; i++) {
+                dot += query[queryOffset + i] * vectors[offset + i];
+            }
+            double norms = queryNorm * this.norms[node];
+            return norms == 0 ? 0 : dot / norms;
+        }
+    }
+}
@@ -1,30 +1,23 @@
 package dev.langchain4j.store.embedding.inmemory;
 
-import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.spi.store.embedding.inmemory.InMemoryEmbeddingStoreJsonCodecFactory;
-import dev.langchain4j.store.embedding.CosineSimilarity;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingSearchResult;
 import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.RelevanceScore;
 import dev.langchain4j.store.embedding.filter.Filter;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
-import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.IntStream;
 
 import static dev.langchain4j.internal.Utils.randomUUID;
@@ -34,14 +27,16 @@ import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
 import static dev.langchain4j.spi.ServiceHelper.loadFactories;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
-import static java.util.Comparator.comparingDouble;
 import static java.util.stream.Collectors.toList;
 
 /**
  * An {@link EmbeddingStore} that stores embeddings in memory.
  *
  * <p>
- * Uses a brute force approach by iterating over all embeddings to find the best matches.
+ * Searches through a {@link HnswIndex} partitioned by model id, entries without one are kept in a
+ * partition named after the collection. Small partitions are scanned exactly and larger ones
+ * searched approximately. The index is built from the entries when first used, from then on the
+ * entries are only changed through the index.
  *
  * <p>
  * This store can be persisted using the {@link #serializeToJson()} and
@@ -56,7 +51,26 @@ import static java.util.stream.Collectors.toList;
  */
 public class InMemoryEmbeddingStore<Embedded> implements EmbeddingStore<Embedded> {
 
-    public Set<Entry<Embedded>> entries = new CopyOnWriteArraySet<>();
+    /** metadata key the index is partitioned by, meta embeddings are searched by model id */
+    static final String PARTITION_KEY = "modelId";
+
+    public Set<Entry<Embedded>> entries = ConcurrentHashMap.newKeySet();
+
+    /** partition of the entries without a model id */
+    private transient String collectionName = "";
+
+    private transient volatile HnswIndex<Embedded> index;
+
+    public InMemoryEmbeddingStore() {}
+
+    public InMemoryEmbeddingStore(String collectionName) {
+        this.collectionName = collectionName;
+    }
+
+    /** names the partition of the entries without a model id, before the store is first used */
+    public void setCollectionName(String collectionName) {
+        this.collectionName = collectionName;
+    }
 
     @Override
     public String add(Embedding embedding) {
@@ -78,12 +92,13 @@ public class InMemoryEmbeddingStore<Embedded> implements EmbeddingStore<Embedded
     }
 
     public void add(String id, Embedding embedding, Embedded embedded) {
-        entries.add(new Entry<>(id, embedding, embedded));
+        getIndex().add(new Entry<>(id, embedding, embedded));
     }
 
     private List<String> add(List<Entry<Embedded>> newEntries) {
 
-        entries.addAll(newEntries);
+        HnswIndex<Embedded> index = getIndex();
+        newEntries.forEach(index::add);
 
         return newEntries.stream().map(entry -> entry.id).collect(toList());
     }
@@ -115,62 +130,43 @@ public class InMemoryEmbeddingStore<Embedded> implements EmbeddingStore<Embedded
     public void removeAll(Collection<String> ids) {
         ensureNotEmpty(ids, "ids");
 
-        entries.removeIf(entry -> ids.contains(entry.id));
+        getIndex().remove(ids);
     }
 
     @Override
     public void removeAll(Filter filter) {
         ensureNotNull(filter, "filter");
 
-        entries.removeIf(entry -> {
-            if (entry.embedded instanceof TextSegment) {
-                return filter.test(((TextSegment) entry.embedded).metadata());
-            } else if (entry.embedded == null) {
-                return false;
-            } else {
-                throw new UnsupportedOperationException("Not supported yet.");
-            }
-        });
+        getIndex().remove(filter);
     }
 
     @Override
     public void removeAll() {
-        entries.clear();
+        getIndex().clear();
     }
 
     @Override
     public EmbeddingSearchResult<Embedded> search(EmbeddingSearchRequest embeddingSearchRequest) {
+        List<EmbeddingMatch<Embedded>> result =
+                getIndex().search(embeddingSearchRequest.queryEmbedding().vector(),
+                        embeddingSearchRequest.maxResults(), embeddingSearchRequest.minScore(),
+                        embeddingSearchRequest.filter());
+        return new EmbeddingSearchResult<>(result);
+    }
 
-        Comparator<EmbeddingMatch<Embedded>> comparator = comparingDouble(EmbeddingMatch::score);
-        PriorityQueue<EmbeddingMatch<Embedded>> matches = new PriorityQueue<>(comparator);
-
-        Filter filter = embeddingSearchRequest.filter();
-
-        for (Entry<Embedded> entry : entries) {
-
-            if (filter != null && entry.embedded instanceof TextSegment) {
-                Metadata metadata = ((TextSegment) entry.embedded).metadata();
-                if (!filter.test(metadata)) {
-                    continue;
-                }
-            }
-
-            double cosineSimilarity = CosineSimilarity.between(entry.embedding,
-                    embeddingSearchRequest.queryEmbedding());
-            double score = RelevanceScore.fromCosineSimilarity(cosineSimilarity);
-            if (score >= embeddingSearchRequest.minScore()) {
-                matches.add(new EmbeddingMatch<>(score, entry.id, entry.embedding, entry.embedded));
-                if (matches.size() > embeddingSearchRequest.maxResults()) {
-                    matches.poll();
+    /** the index is not persisted, it is built from the entries, e.g. after loading from JSON */
+    private HnswIndex<Embedded> getIndex() {
+        HnswIndex<Embedded> current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new HnswIndex<>(PARTITION_KEY, collectionName, entries);
+                    index = current;
                 }
             }
         }
-
-        List<EmbeddingMatch<Embedded>> result = new ArrayList<>(matches);
-        result.sort(comparator);
-        Collections.reverse(result);
-
-        return new EmbeddingSearchResult<>(result);
+        return current;
     }
 
     public String serializeToJson() {
@@ -207,7 +203,7 @@ public class InMemoryEmbeddingStore<Embedded> implements EmbeddingStore<Embedded
         return fromFile(Paths.get(filePath));
     }
 
-    private static class Entry<Embedded> {
+    static class Entry<Embedded> {
 
         String id;
         Embedding embedding;
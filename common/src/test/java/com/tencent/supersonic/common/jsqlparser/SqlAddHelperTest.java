@@ -3,6 +3,7 @@ package com.tencent.supersonic.common.jsqlparser;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
@@ -379,4 +380,22 @@ class SqlAddHelperTest {
         Assert.assertEquals("SELECT 用户, 页面 FROM 超音数用户部门 GROUP BY 用户, 页面 ORDER BY count(*) DESC",
                 replaceFields);
     }
+
+    @Test
+    void testAddOnParsedSelect() throws JSQLParserException {
+        String sql = "select 歌曲名 from 歌曲库 where 歌曲名 = '邓紫棋' or 播放量 > 10 group by 歌曲名";
+        Expression expression = CCJSqlParserUtil.parseCondExpression("数据日期 >= '2023-08-09'");
+        Set<String> fieldNames = new HashSet<>();
+        fieldNames.add("播放量");
+
+        Select selectStatement = SqlSelectHelper.getSelect(sql);
+        SqlAddHelper.addParenthesisToWhere(selectStatement);
+        SqlAddHelper.addWhere(selectStatement, expression);
+        SqlAddHelper.addHaving(selectStatement, fieldNames);
+
+        String expectSql = SqlAddHelper.addHaving(
+                SqlAddHelper.addWhere(SqlAddHelper.addParenthesisToWhere(sql), expression),
+                fieldNames);
+        Assert.assertEquals(expectSql, selectStatement.toString());
+    }
 }
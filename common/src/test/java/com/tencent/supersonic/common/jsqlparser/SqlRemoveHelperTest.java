@@ -1,5 +1,6 @@
 package com.tencent.supersonic.common.jsqlparser;
 
+import net.sf.jsqlparser.statement.select.Select;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
@@ -203,6 +204,26 @@ class SqlRemoveHelperTest {
                 replaceSql);
     }
 
+    @Test
+    void testRemoveOnParsedSelect() {
+        String sql = "select 数据日期,歌曲名 from 歌曲库 where 歌曲名 = '邓紫棋' and 数据日期 = '2023-08-09' "
+                + "group by 数据日期,歌曲名";
+
+        Set<String> removeFieldNames = new HashSet<>();
+        removeFieldNames.add("数据日期");
+        Select selectStatement = SqlSelectHelper.getSelect(sql);
+        SqlRemoveHelper.removeWhereCondition(selectStatement, removeFieldNames);
+        SqlRemoveHelper.removeSelect(selectStatement, removeFieldNames);
+        SqlRemoveHelper.removeGroupBy(selectStatement, removeFieldNames);
+
+        String expectSql = SqlRemoveHelper.removeGroupBy(SqlRemoveHelper.removeSelect(
+                SqlRemoveHelper.removeWhereCondition(sql, removeFieldNames), removeFieldNames),
+                removeFieldNames);
+        Assert.assertEquals(expectSql, selectStatement.toString());
+        Assert.assertEquals("SELECT 歌曲名 FROM 歌曲库 WHERE 歌曲名 = '邓紫棋' GROUP BY 歌曲名",
+                selectStatement.toString());
+    }
+
     @Test
     void testRemoveIsNullInWhere() {
         String sql = "select 数据日期 from 歌曲库 where 歌曲名 is null and 数据日期 = '2023-08-09' and "
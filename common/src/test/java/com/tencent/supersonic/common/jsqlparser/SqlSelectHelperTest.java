@@ -1,10 +1,12 @@
 package com.tencent.supersonic.common.jsqlparser;
 
+import com.google.common.collect.Sets;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.statement.select.Select;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
 import java.util.List;
 
 /** SqlParserSelectHelper Test */
@@ -297,4 +299,18 @@ class SqlSelectHelperTest {
         Boolean hasGroupBy = SqlSelectHelper.hasGroupBy(sql);
         Assert.assertEquals(hasGroupBy, true);
     }
+
+    @Test
+    void testLookupsNotAffectedByEdits() {
+        String sql = "select 部门, 用户 from 超音数 where 数据日期 = '2023-08-08'";
+        Assert.assertEquals(Sets.newHashSet("部门", "用户"),
+                new HashSet<>(SqlSelectHelper.getSelectFields(sql)));
+
+        Select selectStatement = SqlSelectHelper.getSelect(sql);
+        SqlRemoveHelper.removeSelect(selectStatement, Sets.newHashSet("用户"));
+
+        Assert.assertEquals(Sets.newHashSet("部门", "用户"),
+                new HashSet<>(SqlSelectHelper.getSelectFields(sql)));
+        Assert.assertEquals("超音数", SqlSelectHelper.getTableName(sql));
+    }
 }
@@ -0,0 +1,56 @@
+package com.tencent.supersonic.common.service;
+
+import com.tencent.supersonic.common.pojo.ChatModelCallStats;
+import com.tencent.supersonic.common.pojo.ChatModelConfig;
+import com.tencent.supersonic.common.service.impl.ChatModelGatewayImpl;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ChatModelGatewayTest {
+
+    @Test
+    void testCoalesceAndReject() throws Exception {
+        ChatModelGateway gateway = new ChatModelGatewayImpl(true, 1, 0);
+        ChatModelConfig modelConfig = ChatModelConfig.builder().provider("OPEN_AI")
+                .baseUrl("http://localhost").modelName("test").timeOut(1L).build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ChatLanguageModel model = gateway.wrap(modelConfig, messages -> {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Response.from(AiMessage.from("SELECT 1"), new TokenUsage(10, 2));
+        });
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> model.generate("q"));
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<String> same = CompletableFuture.supplyAsync(() -> model.generate("q"));
+        // the only permit is taken, a different call gives up after the model timeout
+        Assertions.assertThrows(RuntimeException.class, () -> model.generate("other"));
+        release.countDown();
+        Assertions.assertEquals("SELECT 1", first.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals("SELECT 1", same.get(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(1, calls.get());
+        ChatModelCallStats stats = gateway.getStats().get(0);
+        Assertions.assertEquals(2, stats.getCallCount());
+        Assertions.assertEquals(1, stats.getCoalescedCount());
+        Assertions.assertEquals(1, stats.getRejectedCount());
+        Assertions.assertEquals(10, stats.getInputTokenCount());
+        Assertions.assertEquals(0, stats.getActiveCount());
+    }
+}
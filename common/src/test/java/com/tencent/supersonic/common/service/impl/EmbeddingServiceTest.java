@@ -0,0 +1,117 @@
+package com.tencent.supersonic.common.service.impl;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.TextSegmentConvert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class EmbeddingServiceTest {
+
+    private final ThreadPoolExecutor executor =
+            new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    private final EmbeddingServiceImpl embeddingService = new EmbeddingServiceImpl();
+
+    /** texts of each embedAll call */
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+
+    private final EmbeddingModel embeddingModel = segments -> {
+        List<String> texts = segments.stream().map(TextSegment::text).collect(Collectors.toList());
+        calls.add(texts);
+        if (texts.contains("bad")) {
+            throw new IllegalStateException("embedding failed");
+        }
+        return Response.from(segments.stream().map(segment -> Embedding.from(new float[] {1f}))
+                .collect(Collectors.toList()));
+    };
+
+    EmbeddingServiceTest() {
+        ReflectionTestUtils.setField(embeddingService, "embeddingExecutor", executor);
+        ReflectionTestUtils.setField(embeddingService, "batchSize", 2);
+        ReflectionTestUtils.setField(embeddingService, "parallelism", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testAddInBatches() {
+        EmbeddingStore<TextSegment> store = Mockito.mock(EmbeddingStore.class);
+        embeddingService.addQuery("c", segments("1", "2", "3", "4", "5"), store, embeddingModel,
+                "model");
+
+        Assertions.assertEquals(Arrays.asList(Arrays.asList("1", "2"), Arrays.asList("3", "4"),
+                Collections.singletonList("5")), calls);
+        Mockito.verify(store, Mockito.times(3)).addAll(ArgumentMatchers.anyList(),
+                ArgumentMatchers.anyList());
+    }
+
+    @Test
+    void testEmbedOneByOneOnBatchFailure() {
+        EmbeddingStore<TextSegment> store = Mockito.mock(EmbeddingStore.class);
+        embeddingService.addQuery("c", segments("1", "bad"), store, embeddingModel, "model");
+
+        Assertions.assertEquals(Arrays.asList(Arrays.asList("1", "bad"),
+                Collections.singletonList("1"), Collections.singletonList("bad")), calls);
+        // only the segment embedded is added, the failed one is retried on the next add
+        Mockito.verify(store, Mockito.times(1)).addAll(ArgumentMatchers.anyList(),
+                ArgumentMatchers.anyList());
+        calls.clear();
+        embeddingService.addQuery("c", segments("1", "bad"), store, embeddingModel, "model");
+        Assertions.assertEquals(Collections.singletonList(Collections.singletonList("bad")), calls);
+    }
+
+    @Test
+    void testSkipUnchangedSegments() {
+        EmbeddingStore<TextSegment> store = Mockito.mock(EmbeddingStore.class);
+        embeddingService.addQuery("c", segments("1", "2"), store, embeddingModel, "model");
+        calls.clear();
+
+        embeddingService.addQuery("c", segments("1", "2"), store, embeddingModel, "model");
+        Assertions.assertTrue(calls.isEmpty());
+
+        List<TextSegment> changed = segments("1", "2");
+        changed.set(1, segment("2", "two"));
+        embeddingService.addQuery("c", changed, store, embeddingModel, "model");
+        Assertions.assertEquals(Collections.singletonList(Collections.singletonList("two")), calls);
+
+        // the same query ids in another collection, or with another model, are embedded again
+        calls.clear();
+        embeddingService.addQuery("c2", segments("1"), store, embeddingModel, "model");
+        embeddingService.addQuery("c", segments("1"), store, embeddingModel, "model2");
+        Assertions.assertEquals(2, calls.size());
+    }
+
+    private List<TextSegment> segments(String... queryIds) {
+        List<TextSegment> segments = new ArrayList<>();
+        for (String queryId : queryIds) {
+            segments.add(segment(queryId, queryId));
+        }
+        return segments;
+    }
+
+    private TextSegment segment(String queryId, String text) {
+        TextSegment segment = TextSegment.from(text);
+        TextSegmentConvert.addQueryId(segment, queryId);
+        return segment;
+    }
+}
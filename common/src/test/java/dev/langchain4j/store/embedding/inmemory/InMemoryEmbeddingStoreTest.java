@@ -0,0 +1,182 @@
+package dev.langchain4j.store.embedding.inmemory;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class InMemoryEmbeddingStoreTest {
+
+    private static final int DIMENSION = 32;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void testApproximateSearchRecall() {
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        List<Embedding> embeddings = new ArrayList<>();
+        List<TextSegment> segments = new ArrayList<>();
+        for (int i = 0; i < HnswIndex.EXACT_SEARCH_THRESHOLD * 2; i++) {
+            embeddings.add(randomEmbedding());
+            segments.add(TextSegment.from("text" + i));
+        }
+        store.addAll(embeddings, segments);
+
+        int found = 0;
+        int queries = 50;
+        for (int i = 0; i < queries; i++) {
+            Embedding query = randomEmbedding();
+            Set<String> expected = exactSearch(store, query, 10);
+            found += (int) store
+                    .search(EmbeddingSearchRequest.builder().queryEmbedding(query).maxResults(10)
+                            .build())
+                    .matches().stream().filter(match -> expected.contains(match.embeddingId()))
+                    .count();
+        }
+        Assertions.assertTrue(found >= queries * 10 * 0.9, "recall too low: " + found);
+    }
+
+    @Test
+    void testSearchByPartitionAndRemove() {
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        Embedding embedding = randomEmbedding();
+        for (int i = 0; i < 10; i++) {
+            Metadata metadata = new Metadata().put("modelId", i % 2 + "_").put("type", "METRIC");
+            store.add(i % 2 == 0 ? embedding : randomEmbedding(),
+                    TextSegment.from("text" + i, metadata));
+        }
+
+        List<EmbeddingMatch<TextSegment>> matches =
+                store.search(EmbeddingSearchRequest.builder().queryEmbedding(embedding)
+                        .filter(new IsEqualTo("modelId", "0_")).maxResults(3).build()).matches();
+        Assertions.assertEquals(3, matches.size());
+        matches.forEach(match -> Assertions.assertEquals("0_",
+                match.embedded().metadata().getString("modelId")));
+        Assertions.assertTrue(matches.get(0).score() > 0.99);
+
+        store.removeAll(new IsEqualTo("modelId", "0_"));
+        Assertions.assertEquals(5, store.entries.size());
+        matches = store.search(
+                EmbeddingSearchRequest.builder().queryEmbedding(embedding).maxResults(10).build())
+                .matches();
+        Assertions.assertEquals(5, matches.size());
+        matches.forEach(match -> Assertions.assertEquals("1_",
+                match.embedded().metadata().getString("modelId")));
+    }
+
+    @Test
+    void testReloadFromJson() {
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        Embedding embedding = randomEmbedding();
+        String id = store.add(embedding, TextSegment.from("text"));
+        store.add(randomEmbedding(), TextSegment.from("other"));
+
+        InMemoryEmbeddingStore<TextSegment> reloaded =
+                InMemoryEmbeddingStore.fromJson(store.serializeToJson());
+        List<EmbeddingMatch<TextSegment>> matches = reloaded.search(
+                EmbeddingSearchRequest.builder().queryEmbedding(embedding).maxResults(1).build())
+                .matches();
+        Assertions.assertEquals(id, matches.get(0).embeddingId());
+    }
+
+    @Test
+    void testEntriesFollowConcurrentUpdates() throws Exception {
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>("collection");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String modelId = t % 2 + "_";
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    Metadata metadata = new Metadata().put("queryId", String.valueOf(i % 20));
+                    if (i % 3 > 0) {
+                        metadata.put("modelId", modelId);
+                    }
+                    store.add(randomEmbedding(), TextSegment.from("text" + i, metadata));
+                    if (i % 10 == 0) {
+                        store.removeAll(new IsEqualTo("queryId", String.valueOf(i % 20)));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Set<String> indexed = store
+                .search(EmbeddingSearchRequest.builder().queryEmbedding(randomEmbedding())
+                        .maxResults(10000).minScore(0.0).build())
+                .matches().stream().map(EmbeddingMatch::embeddingId).collect(Collectors.toSet());
+        Set<String> stored =
+                store.entries.stream().map(entry -> entry.id).collect(Collectors.toSet());
+        Assertions.assertEquals(stored, indexed);
+        Assertions.assertEquals(store.entries.size(), stored.size());
+
+        // entries without a model id are removed and cleared like the others
+        store.removeAll(new IsEqualTo("queryId", "1"));
+        Assertions.assertTrue(store.entries.stream()
+                .noneMatch(entry -> "1".equals(entry.embedded.metadata().getString("queryId"))));
+        store.removeAll();
+        Assertions.assertTrue(store.entries.isEmpty());
+        Assertions.assertTrue(store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(randomEmbedding()).minScore(0.0).build()).matches().isEmpty());
+    }
+
+    @Test
+    void testReplaceEntryWithSameId() {
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        store.add("id", randomEmbedding(), TextSegment.from("old"));
+        Embedding embedding = randomEmbedding();
+        store.add("id", embedding, TextSegment.from("new"));
+
+        Assertions.assertEquals(1, store.entries.size());
+        List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(embedding).maxResults(10).minScore(0.0).build()).matches();
+        Assertions.assertEquals(1, matches.size());
+        Assertions.assertEquals("new", matches.get(0).embedded().text());
+    }
+
+    private Set<String> exactSearch(InMemoryEmbeddingStore<TextSegment> store, Embedding query,
+            int maxResults) {
+        float[] q = query.vector();
+        return store.entries.stream()
+                .sorted((a, b) -> Double.compare(cosine(q, b.embedding.vector()),
+                        cosine(q, a.embedding.vector())))
+                .limit(maxResults).map(entry -> entry.id).collect(Collectors.toSet());
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private Embedding randomEmbedding() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return Embedding.from(vector);
+    }
+}
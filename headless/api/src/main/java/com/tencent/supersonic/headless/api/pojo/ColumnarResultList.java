@@ -0,0 +1,409 @@
+package com.tencent.supersonic.headless.api.pojo;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column oriented query result. Values are kept in typed column vectors (primitive arrays for
+ * numbers, dictionary-encoded strings, a null bitmap per column) and exposed to existing callers as
+ * a lazy {@code List<Map<String, Object>>}: a row map is only materialized when a caller modifies
+ * it. Like filling a {@code LinkedHashMap} column by column, a column name given twice keeps its
+ * first position and the value of its last column.
+ */
+public class ColumnarResultList extends AbstractList<Map<String, Object>> implements Serializable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String[] columnNames;
+
+    private final Map<String, Integer> columnIndex;
+
+    /** the column backing each distinct name, in order of the first occurrence of the name */
+    private final int[] keyColumns;
+
+    private final ColumnVector[] columns;
+
+    // rows are read from several threads once the result is built
+    private final Map<Integer, Map<String, Object>> materializedRows = new ConcurrentHashMap<>();
+
+    private int rowCount;
+
+    public ColumnarResultList(List<String> columnNames) {
+        this.columnNames = columnNames.toArray(new String[0]);
+        this.columnIndex = new LinkedHashMap<>();
+        this.columns = new ColumnVector[this.columnNames.length];
+        for (int i = 0; i < this.columnNames.length; i++) {
+            columnIndex.put(this.columnNames[i], i);
+            columns[i] = new PendingVector();
+        }
+        this.keyColumns = columnIndex.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public void addRow(Object[] values) {
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException(
+                    String.format("row has %s values, expected %s", values.length, columns.length));
+        }
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].append(values[i]);
+        }
+        rowCount++;
+    }
+
+    /** Releases building state (dictionary lookups, spare array capacity) once filling is done. */
+    public void seal() {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].seal(rowCount);
+        }
+    }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(Arrays.asList(columnNames));
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public Object getValue(int row, int column) {
+        Objects.checkIndex(row, rowCount);
+        Map<String, Object> materialized = materializedRows.get(row);
+        if (materialized != null) {
+            return materialized.get(columnNames[column]);
+        }
+        return columns[column].get(row);
+    }
+
+    @Override
+    public Map<String, Object> get(int index) {
+        Objects.checkIndex(index, rowCount);
+        return new RowView(index);
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    private Map<String, Object> materialize(int row) {
+        return materializedRows.computeIfAbsent(row, r -> {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < columnNames.length; i++) {
+                map.put(columnNames[i], columns[i].get(r));
+            }
+            return map;
+        });
+    }
+
+    private final class RowView extends AbstractMap<String, Object> {
+
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Map<String, Object> materialized = materializedRows.get(row);
+            if (materialized != null) {
+                return materialized.get(key);
+            }
+            Integer column = columnIndex.get(key);
+            return column == null ? null : columns[column].get(row);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Map<String, Object> materialized = materializedRows.get(row);
+            if (materialized != null) {
+                return materialized.containsKey(key);
+            }
+            return columnIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            Map<String, Object> materialized = materializedRows.get(row);
+            return materialized != null ? materialized.size() : columnIndex.size();
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return materialize(row).put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return materialize(row).remove(key);
+        }
+
+        @Override
+        public void clear() {
+            materialize(row).clear();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> materialized = materializedRows.get(row);
+            if (materialized != null) {
+                return materialized.entrySet();
+            }
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < keyColumns.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int column = keyColumns[next++];
+                            return new SimpleImmutableEntry<>(columnNames[column],
+                                    columns[column].get(row));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keyColumns.length;
+                }
+            };
+        }
+    }
+
+    /** A column vector; {@link #append} returns the vector to use from then on. */
+    private abstract static class ColumnVector implements Serializable {
+
+        protected final BitSet nulls = new BitSet();
+
+        protected int size;
+
+        abstract Object get(int row);
+
+        abstract ColumnVector append(Object value);
+
+        ColumnVector seal(int rowCount) {
+            return this;
+        }
+
+        protected ColumnVector toObjectVector(Object value) {
+            ObjectVector vector = new ObjectVector(Math.max(INITIAL_CAPACITY, size * 2));
+            for (int i = 0; i < size; i++) {
+                vector.append(get(i));
+            }
+            return vector.append(value);
+        }
+    }
+
+    /** Holds leading nulls until the first value decides the column type. */
+    private static class PendingVector extends ColumnVector {
+
+        @Override
+        Object get(int row) {
+            return null;
+        }
+
+        @Override
+        ColumnVector append(Object value) {
+            if (value == null) {
+                size++;
+                return this;
+            }
+            ColumnVector vector;
+            if (value instanceof Long) {
+                vector = new LongVector(false);
+            } else if (value instanceof Integer) {
+                vector = new LongVector(true);
+            } else if (value instanceof Double) {
+                vector = new DoubleVector();
+            } else if (value instanceof String) {
+                vector = new StringVector();
+            } else {
+                vector = new ObjectVector(INITIAL_CAPACITY);
+            }
+            for (int i = 0; i < size; i++) {
+                vector = vector.append(null);
+            }
+            return vector.append(value);
+        }
+    }
+
+    private static class LongVector extends ColumnVector {
+
+        private final boolean intValues;
+
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        LongVector(boolean intValues) {
+            this.intValues = intValues;
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            if (intValues) {
+                return (int) values[row];
+            }
+            return values[row];
+        }
+
+        @Override
+        ColumnVector append(Object value) {
+            if (value != null && !(intValues ? value instanceof Integer : value instanceof Long)) {
+                return toObjectVector(value);
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(INITIAL_CAPACITY, size * 2));
+            }
+            if (value == null) {
+                nulls.set(size);
+            } else {
+                values[size] = ((Number) value).longValue();
+            }
+            size++;
+            return this;
+        }
+
+        @Override
+        ColumnVector seal(int rowCount) {
+            values = Arrays.copyOf(values, rowCount);
+            return this;
+        }
+    }
+
+    private static class DoubleVector extends ColumnVector {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : Double.valueOf(values[row]);
+        }
+
+        @Override
+        ColumnVector append(Object value) {
+            if (value != null && !(value instanceof Double)) {
+                return toObjectVector(value);
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(INITIAL_CAPACITY, size * 2));
+            }
+            if (value == null) {
+                nulls.set(size);
+            } else {
+                values[size] = (Double) value;
+            }
+            size++;
+            return this;
+        }
+
+        @Override
+        ColumnVector seal(int rowCount) {
+            values = Arrays.copyOf(values, rowCount);
+            return this;
+        }
+    }
+
+    /** Dictionary-encoded strings; repeated dimension values are stored once. */
+    private static class StringVector extends ColumnVector {
+
+        private final List<String> dictionary = new ArrayList<>();
+
+        private Map<String, Integer> dictionaryIndex = new HashMap<>();
+
+        private int[] codes = new int[INITIAL_CAPACITY];
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : dictionary.get(codes[row]);
+        }
+
+        @Override
+        ColumnVector append(Object value) {
+            if (value != null && !(value instanceof String)) {
+                return toObjectVector(value);
+            }
+            if (dictionaryIndex == null) {
+                dictionaryIndex = new HashMap<>();
+                for (int i = 0; i < dictionary.size(); i++) {
+                    dictionaryIndex.put(dictionary.get(i), i);
+                }
+            }
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, Math.max(INITIAL_CAPACITY, size * 2));
+            }
+            if (value == null) {
+                nulls.set(size);
+            } else {
+                codes[size] = dictionaryIndex.computeIfAbsent((String) value, v -> {
+                    dictionary.add(v);
+                    return dictionary.size() - 1;
+                });
+            }
+            size++;
+            return this;
+        }
+
+        @Override
+        ColumnVector seal(int rowCount) {
+            codes = Arrays.copyOf(codes, rowCount);
+            dictionaryIndex = null;
+            return this;
+        }
+    }
+
+    private static class ObjectVector extends ColumnVector {
+
+        private Object[] values;
+
+        ObjectVector(int capacity) {
+            values = new Object[capacity];
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        ColumnVector append(Object value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(INITIAL_CAPACITY, size * 2));
+            }
+            values[size++] = value;
+            return this;
+        }
+
+        @Override
+        ColumnVector seal(int rowCount) {
+            values = Arrays.copyOf(values, rowCount);
+            return this;
+        }
+    }
+}
@@ -15,10 +15,21 @@ public class SemanticSchema implements Serializable {
 
     private final List<DataSetSchema> dataSetSchemaList;
 
+    /** schema version the data set schemas were built at, null if they are not versioned */
+    private Long version;
+
     public SemanticSchema(List<DataSetSchema> dataSetSchemaList) {
         this.dataSetSchemaList = dataSetSchemaList;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public void add(DataSetSchema schema) {
         dataSetSchemaList.add(schema);
     }
@@ -0,0 +1,111 @@
+package com.tencent.supersonic.headless.api.pojo;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class ColumnarResultListTest {
+
+    @Test
+    public void testRowView() {
+        ColumnarResultList resultList = buildResultList();
+        Assertions.assertEquals(3, resultList.size());
+
+        Map<String, Object> row = resultList.get(1);
+        Assertions.assertEquals("b", row.get("d1"));
+        Assertions.assertEquals(2L, row.get("m1"));
+        Assertions.assertEquals(Integer.valueOf(20), row.get("m2"));
+        Assertions.assertNull(row.get("m3"));
+        Assertions.assertTrue(row.containsKey("m3"));
+        Assertions.assertEquals(Lists.newArrayList("d1", "m1", "m2", "m3"),
+                Lists.newArrayList(row.keySet()));
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("d1", "a");
+        expected.put("m1", 1L);
+        expected.put("m2", 10);
+        expected.put("m3", 1.5D);
+        Assertions.assertEquals(expected, resultList.get(0));
+    }
+
+    @Test
+    public void testMixedTypesAndMutation() {
+        ColumnarResultList resultList = buildResultList();
+        resultList.addRow(new Object[] {"a", new BigDecimal("4"), null, "x"});
+
+        Assertions.assertEquals(new BigDecimal("4"), resultList.get(3).get("m1"));
+        Assertions.assertEquals(3L, resultList.get(2).get("m1"));
+        Assertions.assertEquals("x", resultList.getValue(3, 3));
+
+        resultList.get(0).put("d1", "A");
+        resultList.get(0).put("extra", true);
+        Assertions.assertEquals("A", resultList.get(0).get("d1"));
+        Assertions.assertEquals(5, resultList.get(0).size());
+        Assertions.assertEquals("a", resultList.get(2).get("d1"));
+    }
+
+    @Test
+    public void testDuplicateColumnNames() {
+        ColumnarResultList resultList =
+                new ColumnarResultList(Lists.newArrayList("d1", "m1", "d1"));
+        resultList.addRow(new Object[] {"a", 1L, "b"});
+        resultList.seal();
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("d1", "a");
+        expected.put("m1", 1L);
+        expected.put("d1", "b");
+        Map<String, Object> row = resultList.get(0);
+        Assertions.assertEquals(expected, row);
+        Assertions.assertEquals(Lists.newArrayList(expected.entrySet()),
+                Lists.newArrayList(row.entrySet()));
+        Assertions.assertEquals("b", row.get("d1"));
+        Assertions.assertEquals(2, row.size());
+    }
+
+    @Test
+    public void testConcurrentMutation() throws Exception {
+        ColumnarResultList resultList = new ColumnarResultList(Lists.newArrayList("d1"));
+        for (int i = 0; i < 2000; i++) {
+            resultList.addRow(new Object[] {"d" + i});
+        }
+        resultList.seal();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < resultList.size(); i++) {
+                Map<String, Object> row = resultList.get(i);
+                futures.add(executor.submit(() -> row.put("extra", true)));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < resultList.size(); i++) {
+            Assertions.assertEquals(true, resultList.get(i).get("extra"));
+            Assertions.assertEquals("d" + i, resultList.get(i).get("d1"));
+        }
+    }
+
+    private static ColumnarResultList buildResultList() {
+        ColumnarResultList resultList =
+                new ColumnarResultList(Lists.newArrayList("d1", "m1", "m2", "m3"));
+        resultList.addRow(new Object[] {"a", 1L, 10, 1.5D});
+        resultList.addRow(new Object[] {"b", 2L, 20, null});
+        resultList.addRow(new Object[] {"a", 3L, null, 3.5D});
+        resultList.seal();
+        return resultList;
+    }
+}
@@ -1,6 +1,7 @@
 package com.tencent.supersonic.headless.chat;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hankcs.hanlp.seg.common.Term;
 import com.tencent.supersonic.common.pojo.enums.Text2SQLType;
 import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
 import com.tencent.supersonic.headless.api.pojo.SchemaMapInfo;
@@ -18,6 +19,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Data
@@ -31,6 +33,14 @@ public class ChatQueryContext implements Serializable {
     @JsonIgnore
     private SemanticSchema semanticSchema;
     private ChatWorkflowState chatWorkflowState;
+    /** number of top scored candidate queries kept for correcting and translating */
+    private int candidateLimit = 1;
+    /** epoch millis at which unfinished mapping tasks are cancelled, 0 until mapping starts */
+    @JsonIgnore
+    private volatile long mappingDeadline;
+    /** segmentation of the texts of this request, shared by the mappers */
+    @JsonIgnore
+    private transient Map<String, List<Term>> segments;
 
     public ChatQueryContext() {
         this(new QueryNLReq());
@@ -57,10 +67,17 @@ public class ChatQueryContext implements Serializable {
                 .sorted(Comparator.comparing(
                         semanticQuery -> semanticQuery.getParseInfo().getScore(),
                         Comparator.reverseOrder()))
-                .limit(1).collect(Collectors.toList());
+                .limit(candidateLimit).collect(Collectors.toList());
         return candidateQueries;
     }
 
+    public Map<String, List<Term>> getSegments() {
+        if (segments == null) {
+            segments = new ConcurrentHashMap<>();
+        }
+        return segments;
+    }
+
     public boolean containsPartitionDimensions(Long dataSetId) {
         SemanticSchema semanticSchema = this.getSemanticSchema();
         DataSetSchema dataSetSchema = semanticSchema.getDataSetSchemaMap().get(dataSetId);
@@ -2,6 +2,7 @@ package com.tencent.supersonic.headless.chat.corrector;
 
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
 import com.tencent.supersonic.common.jsqlparser.SqlRemoveHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
 import com.tencent.supersonic.common.pojo.enums.AggregateTypeEnum;
 import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
@@ -9,6 +10,7 @@ import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
 import com.tencent.supersonic.headless.api.pojo.SemanticSchema;
 import com.tencent.supersonic.headless.chat.ChatQueryContext;
 import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.statement.select.Select;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.util.CollectionUtils;
 
@@ -130,9 +132,11 @@ public abstract class BaseSemanticCorrector implements SemanticCorrector {
                 getFieldNameMapFromDB(chatQueryContext, semanticParseInfo.getDataSetId());
         removeFieldNames.removeIf(fieldName -> fieldNameMap.containsKey(fieldName));
         if (!CollectionUtils.isEmpty(removeFieldNames)) {
-            correctS2SQL = SqlRemoveHelper.removeWhereCondition(correctS2SQL, removeFieldNames);
-            correctS2SQL = SqlRemoveHelper.removeSelect(correctS2SQL, removeFieldNames);
-            correctS2SQL = SqlRemoveHelper.removeGroupBy(correctS2SQL, removeFieldNames);
+            Select selectStatement = SqlSelectHelper.getSelect(correctS2SQL);
+            SqlRemoveHelper.removeWhereCondition(selectStatement, removeFieldNames);
+            SqlRemoveHelper.removeSelect(selectStatement, removeFieldNames);
+            SqlRemoveHelper.removeGroupBy(selectStatement, removeFieldNames);
+            correctS2SQL = selectStatement.toString();
         }
         semanticParseInfo.getSqlInfo().setCorrectedS2SQL(correctS2SQL);
     }
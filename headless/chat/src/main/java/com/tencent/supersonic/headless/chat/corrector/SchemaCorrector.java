@@ -12,6 +12,7 @@ import com.tencent.supersonic.headless.chat.ChatQueryContext;
 import com.tencent.supersonic.headless.chat.parser.llm.ParseResult;
 import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMReq;
 import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.statement.select.Select;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.CollectionUtils;
 
@@ -27,13 +28,24 @@ public class SchemaCorrector extends BaseSemanticCorrector {
 
         removeDateFields(chatQueryContext, semanticParseInfo);
 
-        correctAggFunction(semanticParseInfo);
+        // parse once, apply the corrections to the same tree and deparse once
+        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
+        Select selectStatement = SqlSelectHelper.getSelect(sqlInfo.getCorrectedS2SQL());
+        if (Objects.isNull(selectStatement)) {
+            return;
+        }
+
+        correctAggFunction(selectStatement);
+
+        List<LLMReq.ElementValue> linking = getLinkingValues(semanticParseInfo);
+
+        updateFieldNameByLinkingValue(selectStatement, linking);
 
-        updateFieldNameByLinkingValue(semanticParseInfo);
+        updateFieldValueByLinkingValue(selectStatement, linking);
 
-        updateFieldValueByLinkingValue(semanticParseInfo);
+        correctFieldName(chatQueryContext, semanticParseInfo, selectStatement);
 
-        correctFieldName(chatQueryContext, semanticParseInfo);
+        sqlInfo.setCorrectedS2SQL(selectStatement.toString());
     }
 
     private void removeDateFields(ChatQueryContext chatQueryContext,
@@ -44,24 +56,20 @@ public class SchemaCorrector extends BaseSemanticCorrector {
         removeDateIfExist(chatQueryContext, semanticParseInfo);
     }
 
-    private void correctAggFunction(SemanticParseInfo semanticParseInfo) {
+    private void correctAggFunction(Select selectStatement) {
         Map<String, String> aggregateEnum = AggregateEnum.getAggregateEnum();
-        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
-        String sql = SqlReplaceHelper.replaceFunction(sqlInfo.getCorrectedS2SQL(), aggregateEnum);
-        sqlInfo.setCorrectedS2SQL(sql);
+        SqlReplaceHelper.replaceFunction(selectStatement, aggregateEnum, null);
     }
 
     private void correctFieldName(ChatQueryContext chatQueryContext,
-            SemanticParseInfo semanticParseInfo) {
+            SemanticParseInfo semanticParseInfo, Select selectStatement) {
         Map<String, String> fieldNameMap =
                 getFieldNameMap(chatQueryContext, semanticParseInfo.getDataSetId());
-        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
-        String sql = SqlReplaceHelper.replaceFields(sqlInfo.getCorrectedS2SQL(), fieldNameMap);
-        sqlInfo.setCorrectedS2SQL(sql);
+        SqlReplaceHelper.replaceFields(selectStatement, fieldNameMap, false);
     }
 
-    private void updateFieldNameByLinkingValue(SemanticParseInfo semanticParseInfo) {
-        List<LLMReq.ElementValue> linking = getLinkingValues(semanticParseInfo);
+    private void updateFieldNameByLinkingValue(Select selectStatement,
+            List<LLMReq.ElementValue> linking) {
         if (CollectionUtils.isEmpty(linking)) {
             return;
         }
@@ -70,11 +78,7 @@ public class SchemaCorrector extends BaseSemanticCorrector {
                 linking.stream().collect(Collectors.groupingBy(LLMReq.ElementValue::getFieldValue,
                         Collectors.mapping(LLMReq.ElementValue::getFieldName, Collectors.toSet())));
 
-        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
-
-        String sql = SqlReplaceHelper.replaceFieldNameByValue(sqlInfo.getCorrectedS2SQL(),
-                fieldValueToFieldNames);
-        sqlInfo.setCorrectedS2SQL(sql);
+        SqlReplaceHelper.replaceFieldNameByValue(selectStatement, fieldValueToFieldNames);
     }
 
     private List<LLMReq.ElementValue> getLinkingValues(SemanticParseInfo semanticParseInfo) {
@@ -90,8 +94,8 @@ public class SchemaCorrector extends BaseSemanticCorrector {
         return parseResult.getLlmReq().getSchema().getValues();
     }
 
-    private void updateFieldValueByLinkingValue(SemanticParseInfo semanticParseInfo) {
-        List<LLMReq.ElementValue> linking = getLinkingValues(semanticParseInfo);
+    private void updateFieldValueByLinkingValue(Select selectStatement,
+            List<LLMReq.ElementValue> linking) {
         if (CollectionUtils.isEmpty(linking)) {
             return;
         }
@@ -102,10 +106,7 @@ public class SchemaCorrector extends BaseSemanticCorrector {
                                 Collectors.toMap(oldValue -> oldValue, newValue -> newValue,
                                         (existingValue, newValue) -> newValue))));
 
-        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
-        String sql = SqlReplaceHelper.replaceValue(sqlInfo.getCorrectedS2SQL(), filedNameToValueMap,
-                false);
-        sqlInfo.setCorrectedS2SQL(sql);
+        SqlReplaceHelper.replaceValue(selectStatement, filedNameToValueMap, false);
     }
 
     public void removeUnmappedFilterValue(ChatQueryContext chatQueryContext,
@@ -14,6 +14,8 @@ import lombok.extern.slf4j.Slf4j;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.util.CollectionUtils;
@@ -60,12 +62,16 @@ public class TimeCorrector extends BaseSemanticCorrector {
             Pair<String, String> dateRange =
                     S2SqlDateHelper.calculateDateRange(timeConfig, timeFormat);
             if (isValidDateRange(dateRange)) {
-                correctS2SQL = SqlAddHelper.addParenthesisToWhere(correctS2SQL);
                 String startDateLeft = dateRange.getLeft();
                 String endDateRight = dateRange.getRight();
                 String condExpr = String.format(" ( %s >= '%s'  and %s <= '%s' )",
                         partitionDimension, startDateLeft, partitionDimension, endDateRight);
-                correctS2SQL = addConditionToSQL(correctS2SQL, condExpr);
+                // wrap the existing where and add the range on the same tree
+                Select selectStatement = SqlSelectHelper.getSelect(correctS2SQL);
+                if (selectStatement instanceof PlainSelect
+                        && addConditionToSQL(selectStatement, condExpr)) {
+                    correctS2SQL = selectStatement.toString();
+                }
             }
         }
         semanticParseInfo.getSqlInfo().setCorrectedS2SQL(correctS2SQL);
@@ -91,6 +97,18 @@ public class TimeCorrector extends BaseSemanticCorrector {
                 && StringUtils.isNotBlank(startEndDate.getRight());
     }
 
+    private boolean addConditionToSQL(Select selectStatement, String condition) {
+        try {
+            Expression expression = CCJSqlParserUtil.parseCondExpression(condition);
+            SqlAddHelper.addParenthesisToWhere(selectStatement);
+            SqlAddHelper.addWhere(selectStatement, expression);
+            return true;
+        } catch (JSQLParserException e) {
+            log.error("addConditionToSQL:{}", e);
+            return false;
+        }
+    }
+
     private String addConditionToSQL(String sql, String condition) {
         try {
             Expression expression = CCJSqlParserUtil.parseCondExpression(condition);
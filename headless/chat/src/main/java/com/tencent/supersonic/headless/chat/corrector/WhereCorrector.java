@@ -2,9 +2,11 @@ package com.tencent.supersonic.headless.chat.corrector;
 
 import com.tencent.supersonic.common.jsqlparser.SqlAddHelper;
 import com.tencent.supersonic.common.jsqlparser.SqlReplaceHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
 import com.tencent.supersonic.headless.api.pojo.SemanticSchema;
+import com.tencent.supersonic.headless.api.pojo.SqlInfo;
 import com.tencent.supersonic.headless.api.pojo.request.QueryFilters;
 import com.tencent.supersonic.headless.chat.ChatQueryContext;
 import com.tencent.supersonic.headless.chat.utils.QueryFilterParser;
@@ -12,6 +14,8 @@ import lombok.extern.slf4j.Slf4j;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.CollectionUtils;
 
@@ -27,24 +31,42 @@ public class WhereCorrector extends BaseSemanticCorrector {
 
     @Override
     public void doCorrect(ChatQueryContext chatQueryContext, SemanticParseInfo semanticParseInfo) {
-        addQueryFilter(chatQueryContext, semanticParseInfo);
-        updateFieldValueByTechName(chatQueryContext, semanticParseInfo);
+        // parse once, apply the corrections to the same tree and deparse once
+        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
+        Select selectStatement = SqlSelectHelper.getSelect(sqlInfo.getCorrectedS2SQL());
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
+        addQueryFilter(chatQueryContext, selectStatement);
+        updateFieldValueByTechName(chatQueryContext, semanticParseInfo, selectStatement);
+        sqlInfo.setCorrectedS2SQL(selectStatement.toString());
     }
 
     protected void addQueryFilter(ChatQueryContext chatQueryContext,
             SemanticParseInfo semanticParseInfo) {
-        String queryFilter = getQueryFilter(chatQueryContext.getRequest().getQueryFilters());
-        String correctS2SQL = semanticParseInfo.getSqlInfo().getCorrectedS2SQL();
+        SqlInfo sqlInfo = semanticParseInfo.getSqlInfo();
+        Select selectStatement = SqlSelectHelper.getSelect(sqlInfo.getCorrectedS2SQL());
+        if (!(selectStatement instanceof PlainSelect)) {
+            return;
+        }
+        if (addQueryFilter(chatQueryContext, selectStatement)) {
+            sqlInfo.setCorrectedS2SQL(selectStatement.toString());
+        }
+    }
 
-        if (StringUtils.isNotEmpty(queryFilter)) {
-            log.info("add queryFilter to correctS2SQL :{}", queryFilter);
-            try {
-                Expression expression = CCJSqlParserUtil.parseCondExpression(queryFilter);
-                correctS2SQL = SqlAddHelper.addWhere(correctS2SQL, expression);
-                semanticParseInfo.getSqlInfo().setCorrectedS2SQL(correctS2SQL);
-            } catch (JSQLParserException e) {
-                log.error("parseCondExpression", e);
-            }
+    private boolean addQueryFilter(ChatQueryContext chatQueryContext, Select selectStatement) {
+        String queryFilter = getQueryFilter(chatQueryContext.getRequest().getQueryFilters());
+        if (StringUtils.isEmpty(queryFilter)) {
+            return false;
+        }
+        log.info("add queryFilter to correctS2SQL :{}", queryFilter);
+        try {
+            Expression expression = CCJSqlParserUtil.parseCondExpression(queryFilter);
+            SqlAddHelper.addWhere(selectStatement, expression);
+            return true;
+        } catch (JSQLParserException e) {
+            log.error("parseCondExpression", e);
+            return false;
         }
     }
 
@@ -56,7 +78,7 @@ public class WhereCorrector extends BaseSemanticCorrector {
     }
 
     private void updateFieldValueByTechName(ChatQueryContext chatQueryContext,
-            SemanticParseInfo semanticParseInfo) {
+            SemanticParseInfo semanticParseInfo, Select selectStatement) {
         SemanticSchema semanticSchema = chatQueryContext.getSemanticSchema();
         Long dataSetId = semanticParseInfo.getDataSetId();
         List<SchemaElement> dimensions = semanticSchema.getDimensions(dataSetId);
@@ -66,10 +88,7 @@ public class WhereCorrector extends BaseSemanticCorrector {
         }
         Map<String, Map<String, String>> aliasAndBizNameToTechName =
                 getAliasAndBizNameToTechName(dimensions);
-        String correctedS2SQL = semanticParseInfo.getSqlInfo().getCorrectedS2SQL();
-        String replaceSql =
-                SqlReplaceHelper.replaceValue(correctedS2SQL, aliasAndBizNameToTechName);
-        semanticParseInfo.getSqlInfo().setCorrectedS2SQL(replaceSql);
+        SqlReplaceHelper.replaceValue(selectStatement, aliasAndBizNameToTechName, true);
     }
 
     private Map<String, Map<String, String>> getAliasAndBizNameToTechName(
@@ -0,0 +1,313 @@
+package com.tencent.supersonic.headless.chat.knowledge;
+
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BiPredicate;
+
+/**
+ * An immutable sorted string table of dictionary words with their natures and frequencies, kept in
+ * a memory-mapped file instead of the heap. Words are grouped by length and sorted within a group,
+ * so a prefix lookup visits words shortest first and then in dictionary order, the same order as a
+ * breadth first walk of a trie. Words are stored as UTF-16 chars, so the byte order of a key is its
+ * string order.
+ *
+ * <p>
+ * Layout: magic, version, natures, groups (length, first entry, entry count), the most frequent
+ * entries of each nature, entry offsets, then per entry its key length, chars, nature count and
+ * (nature index, frequency) pairs.
+ */
+public class DictValueTable {
+
+    private static final int MAGIC = 0x53325654;
+
+    private static final int VERSION = 2;
+
+    private final ByteBuffer buffer;
+
+    private final String[] natures;
+
+    private final Map<String, Integer> natureIndexes = new HashMap<>();
+
+    /** per nature the entries of its most frequent words, most frequent first */
+    private final int[][] natureTopEntries;
+
+    private final int[] groupLengths;
+
+    private final int[] groupStarts;
+
+    private final int[] groupSizes;
+
+    private final int offsetsStart;
+
+    private final int dataStart;
+
+    private final int size;
+
+    private DictValueTable(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int pos = 0;
+        if (buffer.getInt(pos) != MAGIC || buffer.getInt(pos + 4) != VERSION) {
+            throw new IOException("not a dictionary value table");
+        }
+        pos += 8;
+        natures = new String[buffer.getInt(pos)];
+        pos += 4;
+        for (int i = 0; i < natures.length; i++) {
+            int length = buffer.getShort(pos);
+            pos += 2;
+            char[] chars = new char[length];
+            for (int j = 0; j < length; j++, pos += 2) {
+                chars[j] = buffer.getChar(pos);
+            }
+            natures[i] = new String(chars);
+            natureIndexes.put(natures[i], i);
+        }
+        int groupCount = buffer.getInt(pos);
+        pos += 4;
+        groupLengths = new int[groupCount];
+        groupStarts = new int[groupCount];
+        groupSizes = new int[groupCount];
+        for (int i = 0; i < groupCount; i++, pos += 12) {
+            groupLengths[i] = buffer.getInt(pos);
+            groupStarts[i] = buffer.getInt(pos + 4);
+            groupSizes[i] = buffer.getInt(pos + 8);
+        }
+        natureTopEntries = new int[natures.length][];
+        for (int i = 0; i < natures.length; i++) {
+            natureTopEntries[i] = new int[buffer.getShort(pos)];
+            pos += 2;
+            for (int j = 0; j < natureTopEntries[i].length; j++, pos += 4) {
+                natureTopEntries[i][j] = buffer.getInt(pos);
+            }
+        }
+        size = buffer.getInt(pos);
+        offsetsStart = pos + 4;
+        dataStart = offsetsStart + size * 4;
+    }
+
+    /**
+     * Writes the words of a dictionary to a table file, with the
+     * {@link MultiCustomDictionary#MAX_SIZE} most frequent words of each nature. The file is
+     * written aside and moved in place, a table mapped by a dictionary in use keeps its content.
+     */
+    public static void write(Path path, Map<String, CoreDictionary.Attribute> words)
+            throws IOException {
+        List<Map.Entry<String, CoreDictionary.Attribute>> entries = new ArrayList<>();
+        Map<String, Integer> natureIndexes = new LinkedHashMap<>();
+        for (Map.Entry<String, CoreDictionary.Attribute> entry : words.entrySet()) {
+            if (entry.getValue() == null || entry.getKey().length() > Short.MAX_VALUE) {
+                continue;
+            }
+            entries.add(entry);
+            for (int i = 0; i < entry.getValue().nature.length; i++) {
+                natureIndexes.putIfAbsent(entry.getValue().nature[i].toString(),
+                        natureIndexes.size());
+            }
+        }
+        entries.sort(Comparator
+                .comparingInt(
+                        (Map.Entry<String, CoreDictionary.Attribute> e) -> e.getKey().length())
+                .thenComparing(Map.Entry::getKey));
+        List<int[]> groups = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            int length = entries.get(i).getKey().length();
+            if (groups.isEmpty() || groups.get(groups.size() - 1)[0] != length) {
+                groups.add(new int[] {length, i, 0});
+            }
+            groups.get(groups.size() - 1)[2]++;
+        }
+
+        List<List<Integer>> topEntries = getTopEntries(entries, natureIndexes,
+                Math.min(MultiCustomDictionary.MAX_SIZE, Short.MAX_VALUE));
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(natureIndexes.size());
+            for (String nature : natureIndexes.keySet()) {
+                out.writeShort(nature.length());
+                out.writeChars(nature);
+            }
+            out.writeInt(groups.size());
+            for (int[] group : groups) {
+                out.writeInt(group[0]);
+                out.writeInt(group[1]);
+                out.writeInt(group[2]);
+            }
+            for (List<Integer> natureEntries : topEntries) {
+                out.writeShort(natureEntries.size());
+                for (Integer entry : natureEntries) {
+                    out.writeInt(entry);
+                }
+            }
+            out.writeInt(entries.size());
+            long offset = 0;
+            for (Map.Entry<String, CoreDictionary.Attribute> entry : entries) {
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("dictionary value table too large");
+                }
+                out.writeInt((int) offset);
+                offset += 4 + entry.getKey().length() * 2L + entry.getValue().nature.length * 8L;
+            }
+            for (Map.Entry<String, CoreDictionary.Attribute> entry : entries) {
+                CoreDictionary.Attribute attribute = entry.getValue();
+                out.writeShort(entry.getKey().length());
+                out.writeChars(entry.getKey());
+                out.writeShort(attribute.nature.length);
+                for (int i = 0; i < attribute.nature.length; i++) {
+                    out.writeInt(natureIndexes.get(attribute.nature[i].toString()));
+                    out.writeInt(attribute.frequency[i]);
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<List<Integer>> getTopEntries(
+            List<Map.Entry<String, CoreDictionary.Attribute>> entries,
+            Map<String, Integer> natureIndexes, int limit) {
+        List<PriorityQueue<int[]>> queues = new ArrayList<>();
+        // (entry, frequency) pairs, the least frequent and then the last entry on top
+        Comparator<int[]> comparator =
+                Comparator.<int[]>comparingInt(pair -> pair[1]).thenComparing(pair -> -pair[0]);
+        for (int i = 0; i < natureIndexes.size(); i++) {
+            queues.add(new PriorityQueue<>(comparator));
+        }
+        for (int i = 0; i < entries.size() && limit > 0; i++) {
+            CoreDictionary.Attribute attribute = entries.get(i).getValue();
+            for (int j = 0; j < attribute.nature.length; j++) {
+                PriorityQueue<int[]> queue =
+                        queues.get(natureIndexes.get(attribute.nature[j].toString()));
+                queue.add(new int[] {i, attribute.frequency[j]});
+                if (queue.size() > limit) {
+                    queue.poll();
+                }
+            }
+        }
+        List<List<Integer>> topEntries = new ArrayList<>();
+        for (PriorityQueue<int[]> queue : queues) {
+            LinkedList<Integer> natureEntries = new LinkedList<>();
+            while (!queue.isEmpty()) {
+                natureEntries.addFirst(queue.poll()[0]);
+            }
+            topEntries.add(natureEntries);
+        }
+        return topEntries;
+    }
+
+    public static DictValueTable open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("dictionary value table too large:" + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new DictValueTable(buffer);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** the most frequent words of the nature, most frequent first */
+    public List<String> getTopWords(String nature) {
+        Integer index = natureIndexes.get(nature);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        List<String> words = new ArrayList<>(natureTopEntries[index].length);
+        for (int entry : natureTopEntries[index]) {
+            words.add(getWord(entry));
+        }
+        return words;
+    }
+
+    /**
+     * Visits the words starting with the prefix, shortest first and then in dictionary order, until
+     * the visitor returns false. Reads do not change the mapped buffer, so concurrent walks are
+     * safe.
+     */
+    public void prefixWalk(String prefix, BiPredicate<String, List<String>> visitor) {
+        for (int g = 0; g < groupLengths.length; g++) {
+            if (groupLengths[g] < prefix.length()) {
+                continue;
+            }
+            int low = groupStarts[g];
+            int high = groupStarts[g] + groupSizes[g];
+            // first entry not below the prefix
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparePrefix(mid, prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            int end = groupStarts[g] + groupSizes[g];
+            for (int i = low; i < end && comparePrefix(i, prefix) == 0; i++) {
+                if (!visitor.test(getWord(i), getNatures(i))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int entryPosition(int entry) {
+        return dataStart + buffer.getInt(offsetsStart + entry * 4);
+    }
+
+    private int comparePrefix(int entry, String prefix) {
+        int pos = entryPosition(entry);
+        int length = Math.min(buffer.getShort(pos), prefix.length());
+        pos += 2;
+        for (int i = 0; i < length; i++, pos += 2) {
+            int cmp = Character.compare(buffer.getChar(pos), prefix.charAt(i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length < prefix.length() ? -1 : 0;
+    }
+
+    private String getWord(int entry) {
+        int pos = entryPosition(entry);
+        char[] chars = new char[buffer.getShort(pos)];
+        pos += 2;
+        for (int i = 0; i < chars.length; i++, pos += 2) {
+            chars[i] = buffer.getChar(pos);
+        }
+        return new String(chars);
+    }
+
+    private List<String> getNatures(int entry) {
+        int pos = entryPosition(entry);
+        pos += 2 + buffer.getShort(pos) * 2;
+        int count = buffer.getShort(pos);
+        pos += 2;
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++, pos += 8) {
+            result.add(natures[buffer.getInt(pos)]);
+        }
+        return result;
+    }
+}
@@ -1,16 +1,21 @@
 package com.tencent.supersonic.headless.chat.knowledge;
 
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
+import com.hankcs.hanlp.collection.trie.bintrie.BinTrie;
 import com.tencent.supersonic.common.pojo.enums.DictWordType;
 import com.tencent.supersonic.headless.api.pojo.response.S2Term;
 import com.tencent.supersonic.headless.chat.knowledge.helper.HanlpHelper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -43,46 +48,71 @@ public class KnowledgeBaseService {
         return dimValueAlias;
     }
 
-    public void updateSemanticKnowledge(List<DictWord> natures) {
-
-        List<DictWord> prefixes = natures.stream().filter(
-                entry -> !entry.getNatureWithFrequency().contains(DictWordType.SUFFIX.getType()))
-                .collect(Collectors.toList());
-
-        for (DictWord nature : prefixes) {
-            HanlpHelper.addToCustomDictionary(nature);
-        }
-
-        List<DictWord> suffixes = natures.stream().filter(
-                entry -> entry.getNatureWithFrequency().contains(DictWordType.SUFFIX.getType()))
-                .collect(Collectors.toList());
-
-        SearchService.loadSuffix(suffixes);
-    }
-
+    /**
+     * Rebuilds the dictionary from the dictionary files and the given words aside the one in use,
+     * then swaps it in, so segmentation and search never see a half-built dictionary.
+     */
     public void reloadAllData(List<DictWord> natures) {
-        // 1. reload custom knowledge
         try {
-            HanlpHelper.reloadCustomDictionary();
+            // 1. load dictionary files, the online aliases are collected while loading
+            MultiCustomDictionary dictionary = HanlpHelper.buildCustomDictionary();
+
+            // 2. add semantic and online knowledge
+            List<DictWord> dictWords = new ArrayList<>(natures);
+            if (CollectionUtils.isNotEmpty(dimValueAliasMap)) {
+                for (Long dimId : dimValueAliasMap.keySet()) {
+                    dictWords.addAll(dimValueAliasMap.get(dimId));
+                }
+            }
+            if (dictionary == null) {
+                HanlpHelper.updateCustomDictionary(Collections.emptyList(), getPrefixes(dictWords));
+            } else {
+                for (DictWord dictWord : getPrefixes(dictWords)) {
+                    dictionary.insert(dictWord.getWord(), dictWord.getNatureWithFrequency());
+                }
+            }
+            BinTrie<List<String>> suffixTrie =
+                    SearchService.buildSuffixTrie(getSuffixes(dictWords));
+            if (dictionary == null) {
+                SearchService.swapSuffix(suffixTrie);
+            } else {
+                HanlpHelper.swapCustomDictionary(dictionary, suffixTrie);
+            }
         } catch (Exception e) {
-            log.error("reloadCustomDictionary error", e);
+            log.error("reloadAllData error", e);
         }
+    }
 
-        // 2. update online knowledge
-        if (CollectionUtils.isNotEmpty(dimValueAliasMap)) {
-            for (Long dimId : dimValueAliasMap.keySet()) {
-                natures.addAll(dimValueAliasMap.get(dimId));
+    /**
+     * Applies changed words to the dictionary in use. A word whose frequency changed is removed and
+     * added again. The suffix trie only holds metric and dimension names and is rebuilt from all
+     * words if a suffix changed.
+     */
+    public void updateDictWords(Collection<DictWord> dictWords, Collection<DictWord> addedWords,
+            Collection<DictWord> removedWords) {
+        List<DictWord> removedPrefixes = getPrefixes(removedWords);
+        for (DictWord dictWord : removedPrefixes) {
+            if (Objects.isNull(dictWord.getNature())) {
+                dictWord.setNature(
+                        StringUtils.substringBefore(dictWord.getNatureWithFrequency(), " "));
             }
         }
-        updateOnlineKnowledge(natures);
+        HanlpHelper.updateCustomDictionary(removedPrefixes, getPrefixes(addedWords));
+        if (getSuffixes(addedWords).size() + getSuffixes(removedWords).size() > 0) {
+            SearchService.swapSuffix(SearchService.buildSuffixTrie(getSuffixes(dictWords)));
+        }
     }
 
-    private void updateOnlineKnowledge(List<DictWord> natures) {
-        try {
-            updateSemanticKnowledge(natures);
-        } catch (Exception e) {
-            log.error("updateSemanticKnowledge error", e);
-        }
+    private List<DictWord> getPrefixes(Collection<DictWord> natures) {
+        return natures.stream().filter(
+                entry -> !entry.getNatureWithFrequency().contains(DictWordType.SUFFIX.getType()))
+                .collect(Collectors.toList());
+    }
+
+    private List<DictWord> getSuffixes(Collection<DictWord> natures) {
+        return natures.stream().filter(
+                entry -> entry.getNatureWithFrequency().contains(DictWordType.SUFFIX.getType()))
+                .collect(Collectors.toList());
     }
 
     public List<S2Term> getTerms(String text, Map<Long, List<Long>> modelIdToDataSetIds) {
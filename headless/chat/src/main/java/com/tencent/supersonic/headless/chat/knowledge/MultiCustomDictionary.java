@@ -23,6 +23,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -40,9 +43,19 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
 
     public static int MAX_SIZE = 10;
     public static Boolean removeDuplicates = true;
+    /** values of the dictionaries loaded to the suggest trie, the others are in the value table */
     public static ConcurrentHashMap<String, PriorityQueue<Term>> NATURE_TO_VALUES =
             new ConcurrentHashMap<>();
     private static boolean addToSuggesterTrie = true;
+    public static final String VALUE_TABLE_SUFFIX = ".value.bin";
+
+    /** prefix search trie of the words of this dictionary, searched once the dictionary is used */
+    private BinTrie<List<String>> suggestTrie;
+
+    /**
+     * words of the dictionary files for prefix search, mapped from the cache instead of the trie
+     */
+    private DictValueTable valueTable;
 
     public MultiCustomDictionary() {
         this(HanLP.Config.CustomDictionaryPath);
@@ -59,12 +72,12 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
      * @param defaultNature
      * @param map
      * @param customNatureCollector
-     * @param addToSuggeterTrie
+     * @param suggestTrie
      * @return
      */
     public static boolean load(String path, Nature defaultNature,
             TreeMap<String, CoreDictionary.Attribute> map,
-            LinkedHashSet<Nature> customNatureCollector, boolean addToSuggeterTrie) {
+            LinkedHashSet<Nature> customNatureCollector, BinTrie<List<String>> suggestTrie) {
         try {
             String splitter = "\\s";
             if (path.endsWith(".csv")) {
@@ -141,9 +154,11 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
                     attribute = DictionaryAttributeUtil.getAttribute(map.get(word), attribute);
                 }
                 map.put(word, attribute);
-                if (addToSuggeterTrie) {
-                    SearchService.put(word, attribute);
+                if (suggestTrie == null) {
+                    // the most frequent values are read from the value table
+                    continue;
                 }
+                SearchService.put(suggestTrie, word, attribute);
                 for (int i = 0; i < attribute.nature.length; i++) {
                     Nature nature = attribute.nature[i];
                     PriorityQueue<Term> priorityQueue = NATURE_TO_VALUES.get(nature.toString());
@@ -186,12 +201,12 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
      * @param path
      * @param dat
      * @param isCache
-     * @param addToSuggestTrie
+     * @param suggestTrie
      * @return
      */
     public static boolean loadMainDictionary(String mainPath, String[] path,
             DoubleArrayTrie<CoreDictionary.Attribute> dat, boolean isCache,
-            boolean addToSuggestTrie) {
+            BinTrie<List<String>> suggestTrie) {
         logger.info("自定义词典开始加载:" + mainPath);
         if (loadDat(mainPath, dat)) {
             return true;
@@ -220,7 +235,7 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
 
                     logger.info("以默认词性[" + defaultNature + "]加载自定义词典" + p + "中……");
                     boolean success =
-                            load(p, defaultNature, map, customNatureCollector, addToSuggestTrie);
+                            load(p, defaultNature, map, customNatureCollector, suggestTrie);
                     if (!success) {
                         logger.warning("失败：" + p);
                     }
@@ -233,10 +248,9 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
 
                 logger.info("正在构建DoubleArrayTrie……");
                 dat.build(map);
-                if (addToSuggestTrie) {
-                    // SearchService.save();
-                }
                 if (isCache) {
+                    // 缓存词条表，前缀搜索直接读取映射文件
+                    DictValueTable.write(Paths.get(mainPath + VALUE_TABLE_SUFFIX), map);
                     // 缓存成dat文件，下次加载会快很多
                     logger.info("正在缓存词典为dat文件……");
                     // 缓存值文件
@@ -282,8 +296,44 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
         }
     }
 
+    /**
+     * Loads the dictionary files. The words of the files are searched in the value table written
+     * with the cache, so only the words inserted later are kept in the suggest trie. The trie is
+     * still used if the table cannot be opened or the files are on HDFS.
+     */
     public boolean loadMainDictionary(String mainPath) {
-        return loadMainDictionary(mainPath, this.path, this.dat, true, addToSuggesterTrie);
+        if (!addToSuggesterTrie) {
+            return loadMainDictionary(mainPath, this.path, this.dat, true, null);
+        }
+        if (!(HanLP.Config.IOAdapter instanceof HadoopFileIOAdapter)) {
+            Path tablePath = Paths.get(mainPath + VALUE_TABLE_SUFFIX);
+            if (!Files.exists(tablePath)) {
+                IOUtil.deleteFile(mainPath + ".bin");
+            }
+            if (!loadMainDictionary(mainPath, this.path, this.dat, true, null)) {
+                return false;
+            }
+            try {
+                valueTable = DictValueTable.open(tablePath);
+                return true;
+            } catch (Exception e) {
+                logger.warning("词条表" + tablePath + "读取失败，使用前缀树！" + e);
+                IOUtil.deleteFile(mainPath + ".bin");
+            }
+        }
+        return loadMainDictionary(mainPath, this.path, this.dat, false, getSuggestTrie());
+    }
+
+    public BinTrie<List<String>> getSuggestTrie() {
+        // loading starts in the super constructor, before the fields of this class are set
+        if (suggestTrie == null) {
+            suggestTrie = new BinTrie<>();
+        }
+        return suggestTrie;
+    }
+
+    public DictValueTable getValueTable() {
+        return valueTable;
     }
 
     public static boolean loadDat(String path, DoubleArrayTrie<CoreDictionary.Attribute> dat) {
@@ -375,11 +425,7 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
     public boolean reload() {
         if (this.path != null && this.path.length != 0) {
             IOUtil.deleteFile(this.path[0] + ".bin");
-            Boolean loadCacheOk = this.loadDat(this.path[0], this.path, this.dat);
-            if (!loadCacheOk) {
-                return this.loadMainDictionary(this.path[0], this.path, this.dat, true,
-                        addToSuggesterTrie);
-            }
+            return this.loadMainDictionary(this.path[0]);
         }
         return false;
     }
@@ -421,7 +467,7 @@ public class MultiCustomDictionary extends DynamicCustomDictionary {
                 // return true;
             }
             if (addToSuggesterTrie) {
-                SearchService.put(word, att);
+                SearchService.put(getSuggestTrie(), word, att);
             }
             return true;
         }
@@ -1,5 +1,6 @@
 package com.tencent.supersonic.headless.chat.knowledge;
 
+import com.hankcs.hanlp.LoadRemoveService;
 import com.hankcs.hanlp.collection.trie.bintrie.BaseNode;
 import com.hankcs.hanlp.collection.trie.bintrie.BinTrie;
 import com.hankcs.hanlp.corpus.tag.Nature;
@@ -16,27 +17,29 @@ import org.springframework.util.CollectionUtils;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class SearchService {
 
     public static final int SEARCH_SIZE = 200;
-    private static BinTrie<List<String>> trie;
-    private static BinTrie<List<String>> suffixTrie;
-
-    static {
-        trie = new BinTrie<>();
-        suffixTrie = new BinTrie<>();
-    }
+    private static volatile BinTrie<List<String>> trie = new BinTrie<>();
+    private static volatile BinTrie<List<String>> suffixTrie = new BinTrie<>();
+    /**
+     * words of the dictionary files when they are kept off the heap, null if they are in the trie
+     */
+    private static volatile DictValueTable valueTable;
 
     /**
      * * prefix Search
@@ -46,7 +49,14 @@ public class SearchService {
      */
     public static List<HanlpMapResult> prefixSearch(String key, int limit,
             Map<Long, List<Long>> modelIdToDataSetIds, Set<Long> detectDataSetIds) {
-        return prefixSearch(key, limit, trie, modelIdToDataSetIds, detectDataSetIds);
+        DictValueTable table = valueTable;
+        List<HanlpMapResult> hanlpMapResults =
+                prefixSearch(key, limit, trie, modelIdToDataSetIds, detectDataSetIds);
+        if (table == null) {
+            return hanlpMapResults;
+        }
+        return merge(hanlpMapResults,
+                prefixSearch(key, limit, table, modelIdToDataSetIds, detectDataSetIds), limit);
     }
 
     public static List<HanlpMapResult> prefixSearch(String key, int limit,
@@ -54,15 +64,68 @@ public class SearchService {
             Set<Long> detectDataSetIds) {
         Set<Long> modelIdOrDataSetIds =
                 findModelIdOrDataSetIds(modelIdToDataSetIds, detectDataSetIds);
-        Set<Map.Entry<String, List<String>>> result = search(key, binTrie, modelIdOrDataSetIds);
-        List<HanlpMapResult> hanlpMapResults = result.stream().map(entry -> {
-            String name = entry.getKey().replace("#", " ");
+        List<HanlpMapResult> hanlpMapResults = new ArrayList<>();
+        search(key, limit, binTrie, modelIdOrDataSetIds,
+                prefixVisitor(key, limit, hanlpMapResults, modelIdToDataSetIds, detectDataSetIds));
+        return hanlpMapResults;
+    }
+
+    public static List<HanlpMapResult> prefixSearch(String key, int limit, DictValueTable table,
+            Map<Long, List<Long>> modelIdToDataSetIds, Set<Long> detectDataSetIds) {
+        List<HanlpMapResult> hanlpMapResults = new ArrayList<>();
+        if (StringUtils.isEmpty(key) || limit <= 0) {
+            return hanlpMapResults;
+        }
+        Set<Long> modelIdOrDataSetIds =
+                findModelIdOrDataSetIds(modelIdToDataSetIds, detectDataSetIds);
+        LoadRemoveService loadRemoveService = new LoadRemoveService();
+        BiPredicate<String, List<String>> visitor =
+                prefixVisitor(key, limit, hanlpMapResults, modelIdToDataSetIds, detectDataSetIds);
+        table.prefixWalk(key.toLowerCase(), (word, natures) -> visitor.test(word,
+                loadRemoveService.removeNatures(natures, modelIdOrDataSetIds)));
+        return hanlpMapResults;
+    }
+
+    private static BiPredicate<String, List<String>> prefixVisitor(String key, int limit,
+            List<HanlpMapResult> hanlpMapResults, Map<Long, List<Long>> modelIdToDataSetIds,
+            Set<Long> detectDataSetIds) {
+        return (word, natures) -> {
+            String name = word.replace("#", " ");
             double similarity = EditDistanceUtils.getSimilarity(name, key);
-            return new HanlpMapResult(name, entry.getValue(), key, similarity);
-        }).sorted((a, b) -> -(b.getName().length() - a.getName().length()))
-                .collect(Collectors.toList());
-        return transformAndFilterByDataSet(hanlpMapResults, modelIdToDataSetIds, detectDataSetIds,
-                limit);
+            HanlpMapResult hanlpMapResult = new HanlpMapResult(name, natures, key, similarity);
+            return collect(hanlpMapResults, hanlpMapResult, modelIdToDataSetIds, detectDataSetIds,
+                    limit);
+        };
+    }
+
+    /**
+     * Merges the results of the trie and of the value table in the order of a single walk, a word
+     * found in both keeps the natures of both.
+     */
+    private static List<HanlpMapResult> merge(List<HanlpMapResult> trieResults,
+            List<HanlpMapResult> tableResults, int limit) {
+        if (tableResults.isEmpty()) {
+            return trieResults;
+        }
+        Map<String, HanlpMapResult> nameToResult = new LinkedHashMap<>();
+        for (HanlpMapResult hanlpMapResult : trieResults) {
+            nameToResult.put(hanlpMapResult.getName(), hanlpMapResult);
+        }
+        for (HanlpMapResult hanlpMapResult : tableResults) {
+            HanlpMapResult existing = nameToResult.get(hanlpMapResult.getName());
+            if (existing == null) {
+                nameToResult.put(hanlpMapResult.getName(), hanlpMapResult);
+            } else {
+                Set<String> natures = new LinkedHashSet<>(existing.getNatures());
+                natures.addAll(hanlpMapResult.getNatures());
+                existing.setNatures(new ArrayList<>(natures));
+            }
+        }
+        return nameToResult.values().stream()
+                .sorted(Comparator
+                        .comparingInt((HanlpMapResult result) -> result.getName().length())
+                        .thenComparing(HanlpMapResult::getName))
+                .limit(limit).collect(Collectors.toList());
     }
 
     /**
@@ -82,84 +145,101 @@ public class SearchService {
         String reverseDetectSegment = StringUtils.reverse(key);
         Set<Long> modelIdOrDataSetIds =
                 findModelIdOrDataSetIds(modelIdToDataSetIds, detectDataSetIds);
-
-        Set<Map.Entry<String, List<String>>> result =
-                search(reverseDetectSegment, binTrie, modelIdOrDataSetIds);
-        List<HanlpMapResult> hanlpMapResults = result.stream().map(entry -> {
-            String name = entry.getKey().replace("#", " ");
-            List<String> natures = entry.getValue().stream()
+        List<HanlpMapResult> hanlpMapResults = new ArrayList<>();
+        search(reverseDetectSegment, limit, binTrie, modelIdOrDataSetIds, (word, natures) -> {
+            String name = StringUtils.reverse(word.replace("#", " "));
+            List<String> suffixNatures = natures.stream()
                     .map(nature -> nature.replaceAll(DictWordType.SUFFIX.getType(), ""))
                     .collect(Collectors.toList());
-
-            name = StringUtils.reverse(name);
             double similarity = EditDistanceUtils.getSimilarity(name, key);
-            return new HanlpMapResult(name, natures, key, similarity);
-        }).sorted((a, b) -> -(b.getName().length() - a.getName().length()))
-                .collect(Collectors.toList());
-        return transformAndFilterByDataSet(hanlpMapResults, modelIdToDataSetIds, detectDataSetIds,
-                limit);
+            HanlpMapResult hanlpMapResult =
+                    new HanlpMapResult(name, suffixNatures, key, similarity);
+            return collect(hanlpMapResults, hanlpMapResult, modelIdToDataSetIds, detectDataSetIds,
+                    limit);
+        });
+        return hanlpMapResults;
     }
 
-    private static List<HanlpMapResult> transformAndFilterByDataSet(
-            List<HanlpMapResult> hanlpMapResults, Map<Long, List<Long>> modelIdToDataSetIds,
+    /**
+     * Keeps the natures of the detected data sets, a result without natures is dropped. Returns
+     * false once the limit is reached.
+     */
+    private static boolean collect(List<HanlpMapResult> hanlpMapResults,
+            HanlpMapResult hanlpMapResult, Map<Long, List<Long>> modelIdToDataSetIds,
             Set<Long> detectDataSetIds, int limit) {
-        return hanlpMapResults.stream().peek(hanlpMapResult -> {
-            List<String> natures = hanlpMapResult.getNatures().stream()
-                    .map(nature -> NatureHelper.changeModel2DataSet(nature, modelIdToDataSetIds))
-                    .flatMap(Collection::stream).filter(nature -> {
-                        if (CollectionUtils.isEmpty(detectDataSetIds)) {
-                            return true;
-                        }
-                        Long dataSetId = NatureHelper.getDataSetId(nature);
-                        if (dataSetId != null) {
-                            return detectDataSetIds.contains(dataSetId);
-                        }
-                        return false;
-                    }).collect(Collectors.toList());
+        List<String> natures = hanlpMapResult.getNatures().stream()
+                .map(nature -> NatureHelper.changeModel2DataSet(nature, modelIdToDataSetIds))
+                .flatMap(Collection::stream).filter(nature -> {
+                    if (CollectionUtils.isEmpty(detectDataSetIds)) {
+                        return true;
+                    }
+                    Long dataSetId = NatureHelper.getDataSetId(nature);
+                    if (dataSetId != null) {
+                        return detectDataSetIds.contains(dataSetId);
+                    }
+                    return false;
+                }).collect(Collectors.toList());
+        if (!CollectionUtils.isEmpty(natures)) {
             hanlpMapResult.setNatures(natures);
-        }).filter(hanlpMapResult -> !CollectionUtils.isEmpty(hanlpMapResult.getNatures()))
-                .limit(limit).collect(Collectors.toList());
+            hanlpMapResults.add(hanlpMapResult);
+        }
+        return hanlpMapResults.size() < limit;
     }
 
-    private static Set<Map.Entry<String, List<String>>> search(String key,
-            BinTrie<List<String>> binTrie, Set<Long> modelIdOrDataSetIds) {
-        key = key.toLowerCase();
-        Set<Map.Entry<String, List<String>>> entrySet =
-                new TreeSet<Map.Entry<String, List<String>>>();
-
-        StringBuilder sb = new StringBuilder();
-        if (StringUtils.isNotBlank(key)) {
-            sb = new StringBuilder(key.substring(0, key.length() - 1));
+    /**
+     * Walks the words starting with the key, shortest first and then in dictionary order, until the
+     * visitor has collected enough results. The walk keeps no state on the shared trie.
+     */
+    private static void search(String key, int limit, BinTrie<List<String>> binTrie,
+            Set<Long> modelIdOrDataSetIds, BiPredicate<String, List<String>> visitor) {
+        if (StringUtils.isEmpty(key) || limit <= 0) {
+            return;
         }
-        BaseNode branch = binTrie;
-        char[] chars = key.toCharArray();
-        for (char aChar : chars) {
+        key = key.toLowerCase();
+        BaseNode<List<String>> branch = binTrie;
+        for (char aChar : key.toCharArray()) {
+            branch = branch.getChild(aChar);
             if (branch == null) {
-                return entrySet;
+                return;
             }
-            branch = branch.getChild(aChar);
         }
+        branch.walkLimit(key.substring(0, key.length() - 1), modelIdOrDataSetIds, visitor);
+    }
 
-        if (branch == null) {
-            return entrySet;
-        }
-        branch.walkLimit(sb, entrySet, modelIdOrDataSetIds);
-        return entrySet;
+    /**
+     * Replaces the tries searched, a search in progress finishes on the trie it started with, so
+     * tries are built completely before they are swapped in.
+     */
+    public static void swap(BinTrie<List<String>> prefixTrie, DictValueTable table,
+            BinTrie<List<String>> suffixes) {
+        log.debug("swap prefix and suffix trie");
+        trie = prefixTrie;
+        valueTable = table;
+        suffixTrie = suffixes;
     }
 
-    public static void clear() {
-        log.debug("clear all trie");
-        trie = new BinTrie<>();
-        suffixTrie = new BinTrie<>();
+    public static void swapPrefix(BinTrie<List<String>> prefixTrie, DictValueTable table) {
+        trie = prefixTrie;
+        valueTable = table;
+    }
+
+    public static void swapSuffix(BinTrie<List<String>> suffixes) {
+        suffixTrie = suffixes;
     }
 
     public static void put(String key, CoreDictionary.Attribute attribute) {
-        trie.put(key, getValue(attribute.nature));
+        put(trie, key, attribute);
+    }
+
+    public static void put(BinTrie<List<String>> binTrie, String key,
+            CoreDictionary.Attribute attribute) {
+        binTrie.put(key, getValue(attribute.nature));
     }
 
-    public static void loadSuffix(List<DictWord> suffixes) {
+    public static BinTrie<List<String>> buildSuffixTrie(List<DictWord> suffixes) {
+        BinTrie<List<String>> binTrie = new BinTrie<>();
         if (CollectionUtils.isEmpty(suffixes)) {
-            return;
+            return binTrie;
         }
         TreeMap<String, CoreDictionary.Attribute> map = new TreeMap();
         for (DictWord suffix : suffixes) {
@@ -173,13 +253,9 @@ public class SearchService {
             map.put(suffix.getWord(), attributeNew);
         }
         for (Map.Entry<String, CoreDictionary.Attribute> stringAttributeEntry : map.entrySet()) {
-            putSuffix(stringAttributeEntry.getKey(), stringAttributeEntry.getValue());
+            put(binTrie, stringAttributeEntry.getKey(), stringAttributeEntry.getValue());
         }
-    }
-
-    public static void putSuffix(String key, CoreDictionary.Attribute attribute) {
-        Nature[] nature = attribute.nature;
-        suffixTrie.put(key, getValue(nature));
+        return binTrie;
     }
 
     private static List<String> getValue(Nature[] nature) {
@@ -200,11 +276,19 @@ public class SearchService {
     public static List<String> getDimensionValue(DimensionValueReq dimensionValueReq) {
         String nature = DictWordType.NATURE_SPILT + dimensionValueReq.getModelId()
                 + DictWordType.NATURE_SPILT + dimensionValueReq.getElementID();
+        return getDimensionValue(nature, valueTable);
+    }
+
+    public static List<String> getDimensionValue(String nature, DictValueTable table) {
+        Set<String> values = new LinkedHashSet<>();
+        if (table != null) {
+            values.addAll(table.getTopWords(nature));
+        }
         PriorityQueue<Term> terms = MultiCustomDictionary.NATURE_TO_VALUES.get(nature);
-        if (CollectionUtils.isEmpty(terms)) {
-            return new ArrayList<>();
+        if (!CollectionUtils.isEmpty(terms)) {
+            terms.forEach(term -> values.add(term.getWord()));
         }
-        return terms.stream().map(term -> term.getWord()).collect(Collectors.toList());
+        return values.stream().limit(MultiCustomDictionary.MAX_SIZE).collect(Collectors.toList());
     }
 
     /**
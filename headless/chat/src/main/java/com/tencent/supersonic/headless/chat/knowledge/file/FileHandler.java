@@ -33,6 +33,32 @@ public interface FileHandler {
      */
     void writeFile(List<String> data, String fileName, Boolean append);
 
+    /**
+     * append data to the temporary file a task writes for a dictionary file, the dictionary file is
+     * not changed until the temporary file is committed
+     *
+     * @param data
+     * @param fileName
+     * @param taskId
+     */
+    void writeTempFile(List<String> data, String fileName, Long taskId);
+
+    /**
+     * replace a dictionary file by the temporary file of a task, the replaced file is backed up
+     *
+     * @param fileName
+     * @param taskId
+     */
+    void commitTempFile(String fileName, Long taskId);
+
+    /**
+     * delete the temporary file of a task
+     *
+     * @param fileName
+     * @param taskId
+     */
+    void deleteTempFile(String fileName, Long taskId);
+
     /**
      * get the knowledge file root directory
      *
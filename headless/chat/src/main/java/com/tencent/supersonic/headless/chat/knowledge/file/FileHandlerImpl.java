@@ -1,6 +1,7 @@
 package com.tencent.supersonic.headless.chat.knowledge.file;
 
 import com.github.pagehelper.PageInfo;
+import com.tencent.supersonic.common.pojo.Constants;
 import com.tencent.supersonic.headless.api.pojo.request.DictValueReq;
 import com.tencent.supersonic.headless.api.pojo.response.DictValueResp;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +13,7 @@ import org.springframework.util.CollectionUtils;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -29,6 +31,7 @@ import java.util.stream.Stream;
 public class FileHandlerImpl implements FileHandler {
 
     public static final String FILE_SPILT = File.separator;
+    public static final String TEMP_SUFFIX = ".tmp";
 
     private final LocalFileConfig localFileConfig;
 
@@ -240,6 +243,52 @@ public class FileHandlerImpl implements FileHandler {
         }
     }
 
+    @Override
+    public void writeTempFile(List<String> lines, String fileName, Long taskId) {
+        String dictDirectoryLatest = localFileConfig.getDictDirectoryLatest();
+        if (!existPath(dictDirectoryLatest)) {
+            createDir(dictDirectoryLatest);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(getTempPath(fileName, taskId),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void commitTempFile(String fileName, Long taskId) {
+        String filePath = localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName;
+        if (existPath(filePath)) {
+            backupFile(fileName);
+        }
+        try {
+            Files.move(getTempPath(fileName, taskId), Paths.get(filePath),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("File:{} written successfully!", getAbsolutePath(filePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void deleteTempFile(String fileName, Long taskId) {
+        try {
+            Files.deleteIfExists(getTempPath(fileName, taskId));
+        } catch (IOException e) {
+            log.warn("Failed to delete temp file of:{}, e:", fileName, e);
+        }
+    }
+
+    private Path getTempPath(String fileName, Long taskId) {
+        return Paths.get(localFileConfig.getDictDirectoryLatest() + FILE_SPILT + fileName
+                + Constants.DOT + taskId + TEMP_SUFFIX);
+    }
+
     public String getAbsolutePath(String path) {
         return Paths.get(path).toAbsolutePath().toString();
     }
@@ -1,13 +1,18 @@
 package com.tencent.supersonic.headless.chat.knowledge.helper;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Lists;
 import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.collection.trie.bintrie.BinTrie;
 import com.hankcs.hanlp.corpus.tag.Nature;
 import com.hankcs.hanlp.dictionary.CoreDictionary;
 import com.hankcs.hanlp.dictionary.DynamicCustomDictionary;
 import com.hankcs.hanlp.seg.Segment;
 import com.hankcs.hanlp.seg.common.Term;
+import com.tencent.supersonic.common.pojo.Parameter;
 import com.tencent.supersonic.common.pojo.enums.DictWordType;
+import com.tencent.supersonic.common.util.ContextUtils;
 import com.tencent.supersonic.headless.api.pojo.response.S2Term;
 import com.tencent.supersonic.headless.chat.knowledge.DatabaseMapResult;
 import com.tencent.supersonic.headless.chat.knowledge.DictWord;
@@ -17,6 +22,7 @@ import com.tencent.supersonic.headless.chat.knowledge.HanlpMapResult;
 import com.tencent.supersonic.headless.chat.knowledge.MapResult;
 import com.tencent.supersonic.headless.chat.knowledge.MultiCustomDictionary;
 import com.tencent.supersonic.headless.chat.knowledge.SearchService;
+import com.tencent.supersonic.headless.chat.mapper.MapperConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
@@ -29,10 +35,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /** HanLP helper */
@@ -41,8 +49,13 @@ public class HanlpHelper {
 
     public static final String FILE_SPILT = File.separator;
     public static final String SPACE_SPILT = "#";
-    private static volatile DynamicCustomDictionary CustomDictionary;
+    private static volatile MultiCustomDictionary CustomDictionary;
     private static volatile Segment segment;
+    /** changes whenever the dictionary used by segmentation changes */
+    private static final AtomicLong dictionaryVersion = new AtomicLong();
+    /** segmentation results keyed on dictionary version and text, null if disabled */
+    private static volatile Cache<String, List<Term>> segmentCache;
+    private static volatile boolean segmentCacheLoaded;
 
     static {
         // reset hanlp config
@@ -57,39 +70,112 @@ public class HanlpHelper {
         if (segment == null) {
             synchronized (HanlpHelper.class) {
                 if (segment == null) {
-                    segment = HanLP.newSegment().enableIndexMode(true).enableIndexMode(4)
-                            .enableCustomDictionary(true).enableCustomDictionaryForcing(true)
-                            .enableOffset(true).enableJapaneseNameRecognize(false)
-                            .enableNameRecognize(false).enableAllNamedEntityRecognize(false)
-                            .enableJapaneseNameRecognize(false)
-                            .enableNumberQuantifierRecognize(false).enablePlaceRecognize(false)
-                            .enableOrganizationRecognize(false)
-                            .enableCustomDictionary(getDynamicCustomDictionary());
+                    segment = newSegment(getDynamicCustomDictionary());
                 }
             }
         }
         return segment;
     }
 
+    private static Segment newSegment(DynamicCustomDictionary dictionary) {
+        return HanLP.newSegment().enableIndexMode(true).enableIndexMode(4)
+                .enableCustomDictionary(true).enableCustomDictionaryForcing(true).enableOffset(true)
+                .enableJapaneseNameRecognize(false).enableNameRecognize(false)
+                .enableAllNamedEntityRecognize(false).enableJapaneseNameRecognize(false)
+                .enableNumberQuantifierRecognize(false).enablePlaceRecognize(false)
+                .enableOrganizationRecognize(false).enableCustomDictionary(dictionary);
+    }
+
+    private static Cache<String, List<Term>> getSegmentCache() {
+        if (!segmentCacheLoaded) {
+            int size = getSegmentCacheSize();
+            synchronized (HanlpHelper.class) {
+                if (!segmentCacheLoaded) {
+                    segmentCache =
+                            size > 0 ? Caffeine.newBuilder().maximumSize(size).build() : null;
+                    segmentCacheLoaded = true;
+                }
+            }
+        }
+        return segmentCache;
+    }
+
+    private static int getSegmentCacheSize() {
+        Parameter parameter = MapperConfig.MAPPER_SEGMENT_CACHE_SIZE;
+        try {
+            MapperConfig mapperConfig = ContextUtils.getBean(MapperConfig.class);
+            return Integer.parseInt(mapperConfig.getParameterValue(parameter));
+        } catch (Exception e) {
+            log.warn("{} unavailable, use the default:{}", parameter.getName(),
+                    parameter.getDefaultValue());
+            return Integer.parseInt(parameter.getDefaultValue());
+        }
+    }
+
+    /** changes whenever the dictionary used by segmentation changes */
+    public static long getDictionaryVersion() {
+        return dictionaryVersion.get();
+    }
+
+    private static void onDictionaryChanged() {
+        dictionaryVersion.incrementAndGet();
+        Cache<String, List<Term>> cache = segmentCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Segments the text with the current dictionary. Results are cached until the dictionary
+     * changes and shared by the callers, so the returned terms must not be modified.
+     */
+    public static List<Term> segment(String text) {
+        Cache<String, List<Term>> cache = getSegmentCache();
+        if (cache == null) {
+            return getSegment().seg(text);
+        }
+        return cache.get(getSegmentKey(text),
+                k -> Collections.unmodifiableList(getSegment().seg(text)));
+    }
+
+    /**
+     * Segments the text once per request, the segmentation is kept in the memo of the request in
+     * addition to the shared cache, which may evict it.
+     */
+    public static List<Term> segment(String text, Map<String, List<Term>> memo) {
+        return memo.computeIfAbsent(getSegmentKey(text), k -> segment(text));
+    }
+
+    private static String getSegmentKey(String text) {
+        return dictionaryVersion.get() + SPACE_SPILT + text;
+    }
+
     public static DynamicCustomDictionary getDynamicCustomDictionary() {
         if (CustomDictionary == null) {
             synchronized (HanlpHelper.class) {
                 if (CustomDictionary == null) {
-                    CustomDictionary = new MultiCustomDictionary(HanLP.Config.CustomDictionaryPath);
+                    MultiCustomDictionary dictionary =
+                            new MultiCustomDictionary(HanLP.Config.CustomDictionaryPath);
+                    SearchService.swapPrefix(dictionary.getSuggestTrie(),
+                            dictionary.getValueTable());
+                    CustomDictionary = dictionary;
                 }
             }
         }
         return CustomDictionary;
     }
 
-    /** reload custom dictionary */
-    public static boolean reloadCustomDictionary() throws IOException {
-
+    /**
+     * Builds a custom dictionary from the current dictionary files. The dictionary in use is not
+     * touched, the new one is used once it is swapped in. Returns null if no dictionary file is
+     * configured.
+     */
+    public static MultiCustomDictionary buildCustomDictionary() throws IOException {
         final long startTime = System.currentTimeMillis();
 
         if (HanLP.Config.CustomDictionaryPath == null
                 || HanLP.Config.CustomDictionaryPath.length == 0) {
-            return false;
+            return null;
         }
         if (HanLP.Config.IOAdapter instanceof HadoopFileIOAdapter) {
             // 1.delete hdfs file
@@ -100,15 +186,20 @@ public class HanlpHelper {
             FileHelper.deleteCacheFile(HanLP.Config.CustomDictionaryPath);
             FileHelper.resetCustomPath(getDynamicCustomDictionary());
         }
-        // 3.clear trie
-        SearchService.clear();
+        MultiCustomDictionary dictionary =
+                new MultiCustomDictionary(HanLP.Config.CustomDictionaryPath);
+        log.info("Custom dictionary has been built in {} milliseconds",
+                System.currentTimeMillis() - startTime);
+        return dictionary;
+    }
 
-        boolean reload = getDynamicCustomDictionary().reload();
-        if (reload) {
-            log.info("Custom dictionary has been reloaded in {} milliseconds",
-                    System.currentTimeMillis() - startTime);
-        }
-        return reload;
+    /** makes a dictionary built aside the one used by segmentation and prefix search at once */
+    public static synchronized void swapCustomDictionary(MultiCustomDictionary dictionary,
+            BinTrie<List<String>> suffixTrie) {
+        CustomDictionary = dictionary;
+        segment = newSegment(dictionary);
+        onDictionaryChanged();
+        SearchService.swap(dictionary.getSuggestTrie(), dictionary.getValueTable(), suffixTrie);
     }
 
     private static void resetHanlpConfig() throws FileNotFoundException {
@@ -186,18 +277,53 @@ public class HanlpHelper {
     }
 
     public static boolean addToCustomDictionary(DictWord dictWord) {
+        boolean inserted = insertToCustomDictionary(dictWord);
+        onDictionaryChanged();
+        return inserted;
+    }
+
+    public static void removeFromCustomDictionary(DictWord dictWord) {
+        deleteFromCustomDictionary(dictWord);
+        onDictionaryChanged();
+    }
+
+    /**
+     * Removes and then adds the words in the dictionary in use. The segmentation cache is
+     * invalidated once, after all the words are applied.
+     */
+    public static void updateCustomDictionary(Collection<DictWord> removedWords,
+            Collection<DictWord> addedWords) {
+        if (removedWords.isEmpty() && addedWords.isEmpty()) {
+            return;
+        }
+        removedWords.forEach(HanlpHelper::deleteFromCustomDictionary);
+        addedWords.forEach(HanlpHelper::insertToCustomDictionary);
+        onDictionaryChanged();
+    }
+
+    private static boolean insertToCustomDictionary(DictWord dictWord) {
         log.debug("dictWord:{}", dictWord);
         return getDynamicCustomDictionary().insert(dictWord.getWord(),
                 dictWord.getNatureWithFrequency());
     }
 
-    public static void removeFromCustomDictionary(DictWord dictWord) {
+    private static void deleteFromCustomDictionary(DictWord dictWord) {
         log.debug("dictWord:{}", dictWord);
+        // words are inserted with spaces restored and letters in lower case
+        String word = MultiCustomDictionary.getWordBySpace(dictWord.getWord());
+        if (MultiCustomDictionary.isLetters(dictWord.getWord())) {
+            word = word.toLowerCase();
+        }
+        if (!word.equals(dictWord.getWord())) {
+            dictWord = DictWord.builder().word(word).nature(dictWord.getNature())
+                    .natureWithFrequency(dictWord.getNatureWithFrequency())
+                    .alias(dictWord.getAlias()).build();
+        }
         CoreDictionary.Attribute attribute = getDynamicCustomDictionary().get(dictWord.getWord());
         if (attribute == null) {
             return;
         }
-        log.info("get attribute:{}", attribute);
+        log.debug("get attribute:{}", attribute);
         getDynamicCustomDictionary().remove(dictWord.getWord());
         StringBuilder sb = new StringBuilder();
         List<Nature> natureList = new ArrayList<>();
@@ -210,7 +336,7 @@ public class HanlpHelper {
         }
         String natureWithFrequency = sb.toString();
         int len = natureWithFrequency.length();
-        log.info("filtered natureWithFrequency:{}", natureWithFrequency);
+        log.debug("filtered natureWithFrequency:{}", natureWithFrequency);
         if (StringUtils.isNotBlank(natureWithFrequency)) {
             getDynamicCustomDictionary().add(dictWord.getWord(),
                     natureWithFrequency.substring(0, len - 1));
@@ -296,8 +422,18 @@ public class HanlpHelper {
     }
 
     public static List<S2Term> getTerms(String text, Map<Long, List<Long>> modelIdToDataSetIds) {
-        return getSegment().seg(text.toLowerCase()).stream()
-                .filter(term -> term.getNature().startsWith(DictWordType.NATURE_SPILT))
+        return getTerms(segment(text.toLowerCase()), modelIdToDataSetIds);
+    }
+
+    /** same as getTerms(text, modelIdToDataSetIds), segmenting the text once per request */
+    public static List<S2Term> getTerms(String text, Map<Long, List<Long>> modelIdToDataSetIds,
+            Map<String, List<Term>> memo) {
+        return getTerms(segment(text.toLowerCase(), memo), modelIdToDataSetIds);
+    }
+
+    private static List<S2Term> getTerms(List<Term> terms,
+            Map<Long, List<Long>> modelIdToDataSetIds) {
+        return terms.stream().filter(term -> term.getNature().startsWith(DictWordType.NATURE_SPILT))
                 .map(term -> transform2ApiTerm(term, modelIdToDataSetIds))
                 .flatMap(Collection::stream).collect(Collectors.toList());
     }
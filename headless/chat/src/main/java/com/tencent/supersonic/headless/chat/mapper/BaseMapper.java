@@ -1,5 +1,7 @@
 package com.tencent.supersonic.headless.chat.mapper;
 
+import com.tencent.supersonic.common.pojo.Parameter;
+import com.tencent.supersonic.common.util.ContextUtils;
 import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
 import com.tencent.supersonic.headless.api.pojo.SchemaElementMatch;
@@ -54,7 +56,17 @@ public abstract class BaseMapper implements SchemaMapper {
         return true;
     }
 
-    public void addToSchemaMap(SchemaMapInfo schemaMap, Long dataSetId,
+    @Override
+    public long getTimeout() {
+        MapperConfig mapperConfig = ContextUtils.getBean(MapperConfig.class);
+        return Long.parseLong(mapperConfig.getParameterValue(getTimeoutParameter()));
+    }
+
+    protected Parameter getTimeoutParameter() {
+        return MapperConfig.MAPPER_TASK_TIMEOUT;
+    }
+
+    public static void addToSchemaMap(SchemaMapInfo schemaMap, Long dataSetId,
             SchemaElementMatch newElementMatch) {
         Map<Long, List<SchemaElementMatch>> dataSetElementMatches =
                 schemaMap.getDataSetElementMatches();
@@ -123,8 +135,8 @@ public abstract class BaseMapper implements SchemaMapper {
 
     public <T> List<T> getMatches(ChatQueryContext chatQueryContext, MatchStrategy matchStrategy) {
         String queryText = chatQueryContext.getRequest().getQueryText();
-        List<S2Term> terms =
-                HanlpHelper.getTerms(queryText, chatQueryContext.getModelIdToDataSetIds());
+        List<S2Term> terms = HanlpHelper.getTerms(queryText,
+                chatQueryContext.getModelIdToDataSetIds(), chatQueryContext.getSegments());
         terms = HanlpHelper.getTerms(terms, chatQueryContext.getRequest().getDataSetIds());
         Map<MatchText, List<T>> matchResult = matchStrategy.match(chatQueryContext, terms,
                 chatQueryContext.getRequest().getDataSetIds());
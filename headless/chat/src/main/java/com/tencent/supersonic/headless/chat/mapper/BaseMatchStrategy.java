@@ -8,7 +8,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -17,15 +16,13 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ThreadPoolExecutor;
 
 @Service
 @Slf4j
 public abstract class BaseMatchStrategy<T extends MapResult> implements MatchStrategy<T> {
 
     @Autowired
-    @Qualifier("mapExecutor")
-    private ThreadPoolExecutor executor;
+    private MapTaskExecutor mapTaskExecutor;
 
     @Override
     public Map<MatchText, List<T>> match(ChatQueryContext chatQueryContext, List<S2Term> terms,
@@ -72,15 +69,14 @@ public abstract class BaseMatchStrategy<T extends MapResult> implements MatchStr
         }
     }
 
-    protected void executeTasks(List<Callable<Void>> tasks) {
-        try {
-            executor.invokeAll(tasks);
-            for (Callable<Void> future : tasks) {
-                future.call();
-            }
-        } catch (Exception e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Task execution interrupted", e);
+    /**
+     * Runs the detection tasks and merges the results of the tasks completed in time, in the order
+     * of the tasks and in the calling thread.
+     */
+    protected void executeTasks(ChatQueryContext chatQueryContext, List<Callable<List<T>>> tasks,
+            Set<T> existResults) {
+        for (List<T> oneRoundResults : mapTaskExecutor.execute(chatQueryContext, tasks)) {
+            selectResultInOneRound(existResults, oneRoundResults);
         }
     }
 
@@ -1,40 +1,42 @@
 package com.tencent.supersonic.headless.chat.mapper;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.tencent.supersonic.headless.api.pojo.SchemaElement;
 import com.tencent.supersonic.headless.api.pojo.SchemaElementMatch;
-import com.tencent.supersonic.headless.api.pojo.response.S2Term;
+import com.tencent.supersonic.headless.api.pojo.SemanticSchema;
 import com.tencent.supersonic.headless.chat.ChatQueryContext;
 import com.tencent.supersonic.headless.chat.knowledge.DatabaseMapResult;
-import com.tencent.supersonic.headless.chat.utils.EditDistanceUtils;
+import com.tencent.supersonic.headless.chat.mapper.SchemaElementNameIndex.NameMatch;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * DatabaseMatchStrategy uses SQL LIKE operator to match schema elements. It currently supports
- * fuzzy matching against names and aliases.
+ * fuzzy matching against names and aliases. Names are looked up in a q-gram index built once per
+ * schema version, so the cost of a segment depends on the names sharing its grams.
  */
 @Service
 @Slf4j
 public class DatabaseMatchStrategy extends SingleMatchStrategy<DatabaseMapResult> {
 
-    private ThreadLocal<List<SchemaElement>> allElements = ThreadLocal.withInitial(ArrayList::new);
+    /** indexes of versioned schemas, shared by the queries on the same schema version */
+    private final Cache<String, SchemaElementNameIndex> versionedIndexes =
+            Caffeine.newBuilder().maximumSize(100).expireAfterAccess(1, TimeUnit.HOURS).build();
 
-    @Override
-    public Map<MatchText, List<DatabaseMapResult>> match(ChatQueryContext chatQueryContext,
-            List<S2Term> terms, Set<Long> detectDataSetIds) {
-        allElements.set(getSchemaElements(chatQueryContext));
-        return super.match(chatQueryContext, terms, detectDataSetIds);
-    }
+    /** indexes of schemas without a version, kept as long as the query holds its schema */
+    private final Cache<SemanticSchema, SchemaElementNameIndex> queryIndexes =
+            Caffeine.newBuilder().weakKeys().build();
 
     public List<DatabaseMapResult> detectByStep(ChatQueryContext chatQueryContext,
             Set<Long> detectDataSetIds, String detectSegment, int offset) {
@@ -43,25 +45,21 @@ public class DatabaseMatchStrategy extends SingleMatchStrategy<DatabaseMapResult
         }
 
         Double metricDimensionThresholdConfig = getThreshold(chatQueryContext);
-        Map<String, Set<SchemaElement>> nameToItems = getNameToItems(allElements.get());
+        SchemaElementNameIndex nameIndex = getNameIndex(chatQueryContext.getSemanticSchema());
         List<DatabaseMapResult> results = new ArrayList<>();
-        for (Entry<String, Set<SchemaElement>> entry : nameToItems.entrySet()) {
-            String name = entry.getKey();
-            double similarity = EditDistanceUtils.getSimilarity(detectSegment, name);
-            if (!name.contains(detectSegment) || similarity < metricDimensionThresholdConfig) {
-                continue;
-            }
-            Set<SchemaElement> schemaElements = entry.getValue();
+        for (NameMatch nameMatch : nameIndex.search(detectSegment,
+                metricDimensionThresholdConfig)) {
+            List<SchemaElement> schemaElements = nameMatch.getSchemaElements();
             if (!CollectionUtils.isEmpty(detectDataSetIds)) {
                 schemaElements = schemaElements.stream().filter(
                         schemaElement -> detectDataSetIds.contains(schemaElement.getDataSetId()))
-                        .collect(Collectors.toSet());
+                        .collect(Collectors.toList());
             }
             for (SchemaElement schemaElement : schemaElements) {
                 DatabaseMapResult databaseMapResult = new DatabaseMapResult();
                 databaseMapResult.setDetectWord(detectSegment);
                 databaseMapResult.setName(schemaElement.getName());
-                databaseMapResult.setSimilarity(similarity);
+                databaseMapResult.setSimilarity(nameMatch.getSimilarity());
                 databaseMapResult.setSchemaElement(schemaElement);
                 results.add(databaseMapResult);
             }
@@ -69,10 +67,28 @@ public class DatabaseMatchStrategy extends SingleMatchStrategy<DatabaseMapResult
         return results;
     }
 
-    private List<SchemaElement> getSchemaElements(ChatQueryContext chatQueryContext) {
+    private SchemaElementNameIndex getNameIndex(SemanticSchema semanticSchema) {
+        if (semanticSchema.getVersion() == null) {
+            return queryIndexes.get(semanticSchema, this::buildNameIndex);
+        }
+        String key = semanticSchema.getVersion() + ":"
+                + new TreeSet<>(semanticSchema.getDataSetIdToName().keySet());
+        return versionedIndexes.get(key, k -> buildNameIndex(semanticSchema));
+    }
+
+    private SchemaElementNameIndex buildNameIndex(SemanticSchema semanticSchema) {
+        long start = System.currentTimeMillis();
+        SchemaElementNameIndex nameIndex =
+                SchemaElementNameIndex.build(getSchemaElements(semanticSchema));
+        log.debug("name index built, names:{}, version:{}, cost:{}ms", nameIndex.size(),
+                semanticSchema.getVersion(), System.currentTimeMillis() - start);
+        return nameIndex;
+    }
+
+    private List<SchemaElement> getSchemaElements(SemanticSchema semanticSchema) {
         List<SchemaElement> allElements = new ArrayList<>();
-        allElements.addAll(chatQueryContext.getSemanticSchema().getDimensions());
-        allElements.addAll(chatQueryContext.getSemanticSchema().getMetrics());
+        allElements.addAll(semanticSchema.getDimensions());
+        allElements.addAll(semanticSchema.getMetrics());
         return allElements;
     }
 
@@ -96,15 +112,4 @@ public class DatabaseMatchStrategy extends SingleMatchStrategy<DatabaseMapResult
         return getThreshold(threshold, minThreshold,
                 chatQueryContext.getRequest().getMapModeEnum());
     }
-
-    private Map<String, Set<SchemaElement>> getNameToItems(List<SchemaElement> models) {
-        return models.stream().collect(Collectors.toMap(SchemaElement::getName, a -> {
-            Set<SchemaElement> result = new HashSet<>();
-            result.add(a);
-            return result;
-        }, (k1, k2) -> {
-            k1.addAll(k2);
-            return k1;
-        }));
-    }
 }
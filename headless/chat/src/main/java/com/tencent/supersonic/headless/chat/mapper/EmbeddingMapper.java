@@ -1,5 +1,6 @@
 package com.tencent.supersonic.headless.chat.mapper;
 
+import com.tencent.supersonic.common.pojo.Parameter;
 import com.tencent.supersonic.common.pojo.enums.Text2SQLType;
 import com.tencent.supersonic.common.util.ContextUtils;
 import com.tencent.supersonic.common.util.JsonUtil;
@@ -32,6 +33,16 @@ public class EmbeddingMapper extends BaseMapper {
         return b0 || b1;
     }
 
+    @Override
+    public boolean isIndependent() {
+        return true;
+    }
+
+    @Override
+    protected Parameter getTimeoutParameter() {
+        return MapperConfig.EMBEDDING_MAPPER_TIMEOUT;
+    }
+
     public void doMap(ChatQueryContext chatQueryContext) {
 
         // TODO: 如果是在LOOSE执行过了，那么在LLM_OR_RULE阶段可以不用执行，所以这里缺乏一个状态来传递，暂时先忽略这个浪费行为吧
@@ -24,7 +24,6 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static com.tencent.supersonic.headless.chat.mapper.MapperConfig.*;
@@ -99,7 +98,7 @@ public class EmbeddingMatchStrategy extends BatchMatchStrategy<EmbeddingResult>
             }
 
             // Get segmentation results
-            Set<String> detectSegments = extractValidSegments(queryText);
+            Set<String> detectSegments = extractValidSegments(chatQueryContext, queryText);
             if (CollectionUtils.isEmpty(detectSegments)) {
                 log.info("No valid segments found for text: {}", queryText);
                 return Collections.emptyList();
@@ -115,10 +114,10 @@ public class EmbeddingMatchStrategy extends BatchMatchStrategy<EmbeddingResult>
     /**
      * Extract valid word segments by filtering out unwanted word natures
      */
-    private Set<String> extractValidSegments(String text) {
+    private Set<String> extractValidSegments(ChatQueryContext chatQueryContext, String text) {
         List<String> natureList = Arrays.asList(StringUtils.split(
                 mapperConfig.getParameterValue(EMBEDDING_MAPPER_ALLOWED_SEGMENT_NATURE), ","));
-        return HanlpHelper.getSegment().seg(text).stream()
+        return HanlpHelper.segment(text, chatQueryContext.getSegments()).stream()
                 .filter(t -> natureList.stream().noneMatch(nature -> t.nature.startsWith(nature)))
                 .map(Term::getWord).collect(Collectors.toSet());
     }
@@ -140,7 +139,7 @@ public class EmbeddingMatchStrategy extends BatchMatchStrategy<EmbeddingResult>
      */
     public List<EmbeddingResult> detectByBatch(ChatQueryContext chatQueryContext,
             Set<Long> detectDataSetIds, Set<String> detectSegments, boolean useLlm) {
-        Set<EmbeddingResult> results = ConcurrentHashMap.newKeySet();
+        Set<EmbeddingResult> results = new LinkedHashSet<>();
         int embeddingMapperBatch = Integer
                 .valueOf(mapperConfig.getParameterValue(MapperConfig.EMBEDDING_MAPPER_BATCH));
 
@@ -153,12 +152,12 @@ public class EmbeddingMatchStrategy extends BatchMatchStrategy<EmbeddingResult>
                 Lists.partition(queryTextsList, embeddingMapperBatch);
 
         // Create and execute tasks for each batch
-        List<Callable<Void>> tasks = new ArrayList<>();
+        List<Callable<List<EmbeddingResult>>> tasks = new ArrayList<>();
         for (List<String> queryTextsSub : queryTextsSubList) {
-            tasks.add(
-                    createTask(chatQueryContext, detectDataSetIds, queryTextsSub, results, useLlm));
+            tasks.add(() -> detectByQueryTextsSub(detectDataSetIds, queryTextsSub, chatQueryContext,
+                    useLlm));
         }
-        executeTasks(tasks);
+        executeTasks(chatQueryContext, tasks, results);
 
         // Apply LLM filtering if enabled
         if (useLlm) {
@@ -185,28 +184,6 @@ public class EmbeddingMatchStrategy extends BatchMatchStrategy<EmbeddingResult>
         return new ArrayList<>(results);
     }
 
-    /**
-     * Create a task for batch processing
-     *
-     * @param chatQueryContext The context of the chat query
-     * @param detectDataSetIds Target dataset IDs
-     * @param queryTextsSub Sub-list of query texts to process
-     * @param results Shared result set for collecting results
-     * @param useLlm Whether to use LLM
-     * @return Callable task
-     */
-    private Callable<Void> createTask(ChatQueryContext chatQueryContext, Set<Long> detectDataSetIds,
-            List<String> queryTextsSub, Set<EmbeddingResult> results, boolean useLlm) {
-        return () -> {
-            List<EmbeddingResult> oneRoundResults = detectByQueryTextsSub(detectDataSetIds,
-                    queryTextsSub, chatQueryContext, useLlm);
-            synchronized (results) {
-                selectResultInOneRound(results, oneRoundResults);
-            }
-            return null;
-        };
-    }
-
     /**
      * Process a sub-list of query texts
      *
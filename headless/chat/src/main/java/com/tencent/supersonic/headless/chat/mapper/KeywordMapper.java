@@ -33,13 +33,18 @@ import java.util.stream.Collectors;
 @Slf4j
 public class KeywordMapper extends BaseMapper {
 
+    @Override
+    public boolean isIndependent() {
+        return true;
+    }
+
     @Override
     public void doMap(ChatQueryContext chatQueryContext) {
         String queryText = chatQueryContext.getRequest().getQueryText();
 
         // 1. hanlpDict Match
-        List<S2Term> terms =
-                HanlpHelper.getTerms(queryText, chatQueryContext.getModelIdToDataSetIds());
+        List<S2Term> terms = HanlpHelper.getTerms(queryText,
+                chatQueryContext.getModelIdToDataSetIds(), chatQueryContext.getSegments());
         HanlpDictMatchStrategy hanlpMatchStrategy =
                 ContextUtils.getBean(HanlpDictMatchStrategy.class);
         List<HanlpMapResult> hanlpMatchResults = getMatches(chatQueryContext, hanlpMatchStrategy);
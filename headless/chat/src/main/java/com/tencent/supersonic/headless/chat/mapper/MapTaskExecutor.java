@@ -0,0 +1,161 @@
+package com.tencent.supersonic.headless.chat.mapper;
+
+import com.tencent.supersonic.headless.chat.ChatQueryContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the detection tasks of the match strategies on the map executor, each task once. The tasks
+ * of a request are spread over at most as many batches as the executor has threads, so a request
+ * takes a bounded number of queue slots however long its question is. A batch rejected by the full
+ * queue runs in the calling thread, the request slows down but loses no segment. The batches of a
+ * request share its mapping deadline: tasks not started at the deadline are skipped and batches
+ * still running are cancelled. The results of the tasks completed in time are returned, in the
+ * order of the tasks.
+ */
+@Component
+@Slf4j
+public class MapTaskExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    private final MapperConfig mapperConfig;
+
+    private final LongAdder taskCount = new LongAdder();
+
+    private final LongAdder taskTime = new LongAdder();
+
+    private final AtomicLong maxTaskTime = new AtomicLong();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder cancelledCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final AtomicInteger maxQueueSize = new AtomicInteger();
+
+    public MapTaskExecutor(@Qualifier("mapExecutor") ThreadPoolExecutor executor,
+            MapperConfig mapperConfig) {
+        this.executor = executor;
+        this.mapperConfig = mapperConfig;
+    }
+
+    public <R> List<R> execute(ChatQueryContext chatQueryContext, List<Callable<R>> tasks) {
+        List<R> results = new ArrayList<>(tasks.size());
+        if (tasks.isEmpty()) {
+            return results;
+        }
+        long deadline = getDeadline(chatQueryContext);
+        AtomicReferenceArray<R> taskResults = new AtomicReferenceArray<>(tasks.size());
+        AtomicInteger finished = new AtomicInteger();
+        int batchCount = Math.min(tasks.size(), Math.max(executor.getMaximumPoolSize(), 1));
+        List<Future<?>> futures = new ArrayList<>(batchCount);
+        List<Runnable> rejected = new ArrayList<>();
+        for (int i = 0; i < batchCount; i++) {
+            Runnable batch = batch(tasks, i, batchCount, deadline, taskResults, finished);
+            try {
+                futures.add(executor.submit(batch));
+            } catch (RejectedExecutionException e) {
+                rejected.add(batch);
+            }
+        }
+        maxQueueSize.accumulateAndGet(executor.getQueue().size(), Math::max);
+        if (!rejected.isEmpty()) {
+            rejectedCount.add(rejected.size());
+            log.warn("{} of {} map batches run in the calling thread, the map executor is full",
+                    rejected.size(), batchCount);
+            rejected.forEach(Runnable::run);
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(deadline - System.currentTimeMillis(), 0),
+                        TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+            } catch (ExecutionException e) {
+                log.warn("map batch failed", e.getCause());
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Task execution interrupted", e);
+            }
+        }
+        int cancelled = tasks.size() - finished.get();
+        if (cancelled > 0) {
+            cancelledCount.add(cancelled);
+            log.warn("{} of {} map tasks cancelled at the mapping deadline", cancelled,
+                    tasks.size());
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            R result = taskResults.get(i);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    public MapTaskStats getStats() {
+        return MapTaskStats.builder().taskCount(taskCount.sum()).taskTime(taskTime.sum())
+                .maxTaskTime(maxTaskTime.get()).rejectedCount(rejectedCount.sum())
+                .cancelledCount(cancelledCount.sum()).failedCount(failedCount.sum())
+                .queueSize(executor.getQueue().size()).maxQueueSize(maxQueueSize.get())
+                .activeCount(executor.getActiveCount()).build();
+    }
+
+    /** the deadline of a request starts with its first detection unless set by the caller */
+    private long getDeadline(ChatQueryContext chatQueryContext) {
+        if (chatQueryContext.getMappingDeadline() <= 0) {
+            long timeout = Long
+                    .parseLong(mapperConfig.getParameterValue(MapperConfig.MAPPER_TASK_TIMEOUT));
+            chatQueryContext.setMappingDeadline(System.currentTimeMillis() + timeout);
+        }
+        return chatQueryContext.getMappingDeadline();
+    }
+
+    /** the batch of a request runs every batchCount-th task, starting at the given index */
+    private <R> Runnable batch(List<Callable<R>> tasks, int index, int batchCount, long deadline,
+            AtomicReferenceArray<R> taskResults, AtomicInteger finished) {
+        return () -> {
+            for (int i = index; i < tasks.size(); i += batchCount) {
+                long start = System.currentTimeMillis();
+                if (start >= deadline || Thread.currentThread().isInterrupted()) {
+                    // past the deadline, the results would be dropped anyway
+                    return;
+                }
+                try {
+                    taskResults.set(i, tasks.get(i).call());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    failedCount.increment();
+                    log.warn("map task failed", e);
+                } finally {
+                    long cost = System.currentTimeMillis() - start;
+                    taskCount.increment();
+                    taskTime.add(cost);
+                    maxTaskTime.accumulateAndGet(cost, Math::max);
+                }
+                finished.incrementAndGet();
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.tencent.supersonic.headless.chat.mapper;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MapTaskStats {
+
+    private Long taskCount;
+
+    /** total task cost in milliseconds */
+    private Long taskTime;
+
+    private Long maxTaskTime;
+
+    /** batches run in the calling thread as the queue was full */
+    private Long rejectedCount;
+
+    /** tasks cancelled or skipped at the deadline of their request */
+    private Long cancelledCount;
+
+    private Long failedCount;
+
+    private Integer queueSize;
+
+    private Integer maxQueueSize;
+
+    private Integer activeCount;
+}
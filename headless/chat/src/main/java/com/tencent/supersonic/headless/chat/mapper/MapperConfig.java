@@ -65,4 +65,16 @@ public class MapperConfig extends ParameterConfig {
     public static final Parameter EMBEDDING_MAPPER_ALLOWED_SEGMENT_NATURE =
             new Parameter("s2.mapper.embedding.allowed-segment-nature", "['v', 'd', 'a']",
                     "使用LLM召回二次处理时对问题分词词性的控制", "分词后允许的词性才会进行向量召回", "list", "Mapper相关配置");
+
+    public static final Parameter MAPPER_TASK_TIMEOUT =
+            new Parameter("s2.mapper.task.timeout", "10000", "Mapper探测任务超时时间(毫秒)",
+                    "一次请求的探测任务需在该时间内完成, 超时未完成的任务将被取消, 其结果被丢弃", "number", "Mapper相关配置");
+
+    public static final Parameter EMBEDDING_MAPPER_TIMEOUT =
+            new Parameter("s2.mapper.embedding.timeout", "10000", "向量召回超时时间(毫秒)",
+                    "与其他Mapper并行执行时向量召回需在该时间内完成, 超时则放弃向量召回结果", "number", "Mapper相关配置");
+
+    public static final Parameter MAPPER_SEGMENT_CACHE_SIZE =
+            new Parameter("s2.mapper.segment.cache.size", "1000", "分词结果缓存条数",
+                    "分词结果在请求间共享直至词典变更, 为0时不缓存", "number", "Mapper相关配置");
 }
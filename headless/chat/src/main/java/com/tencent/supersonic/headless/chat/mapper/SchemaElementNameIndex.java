@@ -0,0 +1,160 @@
+package com.tencent.supersonic.headless.chat.mapper;
+
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.chat.utils.EditDistanceUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A q-gram inverted index over the names of schema elements. A name matches a segment if it
+ * contains the segment, so only the names sharing the rarest gram of the segment are checked, and
+ * since such a name is at least as long as the segment, its similarity is at most the segment
+ * length divided by the name length, which bounds the names to check by length. The index is
+ * immutable once built and can be shared by concurrent queries.
+ */
+public class SchemaElementNameIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final String[] names;
+
+    private final List<List<SchemaElement>> elements;
+
+    private final Map<String, int[]> unigrams;
+
+    private final Map<String, int[]> bigrams;
+
+    private SchemaElementNameIndex(String[] names, List<List<SchemaElement>> elements,
+            Map<String, int[]> unigrams, Map<String, int[]> bigrams) {
+        this.names = names;
+        this.elements = elements;
+        this.unigrams = unigrams;
+        this.bigrams = bigrams;
+    }
+
+    public static SchemaElementNameIndex build(List<SchemaElement> schemaElements) {
+        Map<String, Set<SchemaElement>> nameToElements = new LinkedHashMap<>();
+        for (SchemaElement schemaElement : schemaElements) {
+            if (StringUtils.isEmpty(schemaElement.getName())) {
+                continue;
+            }
+            nameToElements.computeIfAbsent(schemaElement.getName(), k -> new LinkedHashSet<>())
+                    .add(schemaElement);
+        }
+        // postings are ordered by name length, so a lookup stops at the first name too long
+        List<String> sortedNames = new ArrayList<>(nameToElements.keySet());
+        sortedNames.sort(Comparator.comparingInt(String::length));
+        String[] names = sortedNames.toArray(new String[0]);
+        List<List<SchemaElement>> elements = new ArrayList<>(names.length);
+        Map<String, List<Integer>> unigramPostings = new HashMap<>();
+        Map<String, List<Integer>> bigramPostings = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            elements.add(new ArrayList<>(nameToElements.get(names[i])));
+            for (String gram : grams(names[i], 1)) {
+                unigramPostings.computeIfAbsent(gram, k -> new ArrayList<>()).add(i);
+            }
+            for (String gram : grams(names[i], 2)) {
+                bigramPostings.computeIfAbsent(gram, k -> new ArrayList<>()).add(i);
+            }
+        }
+        return new SchemaElementNameIndex(names, elements, toArrays(unigramPostings),
+                toArrays(bigramPostings));
+    }
+
+    /**
+     * Returns the names containing the segment whose similarity to the segment reaches the
+     * threshold, together with their schema elements.
+     */
+    public List<NameMatch> search(String segment, double threshold) {
+        List<NameMatch> matches = new ArrayList<>();
+        if (StringUtils.isEmpty(segment)) {
+            return matches;
+        }
+        int[] postings = getRarestPostings(segment);
+        int maxLength = threshold > 0 ? (int) Math.floor(segment.length() / threshold + 1e-9)
+                : Integer.MAX_VALUE;
+        for (int i : postings) {
+            String name = names[i];
+            if (name.length() > maxLength) {
+                break;
+            }
+            if (name.length() < segment.length() || !name.contains(segment)) {
+                continue;
+            }
+            double similarity = EditDistanceUtils.getSimilarity(segment, name);
+            if (similarity >= threshold) {
+                matches.add(new NameMatch(name, similarity, elements.get(i)));
+            }
+        }
+        return matches;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    private int[] getRarestPostings(String segment) {
+        Map<String, int[]> index = segment.length() > 1 ? bigrams : unigrams;
+        int[] rarest = null;
+        for (String gram : grams(segment, segment.length() > 1 ? 2 : 1)) {
+            int[] postings = index.get(gram);
+            if (postings == null) {
+                return EMPTY;
+            }
+            if (rarest == null || postings.length < rarest.length) {
+                rarest = postings;
+            }
+        }
+        return rarest == null ? EMPTY : rarest;
+    }
+
+    private static Set<String> grams(String text, int q) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + q <= text.length(); i++) {
+            grams.add(text.substring(i, i + q));
+        }
+        return grams;
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> postings) {
+        Map<String, int[]> result = new HashMap<>(postings.size() * 2);
+        postings.forEach((gram, ids) -> result.put(gram,
+                ids.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+
+    public static class NameMatch {
+
+        private final String name;
+
+        private final double similarity;
+
+        private final List<SchemaElement> schemaElements;
+
+        private NameMatch(String name, double similarity, List<SchemaElement> schemaElements) {
+            this.name = name;
+            this.similarity = similarity;
+            this.schemaElements = schemaElements;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        public List<SchemaElement> getSchemaElements() {
+            return schemaElements;
+        }
+    }
+}
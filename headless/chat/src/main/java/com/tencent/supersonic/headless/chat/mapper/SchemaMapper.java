@@ -9,4 +9,17 @@ import com.tencent.supersonic.headless.chat.ChatQueryContext;
 public interface SchemaMapper {
 
     void map(ChatQueryContext chatQueryContext);
+
+    /**
+     * Whether the mapper only adds matches it detects itself, without reading the matches of other
+     * mappers, so that it can run concurrently with other independent mappers.
+     */
+    default boolean isIndependent() {
+        return false;
+    }
+
+    /** milliseconds the mapper may take when run concurrently, 0 for no limit */
+    default long getTimeout() {
+        return 0;
+    }
 }
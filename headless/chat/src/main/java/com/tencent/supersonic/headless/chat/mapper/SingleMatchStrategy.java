@@ -8,11 +8,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
@@ -26,8 +26,8 @@ public abstract class SingleMatchStrategy<T extends MapResult> extends BaseMatch
             Set<Long> detectDataSetIds) {
         Map<Integer, Integer> regOffsetToLength = mapperHelper.getRegOffsetToLength(terms);
         String text = chatQueryContext.getRequest().getQueryText();
-        Set<T> results = ConcurrentHashMap.newKeySet();
-        List<Callable<Void>> tasks = new ArrayList<>();
+        Set<T> results = new LinkedHashSet<>();
+        List<Callable<List<T>>> tasks = new ArrayList<>();
 
         for (int startIndex = 0; startIndex <= text.length() - 1;) {
             for (int index = startIndex; index <= text.length();) {
@@ -35,29 +35,16 @@ public abstract class SingleMatchStrategy<T extends MapResult> extends BaseMatch
                 index = mapperHelper.getStepIndex(regOffsetToLength, index);
                 if (index <= text.length()) {
                     String detectSegment = text.substring(startIndex, index).trim();
-                    Callable<Void> task = createTask(chatQueryContext, detectDataSetIds,
-                            detectSegment, offset, results);
-                    tasks.add(task);
+                    tasks.add(() -> detectByStep(chatQueryContext, detectDataSetIds, detectSegment,
+                            offset));
                 }
             }
             startIndex = mapperHelper.getStepIndex(regOffsetToLength, startIndex);
         }
-        executeTasks(tasks);
+        executeTasks(chatQueryContext, tasks, results);
         return new ArrayList<>(results);
     }
 
-    private Callable<Void> createTask(ChatQueryContext chatQueryContext, Set<Long> detectDataSetIds,
-            String detectSegment, int offset, Set<T> results) {
-        return () -> {
-            List<T> oneRoundResults =
-                    detectByStep(chatQueryContext, detectDataSetIds, detectSegment, offset);
-            synchronized (results) {
-                selectResultInOneRound(results, oneRoundResults);
-            }
-            return null;
-        };
-    }
-
     public abstract List<T> detectByStep(ChatQueryContext chatQueryContext,
             Set<Long> detectDataSetIds, String detectSegment, int offset);
 }
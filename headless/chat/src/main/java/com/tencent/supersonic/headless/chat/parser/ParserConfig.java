@@ -50,6 +50,10 @@ public class ParserConfig extends ParameterConfig {
             new Parameter("s2.parser.self-consistency.number", "1", "self-consistency执行个数",
                     "执行越多效果可能越好，但token消耗越大", "number", "语义解析配置");
 
+    public static final Parameter PARSER_SELF_CONSISTENCY_ADAPTIVE = new Parameter(
+            "s2.parser.self-consistency.adaptive", "false", "是否按需发起self-consistency执行",
+            "先发起过半数的执行, 结果不一致时再逐个追加, 可减少token消耗", "bool", "语义解析配置");
+
     public static final Parameter PARSER_SHOW_COUNT =
             new Parameter("s2.parser.show.count", "3", "解析结果展示个数", "前端展示的解析个数", "number", "语义解析配置");
 
@@ -60,7 +64,7 @@ public class ParserConfig extends ParameterConfig {
     @Override
     public List<Parameter> getSysParameters() {
         return Lists.newArrayList(PARSER_LINKING_VALUE_ENABLE, PARSER_RULE_CORRECTOR_ENABLE,
-                PARSER_FEW_SHOT_NUMBER, PARSER_SELF_CONSISTENCY_NUMBER, PARSER_SHOW_COUNT,
-                PARSER_FIELDS_COUNT_THRESHOLD);
+                PARSER_FEW_SHOT_NUMBER, PARSER_SELF_CONSISTENCY_NUMBER,
+                PARSER_SELF_CONSISTENCY_ADAPTIVE, PARSER_SHOW_COUNT, PARSER_FIELDS_COUNT_THRESHOLD);
     }
 }
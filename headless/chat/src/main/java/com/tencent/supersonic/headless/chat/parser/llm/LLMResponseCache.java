@@ -0,0 +1,202 @@
+package com.tencent.supersonic.headless.chat.parser.llm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tencent.supersonic.common.pojo.ChatModelConfig;
+import com.tencent.supersonic.common.pojo.DataEvent;
+import com.tencent.supersonic.common.pojo.DataUpdateEvent;
+import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMReq;
+import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMResp;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.provider.ModelProvider;
+import dev.langchain4j.store.embedding.CosineSimilarity;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caches the answers of the model to text-to-SQL prompts. An answer is looked up by the hash of the
+ * model config and the whole prompt first. When the similar tier is enabled, the answer to an
+ * earlier question whose embedding is close enough is reused as long as the data set, the schema,
+ * the side information and the exemplars of the prompt are the same. A change of any model, metric
+ * or dimension bumps the version and drops all answers, answers loaded before the change are never
+ * read.
+ */
+@Component
+@Slf4j
+public class LLMResponseCache {
+
+    private final boolean enable;
+
+    private final boolean similarEnable;
+
+    private final double similarThreshold;
+
+    private final int similarMaxSize;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final Cache<String, Object> exactCache;
+
+    private final Cache<String, List<SimilarEntry>> similarCache;
+
+    private final Cache<String, Embedding> embeddingCache;
+
+    public LLMResponseCache(@Value("${s2.llm.cache.enable:true}") boolean enable,
+            @Value("${s2.llm.cache.max.size:1000}") long maxSize,
+            @Value("${s2.llm.cache.expire.after.write:60}") long expireAfterWrite,
+            @Value("${s2.llm.cache.similar.enable:false}") boolean similarEnable,
+            @Value("${s2.llm.cache.similar.threshold:0.95}") double similarThreshold,
+            @Value("${s2.llm.cache.similar.max.size:100}") int similarMaxSize) {
+        this.enable = enable;
+        this.similarEnable = similarEnable;
+        this.similarThreshold = similarThreshold;
+        this.similarMaxSize = similarMaxSize;
+        this.exactCache = Caffeine.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES).build();
+        this.similarCache = Caffeine.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES).build();
+        this.embeddingCache = Caffeine.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES).build();
+    }
+
+    /**
+     * Returns the cached answer to the prompt, or loads and caches it. The schema and side
+     * information of the prompt are taken from the response, the exemplars are the rendered
+     * exemplar block of the prompt. Answers rejected by the predicate are returned but not cached,
+     * so that a retry asks the model again.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ChatModelConfig modelConfig, LLMReq llmReq, LLMResp llmResp, String exemplars,
+            String prompt, Predicate<T> cacheable, Supplier<T> loader) {
+        if (!enable) {
+            return loader.get();
+        }
+        long currentVersion = version.get();
+        String modelKey = getModelKey(modelConfig);
+        String exactKey = DigestUtils.sha256Hex(String.join("\n", modelKey, prompt));
+        T answer = (T) exactCache.getIfPresent(currentVersion + "#" + exactKey);
+        if (answer != null) {
+            log.debug("llm response cache hit, question:{}", llmReq.getQueryText());
+            return answer;
+        }
+        String scope = null;
+        Embedding question = null;
+        if (similarEnable) {
+            Long dataSetId = llmReq.getSchema() == null ? null : llmReq.getSchema().getDataSetId();
+            // each self-consistency inference has exemplars of its own, so an answer is only
+            // reused by the inference given the same exemplars
+            scope = currentVersion + "#"
+                    + DigestUtils.sha256Hex(String.join("\n", modelKey, String.valueOf(dataSetId),
+                            llmResp.getSchema(), llmResp.getSideInfo(), exemplars));
+            question = getEmbedding(llmReq.getQueryText());
+            answer = getSimilar(scope, question);
+            if (answer != null) {
+                log.debug("llm response similar cache hit, question:{}", llmReq.getQueryText());
+                return answer;
+            }
+        }
+
+        answer = loader.get();
+        if (answer == null || !cacheable.test(answer)) {
+            return answer;
+        }
+        exactCache.put(currentVersion + "#" + exactKey, answer);
+        if (question != null) {
+            putSimilar(scope, new SimilarEntry(question, answer));
+        }
+        return answer;
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        exactCache.invalidateAll();
+        similarCache.invalidateAll();
+    }
+
+    @EventListener
+    public void onApplicationEvent(DataEvent dataEvent) {
+        invalidateAll();
+    }
+
+    @EventListener
+    public void onApplicationEvent(DataUpdateEvent dataUpdateEvent) {
+        invalidateAll();
+    }
+
+    private String getModelKey(ChatModelConfig modelConfig) {
+        // a retry raises the temperature, its prompt must not hit the answer it retries
+        return String.join(",", modelConfig.getProvider(), modelConfig.getBaseUrl(),
+                modelConfig.getModelName(), String.valueOf(modelConfig.getTemperature()),
+                String.valueOf(modelConfig.getTopP()));
+    }
+
+    protected Embedding embed(String question) {
+        return ModelProvider.getEmbeddingModel().embed(question).content();
+    }
+
+    private Embedding getEmbedding(String question) {
+        try {
+            return embeddingCache.get(question, this::embed);
+        } catch (Exception e) {
+            log.warn("failed to embed question for llm response cache:{}", question, e);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getSimilar(String scope, Embedding question) {
+        List<SimilarEntry> entries = similarCache.getIfPresent(scope);
+        if (question == null || entries == null) {
+            return null;
+        }
+        SimilarEntry best = null;
+        double bestSimilarity = similarThreshold;
+        for (SimilarEntry entry : entries) {
+            double similarity = CosineSimilarity.between(question, entry.question);
+            if (similarity >= bestSimilarity) {
+                best = entry;
+                bestSimilarity = similarity;
+            }
+        }
+        return best == null ? null : (T) best.answer;
+    }
+
+    private void putSimilar(String scope, SimilarEntry entry) {
+        // entries are copied on write, readers iterate them without locking
+        similarCache.asMap().compute(scope, (key, entries) -> {
+            List<SimilarEntry> newEntries = new ArrayList<>();
+            if (entries != null) {
+                entries.stream().filter(e -> !Objects.equals(e.question, entry.question))
+                        .forEach(newEntries::add);
+            }
+            newEntries.add(entry);
+            if (newEntries.size() > similarMaxSize) {
+                newEntries.remove(0);
+            }
+            return newEntries;
+        });
+    }
+
+    private static class SimilarEntry {
+
+        private final Embedding question;
+
+        private final Object answer;
+
+        private SimilarEntry(Embedding question, Object answer) {
+            this.question = question;
+            this.answer = answer;
+        }
+    }
+}
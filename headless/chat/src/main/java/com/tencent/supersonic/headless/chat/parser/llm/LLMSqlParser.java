@@ -57,6 +57,7 @@ public class LLMSqlParser implements SemanticParser {
         ParseResult parseResult = null;
         while (currentRetry <= maxRetries) {
             log.info("currentRetryRound:{}, start runText2SQL", currentRetry);
+            llmReq.setRetryRound(currentRetry - 1);
             try {
                 LLMResp llmResp = requestService.runText2SQL(llmReq);
                 if (Objects.nonNull(llmResp)) {
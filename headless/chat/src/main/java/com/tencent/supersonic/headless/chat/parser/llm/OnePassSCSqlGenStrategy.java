@@ -1,10 +1,11 @@
 package com.tencent.supersonic.headless.chat.parser.llm;
 
-import com.google.common.collect.Lists;
+import com.tencent.supersonic.common.jsqlparser.SqlValidHelper;
 import com.tencent.supersonic.common.pojo.ChatApp;
 import com.tencent.supersonic.common.pojo.Text2SQLExemplar;
 import com.tencent.supersonic.common.pojo.enums.AppModule;
 import com.tencent.supersonic.common.util.ChatAppManager;
+import com.tencent.supersonic.headless.chat.parser.ParserConfig;
 import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMReq;
 import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMResp;
 import dev.langchain4j.model.chat.ChatLanguageModel;
@@ -17,12 +18,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.tencent.supersonic.headless.chat.parser.ParserConfig.PARSER_SELF_CONSISTENCY_ADAPTIVE;
 
 @Service
 @Slf4j
@@ -31,6 +40,7 @@ public class OnePassSCSqlGenStrategy extends SqlGenStrategy {
     private static final Logger keyPipelineLog = LoggerFactory.getLogger("keyPipeline");
 
     public static final String APP_KEY = "S2SQL_PARSER";
+    /** schema and side information come before the exemplars, so the prompts share a prefix */
     public static final String INSTRUCTION =
             "#Role: You are a data analyst experienced in SQL languages."
                     + "\n#Task: You will be provided with a natural language question asked by users,"
@@ -43,8 +53,19 @@ public class OnePassSCSqlGenStrategy extends SqlGenStrategy {
                     + "\n5.ALWAYS use `with` statement if nested aggregation is needed."
                     + "\n6.ALWAYS enclose alias declared by `AS` command in underscores."
                     + "\n7.Alias created by `AS` command must be in the same language ast the `Question`."
+                    + "\n#Schema: {{schema}}" + "\n#SideInfo: {{information}}"
                     + "\n#Exemplars: {{exemplar}}"
-                    + "\n#Query: Question:{{question}},Schema:{{schema}},SideInfo:{{information}}";
+                    + "\n#Query: Question:{{question}},Schema:`#Schema`,SideInfo:`#SideInfo`";
+
+    @Autowired
+    private LLMResponseCache llmResponseCache;
+
+    @Autowired
+    private ParserConfig parserConfig;
+
+    @Autowired
+    @Qualifier("sqlGenExecutor")
+    private ThreadPoolExecutor sqlGenExecutor;
 
     public OnePassSCSqlGenStrategy() {
         ChatAppManager.register(APP_KEY, ChatApp.builder().prompt(INSTRUCTION).name("语义SQL解析")
@@ -78,45 +99,81 @@ public class OnePassSCSqlGenStrategy extends SqlGenStrategy {
         SemanticSqlExtractor extractor =
                 AiServices.create(SemanticSqlExtractor.class, chatLanguageModel);
 
-        Map<Prompt, List<Text2SQLExemplar>> prompt2Exemplar = new HashMap<>();
+        // schema and side information are the same for all inferences, render them once
+        llmResp.setSchema(promptHelper.buildSchemaStr(llmReq));
+        llmResp.setSideInfo(promptHelper.buildSideInformation(llmReq));
+        Map<Text2SQLExemplar, String> exemplar2Str = new IdentityHashMap<>();
+        // identical prompts would only repeat a vote
+        Map<String, Pair<Prompt, List<Text2SQLExemplar>>> prompt2Exemplar = new LinkedHashMap<>();
+        Map<String, String> prompt2ExemplarStr = new HashMap<>();
         for (List<Text2SQLExemplar> exemplars : exemplarsList) {
             llmReq.setDynamicExemplars(exemplars);
-            Prompt prompt = generatePrompt(llmReq, llmResp, chatApp);
-            prompt2Exemplar.put(prompt, exemplars);
+            String exemplarStr = buildExemplarStr(exemplars, exemplar2Str);
+            Prompt prompt = generatePrompt(llmReq, llmResp, chatApp, exemplarStr);
+            prompt2Exemplar.putIfAbsent(prompt.text(), Pair.of(prompt, exemplars));
+            prompt2ExemplarStr.putIfAbsent(prompt.text(), exemplarStr);
+        }
+        List<Pair<Prompt, List<Text2SQLExemplar>>> prompts =
+                new ArrayList<>(prompt2Exemplar.values());
+
+        // 3.perform self-consistency inferences parallelly until a majority agrees
+        List<Callable<SemanticSql>> inferences = new ArrayList<>();
+        for (Pair<Prompt, List<Text2SQLExemplar>> prompt : prompts) {
+            String exemplarStr = prompt2ExemplarStr.get(prompt.getLeft().text());
+            inferences.add(() -> {
+                String text = prompt.getLeft().toUserMessage().singleText();
+                // an invalid answer is not cached, the retry round asks the model again
+                SemanticSql s2Sql = llmResponseCache.get(chatApp.getChatModelConfig(), llmReq,
+                        llmResp, exemplarStr, text,
+                        answer -> SqlValidHelper.isValidSQL(answer.getSql()),
+                        () -> extractor.generateSemanticSql(text));
+                keyPipelineLog.info("OnePassSCSqlGenStrategy modelReq:\n{} \nmodelResp:\n{}",
+                        prompt.getLeft().text(), s2Sql);
+                return s2Sql;
+            });
+        }
+        boolean adaptive = Boolean
+                .parseBoolean(parserConfig.getParameterValue(PARSER_SELF_CONSISTENCY_ADAPTIVE));
+        Map<Integer, SemanticSql> outputs =
+                new SelfConsistencyVoter<>(sqlGenExecutor, SemanticSql::getSql).run(inferences,
+                        adaptive);
+
+        // 4.format response, votes are counted on normalized sql
+        Map<String, String> normalized2Sql = new HashMap<>();
+        Map<String, Integer> normalized2Prompt = new HashMap<>();
+        List<String> normalizedOutputs = new ArrayList<>();
+        for (Map.Entry<Integer, SemanticSql> output : outputs.entrySet()) {
+            String normalized = ResponseHelper.normalizeSql(output.getValue().getSql());
+            normalized2Sql.putIfAbsent(normalized, output.getValue().getSql());
+            normalized2Prompt.putIfAbsent(normalized, output.getKey());
+            normalizedOutputs.add(normalized);
         }
-
-        // 3.perform multiple self-consistency inferences parallelly
-        Map<String, Prompt> output2Prompt = new ConcurrentHashMap<>();
-        prompt2Exemplar.keySet().parallelStream().forEach(prompt -> {
-            SemanticSql s2Sql = extractor.generateSemanticSql(prompt.toUserMessage().singleText());
-            output2Prompt.put(s2Sql.getSql(), prompt);
-            keyPipelineLog.info("OnePassSCSqlGenStrategy modelReq:\n{} \nmodelResp:\n{}",
-                    prompt.text(), s2Sql);
-        });
-
-        // 4.format response.
         Pair<String, Map<String, Double>> sqlMapPair =
-                ResponseHelper.selfConsistencyVote(Lists.newArrayList(output2Prompt.keySet()));
-        llmResp.setSqlOutput(sqlMapPair.getLeft());
-        List<Text2SQLExemplar> usedExemplars =
-                prompt2Exemplar.get(output2Prompt.get(sqlMapPair.getLeft()));
-        llmResp.setSqlRespMap(ResponseHelper.buildSqlRespMap(usedExemplars, sqlMapPair.getRight()));
+                ResponseHelper.selfConsistencyVote(normalizedOutputs, prompts.size());
+        Map<String, Double> sqlMap = new HashMap<>();
+        sqlMapPair.getRight().forEach((sql, weight) -> sqlMap.put(normalized2Sql.get(sql), weight));
+        llmResp.setSqlOutput(normalized2Sql.get(sqlMapPair.getLeft()));
+        List<Text2SQLExemplar> usedExemplars = sqlMapPair.getLeft() == null ? null
+                : prompts.get(normalized2Prompt.get(sqlMapPair.getLeft())).getRight();
+        llmResp.setSqlRespMap(ResponseHelper.buildSqlRespMap(usedExemplars, sqlMap));
 
         return llmResp;
     }
 
-    private Prompt generatePrompt(LLMReq llmReq, LLMResp llmResp, ChatApp chatApp) {
-        StringBuilder exemplars = new StringBuilder();
-        for (Text2SQLExemplar exemplar : llmReq.getDynamicExemplars()) {
-            String exemplarStr = String.format("\nQuestion:%s,Schema:%s,SideInfo:%s,SQL:%s",
-                    exemplar.getQuestion(), exemplar.getDbSchema(), exemplar.getSideInfo(),
-                    exemplar.getSql());
-            exemplars.append(exemplarStr);
+    private String buildExemplarStr(List<Text2SQLExemplar> exemplars,
+            Map<Text2SQLExemplar, String> exemplar2Str) {
+        StringBuilder exemplarStr = new StringBuilder();
+        for (Text2SQLExemplar exemplar : exemplars) {
+            exemplarStr
+                    .append(exemplar2Str.computeIfAbsent(exemplar, promptHelper::buildExemplarStr));
         }
-        String dataSemantics = promptHelper.buildSchemaStr(llmReq);
-        String sideInformation = promptHelper.buildSideInformation(llmReq);
-        llmResp.setSchema(dataSemantics);
-        llmResp.setSideInfo(sideInformation);
+        return exemplarStr.toString();
+    }
+
+    private Prompt generatePrompt(LLMReq llmReq, LLMResp llmResp, ChatApp chatApp,
+            String exemplars) {
+        String dataSemantics = llmResp.getSchema();
+        String sideInformation = llmResp.getSideInfo();
 
         Map<String, Object> variable = new HashMap<>();
         variable.put("exemplar", exemplars);
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 
 import static com.tencent.supersonic.headless.chat.parser.ParserConfig.*;
 
@@ -48,19 +49,29 @@ public class PromptHelper {
         }
 
         List<List<Text2SQLExemplar>> results = new ArrayList<>();
-        // use random collection of exemplars for each self-consistency inference
+        // use random collection of exemplars for each self-consistency inference, seeded by the
+        // question so that asking it again renders the same prompts and hits prompt caches, and by
+        // the retry round so that a retry tries other exemplars
         for (int i = 0; i < selfConsistencyNumber; i++) {
             List<Text2SQLExemplar> shuffledList = new ArrayList<>(exemplars);
             // only shuffle the exemplars from config
             List<Text2SQLExemplar> subList =
                     shuffledList.subList(llmReq.getDynamicExemplars().size(), shuffledList.size());
-            Collections.shuffle(subList);
+            Collections.shuffle(subList,
+                    new Random(Objects.hash(llmReq.getQueryText(), llmReq.getRetryRound(), i)));
             results.add(shuffledList.subList(0, Math.min(shuffledList.size(), fewShotNumber)));
         }
 
         return results;
     }
 
+    public String buildExemplarStr(Text2SQLExemplar exemplar) {
+        return new StringBuilder().append("\nQuestion:").append(exemplar.getQuestion())
+                .append(",Schema:").append(exemplar.getDbSchema()).append(",SideInfo:")
+                .append(exemplar.getSideInfo()).append(",SQL:").append(exemplar.getSql())
+                .toString();
+    }
+
     public String buildSideInformation(LLMReq llmReq) {
         String currentDate = llmReq.getCurrentDate();
         List<String> sideInfos = Lists.newArrayList();
@@ -31,7 +31,25 @@ public class ResponseHelper {
         return sql;
     }
 
+    /** folds whitespace and a trailing semicolon, so that votes do not split on formatting */
+    public static String normalizeSql(String sql) {
+        String normalized = sql.trim().replaceAll("\\s+", " ");
+        while (normalized.endsWith(";")) {
+            normalized = normalized.substring(0, normalized.length() - 1).trim();
+        }
+        return normalized;
+    }
+
     public static Pair<String, Map<String, Double>> selfConsistencyVote(List<String> outputList) {
+        return selfConsistencyVote(outputList, outputList.size());
+    }
+
+    /**
+     * Weights each output by its votes over the planned inferences, so that the weights of a vote
+     * stopped early are not inflated by the inferences that were cancelled or failed.
+     */
+    public static Pair<String, Map<String, Double>> selfConsistencyVote(List<String> outputList,
+            int inferenceCount) {
         Map<String, Integer> inputCounts = new HashMap<>();
         for (String input : outputList) {
             inputCounts.put(input, inputCounts.getOrDefault(input, 0) + 1);
@@ -39,7 +57,7 @@ public class ResponseHelper {
 
         String inputMax = null;
         int maxCount = 0;
-        int inputSize = outputList.size();
+        int inputSize = Math.max(inferenceCount, outputList.size());
         Map<String, Double> votePercentage = new HashMap<>();
         for (Map.Entry<String, Integer> entry : inputCounts.entrySet()) {
             String input = entry.getKey();
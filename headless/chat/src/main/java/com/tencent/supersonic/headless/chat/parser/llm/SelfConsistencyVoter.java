@@ -0,0 +1,100 @@
+package com.tencent.supersonic.headless.chat.parser.llm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runs self-consistency inferences until a majority of them agree on the same normalized SQL, the
+ * outstanding inferences are cancelled then. The winner of a majority cannot change, so stopping
+ * early picks the same SQL as waiting for all inferences. In adaptive mode only as many inferences
+ * as a majority needs are started, another one is started whenever the outstanding ones can no
+ * longer make up a majority.
+ */
+@Slf4j
+class SelfConsistencyVoter<T> {
+
+    private final Executor executor;
+
+    private final Function<T, String> sqlOf;
+
+    SelfConsistencyVoter(Executor executor, Function<T, String> sqlOf) {
+        this.executor = executor;
+        this.sqlOf = sqlOf;
+    }
+
+    /**
+     * Returns the outputs of the finished inferences by their index, in the order they finished.
+     * Failed inferences and outputs without SQL cast no vote, an exception is thrown only if no
+     * inference produced an output.
+     */
+    Map<Integer, T> run(List<Callable<T>> inferences, boolean adaptive) {
+        int quorum = inferences.size() / 2 + 1;
+        CompletionService<Pair<Integer, T>> completionService =
+                new ExecutorCompletionService<>(executor);
+        List<Future<Pair<Integer, T>>> futures = new ArrayList<>();
+        Map<Integer, T> outputs = new LinkedHashMap<>();
+        Map<String, Integer> votes = new HashMap<>();
+        Exception failure = null;
+        int maxVotes = 0;
+        int finished = 0;
+        try {
+            int initial = adaptive ? Math.min(quorum, inferences.size()) : inferences.size();
+            while (futures.size() < initial) {
+                futures.add(submit(completionService, inferences, futures.size()));
+            }
+            while (finished < futures.size()) {
+                Future<Pair<Integer, T>> future = completionService.take();
+                finished++;
+                try {
+                    Pair<Integer, T> output = future.get();
+                    String sql = output.getRight() == null ? null : sqlOf.apply(output.getRight());
+                    if (sql != null) {
+                        outputs.put(output.getLeft(), output.getRight());
+                        maxVotes = Math.max(maxVotes,
+                                votes.merge(ResponseHelper.normalizeSql(sql), 1, Integer::sum));
+                    }
+                } catch (ExecutionException e) {
+                    failure = e;
+                    log.warn("self-consistency inference failed", e.getCause());
+                }
+                if (maxVotes >= quorum) {
+                    break;
+                }
+                while (futures.size() < inferences.size()
+                        && maxVotes + futures.size() - finished < quorum) {
+                    futures.add(submit(completionService, inferences, futures.size()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for self-consistency", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        log.debug("self-consistency started:{}, finished:{}, max votes:{}", futures.size(),
+                finished, maxVotes);
+        if (outputs.isEmpty() && failure != null) {
+            throw new RuntimeException("all self-consistency inferences failed", failure);
+        }
+        return outputs;
+    }
+
+    private Future<Pair<Integer, T>> submit(CompletionService<Pair<Integer, T>> completionService,
+            List<Callable<T>> inferences, int index) {
+        Callable<T> inference = inferences.get(index);
+        return completionService.submit(() -> Pair.of(index, inference.call()));
+    }
+}
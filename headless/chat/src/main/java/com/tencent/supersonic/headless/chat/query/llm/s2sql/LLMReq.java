@@ -28,6 +28,8 @@ public class LLMReq {
     private Map<String, ChatApp> chatAppConfig;
     private String customPrompt;
     private List<Text2SQLExemplar> dynamicExemplars;
+    /** 0 for the first attempt, raised by each retry of the parser */
+    private int retryRound;
 
     @Data
     public static class ElementValue {
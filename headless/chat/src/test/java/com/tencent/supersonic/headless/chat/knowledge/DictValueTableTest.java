@@ -0,0 +1,95 @@
+package com.tencent.supersonic.headless.chat.knowledge;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hankcs.hanlp.corpus.tag.Nature;
+import com.hankcs.hanlp.dictionary.CoreDictionary;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+class DictValueTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPrefixWalkShortestFirst() throws Exception {
+        TreeMap<String, CoreDictionary.Attribute> words = new TreeMap<>();
+        words.put("周杰伦", CoreDictionary.Attribute.create("_1_2 100"));
+        words.put("周深", CoreDictionary.Attribute.create("_1_2 100"));
+        words.put("周星驰", CoreDictionary.Attribute.create("_2_3 100"));
+        words.put("周传雄", CoreDictionary.Attribute.create("_1_2 100 _2_3 50"));
+        words.put("周华健演唱会", CoreDictionary.Attribute.create("_1_2 100"));
+        words.put("周", CoreDictionary.Attribute.create("_1_2 100"));
+        words.put("林俊杰", CoreDictionary.Attribute.create("_1_2 100"));
+        words.put("未##它", null);
+        Path path = tempDir.resolve("dict.txt" + MultiCustomDictionary.VALUE_TABLE_SUFFIX);
+        DictValueTable.write(path, words);
+        DictValueTable table = DictValueTable.open(path);
+        Assertions.assertEquals(7, table.size());
+
+        List<String> names = new ArrayList<>();
+        table.prefixWalk("周", (word, natures) -> names.add(word));
+        Assertions.assertEquals(Lists.newArrayList("周", "周深", "周传雄", "周星驰", "周杰伦", "周华健演唱会"),
+                names);
+
+        Map<String, List<String>> wordToNatures = new HashMap<>();
+        table.prefixWalk("周传", (word, natures) -> wordToNatures.put(word, natures) == null);
+        Assertions.assertEquals(Lists.newArrayList("_1_2", "_2_3"), wordToNatures.get("周传雄"));
+
+        names.clear();
+        table.prefixWalk("周", (word, natures) -> names.add(word) && names.size() < 2);
+        Assertions.assertEquals(Lists.newArrayList("周", "周深"), names);
+
+        names.clear();
+        table.prefixWalk("张", (word, natures) -> names.add(word));
+        Assertions.assertTrue(names.isEmpty());
+    }
+
+    @Test
+    void testPrefixSearch() throws Exception {
+        TreeMap<String, CoreDictionary.Attribute> words = new TreeMap<>();
+        words.put("周杰伦", new CoreDictionary.Attribute(Nature.create("_1_2"), 100));
+        words.put("周星驰", new CoreDictionary.Attribute(Nature.create("_2_3"), 100));
+        Path path = tempDir.resolve("search.txt" + MultiCustomDictionary.VALUE_TABLE_SUFFIX);
+        DictValueTable.write(path, words);
+        Map<Long, List<Long>> modelIdToDataSetIds = new HashMap<>();
+        modelIdToDataSetIds.put(1L, Lists.newArrayList(10L));
+        modelIdToDataSetIds.put(2L, Lists.newArrayList(20L));
+
+        List<HanlpMapResult> results = SearchService.prefixSearch("周", 10,
+                DictValueTable.open(path), modelIdToDataSetIds, Sets.newHashSet(10L));
+        Assertions.assertEquals(Lists.newArrayList("周杰伦"),
+                results.stream().map(HanlpMapResult::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(Lists.newArrayList("_10_2"), results.get(0).getNatures());
+    }
+
+    @Test
+    void testTopWords() throws Exception {
+        TreeMap<String, CoreDictionary.Attribute> words = new TreeMap<>();
+        for (int i = 0; i < MultiCustomDictionary.MAX_SIZE + 5; i++) {
+            words.put("歌手" + i, CoreDictionary.Attribute.create("_1_2 " + i));
+        }
+        words.put("周杰伦", CoreDictionary.Attribute.create("_1_2 100 _1_3 1"));
+        Path path = tempDir.resolve("top.txt" + MultiCustomDictionary.VALUE_TABLE_SUFFIX);
+        DictValueTable.write(path, words);
+        DictValueTable table = DictValueTable.open(path);
+
+        List<String> topWords = table.getTopWords("_1_2");
+        Assertions.assertEquals(MultiCustomDictionary.MAX_SIZE, topWords.size());
+        Assertions.assertEquals(Lists.newArrayList("周杰伦", "歌手14", "歌手13"), topWords.subList(0, 3));
+        Assertions.assertFalse(topWords.contains("歌手4"));
+        Assertions.assertEquals(Lists.newArrayList("周杰伦"),
+                SearchService.getDimensionValue("_1_3", table));
+        Assertions.assertTrue(table.getTopWords("_1_4").isEmpty());
+    }
+}
@@ -0,0 +1,54 @@
+package com.tencent.supersonic.headless.chat.knowledge;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hankcs.hanlp.collection.trie.bintrie.BinTrie;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class SearchServiceTest {
+
+    @Test
+    void testPrefixSearchShortestFirst() {
+        BinTrie<List<String>> trie = new BinTrie<>();
+        trie.put("周杰伦", Lists.newArrayList("_1_2"));
+        trie.put("周深", Lists.newArrayList("_1_2"));
+        trie.put("周星驰", Lists.newArrayList("_2_3"));
+        trie.put("周传雄", Lists.newArrayList("_1_2"));
+        trie.put("周华健演唱会", Lists.newArrayList("_1_2"));
+        trie.put("周", Lists.newArrayList("_1_2"));
+        trie.put("林俊杰", Lists.newArrayList("_1_2"));
+        Map<Long, List<Long>> modelIdToDataSetIds = new HashMap<>();
+        modelIdToDataSetIds.put(1L, Lists.newArrayList(10L));
+        modelIdToDataSetIds.put(2L, Lists.newArrayList(20L));
+
+        List<HanlpMapResult> results = SearchService.prefixSearch("周", 10, trie,
+                modelIdToDataSetIds, Sets.newHashSet(10L));
+        Assertions.assertEquals(Lists.newArrayList("周", "周深", "周传雄", "周杰伦", "周华健演唱会"),
+                results.stream().map(HanlpMapResult::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(Lists.newArrayList("_10_2"), results.get(1).getNatures());
+
+        results =
+                SearchService.prefixSearch("周", 3, trie, modelIdToDataSetIds, Sets.newHashSet(10L));
+        Assertions.assertEquals(Lists.newArrayList("周", "周深", "周传雄"),
+                results.stream().map(HanlpMapResult::getName).collect(Collectors.toList()));
+
+        // walks on the shared trie must not see each other's state
+        List<String> expected = SearchService
+                .prefixSearch("周", 10, trie, modelIdToDataSetIds, Sets.newHashSet(10L, 20L))
+                .stream().map(HanlpMapResult::getName).collect(Collectors.toList());
+        IntStream.range(0, 200).parallel().forEach(i -> {
+            String key = i % 2 == 0 ? "周" : "周杰";
+            List<String> names = SearchService
+                    .prefixSearch(key, 10, trie, modelIdToDataSetIds, Sets.newHashSet(10L, 20L))
+                    .stream().map(HanlpMapResult::getName).collect(Collectors.toList());
+            Assertions.assertEquals(i % 2 == 0 ? expected : Lists.newArrayList("周杰伦"), names);
+        });
+    }
+}
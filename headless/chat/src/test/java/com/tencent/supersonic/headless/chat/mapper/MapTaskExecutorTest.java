@@ -0,0 +1,132 @@
+package com.tencent.supersonic.headless.chat.mapper;
+
+import com.tencent.supersonic.headless.chat.ChatQueryContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class MapTaskExecutorTest {
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(2), new ThreadPoolExecutor.AbortPolicy());
+
+    private final MapTaskExecutor mapTaskExecutor =
+            new MapTaskExecutor(executor, Mockito.mock(MapperConfig.class));
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testRunEachTaskOnce() {
+        ChatQueryContext chatQueryContext = new ChatQueryContext();
+        chatQueryContext.setMappingDeadline(System.currentTimeMillis() + 10000);
+        AtomicInteger calls = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int index = i;
+            tasks.add(() -> {
+                calls.incrementAndGet();
+                return index;
+            });
+        }
+        List<Integer> results = mapTaskExecutor.execute(chatQueryContext, tasks);
+
+        Assertions.assertEquals(4, calls.get());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), results);
+        MapTaskStats stats = mapTaskExecutor.getStats();
+        Assertions.assertEquals(4, stats.getTaskCount());
+        Assertions.assertEquals(0, stats.getCancelledCount());
+    }
+
+    @Test
+    void testRunRequestLargerThanQueue() {
+        ChatQueryContext chatQueryContext = new ChatQueryContext();
+        chatQueryContext.setMappingDeadline(System.currentTimeMillis() + 10000);
+        AtomicInteger calls = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            tasks.add(() -> {
+                calls.incrementAndGet();
+                return index;
+            });
+            expected.add(i);
+        }
+        List<Integer> results = mapTaskExecutor.execute(chatQueryContext, tasks);
+
+        // two threads and a queue of two hold the request as two batches
+        Assertions.assertEquals(100, calls.get());
+        Assertions.assertEquals(expected, results);
+        Assertions.assertEquals(0, mapTaskExecutor.getStats().getRejectedCount());
+    }
+
+    @Test
+    void testRunRejectedBatchesInCallingThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                release.await();
+                return null;
+            });
+        }
+        ChatQueryContext chatQueryContext = new ChatQueryContext();
+        chatQueryContext.setMappingDeadline(System.currentTimeMillis() + 10000);
+        Thread caller = Thread.currentThread();
+        AtomicInteger callerRuns = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int index = i;
+            tasks.add(() -> {
+                if (Thread.currentThread() == caller) {
+                    callerRuns.incrementAndGet();
+                }
+                return index;
+            });
+        }
+        List<Integer> results;
+        try {
+            results = mapTaskExecutor.execute(chatQueryContext, tasks);
+        } finally {
+            release.countDown();
+        }
+
+        // the pool is busy with another request, so the batches run in the calling thread
+        Assertions.assertEquals(10, callerRuns.get());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), results);
+        Assertions.assertEquals(2, mapTaskExecutor.getStats().getRejectedCount());
+        Assertions.assertEquals(0, mapTaskExecutor.getStats().getCancelledCount());
+    }
+
+    @Test
+    void testCancelAtDeadline() {
+        ChatQueryContext chatQueryContext = new ChatQueryContext();
+        chatQueryContext.setMappingDeadline(System.currentTimeMillis() + 200);
+        List<Callable<String>> tasks = new ArrayList<>();
+        tasks.add(() -> "fast");
+        tasks.add(() -> {
+            Thread.sleep(10000);
+            return "slow";
+        });
+        long start = System.currentTimeMillis();
+        List<String> results = mapTaskExecutor.execute(chatQueryContext, tasks);
+
+        Assertions.assertTrue(System.currentTimeMillis() - start < 5000);
+        Assertions.assertEquals(Collections.singletonList("fast"), results);
+        Assertions.assertEquals(1, mapTaskExecutor.getStats().getCancelledCount());
+    }
+}
@@ -0,0 +1,45 @@
+package com.tencent.supersonic.headless.chat.mapper;
+
+import com.google.common.collect.Lists;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.chat.mapper.SchemaElementNameIndex.NameMatch;
+import com.tencent.supersonic.headless.chat.utils.EditDistanceUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+class SchemaElementNameIndexTest {
+
+    private static final List<String> NAMES = Lists.newArrayList("访问次数", "访问人数", "访问用户数", "停留时长",
+            "用户名", "部门", "数据日期", "歌手名", "歌曲名", "Pv", "pv_cnt");
+
+    @Test
+    void testSearchSameAsFullScan() {
+        List<SchemaElement> elements =
+                NAMES.stream().map(name -> SchemaElement.builder().dataSetId(1L).name(name).build())
+                        .collect(Collectors.toList());
+        elements.add(SchemaElement.builder().dataSetId(2L).name("访问次数").build());
+        SchemaElementNameIndex nameIndex = SchemaElementNameIndex.build(elements);
+        Assertions.assertEquals(NAMES.size(), nameIndex.size());
+
+        List<String> segments =
+                Lists.newArrayList("访问", "访", "用户", "数", "歌手名", "名", "pv", "Pv", "时长", "不存在");
+        for (double threshold : new double[] {0.1, 0.3, 0.5, 0.7, 1.0}) {
+            for (String segment : segments) {
+                Set<String> expected = NAMES.stream()
+                        .filter(name -> name.contains(segment)
+                                && EditDistanceUtils.getSimilarity(segment, name) >= threshold)
+                        .collect(Collectors.toCollection(TreeSet::new));
+                Set<String> actual = nameIndex.search(segment, threshold).stream()
+                        .map(NameMatch::getName).collect(Collectors.toCollection(TreeSet::new));
+                Assertions.assertEquals(expected, actual, segment + "@" + threshold);
+            }
+        }
+        NameMatch nameMatch = nameIndex.search("访问次数", 1.0).get(0);
+        Assertions.assertEquals(2, nameMatch.getSchemaElements().size());
+    }
+}
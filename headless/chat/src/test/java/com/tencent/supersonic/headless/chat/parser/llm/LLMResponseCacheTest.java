@@ -0,0 +1,100 @@
+package com.tencent.supersonic.headless.chat.parser.llm;
+
+import com.tencent.supersonic.common.pojo.ChatModelConfig;
+import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMReq;
+import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMResp;
+import dev.langchain4j.data.embedding.Embedding;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class LLMResponseCacheTest {
+
+    @Test
+    void testExactHitAndInvalidation() {
+        LLMResponseCache cache = new LLMResponseCache(true, 100, 60, false, 0.95, 10);
+        ChatModelConfig modelConfig = new ChatModelConfig();
+        modelConfig.setProvider("OPEN_AI");
+        modelConfig.setModelName("gpt");
+        LLMReq llmReq = new LLMReq();
+        llmReq.setQueryText("超音数访问次数");
+        LLMResp llmResp = new LLMResp();
+        AtomicInteger calls = new AtomicInteger();
+
+        String answer = cache.get(modelConfig, llmReq, llmResp, "", "prompt",
+                StringUtils::isNotBlank, () -> "SELECT " + calls.incrementAndGet());
+        Assertions.assertEquals("SELECT 1", answer);
+        answer = cache.get(modelConfig, llmReq, llmResp, "", "prompt", StringUtils::isNotBlank,
+                () -> "SELECT " + calls.incrementAndGet());
+        Assertions.assertEquals("SELECT 1", answer);
+
+        // a retry with a higher temperature asks the model again
+        modelConfig.setTemperature(0.5);
+        answer = cache.get(modelConfig, llmReq, llmResp, "", "prompt", StringUtils::isNotBlank,
+                () -> "SELECT " + calls.incrementAndGet());
+        Assertions.assertEquals("SELECT 2", answer);
+
+        cache.invalidateAll();
+        answer = cache.get(modelConfig, llmReq, llmResp, "", "prompt", StringUtils::isNotBlank,
+                () -> "SELECT " + calls.incrementAndGet());
+        Assertions.assertEquals("SELECT 3", answer);
+    }
+
+    @Test
+    void testSimilarHitScopedByExemplars() {
+        LLMResponseCache cache = new LLMResponseCache(true, 100, 60, true, 0.95, 10) {
+            @Override
+            protected Embedding embed(String question) {
+                // questions about visits are close, the others far
+                return Embedding.from(
+                        question.contains("访问") ? new float[] {1f, 0.01f} : new float[] {0f, 1f});
+            }
+        };
+        ChatModelConfig modelConfig = new ChatModelConfig();
+        LLMResp llmResp = new LLMResp();
+        llmResp.setSchema("schema");
+        llmResp.setSideInfo("info");
+        AtomicInteger calls = new AtomicInteger();
+
+        String answer = cache.get(modelConfig, request("超音数访问次数"), llmResp, "exemplars", "prompt1",
+                StringUtils::isNotBlank, () -> "SELECT " + calls.incrementAndGet());
+        Assertions.assertEquals("SELECT 1", answer);
+        // a close question with the same exemplars reuses the answer
+        answer = cache.get(modelConfig, request("超音数的访问次数"), llmResp, "exemplars", "prompt2",
+                StringUtils::isNotBlank, () -> "SELECT " + calls.incrementAndGet());
+        Assertions.assertEquals("SELECT 1", answer);
+        // another inference of the same question has other exemplars
+        answer = cache.get(modelConfig, request("超音数的访问次数"), llmResp, "other exemplars", "prompt3",
+                StringUtils::isNotBlank, () -> "SELECT " + calls.incrementAndGet());
+        Assertions.assertEquals("SELECT 2", answer);
+        // a far question asks the model
+        answer = cache.get(modelConfig, request("超音数的停留时长"), llmResp, "exemplars", "prompt4",
+                StringUtils::isNotBlank, () -> "SELECT " + calls.incrementAndGet());
+        Assertions.assertEquals("SELECT 3", answer);
+    }
+
+    @Test
+    void testRejectedAnswerNotCached() {
+        LLMResponseCache cache = new LLMResponseCache(true, 100, 60, false, 0.95, 10);
+        ChatModelConfig modelConfig = new ChatModelConfig();
+        LLMReq llmReq = new LLMReq();
+        LLMResp llmResp = new LLMResp();
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            cache.get(modelConfig, llmReq, llmResp, "", "prompt", StringUtils::isNotBlank, () -> {
+                calls.incrementAndGet();
+                return "";
+            });
+        }
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    private LLMReq request(String queryText) {
+        LLMReq llmReq = new LLMReq();
+        llmReq.setQueryText(queryText);
+        return llmReq;
+    }
+}
@@ -0,0 +1,63 @@
+package com.tencent.supersonic.headless.chat.parser.llm;
+
+import com.tencent.supersonic.common.pojo.Text2SQLExemplar;
+import com.tencent.supersonic.common.service.ExemplarService;
+import com.tencent.supersonic.headless.chat.parser.ParserConfig;
+import com.tencent.supersonic.headless.chat.query.llm.s2sql.LLMReq;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.tencent.supersonic.headless.chat.parser.ParserConfig.PARSER_EXEMPLAR_RECALL_NUMBER;
+import static com.tencent.supersonic.headless.chat.parser.ParserConfig.PARSER_FEW_SHOT_NUMBER;
+import static com.tencent.supersonic.headless.chat.parser.ParserConfig.PARSER_SELF_CONSISTENCY_NUMBER;
+
+class PromptHelperTest {
+
+    @Mock
+    private ParserConfig parserConfig;
+
+    @Mock
+    private ExemplarService exemplarService;
+
+    @InjectMocks
+    private PromptHelper promptHelper;
+
+    PromptHelperTest() {
+        MockitoAnnotations.openMocks(this);
+        Mockito.when(parserConfig.getParameterValue(PARSER_EXEMPLAR_RECALL_NUMBER))
+                .thenReturn("20");
+        Mockito.when(parserConfig.getParameterValue(PARSER_FEW_SHOT_NUMBER)).thenReturn("5");
+        Mockito.when(parserConfig.getParameterValue(PARSER_SELF_CONSISTENCY_NUMBER))
+                .thenReturn("3");
+        List<Text2SQLExemplar> exemplars = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            exemplars.add(Text2SQLExemplar.builder().question("question" + i).build());
+        }
+        Mockito.when(exemplarService.recallExemplars(ArgumentMatchers.anyString(),
+                ArgumentMatchers.anyInt())).thenAnswer(invocation -> new ArrayList<>(exemplars));
+    }
+
+    @Test
+    void testShuffleSeededByQuestionAndRetryRound() {
+        List<List<Text2SQLExemplar>> first = promptHelper.getFewShotExemplars(request(0));
+        Assertions.assertEquals(3, first.size());
+        Assertions.assertEquals(first, promptHelper.getFewShotExemplars(request(0)));
+        Assertions.assertNotEquals(first, promptHelper.getFewShotExemplars(request(1)));
+    }
+
+    private LLMReq request(int retryRound) {
+        LLMReq llmReq = new LLMReq();
+        llmReq.setQueryText("超音数访问次数");
+        llmReq.setDynamicExemplars(new ArrayList<>());
+        llmReq.setRetryRound(retryRound);
+        return llmReq;
+    }
+}
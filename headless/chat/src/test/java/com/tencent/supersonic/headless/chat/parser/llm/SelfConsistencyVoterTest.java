@@ -0,0 +1,104 @@
+package com.tencent.supersonic.headless.chat.parser.llm;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+class SelfConsistencyVoterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testStopOnMajority() {
+        List<Callable<String>> inferences = new ArrayList<>();
+        inferences.add(() -> "SELECT a FROM t");
+        inferences.add(() -> "SELECT  a FROM t;");
+        inferences.add(() -> "SELECT a FROM t");
+        for (int i = 0; i < 2; i++) {
+            inferences.add(() -> {
+                TimeUnit.SECONDS.sleep(30);
+                return "SELECT b FROM t";
+            });
+        }
+        long start = System.currentTimeMillis();
+        Map<Integer, String> outputs =
+                new SelfConsistencyVoter<>(executor, Function.<String>identity()).run(inferences,
+                        false);
+        Assertions.assertTrue(System.currentTimeMillis() - start < 10000);
+        Assertions.assertEquals(3, outputs.size());
+    }
+
+    @Test
+    void testAdaptiveStartsMoreOnDisagreement() {
+        AtomicInteger calls = new AtomicInteger();
+        List<Callable<String>> inferences = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            inferences.add(() -> "SELECT a FROM t" + calls.incrementAndGet() % 2);
+        }
+        Map<Integer, String> outputs =
+                new SelfConsistencyVoter<>(executor, Function.<String>identity()).run(inferences,
+                        true);
+        Assertions.assertEquals(5, calls.get());
+        Assertions.assertEquals(5, outputs.size());
+
+        calls.set(0);
+        inferences.clear();
+        for (int i = 0; i < 5; i++) {
+            inferences.add(() -> {
+                calls.incrementAndGet();
+                return "SELECT a FROM t";
+            });
+        }
+        outputs = new SelfConsistencyVoter<>(executor, Function.<String>identity()).run(inferences,
+                true);
+        Assertions.assertEquals(3, calls.get());
+        Assertions.assertEquals(3, outputs.size());
+    }
+
+    @Test
+    void testWeightsOverPlannedInferences() {
+        // three of five inferences agreed, the other two were cancelled
+        Pair<String, Map<String, Double>> vote = ResponseHelper.selfConsistencyVote(
+                Arrays.asList("SELECT a FROM t", "SELECT a FROM t", "SELECT a FROM t"), 5);
+        Assertions.assertEquals("SELECT a FROM t", vote.getLeft());
+        Assertions.assertEquals(0.6, vote.getRight().get("SELECT a FROM t"), 1e-9);
+
+        vote = ResponseHelper.selfConsistencyVote(Arrays.asList("SELECT a FROM t", "SELECT b"));
+        Assertions.assertEquals(0.5, vote.getRight().get("SELECT b"), 1e-9);
+    }
+
+    @Test
+    void testFailedInferences() {
+        List<Callable<String>> inferences = new ArrayList<>();
+        inferences.add(() -> {
+            throw new IllegalStateException("timeout");
+        });
+        inferences.add(() -> "SELECT a FROM t");
+        Map<Integer, String> outputs =
+                new SelfConsistencyVoter<>(executor, Function.<String>identity()).run(inferences,
+                        false);
+        Assertions.assertEquals("SELECT a FROM t", outputs.get(1));
+
+        inferences.remove(1);
+        Assertions.assertThrows(RuntimeException.class,
+                () -> new SelfConsistencyVoter<>(executor, Function.<String>identity())
+                        .run(inferences, false));
+    }
+}
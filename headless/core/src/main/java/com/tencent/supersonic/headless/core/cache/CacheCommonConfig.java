@@ -22,4 +22,13 @@ public class CacheCommonConfig {
 
     @Value("${s2.query.cache.enable:true}")
     private Boolean cacheEnable;
+
+    @Value("${s2.translation.cache.enable:true}")
+    private Boolean translationCacheEnable;
+
+    @Value("${s2.translation.cache.max.size:2000}")
+    private Integer translationCacheMaxSize;
+
+    @Value("${s2.translation.cache.expire.after.write:60}")
+    private Integer translationCacheExpireAfterWrite;
 }
@@ -0,0 +1,226 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tencent.supersonic.common.util.JsonUtil;
+import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
+import com.tencent.supersonic.headless.api.pojo.request.QueryStructReq;
+import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
+import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import com.tencent.supersonic.headless.core.pojo.SqlQuery;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Triple;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Caches translated physical SQL so that repeated semantic queries skip the parser and optimizer
+ * chain. Each entry remembers the data set and models it was translated against, a schema change
+ * drops only the entries depending on what changed. A translation running while any change happens
+ * is not stored, it may have read the schema before the change.
+ */
+@Component
+@Slf4j
+public class TranslationCache {
+
+    private final CacheCommonConfig cacheCommonConfig;
+
+    private final Cache<String, TranslatedQuery> cache;
+
+    private final AtomicLong schemaVersion = new AtomicLong();
+
+    public TranslationCache(CacheCommonConfig cacheCommonConfig) {
+        this.cacheCommonConfig = cacheCommonConfig;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(cacheCommonConfig.getTranslationCacheExpireAfterWrite(),
+                        TimeUnit.MINUTES)
+                .maximumSize(cacheCommonConfig.getTranslationCacheMaxSize()).build();
+    }
+
+    /**
+     * Builds the key of a query statement not translated yet, the request must already carry the
+     * row permission filters. Returns null if the request can not be cached.
+     */
+    public CacheKey getCacheKey(SemanticQueryReq queryReq, QueryStatement queryStatement) {
+        if (!cacheCommonConfig.getTranslationCacheEnable() || queryStatement.isTranslated()
+                || Objects.isNull(queryStatement.getDataSetId())) {
+            return null;
+        }
+        String request;
+        if (queryReq instanceof QuerySqlReq) {
+            QuerySqlReq querySqlReq = (QuerySqlReq) queryReq;
+            request = String.join("|", "sql",
+                    String.valueOf(new TreeSet<>(querySqlReq.getModelIds())),
+                    String.valueOf(querySqlReq.getLimit()), String.valueOf(querySqlReq.getParams()),
+                    StringUtils.normalizeSpace(querySqlReq.getSql()));
+        } else if (queryReq instanceof QueryStructReq) {
+            request = "struct|" + JsonUtil.toString(queryReq);
+        } else {
+            return null;
+        }
+        long version = schemaVersion.get();
+        // relative date ranges are resolved against the current day
+        return new CacheKey(String.join(":", String.valueOf(queryStatement.getDataSetId()),
+                String.valueOf(queryStatement.getLimit()),
+                String.valueOf(queryStatement.getEnableOptimize()), LocalDate.now().toString(),
+                DigestUtils.md5Hex(request)), version);
+    }
+
+    /** fills the statement with a cached translation, returns false on a cache miss */
+    public boolean apply(CacheKey cacheKey, QueryStatement queryStatement) {
+        if (Objects.isNull(cacheKey)) {
+            return false;
+        }
+        TranslatedQuery translatedQuery = cache.getIfPresent(cacheKey.getKey());
+        if (Objects.isNull(translatedQuery)) {
+            return false;
+        }
+        SqlQuery sqlQuery = new SqlQuery();
+        BeanUtils.copyProperties(translatedQuery.sqlQuery, sqlQuery);
+        queryStatement.setSqlQuery(sqlQuery);
+        queryStatement.setIsS2SQL(true);
+        queryStatement.setMinMaxTime(translatedQuery.minMaxTime);
+        queryStatement.setSql(translatedQuery.sql);
+        queryStatement.setIsTranslated(true);
+        log.debug("translation cache hit, key:{}", cacheKey);
+        return true;
+    }
+
+    public void put(CacheKey cacheKey, QueryStatement queryStatement) {
+        if (Objects.isNull(cacheKey) || !queryStatement.isOk()
+                || Objects.isNull(queryStatement.getSqlQuery())
+                || cacheKey.getVersion() != schemaVersion.get()) {
+            return;
+        }
+        SqlQuery sqlQuery = new SqlQuery();
+        BeanUtils.copyProperties(queryStatement.getSqlQuery(), sqlQuery);
+        TranslatedQuery translatedQuery = new TranslatedQuery(queryStatement.getSql(), sqlQuery,
+                queryStatement.getMinMaxTime(), queryStatement.getDataSetId(),
+                getDomainId(queryStatement.getSemanticSchema()),
+                getModelIds(queryStatement.getSemanticSchema()));
+        cache.put(cacheKey.getKey(), translatedQuery);
+        // a change that happened meanwhile may have missed the entry
+        if (cacheKey.getVersion() != schemaVersion.get()) {
+            cache.asMap().remove(cacheKey.getKey(), translatedQuery);
+        }
+    }
+
+    public long getSchemaVersion() {
+        return schemaVersion.get();
+    }
+
+    /** drops the entries translated against any of the given models */
+    public void invalidateModels(Collection<Long> modelIds) {
+        long version = schemaVersion.incrementAndGet();
+        cache.asMap().values().removeIf(
+                t -> Objects.isNull(t.modelIds) || !Collections.disjoint(t.modelIds, modelIds));
+        log.info("translation cache of models:{} invalidated, schema version:{}", modelIds,
+                version);
+    }
+
+    public void invalidateDataSet(Long dataSetId) {
+        long version = schemaVersion.incrementAndGet();
+        cache.asMap().values().removeIf(t -> Objects.equals(t.dataSetId, dataSetId));
+        log.info("translation cache of dataSet:{} invalidated, schema version:{}", dataSetId,
+                version);
+    }
+
+    /** drops the entries of the data sets of a domain, terms are shared within a domain */
+    public void invalidateDomain(Long domainId) {
+        long version = schemaVersion.incrementAndGet();
+        cache.asMap().values()
+                .removeIf(t -> Objects.isNull(t.domainId) || Objects.equals(t.domainId, domainId));
+        log.info("translation cache of domain:{} invalidated, schema version:{}", domainId,
+                version);
+    }
+
+    public void invalidateAll() {
+        long version = schemaVersion.incrementAndGet();
+        cache.invalidateAll();
+        log.info("translation cache invalidated, schema version:{}", version);
+    }
+
+    private static Long getDomainId(SemanticSchemaResp semanticSchemaResp) {
+        if (Objects.isNull(semanticSchemaResp)
+                || Objects.isNull(semanticSchemaResp.getDataSetResp())) {
+            return null;
+        }
+        return semanticSchemaResp.getDataSetResp().getDomainId();
+    }
+
+    private static Set<Long> getModelIds(SemanticSchemaResp semanticSchemaResp) {
+        if (Objects.isNull(semanticSchemaResp)) {
+            return null;
+        }
+        if (!CollectionUtils.isEmpty(semanticSchemaResp.getModelResps())) {
+            return semanticSchemaResp.getModelResps().stream().map(ModelResp::getId)
+                    .collect(Collectors.toSet());
+        }
+        return CollectionUtils.isEmpty(semanticSchemaResp.getModelIds()) ? null
+                : new HashSet<>(semanticSchemaResp.getModelIds());
+    }
+
+    /** the key of a request and the schema version it was built at */
+    @Getter
+    @EqualsAndHashCode
+    @ToString
+    public static class CacheKey {
+
+        private final String key;
+
+        @EqualsAndHashCode.Exclude
+        private final long version;
+
+        private CacheKey(String key, long version) {
+            this.key = key;
+            this.version = version;
+        }
+    }
+
+    private static class TranslatedQuery {
+
+        private final String sql;
+
+        private final SqlQuery sqlQuery;
+
+        private final Triple<String, String, String> minMaxTime;
+
+        private final Long dataSetId;
+
+        /** domain of the data set, null if unknown */
+        private final Long domainId;
+
+        /** models the query was translated against, null if unknown */
+        private final Set<Long> modelIds;
+
+        private TranslatedQuery(String sql, SqlQuery sqlQuery,
+                Triple<String, String, String> minMaxTime, Long dataSetId, Long domainId,
+                Set<Long> modelIds) {
+            this.sql = sql;
+            this.sqlQuery = sqlQuery;
+            this.minMaxTime = minMaxTime;
+            this.dataSetId = dataSetId;
+            this.domainId = domainId;
+            this.modelIds = modelIds;
+        }
+    }
+}
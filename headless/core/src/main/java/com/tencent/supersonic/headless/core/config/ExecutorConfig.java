@@ -17,12 +17,19 @@ public class ExecutorConfig {
     @Value("${s2.internal.metric.cnt.suffix:internal_cnt}")
     private String internalMetricNameSuffix;
 
+    @Value("${s2.executor.stream.batchSize:1000}")
+    private Integer streamBatchSize;
+
     @Value("${s2.accelerator.duckDb.enable:false}")
     private Boolean duckEnable = false;
 
     @Value("${s2.accelerator.duckDb.temp:/data1/duck/tmp/}")
     private String duckDbTemp;
 
+    /** database file shared by all pooled connections, defaults to a file in the temp directory */
+    @Value("${s2.accelerator.duckDb.database:}")
+    private String duckDbDatabase;
+
     @Value("${s2.accelerator.duckDb.maximumPoolSize:10}")
     private Integer duckDbMaximumPoolSize;
 
@@ -116,7 +116,7 @@ public abstract class AbstractAccelerator implements QueryAccelerator {
         RelNode checkRel = project(checkBuilder, queryFieldList).build();
         relOptPlanner.setRoot(checkRel);
         RelNode optRel = relOptPlanner.findBestExp();
-        System.out.println(optRel.explain());
+        log.debug("materialization check plan: {}", optRel.explain());
         return !extractTableNames(optRel).contains(MATERIALIZATION_SYS_SOURCE);
     }
 
@@ -136,6 +136,7 @@ public abstract class AbstractAccelerator implements QueryAccelerator {
     protected RelOptPlanner getRelOptPlanner() {
         HepProgramBuilder hepProgramBuilder = new HepProgramBuilder();
         hepProgramBuilder.addRuleInstance(MaterializedViewRules.PROJECT_FILTER);
+        hepProgramBuilder.addRuleInstance(MaterializedViewRules.FILTER);
         RelOptPlanner relOptPlanner = new HepPlanner(hepProgramBuilder.build());
         return relOptPlanner;
     }
@@ -0,0 +1,342 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tencent.supersonic.common.jsqlparser.FieldExpression;
+import com.tencent.supersonic.common.jsqlparser.SqlReplaceHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlSelectFunctionHelper;
+import com.tencent.supersonic.common.jsqlparser.SqlSelectHelper;
+import com.tencent.supersonic.common.util.ContextUtils;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import com.tencent.supersonic.headless.core.pojo.SqlQuery;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.NotExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.conditional.XorExpression;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.prepare.CalciteCatalogReader;
+import org.apache.calcite.tools.RelBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers aggregate queries from pre-aggregated materializations kept as parquet files in a local
+ * duckDb. A materialization matches when it holds every queried field and, if partitioned, every
+ * date partition in the queried range. Any failure leaves the query to the source database.
+ */
+@Slf4j
+public class DuckDbAccelerator extends AbstractAccelerator {
+
+    /** aggregations that can not be computed again from pre-aggregated rows */
+    private static final List<String> NON_ADDITIVE_FUNCTIONS =
+            Arrays.asList("count", "count_distinct", "avg");
+
+    /** aggregations of a dimension that give the same result on pre-aggregated rows */
+    private static final List<String> DIMENSION_FUNCTIONS = Arrays.asList("MAX", "MIN");
+
+    @Override
+    public boolean reload() {
+        MaterializationManager materializationManager = getMaterializationManager();
+        return materializationManager.isEnabled() && materializationManager.reload();
+    }
+
+    /** the match of a statement, kept between check and query */
+    private final Cache<QueryStatement, Optional<Materialization>> matches =
+            Caffeine.newBuilder().weakKeys().expireAfterWrite(1, TimeUnit.MINUTES).build();
+
+    @Override
+    public boolean check(QueryStatement queryStatement) {
+        return matches.get(queryStatement, this::match).isPresent();
+    }
+
+    @Override
+    public SemanticQueryResp query(QueryStatement queryStatement) {
+        Optional<Materialization> materialization = matches.get(queryStatement, this::match);
+        if (!materialization.isPresent()) {
+            return null;
+        }
+        String sql = SqlReplaceHelper.replaceTable(queryStatement.getSqlQuery().getSql(),
+                materialization.get().getName());
+        sql = sql.replace("`", "\"");
+        if (!SqlSelectHelper.hasLimit(sql)) {
+            sql = sql + " LIMIT " + queryStatement.getLimit();
+        }
+        SemanticQueryResp queryResp = new SemanticQueryResp();
+        try {
+            log.info("executing SQL on materialization {}: {}", materialization.get().getName(),
+                    StringUtils.normalizeSpace(sql));
+            ContextUtils.getBean(DuckDbSource.class).query(sql, queryResp);
+            queryResp.setSql(sql);
+        } catch (Exception e) {
+            log.warn("query materialization {} error, fall back to source: {}",
+                    materialization.get().getName(), e.getMessage());
+            return null;
+        }
+        return queryResp;
+    }
+
+    private Optional<Materialization> match(QueryStatement queryStatement) {
+        MaterializationManager materializationManager = getMaterializationManager();
+        SqlQuery sqlQuery = queryStatement.getSqlQuery();
+        if (!materializationManager.isEnabled() || Objects.isNull(queryStatement.getDataSetId())
+                || Objects.isNull(sqlQuery) || StringUtils.isBlank(sqlQuery.getSql())) {
+            return Optional.empty();
+        }
+        List<Materialization> materializations =
+                materializationManager.getMaterializations(queryStatement.getDataSetId());
+        if (materializations.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            String sql = sqlQuery.getSql();
+            if (!SqlSelectFunctionHelper.hasAggregateFunction(sql)) {
+                return Optional.empty();
+            }
+            Map<String, Set<String>> tableFields = getFields(sql);
+            Set<String> fields = tableFields.getOrDefault(sqlQuery.getTable(), new HashSet<>());
+            if (fields.isEmpty() || tableFields.size() > 1) {
+                return Optional.empty();
+            }
+            RelOptPlanner relOptPlanner = getRelOptPlanner();
+            CalciteCatalogReader calciteCatalogReader = getCalciteCatalogReader();
+            RelBuilder relBuilder = builderMaterializationPlan(calciteCatalogReader, relOptPlanner);
+            for (Materialization materialization : materializations) {
+                if (!isReAggregatable(sql, materialization)) {
+                    continue;
+                }
+                List<ImmutablePair<String, String>> partitions = new ArrayList<>();
+                if (materialization.isPartitioned()
+                        && !getPartitions(sql, materialization, partitions)) {
+                    continue;
+                }
+                if (check(relOptPlanner, relBuilder, calciteCatalogReader, materialization,
+                        new ArrayList<>(fields), partitions)) {
+                    return Optional.of(materialization);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("match materialization error: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Rows of a materialization are already aggregated by its dimensions, so a metric may only be
+     * aggregated again with the function it was pre-aggregated with, and a dimension only with MAX
+     * or MIN. A metric filtered or selected without aggregation would see the pre-aggregated values
+     * instead of the source rows.
+     */
+    private boolean isReAggregatable(String sql, Materialization materialization) {
+        Map<String, String> metricAggs = materialization.getMetricAggs();
+        if (Objects.isNull(metricAggs)) {
+            return false;
+        }
+        if (SqlSelectHelper.getWhereFields(sql).stream().anyMatch(metricAggs::containsKey)) {
+            return false;
+        }
+        AggregationVisitor visitor = new AggregationVisitor();
+        for (PlainSelect plainSelect : SqlSelectHelper.getPlainSelect(sql)) {
+            if (Objects.isNull(plainSelect)) {
+                continue;
+            }
+            plainSelect.getSelectItems().forEach(item -> item.getExpression().accept(visitor));
+            if (Objects.nonNull(plainSelect.getHaving())) {
+                plainSelect.getHaving().accept(visitor);
+            }
+        }
+        if (visitor.rejected || visitor.columns.stream().anyMatch(metricAggs::containsKey)) {
+            return false;
+        }
+        for (Pair<String, String> aggregation : visitor.aggregations) {
+            String function = aggregation.getLeft().toUpperCase();
+            String metricAgg = metricAggs.get(aggregation.getRight());
+            boolean reAggregatable =
+                    Objects.isNull(metricAgg) ? DIMENSION_FUNCTIONS.contains(function)
+                            : metricAgg.equalsIgnoreCase(function);
+            if (!reAggregatable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the days queried on the partition of the materialization, one pair per day as
+     * partitions are whole days. False if the where clause does not bound the partition to a range,
+     * for example when the partition is filtered within an OR.
+     */
+    private boolean getPartitions(String sql, Materialization materialization,
+            List<ImmutablePair<String, String>> partitions) {
+        PartitionFilterVisitor partitionFilterVisitor =
+                new PartitionFilterVisitor(materialization.getPartitionName());
+        for (PlainSelect plainSelect : SqlSelectHelper.getPlainSelect(sql)) {
+            if (Objects.nonNull(plainSelect) && Objects.nonNull(plainSelect.getWhere())) {
+                plainSelect.getWhere().accept(partitionFilterVisitor);
+            }
+        }
+        TimeRange timeRange =
+                partitionFilterVisitor.disjunctive ? null : getDateRange(sql, materialization);
+        if (Objects.isNull(timeRange)) {
+            return false;
+        }
+        try {
+            LocalDate start = LocalDate.parse(timeRange.getStart());
+            LocalDate end = LocalDate.parse(timeRange.getEnd());
+            // a range longer than the partitions at hand can not be covered
+            if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= materialization
+                    .getPartitions().size()) {
+                return false;
+            }
+            for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                partitions.add(ImmutablePair.of(date.toString(), date.toString()));
+            }
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private TimeRange getDateRange(String sql, Materialization materialization) {
+        String start = null;
+        String end = null;
+        for (FieldExpression expression : SqlSelectHelper.getWhereExpressions(sql)) {
+            if (!materialization.getPartitionName().equalsIgnoreCase(expression.getFieldName())
+                    || Objects.isNull(expression.getFieldValue())) {
+                continue;
+            }
+            String value = expression.getFieldValue().toString();
+            switch (expression.getOperator()) {
+                case "=":
+                    start = max(start, value);
+                    end = min(end, value);
+                    break;
+                case ">=":
+                    start = max(start, value);
+                    break;
+                case ">":
+                    start = max(start, LocalDate.parse(value).plusDays(1).toString());
+                    break;
+                case "<=":
+                    end = min(end, value);
+                    break;
+                case "<":
+                    end = min(end, LocalDate.parse(value).minusDays(1).toString());
+                    break;
+                default:
+                    return null;
+            }
+        }
+        if (Objects.isNull(start) || Objects.isNull(end)) {
+            return null;
+        }
+        return TimeRange.builder().start(start).end(end).build();
+    }
+
+    private static String max(String current, String value) {
+        return Objects.isNull(current) || value.compareTo(current) > 0 ? value : current;
+    }
+
+    private static String min(String current, String value) {
+        return Objects.isNull(current) || value.compareTo(current) < 0 ? value : current;
+    }
+
+    private MaterializationManager getMaterializationManager() {
+        return ContextUtils.getBean(MaterializationManager.class);
+    }
+
+    /** Collects aggregate functions with their column, and columns used outside of them. */
+    private static class AggregationVisitor extends ExpressionVisitorAdapter {
+
+        private final List<Pair<String, String>> aggregations = new ArrayList<>();
+
+        private final Set<String> columns = new HashSet<>();
+
+        private boolean rejected;
+
+        @Override
+        public void visit(Function function) {
+            if (NON_ADDITIVE_FUNCTIONS.stream().anyMatch(
+                    f -> f.equalsIgnoreCase(function.getName())) || function.isDistinct()) {
+                rejected = true;
+                return;
+            }
+            List<?> parameters = Objects.isNull(function.getParameters()) ? null
+                    : function.getParameters().getExpressions();
+            if (Objects.isNull(parameters) || parameters.size() != 1
+                    || !(parameters.get(0) instanceof Column)) {
+                rejected = true;
+                return;
+            }
+            aggregations.add(Pair.of(function.getName(),
+                    ((Column) parameters.get(0)).getColumnName().replace("`", "")));
+        }
+
+        @Override
+        public void visit(Column column) {
+            columns.add(column.getColumnName().replace("`", ""));
+        }
+    }
+
+    /** Tells if the partition is filtered under an OR, XOR or NOT. */
+    private static class PartitionFilterVisitor extends ExpressionVisitorAdapter {
+
+        private final String partitionName;
+
+        private int depth;
+
+        private boolean disjunctive;
+
+        private PartitionFilterVisitor(String partitionName) {
+            this.partitionName = partitionName;
+        }
+
+        @Override
+        public void visit(OrExpression expr) {
+            depth++;
+            super.visit(expr);
+            depth--;
+        }
+
+        @Override
+        public void visit(XorExpression expr) {
+            depth++;
+            super.visit(expr);
+            depth--;
+        }
+
+        @Override
+        public void visit(NotExpression expr) {
+            depth++;
+            super.visit(expr);
+            depth--;
+        }
+
+        @Override
+        public void visit(Column column) {
+            if (depth > 0 && partitionName.equalsIgnoreCase(column.getColumnName())) {
+                disjunctive = true;
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.tencent.supersonic.headless.core.executor;
 import com.tencent.supersonic.common.util.ContextUtils;
 import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.config.ExecutorConfig;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import com.tencent.supersonic.headless.core.utils.ComponentFactory;
 import com.tencent.supersonic.headless.core.utils.SqlUtils;
@@ -50,4 +51,24 @@ public class JdbcExecutor implements QueryExecutor {
         }
         return queryResultWithColumns;
     }
+
+    @Override
+    public void executeStream(QueryStatement queryStatement, QueryResultHandler handler)
+            throws Exception {
+        // accelerated results are already buffered, deliver them in one batch
+        for (QueryAccelerator queryAccelerator : ComponentFactory.getQueryAccelerators()) {
+            if (queryAccelerator.check(queryStatement)) {
+                QueryExecutor.super.executeStream(queryStatement, handler);
+                return;
+            }
+        }
+
+        SqlUtils sqlUtils = ContextUtils.getBean(SqlUtils.class);
+        ExecutorConfig executorConfig = ContextUtils.getBean(ExecutorConfig.class);
+        log.info("executing SQL in stream: {}",
+                StringUtils.normalizeSpace(queryStatement.getSql()));
+        DatabaseResp database = queryStatement.getOntology().getDatabase();
+        sqlUtils.init(database).queryStream(queryStatement.getSql(),
+                executorConfig.getStreamBatchSize(), handler);
+    }
 }
@@ -0,0 +1,114 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.headless.core.config.ExecutorConfig;
+import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import com.tencent.supersonic.headless.core.utils.JdbcDuckDbUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the materializations known to the duckDb accelerator. Each materialization is a set of
+ * parquet files exposed as a duckDb view named after the materialization.
+ */
+@Component
+@Slf4j
+public class MaterializationManager {
+
+    private final DuckDbSource duckDbSource;
+
+    private final ExecutorConfig executorConfig;
+
+    private final Map<Long, List<Materialization>> dataSetMaterializations =
+            new ConcurrentHashMap<>();
+
+    public MaterializationManager(DuckDbSource duckDbSource, ExecutorConfig executorConfig) {
+        this.duckDbSource = duckDbSource;
+        this.executorConfig = executorConfig;
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(executorConfig.getDuckEnable());
+    }
+
+    public List<Materialization> getMaterializations(Long dataSetId) {
+        return dataSetMaterializations.getOrDefault(dataSetId, Collections.emptyList());
+    }
+
+    public List<Materialization> getMaterializations() {
+        List<Materialization> materializations = new ArrayList<>();
+        dataSetMaterializations.values().forEach(materializations::addAll);
+        return materializations;
+    }
+
+    /** creates or replaces the view of the materialization and makes it visible to queries */
+    public synchronized void register(Materialization materialization) throws Exception {
+        if (!isEnabled()) {
+            throw new IllegalStateException("duckDb accelerator is not enabled");
+        }
+        String db = materialization.getName().split("\\.")[0];
+        JdbcDuckDbUtils.createDatabase(duckDbSource, db);
+        load(materialization);
+        List<Materialization> materializations = dataSetMaterializations.computeIfAbsent(
+                materialization.getDataSetId(), id -> new CopyOnWriteArrayList<>());
+        materializations.removeIf(m -> m.getName().equals(materialization.getName()));
+        materializations.add(materialization);
+        log.info("register materialization {} columns:{} partitions:{}", materialization.getName(),
+                materialization.getColumns(), materialization.getPartitions());
+    }
+
+    public synchronized void unregister(Materialization materialization) {
+        List<Materialization> materializations =
+                dataSetMaterializations.get(materialization.getDataSetId());
+        if (materializations != null) {
+            materializations.removeIf(m -> m.getName().equals(materialization.getName()));
+        }
+    }
+
+    /** re-reads columns and partitions of all materializations from their parquet files */
+    public synchronized boolean reload() {
+        boolean success = true;
+        for (Materialization materialization : getMaterializations()) {
+            try {
+                load(materialization);
+            } catch (Exception e) {
+                log.error("reload materialization {} error", materialization.getName(), e);
+                unregister(materialization);
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    private void load(Materialization materialization) throws Exception {
+        String source = String.format("read_parquet('%s/**/*.parquet', hive_partitioning = true)",
+                materialization.getPath());
+        String sql = String.format("SELECT * FROM %s", source);
+        if (materialization.isPartitioned()) {
+            // keep partition values as strings, the same way date dimensions are queried
+            sql = String.format("SELECT * REPLACE (CAST(%s AS VARCHAR) AS %s) FROM %s",
+                    materialization.getPartitionName(), materialization.getPartitionName(), source);
+        }
+        JdbcDuckDbUtils.createView(duckDbSource, materialization.getName(), sql);
+        materialization.setColumns(
+                JdbcDuckDbUtils.getViewColumns(duckDbSource, materialization.getName()));
+        if (materialization.isPartitioned()) {
+            Set<String> partitions = new TreeSet<>(JdbcDuckDbUtils.getViewPartition(duckDbSource,
+                    materialization.getName(), materialization.getPartitionName()));
+            if (Objects.nonNull(materialization.getEmptyPartitions())) {
+                partitions.addAll(materialization.getEmptyPartitions());
+            }
+            materialization.setPartitions(new ArrayList<>(partitions));
+        }
+    }
+}
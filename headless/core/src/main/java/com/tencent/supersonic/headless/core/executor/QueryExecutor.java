@@ -2,6 +2,9 @@ package com.tencent.supersonic.headless.core.executor;
 
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Objects;
 
 /** QueryExecutor submits SQL to the database engine and performs acceleration if necessary. */
 public interface QueryExecutor {
@@ -9,4 +12,22 @@ public interface QueryExecutor {
     boolean accept(QueryStatement queryStatement);
 
     SemanticQueryResp execute(QueryStatement queryStatement);
+
+    /**
+     * Pushes results to the handler as they are read. Executors that cannot stream fall back to the
+     * buffered result and deliver it as a single batch.
+     */
+    default void executeStream(QueryStatement queryStatement, QueryResultHandler handler)
+            throws Exception {
+        SemanticQueryResp queryResp = execute(queryStatement);
+        if (Objects.isNull(queryResp)) {
+            throw new RuntimeException("query returned no result");
+        }
+        if (StringUtils.isNotBlank(queryResp.getErrorMsg())) {
+            throw new RuntimeException(queryResp.getErrorMsg());
+        }
+        handler.onStart(queryResp.getColumns());
+        handler.onBatch(queryResp.getResultList());
+        handler.onComplete();
+    }
 }
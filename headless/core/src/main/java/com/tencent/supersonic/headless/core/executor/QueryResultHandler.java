@@ -0,0 +1,20 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.tencent.supersonic.common.pojo.QueryColumn;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * QueryResultHandler consumes query results batch by batch while they are read from the data
+ * source. Handlers are called on the executing thread, so a slow handler holds back further reads.
+ */
+public interface QueryResultHandler {
+
+    void onStart(List<QueryColumn> columns) throws Exception;
+
+    /** @return false to stop reading the remaining rows */
+    boolean onBatch(List<Map<String, Object>> rows) throws Exception;
+
+    default void onComplete() throws Exception {}
+}
@@ -3,18 +3,21 @@ package com.tencent.supersonic.headless.core.pojo;
 import javax.sql.DataSource;
 
 import com.tencent.supersonic.common.pojo.QueryColumn;
+import com.tencent.supersonic.headless.api.pojo.ColumnarResultList;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.core.config.ExecutorConfig;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.nio.file.Paths;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,10 +47,27 @@ public class DuckDbSource {
         config.setDriverClassName("org.duckdb.DuckDBDriver");
         config.setMaximumPoolSize(executorConfig.getDuckDbMaximumPoolSize());
         config.setMaxLifetime(executorConfig.getDuckDbMaxLifetime());
-        config.setJdbcUrl("jdbc:duckdb:");
+        config.setJdbcUrl("jdbc:duckdb:" + getDatabaseFile());
         return config;
     }
 
+    /**
+     * every connection to "jdbc:duckdb:" opens its own in-memory database, so views registered on
+     * one pooled connection would be invisible to the others. A database file is shared instead.
+     */
+    private String getDatabaseFile() {
+        String database = executorConfig.getDuckDbDatabase();
+        if (StringUtils.isBlank(database)) {
+            database =
+                    Paths.get(executorConfig.getDuckDbTemp(), "s2_accelerator.duckdb").toString();
+        }
+        File parent = new File(database).getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs()) {
+            log.warn("can not create duckDb database directory {}", parent);
+        }
+        return database;
+    }
+
     public DataSource getDuckDbDataSource(HikariConfig config) {
         HikariDataSource ds = new HikariDataSource(config);
         return ds;
@@ -100,64 +120,72 @@ public class DuckDbSource {
     }
 
     public static List<Map<String, Object>> buildResult(ResultSet resultSet) {
-        List<Map<String, Object>> list = new ArrayList<>();
+        ColumnarResultList list = null;
         try {
             ResultSetMetaData rsMeta = resultSet.getMetaData();
             int columnCount = rsMeta.getColumnCount();
+            List<String> columns = new ArrayList<>();
+            for (int i = 1; i <= columnCount; i++) {
+                columns.add(rsMeta.getColumnName(i));
+            }
+            list = new ColumnarResultList(columns);
             while (resultSet.next()) {
-                Map<String, Object> row = new HashMap<>();
+                Object[] row = new Object[columnCount];
                 for (int i = 1; i <= columnCount; i++) {
-                    String column = rsMeta.getColumnName(i);
+                    int column = i - 1;
                     switch (rsMeta.getColumnType(i)) {
                         case java.sql.Types.BOOLEAN:
-                            row.put(column, resultSet.getBoolean(i));
+                            row[column] = resultSet.getBoolean(i);
                             break;
                         case java.sql.Types.INTEGER:
-                            row.put(column, resultSet.getInt(i));
+                            row[column] = resultSet.getInt(i);
                             break;
                         case java.sql.Types.BIGINT:
-                            row.put(column, resultSet.getLong(i));
+                            row[column] = resultSet.getLong(i);
                             break;
                         case java.sql.Types.DOUBLE:
-                            row.put(column, resultSet.getDouble(i));
+                            row[column] = resultSet.getDouble(i);
                             break;
                         case java.sql.Types.VARCHAR:
-                            row.put(column, resultSet.getString(i));
+                            row[column] = resultSet.getString(i);
                             break;
                         case java.sql.Types.NUMERIC:
-                            row.put(column, resultSet.getBigDecimal(i));
+                        case java.sql.Types.DECIMAL:
+                            row[column] = resultSet.getBigDecimal(i);
                             break;
                         case java.sql.Types.TINYINT:
-                            row.put(column, (int) resultSet.getByte(i));
+                            row[column] = (int) resultSet.getByte(i);
                             break;
                         case java.sql.Types.SMALLINT:
-                            row.put(column, resultSet.getShort(i));
+                            row[column] = resultSet.getShort(i);
                             break;
                         case java.sql.Types.REAL:
-                            row.put(column, resultSet.getFloat(i));
+                        case java.sql.Types.FLOAT:
+                            row[column] = resultSet.getFloat(i);
                             break;
                         case java.sql.Types.DATE:
-                            row.put(column, resultSet.getDate(i));
+                            row[column] = resultSet.getDate(i);
                             break;
                         case java.sql.Types.TIME:
-                            row.put(column, resultSet.getTime(i));
+                            row[column] = resultSet.getTime(i);
                             break;
                         case java.sql.Types.TIMESTAMP:
-                            row.put(column, resultSet.getTimestamp(i));
+                            row[column] = resultSet.getTimestamp(i);
                             break;
                         case java.sql.Types.JAVA_OBJECT:
-                            row.put(column, resultSet.getObject(i));
+                            row[column] = resultSet.getObject(i);
                             break;
                         default:
                             throw new Exception(
                                     "get result row type not found :" + rsMeta.getColumnType(i));
                     }
                 }
-                list.add(row);
+                list.addRow(row);
             }
+            list.seal();
         } catch (Exception e) {
             log.error("buildResult error {}", e);
         }
-        return list;
+        return list == null ? new ArrayList<>() : list;
     }
 }
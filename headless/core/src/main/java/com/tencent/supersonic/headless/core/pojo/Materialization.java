@@ -1,12 +1,17 @@
 package com.tencent.supersonic.headless.core.pojo;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class Materialization {
 
     private String name;
@@ -16,4 +21,14 @@ public class Materialization {
     private List<String> partitions;
     private boolean isPartitioned;
     private String partitionName;
+    /** directory holding the parquet files, partitioned by partitionName if partitioned */
+    private String path;
+    /** bizNames of the dimensions the materialization is grouped by, partition excluded */
+    private List<String> dimensions;
+    /** bizNames of the pre-aggregated metrics */
+    private List<String> metrics;
+    /** aggregation each metric was pre-aggregated with, by bizName */
+    private Map<String, String> metricAggs;
+    /** days exported without any row, held as partitions though they have no parquet file */
+    private List<String> emptyPartitions;
 }
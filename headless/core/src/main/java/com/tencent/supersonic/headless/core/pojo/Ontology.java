@@ -5,24 +5,44 @@ import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
 import com.tencent.supersonic.headless.api.pojo.response.DimSchemaResp;
 import com.tencent.supersonic.headless.api.pojo.response.MetricSchemaResp;
 import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
+import com.tencent.supersonic.headless.core.translator.parser.calcite.S2CalciteCatalog;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultUndirectedGraph;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * An ontology comprises a group of data models that can be joined together either in star schema or
- * snowflake schema.
+ * snowflake schema. Ontologies built from the semantic schema are shared by concurrent queries and
+ * must not be modified, use {@link #copy()} to change the models of a single query.
  */
 @Data
 public class Ontology {
 
+    /** schema version the ontology was built from, null if it is not shared */
+    private Long version;
     private DatabaseResp database;
     private Map<String, ModelResp> modelMap = new HashMap<>();
     private Map<String, List<MetricSchemaResp>> metricMap = new HashMap<>();
     private Map<String, List<DimSchemaResp>> dimensionMap = new HashMap<>();
     private List<JoinRelation> joinRelations;
 
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile Graph<String, DefaultEdge> joinGraph;
+
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile S2CalciteCatalog calciteCatalog;
+
     public List<MetricSchemaResp> getMetrics() {
         return metricMap.values().stream().flatMap(Collection::stream).collect(Collectors.toList());
     }
@@ -46,4 +66,41 @@ public class Ontology {
         return null;
     }
 
+    public void setJoinRelations(List<JoinRelation> joinRelations) {
+        this.joinRelations = joinRelations;
+        this.joinGraph = null;
+    }
+
+    /** the undirected graph of the models linked by join relations, built once per ontology */
+    public Graph<String, DefaultEdge> getJoinGraph() {
+        Graph<String, DefaultEdge> graph = joinGraph;
+        if (graph == null) {
+            graph = new DefaultUndirectedGraph<>(DefaultEdge.class);
+            if (joinRelations != null) {
+                for (JoinRelation joinRelation : joinRelations) {
+                    graph.addVertex(joinRelation.getLeft());
+                    graph.addVertex(joinRelation.getRight());
+                    graph.addEdge(joinRelation.getLeft(), joinRelation.getRight());
+                }
+            }
+            joinGraph = graph;
+        }
+        return graph;
+    }
+
+    /**
+     * a copy owning its model map, metrics, dimensions and join relations are shared, the calcite
+     * catalog is rebuilt for the copy
+     */
+    public Ontology copy() {
+        Ontology ontology = new Ontology();
+        ontology.setDatabase(database);
+        ontology.setModelMap(new HashMap<>(modelMap));
+        ontology.setMetricMap(metricMap);
+        ontology.setDimensionMap(dimensionMap);
+        ontology.setJoinRelations(joinRelations);
+        ontology.joinGraph = joinGraph;
+        return ontology;
+    }
+
 }
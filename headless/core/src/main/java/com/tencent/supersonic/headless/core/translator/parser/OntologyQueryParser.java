@@ -2,7 +2,7 @@ package com.tencent.supersonic.headless.core.translator.parser;
 
 import com.tencent.supersonic.headless.core.pojo.Ontology;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
-import com.tencent.supersonic.headless.core.translator.parser.calcite.S2CalciteSchema;
+import com.tencent.supersonic.headless.core.translator.parser.calcite.S2CalciteCatalog;
 import com.tencent.supersonic.headless.core.translator.parser.calcite.SqlBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -25,12 +25,13 @@ public class OntologyQueryParser implements QueryParser {
     @Override
     public void parse(QueryStatement queryStatement) throws Exception {
         Ontology ontology = queryStatement.getOntology();
-        S2CalciteSchema semanticSchema = S2CalciteSchema.builder()
-                .schemaKey("DATASET_" + queryStatement.getDataSetId()).ontology(ontology)
-                .runtimeOptions(RuntimeOptions.builder().minMaxTime(queryStatement.getMinMaxTime())
-                        .enableOptimize(queryStatement.getEnableOptimize()).build())
-                .build();
-        SqlBuilder sqlBuilder = new SqlBuilder(semanticSchema);
+        S2CalciteCatalog catalog =
+                S2CalciteCatalog.of(ontology, "DATASET_" + queryStatement.getDataSetId());
+        RuntimeOptions runtimeOptions =
+                RuntimeOptions.builder().minMaxTime(queryStatement.getMinMaxTime())
+                        .enableOptimize(queryStatement.getEnableOptimize()).build();
+        SqlBuilder sqlBuilder =
+                new SqlBuilder(catalog.getSchema(), catalog.createScope(), runtimeOptions);
         String sql = sqlBuilder.buildOntologySql(queryStatement);
         queryStatement.getOntologyQuery().setSql(sql);
     }
@@ -1,11 +1,14 @@
 package com.tencent.supersonic.headless.core.translator.parser;
 
+import com.tencent.supersonic.headless.api.pojo.ModelDetail;
 import com.tencent.supersonic.headless.api.pojo.enums.ModelDefineType;
 import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
+import com.tencent.supersonic.headless.core.pojo.Ontology;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import com.tencent.supersonic.headless.core.utils.SqlVariableParseUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
@@ -37,7 +40,20 @@ public class SqlVariableParser implements QueryParser {
                                 queryStatement.getStructQuery().getParams());
                 ModelResp dataModel =
                         queryStatement.getOntology().getModelMap().get(modelResp.getBizName());
-                dataModel.getModelDetail().setSqlQuery(sqlParsed);
+                if (dataModel == null
+                        || sqlParsed.equals(dataModel.getModelDetail().getSqlQuery())) {
+                    continue;
+                }
+                // the ontology is shared by other queries, only change a copy of it
+                ModelResp parsedModel = new ModelResp();
+                BeanUtils.copyProperties(dataModel, parsedModel);
+                ModelDetail modelDetail = new ModelDetail();
+                BeanUtils.copyProperties(dataModel.getModelDetail(), modelDetail);
+                modelDetail.setSqlQuery(sqlParsed);
+                parsedModel.setModelDetail(modelDetail);
+                Ontology ontology = queryStatement.getOntology().copy();
+                ontology.getModelMap().put(modelResp.getBizName(), parsedModel);
+                queryStatement.setOntology(ontology);
             }
         }
     }
@@ -1,5 +1,6 @@
 package com.tencent.supersonic.headless.core.translator.parser.calcite;
 
+import com.tencent.supersonic.headless.core.translator.parser.RuntimeOptions;
 import org.apache.calcite.plan.RelOptRuleCall;
 import org.apache.calcite.plan.RelRule;
 import org.apache.calcite.rel.core.Aggregate;
@@ -41,23 +42,22 @@ public class FilterToGroupScanRule extends RelRule<Config> implements Transforma
                 });
             }).as(FilterTableScanRule.Config.class);
 
-    private S2CalciteSchema schema;
+    private RuntimeOptions runtimeOptions;
 
-    public FilterToGroupScanRule(FilterTableScanRule.Config config, S2CalciteSchema schema) {
+    public FilterToGroupScanRule(FilterTableScanRule.Config config, RuntimeOptions runtimeOptions) {
         super(config);
-        this.schema = schema;
+        this.runtimeOptions = runtimeOptions;
     }
 
     public void onMatch(RelOptRuleCall call) {
         if (call.rels.length != 4) {
             return;
         }
-        if (Objects.isNull(schema.getRuntimeOptions())
-                || Objects.isNull(schema.getRuntimeOptions().getMinMaxTime())
-                || schema.getRuntimeOptions().getMinMaxTime().getLeft().isEmpty()) {
+        if (Objects.isNull(runtimeOptions) || Objects.isNull(runtimeOptions.getMinMaxTime())
+                || runtimeOptions.getMinMaxTime().getLeft().isEmpty()) {
             return;
         }
-        Triple<String, String, String> minMax = schema.getRuntimeOptions().getMinMaxTime();
+        Triple<String, String, String> minMax = runtimeOptions.getMinMaxTime();
         Filter filter = (Filter) call.rel(0);
         Project project0 = (Project) call.rel(1);
         Project project1 = (Project) call.rel(3);
@@ -0,0 +1,46 @@
+package com.tencent.supersonic.headless.core.translator.parser.calcite;
+
+import com.tencent.supersonic.headless.core.pojo.Ontology;
+import org.apache.calcite.prepare.Prepare;
+import org.apache.calcite.sql.validate.SqlValidatorScope;
+
+/**
+ * Holds the calcite schema of an ontology together with its catalog reader, so that queries on the
+ * same ontology snapshot do not rebuild them. A calcite validator keeps state of the expressions it
+ * validated, so every query gets a new validator scope on top of the shared catalog reader.
+ */
+public class S2CalciteCatalog {
+
+    private final S2CalciteSchema schema;
+
+    private final Prepare.CatalogReader catalogReader;
+
+    private S2CalciteCatalog(S2CalciteSchema schema) {
+        this.schema = schema;
+        this.catalogReader = SchemaBuilder.getCatalogReader(schema);
+    }
+
+    /** returns the catalog attached to the ontology, it goes away with its ontology */
+    public static S2CalciteCatalog of(Ontology ontology, String schemaKey) {
+        S2CalciteCatalog catalog = ontology.getCalciteCatalog();
+        if (catalog == null) {
+            synchronized (ontology) {
+                catalog = ontology.getCalciteCatalog();
+                if (catalog == null) {
+                    catalog = new S2CalciteCatalog(S2CalciteSchema.builder().schemaKey(schemaKey)
+                            .ontology(ontology).build());
+                    ontology.setCalciteCatalog(catalog);
+                }
+            }
+        }
+        return catalog;
+    }
+
+    public S2CalciteSchema getSchema() {
+        return schema;
+    }
+
+    public SqlValidatorScope createScope() {
+        return SchemaBuilder.getScope(schema, catalogReader);
+    }
+}
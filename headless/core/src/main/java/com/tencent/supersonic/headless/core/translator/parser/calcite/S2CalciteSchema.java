@@ -5,7 +5,6 @@ import com.tencent.supersonic.headless.api.pojo.response.MetricSchemaResp;
 import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
 import com.tencent.supersonic.headless.core.pojo.JoinRelation;
 import com.tencent.supersonic.headless.core.pojo.Ontology;
-import com.tencent.supersonic.headless.core.translator.parser.RuntimeOptions;
 import lombok.Builder;
 import lombok.Data;
 import org.apache.calcite.schema.Schema;
@@ -23,8 +22,6 @@ public class S2CalciteSchema extends AbstractSchema {
 
     private Ontology ontology;
 
-    private RuntimeOptions runtimeOptions;
-
     @Override
     public Schema snapshot(SchemaVersion version) {
         return this;
@@ -27,12 +27,22 @@ public class SchemaBuilder {
     public static final String MATERIALIZATION_SYS_FIELD_DATA = "C2";
 
     public static SqlValidatorScope getScope(S2CalciteSchema schema) {
-        Map<String, RelDataType> nameToTypeMap = new HashMap<>();
+        return getScope(schema, getCatalogReader(schema));
+    }
+
+    /** the catalog reader only looks up the schema, it can be shared by queries */
+    public static Prepare.CatalogReader getCatalogReader(S2CalciteSchema schema) {
         CalciteSchema rootSchema = CalciteSchema.createRootSchema(true, false);
         rootSchema.add(schema.getSchemaKey(), schema);
-        Prepare.CatalogReader catalogReader = new CalciteCatalogReader(rootSchema,
+        return new CalciteCatalogReader(rootSchema,
                 Collections.singletonList(schema.getSchemaKey()), Configuration.typeFactory,
                 Configuration.config);
+    }
+
+    /** a validator keeps the state of the nodes it validated, each query needs its own scope */
+    public static SqlValidatorScope getScope(S2CalciteSchema schema,
+            Prepare.CatalogReader catalogReader) {
+        Map<String, RelDataType> nameToTypeMap = new HashMap<>();
         EngineType engineType = EngineType.fromString(schema.getOntology().getDatabase().getType());
         S2SQLSqlValidatorImpl s2SQLSqlValidator =
                 new S2SQLSqlValidatorImpl(Configuration.operatorTable, catalogReader,
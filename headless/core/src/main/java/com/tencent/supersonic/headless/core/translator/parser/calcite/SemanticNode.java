@@ -5,6 +5,7 @@ import com.tencent.supersonic.common.calcite.SemanticSqlDialect;
 import com.tencent.supersonic.common.calcite.SqlDialectFactory;
 import com.tencent.supersonic.common.pojo.enums.EngineType;
 import com.tencent.supersonic.headless.core.translator.parser.Constants;
+import com.tencent.supersonic.headless.core.translator.parser.RuntimeOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.hep.HepPlanner;
@@ -400,13 +401,13 @@ public abstract class SemanticNode {
         return parseInfo;
     }
 
-    public static SqlNode optimize(SqlValidatorScope scope, S2CalciteSchema schema, SqlNode sqlNode,
-            EngineType engineType) {
+    public static SqlNode optimize(SqlValidatorScope scope, RuntimeOptions runtimeOptions,
+            SqlNode sqlNode, EngineType engineType) {
         try {
             HepProgramBuilder hepProgramBuilder = new HepProgramBuilder();
             SemanticSqlDialect sqlDialect = SqlDialectFactory.getSqlDialect(engineType);
             hepProgramBuilder.addRuleInstance(
-                    new FilterToGroupScanRule(FilterToGroupScanRule.DEFAULT, schema));
+                    new FilterToGroupScanRule(FilterToGroupScanRule.DEFAULT, runtimeOptions));
             RelOptPlanner relOptPlanner = new HepPlanner(hepProgramBuilder.build());
             RelToSqlConverter converter = new RelToSqlConverter(sqlDialect);
             SqlValidator sqlValidator = Configuration.getSqlValidator(
@@ -15,6 +15,7 @@ import com.tencent.supersonic.headless.core.pojo.Ontology;
 import com.tencent.supersonic.headless.core.pojo.OntologyQuery;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import com.tencent.supersonic.headless.core.translator.parser.Constants;
+import com.tencent.supersonic.headless.core.translator.parser.RuntimeOptions;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.calcite.sql.*;
 import org.apache.calcite.sql.fun.SqlStdOperatorTable;
@@ -29,7 +30,6 @@ import org.jgrapht.Graph;
 import org.jgrapht.GraphPath;
 import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.DefaultUndirectedGraph;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -39,10 +39,13 @@ public class SqlBuilder {
 
     private final S2CalciteSchema schema;
     private final SqlValidatorScope scope;
+    private final RuntimeOptions runtimeOptions;
 
-    public SqlBuilder(S2CalciteSchema schema) {
+    public SqlBuilder(S2CalciteSchema schema, SqlValidatorScope scope,
+            RuntimeOptions runtimeOptions) {
         this.schema = schema;
-        this.scope = SchemaBuilder.getScope(schema);
+        this.scope = scope;
+        this.runtimeOptions = runtimeOptions;
     }
 
     public String buildOntologySql(QueryStatement queryStatement) throws Exception {
@@ -80,8 +83,7 @@ public class SqlBuilder {
     }
 
     private Set<ModelResp> probeRelatedModels(Set<ModelResp> dataModels, Ontology ontology) {
-        List<JoinRelation> joinRelations = ontology.getJoinRelations();
-        Graph<String, DefaultEdge> graph = buildGraph(joinRelations);
+        Graph<String, DefaultEdge> graph = ontology.getJoinGraph();
         DijkstraShortestPath<String, DefaultEdge> dijkstraAlg = new DijkstraShortestPath<>(graph);
         Set<String> queryModels =
                 dataModels.stream().map(ModelResp::getName).collect(Collectors.toSet());
@@ -122,21 +124,10 @@ public class SqlBuilder {
         return intersect.size() == vertex.size() ? true : false;
     }
 
-    private Graph<String, DefaultEdge> buildGraph(List<JoinRelation> joinRelations) {
-        Graph<String, DefaultEdge> directedGraph = new DefaultUndirectedGraph<>(DefaultEdge.class);
-        for (JoinRelation joinRelation : joinRelations) {
-            directedGraph.addVertex(joinRelation.getLeft());
-            directedGraph.addVertex(joinRelation.getRight());
-            directedGraph.addEdge(joinRelation.getLeft(), joinRelation.getRight());
-        }
-        return directedGraph;
-    }
-
     private SqlNode optimizeParseNode(SqlNode parserNode, EngineType engineType)
             throws SqlParseException {
-        if (Objects.isNull(schema.getRuntimeOptions())
-                || Objects.isNull(schema.getRuntimeOptions().getEnableOptimize())
-                || !schema.getRuntimeOptions().getEnableOptimize()) {
+        if (Objects.isNull(runtimeOptions) || Objects.isNull(runtimeOptions.getEnableOptimize())
+                || !runtimeOptions.getEnableOptimize()) {
             return parserNode;
         }
 
@@ -144,7 +135,7 @@ public class SqlBuilder {
         SqlNode sqlNode = SqlParser.create(SemanticNode.getSql(parserNode, engineType),
                 Configuration.getParserConfig(engineType)).parseStmt();
         if (Objects.nonNull(sqlNode)) {
-            optimizeNode = SemanticNode.optimize(scope, schema, sqlNode, engineType);
+            optimizeNode = SemanticNode.optimize(scope, runtimeOptions, sqlNode, engineType);
         }
 
         if (Objects.nonNull(optimizeNode)) {
@@ -1,5 +1,6 @@
 package com.tencent.supersonic.headless.core.utils;
 
+import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
 
@@ -52,6 +53,25 @@ public class JdbcDuckDbUtils {
         return new ArrayList<>();
     }
 
+    public static List<String> getViewColumns(DuckDbSource duckDbSource, String view)
+            throws Exception {
+        SemanticQueryResp queryResultWithColumns = new SemanticQueryResp();
+        duckDbSource.query(String.format("SELECT * FROM %s LIMIT 0", view), queryResultWithColumns);
+        return queryResultWithColumns.getColumns().stream().map(QueryColumn::getBizName)
+                .collect(Collectors.toList());
+    }
+
+    public static List<String> getViewPartition(DuckDbSource duckDbSource, String view,
+            String partitionName) throws Exception {
+        SemanticQueryResp queryResultWithColumns = new SemanticQueryResp();
+        duckDbSource.query(String.format(
+                "SELECT distinct CAST(%s AS VARCHAR) as partition FROM %s ORDER BY partition",
+                partitionName, view), queryResultWithColumns);
+        return queryResultWithColumns.getResultList().stream()
+                .filter(l -> Objects.nonNull(l.get("partition")))
+                .map(l -> (String) l.get("partition")).collect(Collectors.toList());
+    }
+
     public static boolean createDatabase(DuckDbSource duckDbSource, String db) throws Exception {
         duckDbSource.execute("CREATE SCHEMA IF NOT EXISTS " + db);
         return true;
@@ -4,9 +4,11 @@ import javax.sql.DataSource;
 
 import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.util.DateUtils;
+import com.tencent.supersonic.headless.api.pojo.ColumnarResultList;
 import com.tencent.supersonic.headless.api.pojo.enums.DataType;
 import com.tencent.supersonic.headless.api.pojo.response.DatabaseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
 import com.tencent.supersonic.headless.core.pojo.JdbcDataSource;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +26,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.tencent.supersonic.common.pojo.Constants.AT_SYMBOL;
 
@@ -101,6 +104,47 @@ public class SqlUtils {
         getResult(sql, queryResultWithColumns, jdbcTemplate());
     }
 
+    /**
+     * Reads the result set in batches of {@code batchSize} rows and hands each batch to the handler
+     * before fetching the next one, so only one batch is held in memory.
+     */
+    public void queryStream(String sql, int batchSize, QueryResultHandler handler) {
+        jdbcTemplate().query(sql, rs -> {
+            try {
+                List<QueryColumn> queryColumns = getQueryColumns(rs.getMetaData());
+                handler.onStart(queryColumns);
+                List<String> columnNames = queryColumns.stream().map(QueryColumn::getBizName)
+                        .collect(Collectors.toList());
+                ColumnarResultList batch = new ColumnarResultList(columnNames);
+                boolean proceed = true;
+                while (proceed && readRows(rs, batch, batchSize)) {
+                    batch.seal();
+                    proceed = handler.onBatch(batch);
+                    batch = new ColumnarResultList(columnNames);
+                }
+                if (proceed && !batch.isEmpty()) {
+                    batch.seal();
+                    handler.onBatch(batch);
+                }
+                handler.onComplete();
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            return null;
+        });
+    }
+
+    private List<QueryColumn> getQueryColumns(ResultSetMetaData metaData) throws SQLException {
+        List<QueryColumn> queryColumns = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String key = metaData.getColumnLabel(i);
+            queryColumns.add(new QueryColumn(key, metaData.getColumnTypeName(i)));
+        }
+        return queryColumns;
+    }
+
     private SemanticQueryResp getResult(String sql, SemanticQueryResp queryResultWithColumns,
             JdbcTemplate jdbcTemplate) {
         jdbcTemplate.query(sql, rs -> {
@@ -108,12 +152,7 @@ public class SqlUtils {
                 return queryResultWithColumns;
             }
 
-            ResultSetMetaData metaData = rs.getMetaData();
-            List<QueryColumn> queryColumns = new ArrayList<>();
-            for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                String key = metaData.getColumnLabel(i);
-                queryColumns.add(new QueryColumn(key, metaData.getColumnTypeName(i)));
-            }
+            List<QueryColumn> queryColumns = getQueryColumns(rs.getMetaData());
             queryResultWithColumns.setColumns(queryColumns);
 
             List<Map<String, Object>> resultList = getAllData(rs, queryColumns);
@@ -124,26 +163,31 @@ public class SqlUtils {
     }
 
     private List<Map<String, Object>> getAllData(ResultSet rs, List<QueryColumn> queryColumns) {
-        List<Map<String, Object>> data = new ArrayList<>();
+        ColumnarResultList data = new ColumnarResultList(
+                queryColumns.stream().map(QueryColumn::getBizName).collect(Collectors.toList()));
         try {
-            while (rs.next()) {
-                data.add(getLineData(rs, queryColumns));
-            }
+            readRows(rs, data, Integer.MAX_VALUE);
         } catch (Exception e) {
             log.warn("error in getAllData, e:", e);
         }
+        data.seal();
         return data;
     }
 
-    private Map<String, Object> getLineData(ResultSet rs, List<QueryColumn> queryColumns)
-            throws SQLException {
-        Map<String, Object> map = new LinkedHashMap<>();
-        for (QueryColumn queryColumn : queryColumns) {
-            String colName = queryColumn.getBizName();
-            Object value = rs.getObject(colName);
-            map.put(colName, getValue(value));
+    /** Reads rows into {@code data} until it holds {@code limit} rows or the result set ends. */
+    private boolean readRows(ResultSet rs, ColumnarResultList data, int limit) throws SQLException {
+        int columnCount = data.getColumnCount();
+        while (data.size() < limit) {
+            if (!rs.next()) {
+                return false;
+            }
+            Object[] line = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                line[i] = getValue(rs.getObject(i + 1));
+            }
+            data.addRow(line);
         }
-        return map;
+        return true;
     }
 
     private Object getValue(Object value) {
@@ -0,0 +1,89 @@
+package com.tencent.supersonic.headless.core.cache;
+
+import com.google.common.collect.Lists;
+import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import com.tencent.supersonic.headless.core.pojo.SqlQuery;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TranslationCacheTest {
+
+    @Test
+    void testCacheHitAndInvalidate() {
+        TranslationCache translationCache = new TranslationCache(buildConfig());
+        QueryStatement translated = buildStatement();
+        TranslationCache.CacheKey cacheKey = translationCache.getCacheKey(
+                buildReq("SELECT department, SUM(pv) FROM t_1 GROUP BY department"), translated);
+        SqlQuery sqlQuery = new SqlQuery();
+        sqlQuery.setSql("SELECT department, SUM(pv) FROM t_1 GROUP BY department");
+        sqlQuery.setTable("t_1");
+        translated.setSqlQuery(sqlQuery);
+        translated.setSql("SELECT department, SUM(pv) FROM s2_pv_uv_statis GROUP BY department");
+        translationCache.put(cacheKey, translated);
+
+        QueryStatement queryStatement = buildStatement();
+        TranslationCache.CacheKey sameKey = translationCache.getCacheKey(
+                buildReq(" SELECT department,  SUM(pv)\n FROM t_1 GROUP BY department "),
+                queryStatement);
+        Assertions.assertEquals(cacheKey, sameKey);
+        Assertions.assertTrue(translationCache.apply(sameKey, queryStatement));
+        Assertions.assertTrue(queryStatement.isTranslated());
+        Assertions.assertEquals(translated.getSql(), queryStatement.getSql());
+        Assertions.assertEquals("t_1", queryStatement.getSqlQuery().getTable());
+
+        translationCache.invalidateModels(Lists.newArrayList(2L));
+        Assertions.assertTrue(translationCache.apply(translationCache.getCacheKey(
+                buildReq("SELECT department, SUM(pv) FROM t_1 GROUP BY department"),
+                buildStatement()), buildStatement()));
+
+        translationCache.invalidateModels(Lists.newArrayList(1L));
+        QueryStatement afterChange = buildStatement();
+        TranslationCache.CacheKey newKey = translationCache.getCacheKey(
+                buildReq("SELECT department, SUM(pv) FROM t_1 GROUP BY department"), afterChange);
+        Assertions.assertFalse(translationCache.apply(newKey, afterChange));
+    }
+
+    @Test
+    void testSkipPutAfterChange() {
+        TranslationCache translationCache = new TranslationCache(buildConfig());
+        QueryStatement translated = buildStatement();
+        TranslationCache.CacheKey cacheKey = translationCache.getCacheKey(
+                buildReq("SELECT department, SUM(pv) FROM t_1 GROUP BY department"), translated);
+        translated.setSqlQuery(new SqlQuery());
+        translated.setSql("SELECT department, SUM(pv) FROM s2_pv_uv_statis GROUP BY department");
+        // the schema changed while the query was translated
+        translationCache.invalidateDataSet(2L);
+        translationCache.put(cacheKey, translated);
+
+        QueryStatement queryStatement = buildStatement();
+        Assertions.assertFalse(translationCache.apply(translationCache.getCacheKey(
+                buildReq("SELECT department, SUM(pv) FROM t_1 GROUP BY department"),
+                queryStatement), queryStatement));
+    }
+
+    private static QuerySqlReq buildReq(String sql) {
+        QuerySqlReq querySqlReq = new QuerySqlReq();
+        querySqlReq.setSql(sql);
+        querySqlReq.setDataSetId(1L);
+        return querySqlReq;
+    }
+
+    private static QueryStatement buildStatement() {
+        QueryStatement queryStatement = new QueryStatement();
+        queryStatement.setDataSetId(1L);
+        SemanticSchemaResp semanticSchemaResp = new SemanticSchemaResp();
+        semanticSchemaResp.setModelIds(Lists.newArrayList(1L));
+        queryStatement.setSemanticSchema(semanticSchemaResp);
+        return queryStatement;
+    }
+
+    private static CacheCommonConfig buildConfig() {
+        CacheCommonConfig cacheCommonConfig = new CacheCommonConfig();
+        cacheCommonConfig.setTranslationCacheEnable(true);
+        cacheCommonConfig.setTranslationCacheMaxSize(100);
+        cacheCommonConfig.setTranslationCacheExpireAfterWrite(10);
+        return cacheCommonConfig;
+    }
+}
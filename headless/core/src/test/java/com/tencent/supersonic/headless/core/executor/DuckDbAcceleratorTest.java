@@ -0,0 +1,179 @@
+package com.tencent.supersonic.headless.core.executor;
+
+import com.google.common.collect.Lists;
+import com.tencent.supersonic.common.util.ContextUtils;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import com.tencent.supersonic.headless.core.pojo.QueryStatement;
+import com.tencent.supersonic.headless.core.pojo.SqlQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class DuckDbAcceleratorTest {
+
+    private static final String PARTITION = "imp_date";
+
+    private final DuckDbAccelerator accelerator = new DuckDbAccelerator();
+
+    private final DuckDbSource duckDbSource = Mockito.mock(DuckDbSource.class);
+
+    private final List<String> executedSql = new ArrayList<>();
+
+    private MockedStatic<ContextUtils> contextUtils;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, String> metricAggs = new HashMap<>();
+        metricAggs.put("pv", "SUM");
+        metricAggs.put("uv", "MAX");
+        // partitions of five days are held, 2024-01-01 to 2024-01-05
+        Materialization materialization = Materialization.builder().name("mv.pv_daily")
+                .dataSetId(1L).isPartitioned(true).partitionName(PARTITION)
+                .columns(Lists.newArrayList("department", "pv", "uv", PARTITION))
+                .partitions(Lists.newArrayList("2024-01-01", "2024-01-02", "2024-01-03",
+                        "2024-01-04", "2024-01-05"))
+                .dimensions(Lists.newArrayList("department"))
+                .metrics(Lists.newArrayList("pv", "uv")).metricAggs(metricAggs).build();
+        MaterializationManager materializationManager = Mockito.mock(MaterializationManager.class);
+        Mockito.when(materializationManager.isEnabled()).thenReturn(true);
+        Mockito.when(materializationManager.getMaterializations(1L))
+                .thenReturn(Lists.newArrayList(materialization));
+        Mockito.doAnswer(invocation -> executedSql.add(invocation.getArgument(0)))
+                .when(duckDbSource).query(ArgumentMatchers.anyString(), ArgumentMatchers.any());
+
+        contextUtils = Mockito.mockStatic(ContextUtils.class);
+        contextUtils.when(() -> ContextUtils.getBean(MaterializationManager.class))
+                .thenReturn(materializationManager);
+        contextUtils.when(() -> ContextUtils.getBean(DuckDbSource.class)).thenReturn(duckDbSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        contextUtils.close();
+    }
+
+    @Test
+    void testRejectNonReAggregatable() {
+        String range = " AND imp_date >= '2024-01-02' AND imp_date <= '2024-01-03'";
+        Assertions.assertTrue(check("SELECT department, SUM(pv) FROM t_1 WHERE department = 'HR'"
+                + range + " GROUP BY department"));
+        // a metric filtered or selected without aggregation sees the pre-aggregated values
+        Assertions.assertFalse(check("SELECT department, SUM(pv) FROM t_1 WHERE pv > 10" + range
+                + " GROUP BY department"));
+        Assertions.assertFalse(check("SELECT department, uv, SUM(pv) FROM t_1 WHERE 1 = 1" + range
+                + " GROUP BY department, uv"));
+        // aggregations that can not be computed again from pre-aggregated rows
+        Assertions.assertFalse(check("SELECT department, COUNT(pv) FROM t_1 WHERE 1 = 1" + range
+                + " GROUP BY department"));
+        Assertions.assertFalse(check("SELECT department, AVG(pv) FROM t_1 WHERE 1 = 1" + range
+                + " GROUP BY department"));
+        Assertions.assertFalse(check("SELECT department, SUM(DISTINCT pv) FROM t_1 WHERE 1 = 1"
+                + range + " GROUP BY department"));
+        // an aggregation other than the stored one
+        Assertions.assertFalse(check("SELECT department, MAX(pv) FROM t_1 WHERE 1 = 1" + range
+                + " GROUP BY department"));
+        Assertions.assertFalse(check("SELECT department, SUM(uv) FROM t_1 WHERE 1 = 1" + range
+                + " GROUP BY department"));
+        Assertions
+                .assertTrue(check("SELECT MAX(department), MAX(uv) FROM t_1 WHERE 1 = 1" + range));
+        // fields the materialization does not hold
+        Assertions.assertFalse(
+                check("SELECT city, SUM(pv) FROM t_1 WHERE 1 = 1" + range + " GROUP BY city"));
+    }
+
+    @Test
+    void testRejectPartitionFilterUnderOrAndNot() {
+        Assertions.assertFalse(check("SELECT department, SUM(pv) FROM t_1 WHERE "
+                + "(imp_date = '2024-01-02' OR department = 'HR') GROUP BY department"));
+        Assertions.assertFalse(check("SELECT department, SUM(pv) FROM t_1 WHERE "
+                + "imp_date = '2024-01-02' OR imp_date = '2024-01-04' GROUP BY department"));
+        Assertions.assertFalse(check("SELECT department, SUM(pv) FROM t_1 WHERE "
+                + "NOT imp_date < '2024-01-02' AND imp_date <= '2024-01-03' GROUP BY department"));
+        // an OR apart from the partition leaves the range bounded
+        Assertions.assertTrue(check("SELECT department, SUM(pv) FROM t_1 WHERE "
+                + "imp_date = '2024-01-02' AND (department = 'HR' OR department = 'sales') "
+                + "GROUP BY department"));
+    }
+
+    @Test
+    void testDateBounds() {
+        Assertions.assertTrue(checkRange("imp_date = '2024-01-05'"));
+        Assertions.assertTrue(checkRange("imp_date >= '2024-01-01' AND imp_date <= '2024-01-05'"));
+        // strict bounds exclude the day they name
+        Assertions.assertTrue(checkRange("imp_date > '2023-12-31' AND imp_date < '2024-01-06'"));
+        Assertions.assertFalse(checkRange("imp_date > '2024-01-01' AND imp_date <= '2024-01-06'"));
+        Assertions.assertFalse(checkRange("imp_date >= '2023-12-31' AND imp_date < '2024-01-05'"));
+        Assertions.assertFalse(checkRange("imp_date = '2024-01-06'"));
+        // a range longer than the partitions held
+        Assertions.assertFalse(checkRange("imp_date >= '2023-12-01' AND imp_date <= '2024-01-05'"));
+        // an empty or unbounded range
+        Assertions.assertFalse(checkRange("imp_date > '2024-01-03' AND imp_date < '2024-01-04'"));
+        Assertions.assertFalse(checkRange("imp_date >= '2024-01-02'"));
+        Assertions.assertFalse(checkRange("department = 'HR'"));
+    }
+
+    @Test
+    void testQueryMaterialization() {
+        QueryStatement queryStatement = buildStatement("SELECT department, SUM(pv) FROM t_1 "
+                + "WHERE imp_date >= '2024-01-02' AND imp_date <= '2024-01-03' "
+                + "GROUP BY department");
+        Assertions.assertTrue(accelerator.check(queryStatement));
+        SemanticQueryResp queryResp = accelerator.query(queryStatement);
+
+        Assertions.assertNotNull(queryResp);
+        Assertions.assertEquals(1, executedSql.size());
+        String sql = executedSql.get(0);
+        Assertions.assertEquals(sql, queryResp.getSql());
+        Assertions.assertTrue(sql.contains("FROM mv.pv_daily"));
+        Assertions.assertFalse(sql.contains("t_1"));
+        Assertions.assertTrue(sql.endsWith(" LIMIT 1000"));
+
+        // the limit of the query is kept
+        queryStatement = buildStatement("SELECT department, SUM(pv) FROM t_1 "
+                + "WHERE imp_date = '2024-01-02' GROUP BY department LIMIT 10");
+        Assertions.assertNotNull(accelerator.query(queryStatement));
+        Assertions.assertTrue(executedSql.get(1).endsWith("LIMIT 10"));
+    }
+
+    @Test
+    void testFallBackToSource() {
+        QueryStatement queryStatement = buildStatement("SELECT department, AVG(pv) FROM t_1 "
+                + "WHERE imp_date = '2024-01-02' GROUP BY department");
+        Assertions.assertNull(accelerator.query(queryStatement));
+
+        Mockito.doThrow(new IllegalStateException("duckDb error")).when(duckDbSource)
+                .query(ArgumentMatchers.anyString(), ArgumentMatchers.any());
+        queryStatement = buildStatement("SELECT department, SUM(pv) FROM t_1 "
+                + "WHERE imp_date = '2024-01-02' GROUP BY department");
+        Assertions.assertNull(accelerator.query(queryStatement));
+    }
+
+    private boolean checkRange(String where) {
+        return check("SELECT department, SUM(pv) FROM t_1 WHERE " + where + " GROUP BY department");
+    }
+
+    private boolean check(String sql) {
+        return accelerator.check(buildStatement(sql));
+    }
+
+    private QueryStatement buildStatement(String sql) {
+        SqlQuery sqlQuery = new SqlQuery();
+        sqlQuery.setSql(sql);
+        sqlQuery.setTable("t_1");
+        QueryStatement queryStatement = new QueryStatement();
+        queryStatement.setDataSetId(1L);
+        queryStatement.setSqlQuery(sqlQuery);
+        return queryStatement;
+    }
+}
@@ -17,6 +17,7 @@ import com.tencent.supersonic.headless.api.pojo.request.QueryStructReq;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
 import com.tencent.supersonic.headless.api.pojo.response.DimensionResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
 import com.tencent.supersonic.headless.server.service.DimensionService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -66,17 +67,30 @@ public class DimValueAspect {
         throw new InvalidArgumentException("queryReq is not Invalid:" + queryReq);
     }
 
+    @Around("execution(* com.tencent.supersonic.headless.server.facade.service.SemanticLayerService.queryByReqStream(..))")
+    public Object handleStreamDimValue(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!dimensionValueMapEnable) {
+            return joinPoint.proceed();
+        }
+        Object[] args = joinPoint.getArgs();
+        SemanticQueryReq queryReq = (SemanticQueryReq) args[0];
+        Map<String, Map<String, String>> techNameToBizName;
+        if (queryReq instanceof QueryStructReq) {
+            techNameToBizName = rewriteStructReq((QueryStructReq) queryReq);
+        } else if (queryReq instanceof QuerySqlReq) {
+            techNameToBizName = rewriteSqlReq((QuerySqlReq) queryReq);
+        } else {
+            throw new InvalidArgumentException("queryReq is not Invalid:" + queryReq);
+        }
+        args[2] = new DimValueRewriteHandler((QueryResultHandler) args[2], techNameToBizName);
+        return joinPoint.proceed(args);
+    }
+
     private SemanticQueryResp handleStructDimValue(ProceedingJoinPoint joinPoint) throws Throwable {
         Object[] args = joinPoint.getArgs();
         QueryStructReq queryStructReq = (QueryStructReq) args[0];
-        MetaFilter metaFilter = new MetaFilter(Lists.newArrayList(queryStructReq.getModelIds()));
-        List<DimensionResp> dimensions = dimensionService.getDimensions(metaFilter);
-        Map<String, Map<String, String>> dimAndAliasAndTechNamePair =
-                getAliasAndBizNameToTechName(dimensions);
         Map<String, Map<String, String>> dimAndTechNameAndBizNamePair =
-                getTechNameToBizName(dimensions);
-
-        rewriteFilter(queryStructReq.getDimensionFilters(), dimAndAliasAndTechNamePair);
+                rewriteStructReq(queryStructReq);
 
         SemanticQueryResp semanticQueryResp = (SemanticQueryResp) joinPoint.proceed();
         if (Objects.nonNull(semanticQueryResp)) {
@@ -89,6 +103,25 @@ public class DimValueAspect {
     public Object handleSqlDimValue(ProceedingJoinPoint joinPoint) throws Throwable {
         Object[] args = joinPoint.getArgs();
         QuerySqlReq querySqlReq = (QuerySqlReq) args[0];
+        Map<String, Map<String, String>> techNameToBizName = rewriteSqlReq(querySqlReq);
+
+        SemanticQueryResp queryResultWithColumns = (SemanticQueryResp) joinPoint.proceed();
+        if (Objects.nonNull(queryResultWithColumns)) {
+            rewriteDimValue(queryResultWithColumns, techNameToBizName);
+        }
+        return queryResultWithColumns;
+    }
+
+    private Map<String, Map<String, String>> rewriteStructReq(QueryStructReq queryStructReq) {
+        MetaFilter metaFilter = new MetaFilter(Lists.newArrayList(queryStructReq.getModelIds()));
+        List<DimensionResp> dimensions = dimensionService.getDimensions(metaFilter);
+        Map<String, Map<String, String>> dimAndAliasAndTechNamePair =
+                getAliasAndBizNameToTechName(dimensions);
+        rewriteFilter(queryStructReq.getDimensionFilters(), dimAndAliasAndTechNamePair);
+        return getTechNameToBizName(dimensions);
+    }
+
+    private Map<String, Map<String, String>> rewriteSqlReq(QuerySqlReq querySqlReq) {
         MetaFilter metaFilter = new MetaFilter(Lists.newArrayList(querySqlReq.getModelIds()));
         String sql = querySqlReq.getSql();
         log.debug("correctorSql before replacing:{}", sql);
@@ -124,13 +157,41 @@ public class DimValueAspect {
         sql = SqlReplaceHelper.replaceValue(sql, filedNameToValueMap);
         log.debug("correctorSql after replacing:{}", sql);
         querySqlReq.setSql(sql);
-        Map<String, Map<String, String>> techNameToBizName = getTechNameToBizName(dimensions);
+        return getTechNameToBizName(dimensions);
+    }
 
-        SemanticQueryResp queryResultWithColumns = (SemanticQueryResp) joinPoint.proceed();
-        if (Objects.nonNull(queryResultWithColumns)) {
-            rewriteDimValue(queryResultWithColumns, techNameToBizName);
+    /** Applies the dimension value mapping to every streamed batch. */
+    private class DimValueRewriteHandler implements QueryResultHandler {
+
+        private final QueryResultHandler delegate;
+        private final Map<String, Map<String, String>> techNameToBizName;
+        private List<QueryColumn> columns;
+
+        private DimValueRewriteHandler(QueryResultHandler delegate,
+                Map<String, Map<String, String>> techNameToBizName) {
+            this.delegate = delegate;
+            this.techNameToBizName = techNameToBizName;
+        }
+
+        @Override
+        public void onStart(List<QueryColumn> columns) throws Exception {
+            this.columns = columns;
+            delegate.onStart(columns);
+        }
+
+        @Override
+        public boolean onBatch(List<Map<String, Object>> rows) throws Exception {
+            SemanticQueryResp batch = new SemanticQueryResp();
+            batch.setColumns(columns);
+            batch.setResultList(rows);
+            rewriteDimValue(batch, techNameToBizName);
+            return delegate.onBatch(rows);
+        }
+
+        @Override
+        public void onComplete() throws Exception {
+            delegate.onComplete();
         }
-        return queryResultWithColumns;
     }
 
     public void replaceInCondition(FieldExpression expression, DimensionResp dimension,
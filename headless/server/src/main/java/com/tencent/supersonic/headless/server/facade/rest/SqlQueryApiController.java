@@ -1,13 +1,16 @@
 package com.tencent.supersonic.headless.server.facade.rest;
 
 import com.tencent.supersonic.auth.api.authentication.utils.UserHolder;
+import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.pojo.User;
+import com.tencent.supersonic.common.util.JsonUtil;
 import com.tencent.supersonic.common.util.StringUtil;
 import com.tencent.supersonic.headless.api.pojo.SqlEvaluation;
 import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
 import com.tencent.supersonic.headless.api.pojo.request.QuerySqlsReq;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
 import com.tencent.supersonic.headless.server.facade.service.ChatLayerService;
 import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,8 +23,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -46,6 +53,36 @@ public class SqlQueryApiController {
         return semanticLayerService.queryByReq(querySqlReq, user);
     }
 
+    /**
+     * Streams the result as newline-delimited JSON: the first line holds the columns, every
+     * following line one row. Rows are written while they are read from the data source.
+     */
+    @PostMapping(value = "/sql/stream", produces = "application/x-ndjson")
+    public void queryBySqlStream(@RequestBody QuerySqlReq querySqlReq, HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        User user = UserHolder.findUser(request, response);
+        String sql = querySqlReq.getSql();
+        querySqlReq.setSql(StringUtil.replaceBackticks(sql));
+        chatLayerService.correct(querySqlReq, user);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        PrintWriter writer = response.getWriter();
+        semanticLayerService.queryByReqStream(querySqlReq, user, new QueryResultHandler() {
+            @Override
+            public void onStart(List<QueryColumn> columns) {
+                writer.println(JsonUtil.toString(Collections.singletonMap("columns", columns)));
+                writer.flush();
+            }
+
+            @Override
+            public boolean onBatch(List<Map<String, Object>> rows) {
+                rows.forEach(row -> writer.println(JsonUtil.toString(row)));
+                writer.flush();
+                return !writer.checkError();
+            }
+        });
+    }
+
     @PostMapping("/sqls")
     public Object queryBySqls(@RequestBody QuerySqlsReq querySqlsReq, HttpServletRequest request,
             HttpServletResponse response) throws Exception {
@@ -10,6 +10,7 @@ import com.tencent.supersonic.headless.api.pojo.response.ItemResp;
 import com.tencent.supersonic.headless.api.pojo.response.MetricResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticTranslateResp;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
 
 import java.util.List;
 
@@ -20,6 +21,13 @@ public interface SemanticLayerService {
 
     SemanticQueryResp queryByReq(SemanticQueryReq queryReq, User user) throws Exception;
 
+    /**
+     * Executes the query and pushes result batches to the handler while they are read from the data
+     * source. The result cache is bypassed.
+     */
+    void queryByReqStream(SemanticQueryReq queryReq, User user, QueryResultHandler handler)
+            throws Exception;
+
     SemanticQueryResp queryDimensionValue(DimensionValueReq dimensionValueReq, User user);
 
     DataSetSchema getDataSetSchema(Long id);
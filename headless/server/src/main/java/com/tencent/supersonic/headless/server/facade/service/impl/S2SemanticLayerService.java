@@ -20,7 +20,9 @@ import com.tencent.supersonic.headless.chat.knowledge.SearchService;
 import com.tencent.supersonic.headless.chat.knowledge.helper.HanlpHelper;
 import com.tencent.supersonic.headless.chat.knowledge.helper.NatureHelper;
 import com.tencent.supersonic.headless.core.cache.QueryCache;
+import com.tencent.supersonic.headless.core.cache.TranslationCache;
 import com.tencent.supersonic.headless.core.executor.QueryExecutor;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
 import com.tencent.supersonic.headless.core.pojo.QueryStatement;
 import com.tencent.supersonic.headless.core.pojo.SqlQuery;
 import com.tencent.supersonic.headless.core.pojo.StructQuery;
@@ -60,6 +62,7 @@ public class S2SemanticLayerService implements SemanticLayerService {
     private final DomainService domainService;
     private final DimensionService dimensionService;
     private final TranslatorConfig translatorConfig;
+    private final TranslationCache translationCache;
     private final QueryCache queryCache = ComponentFactory.getQueryCache();
     private final List<QueryExecutor> queryExecutors = ComponentFactory.getQueryExecutors();
 
@@ -69,7 +72,7 @@ public class S2SemanticLayerService implements SemanticLayerService {
             MetricDrillDownChecker metricDrillDownChecker,
             KnowledgeBaseService knowledgeBaseService, MetricService metricService,
             DimensionService dimensionService, DomainService domainService,
-            TranslatorConfig translatorConfig) {
+            TranslatorConfig translatorConfig, TranslationCache translationCache) {
         this.statUtils = statUtils;
         this.queryUtils = queryUtils;
         this.semanticSchemaManager = semanticSchemaManager;
@@ -82,6 +85,7 @@ public class S2SemanticLayerService implements SemanticLayerService {
         this.dimensionService = dimensionService;
         this.domainService = domainService;
         this.translatorConfig = translatorConfig;
+        this.translationCache = translationCache;
     }
 
     public DataSetSchema getDataSetSchema(Long id) {
@@ -92,7 +96,7 @@ public class S2SemanticLayerService implements SemanticLayerService {
     @Override
     public SemanticTranslateResp translate(SemanticQueryReq queryReq, User user) throws Exception {
         QueryStatement queryStatement = buildQueryStatement(queryReq, user);
-        semanticTranslator.translate(queryStatement);
+        translate(queryReq, queryStatement);
         return SemanticTranslateResp.builder().querySQL(queryStatement.getSql())
                 .isOk(queryStatement.isOk()).errMsg(queryStatement.getErrMsg()).build();
     }
@@ -123,7 +127,7 @@ public class S2SemanticLayerService implements SemanticLayerService {
 
             // 3 translate query
             QueryStatement queryStatement = buildQueryStatement(queryReq, user);
-            semanticTranslator.translate(queryStatement);
+            translate(queryReq, queryStatement);
 
             // Check whether the dimensions of the metric drill-down are correct temporarily,
             // add the abstraction of a validator later.
@@ -160,6 +164,80 @@ public class S2SemanticLayerService implements SemanticLayerService {
         }
     }
 
+    @Override
+    @S2DataPermission
+    public void queryByReqStream(SemanticQueryReq queryReq, User user, QueryResultHandler handler)
+            throws Exception {
+        TaskStatusEnum state = TaskStatusEnum.SUCCESS;
+        log.info("[queryReq in stream:{}]", queryReq);
+        try {
+            statUtils.initStatInfo(queryReq, user);
+            StatUtils.get().setUseResultCache(false);
+
+            QueryStatement queryStatement = buildQueryStatement(queryReq, user);
+            translate(queryReq, queryStatement);
+            metricDrillDownChecker.checkQuery(queryStatement);
+            if (!queryStatement.isOk()) {
+                throw new RuntimeException(queryStatement.getErrMsg());
+            }
+
+            Optional<QueryExecutor> queryExecutor =
+                    queryExecutors.stream().filter(e -> e.accept(queryStatement)).findFirst();
+            if (!queryExecutor.isPresent()) {
+                throw new RuntimeException("no query executor accepts the query");
+            }
+            queryExecutor.get().executeStream(queryStatement,
+                    new ColumnPopulatingHandler(handler, queryStatement.getSemanticSchema()));
+        } catch (Exception e) {
+            log.error("exception in queryByReqStream:{}, e: ", queryReq, e);
+            state = TaskStatusEnum.ERROR;
+            throw e;
+        } finally {
+            statUtils.statInfo2DbAsync(state);
+        }
+    }
+
+    private void translate(SemanticQueryReq queryReq, QueryStatement queryStatement)
+            throws Exception {
+        TranslationCache.CacheKey cacheKey = translationCache.getCacheKey(queryReq, queryStatement);
+        if (translationCache.apply(cacheKey, queryStatement)) {
+            return;
+        }
+        semanticTranslator.translate(queryStatement);
+        translationCache.put(cacheKey, queryStatement);
+    }
+
+    /** Fills in column names and show types before the columns reach the caller. */
+    private class ColumnPopulatingHandler implements QueryResultHandler {
+
+        private final QueryResultHandler delegate;
+        private final SemanticSchemaResp semanticSchemaResp;
+
+        private ColumnPopulatingHandler(QueryResultHandler delegate,
+                SemanticSchemaResp semanticSchemaResp) {
+            this.delegate = delegate;
+            this.semanticSchemaResp = semanticSchemaResp;
+        }
+
+        @Override
+        public void onStart(List<QueryColumn> columns) throws Exception {
+            SemanticQueryResp queryResp = new SemanticQueryResp();
+            queryResp.setColumns(columns);
+            queryUtils.populateQueryColumns(queryResp, semanticSchemaResp);
+            delegate.onStart(queryResp.getColumns());
+        }
+
+        @Override
+        public boolean onBatch(List<Map<String, Object>> rows) throws Exception {
+            return delegate.onBatch(rows);
+        }
+
+        @Override
+        public void onComplete() throws Exception {
+            delegate.onComplete();
+        }
+    }
+
     @Override
     public SemanticQueryResp queryDimensionValue(DimensionValueReq dimensionValueReq, User user) {
         SemanticQueryResp semanticQueryResp = new SemanticQueryResp();
@@ -12,6 +12,9 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 @Slf4j
 public class SchemaDictUpdateListener {
@@ -22,6 +25,8 @@ public class SchemaDictUpdateListener {
         if (CollectionUtils.isEmpty(dataEvent.getDataItems())) {
             return;
         }
+        List<DictWord> removedWords = new ArrayList<>();
+        List<DictWord> addedWords = new ArrayList<>();
         dataEvent.getDataItems().forEach(dataItem -> {
             DictWord dictWord = new DictWord();
             dictWord.setWord(dataItem.getName());
@@ -32,14 +37,18 @@ public class SchemaDictUpdateListener {
             dictWord.setNature(nature);
             dictWord.setNatureWithFrequency(natureWithFrequency);
             if (EventType.ADD.equals(dataEvent.getEventType())) {
-                HanlpHelper.addToCustomDictionary(dictWord);
+                addedWords.add(dictWord);
             } else if (EventType.DELETE.equals(dataEvent.getEventType())) {
-                HanlpHelper.removeFromCustomDictionary(dictWord);
+                removedWords.add(dictWord);
             } else if (EventType.UPDATE.equals(dataEvent.getEventType())) {
-                HanlpHelper.removeFromCustomDictionary(dictWord);
-                dictWord.setWord(dataItem.getNewName());
-                HanlpHelper.addToCustomDictionary(dictWord);
+                removedWords.add(dictWord);
+                DictWord newWord = new DictWord();
+                newWord.setWord(dataItem.getNewName());
+                newWord.setNature(nature);
+                newWord.setNatureWithFrequency(natureWithFrequency);
+                addedWords.add(newWord);
             }
         });
+        HanlpHelper.updateCustomDictionary(removedWords, addedWords);
     }
 }
@@ -0,0 +1,246 @@
+package com.tencent.supersonic.headless.server.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tencent.supersonic.common.pojo.DataEvent;
+import com.tencent.supersonic.common.pojo.DataItem;
+import com.tencent.supersonic.common.pojo.DataUpdateEvent;
+import com.tencent.supersonic.headless.api.pojo.request.SchemaFilterReq;
+import com.tencent.supersonic.headless.api.pojo.response.DataSetSchemaResp;
+import com.tencent.supersonic.headless.api.pojo.response.SemanticSchemaResp;
+import com.tencent.supersonic.headless.core.cache.TranslationCache;
+import com.tencent.supersonic.headless.server.pojo.SchemaCacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the built data set and semantic schemas. Every change of a model, metric, dimension, data
+ * set or model relation bumps the schema version and drops only the entries depending on the
+ * changed models, the other entries stay until the next change. Cached schemas are shared by all
+ * query threads and must be treated as read-only.
+ */
+@Component
+@Slf4j
+public class SchemaRegistry {
+
+    private final TranslationCache translationCache;
+
+    private final boolean schemaCacheEnable;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final Cache<Long, DataSetSchemaResp> dataSetSchemaCache;
+
+    private final Cache<SchemaFilterReq, SemanticSchemaResp> semanticSchemaCache;
+
+    private final AtomicReference<List<Long>> onlineDataSetIds = new AtomicReference<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder rebuildCount = new LongAdder();
+
+    private final LongAdder rebuildTime = new LongAdder();
+
+    public SchemaRegistry(TranslationCache translationCache,
+            @Value("${s2.schema.cache.enable:true}") boolean schemaCacheEnable,
+            @Value("${s2.schema.cache.max.size:5000}") long maxSize,
+            @Value("${s2.schema.cache.expire.after.write:60}") long expireAfterWrite) {
+        this.translationCache = translationCache;
+        this.schemaCacheEnable = schemaCacheEnable;
+        // the expiration is only a safety net for changes made outside this application
+        this.dataSetSchemaCache = Caffeine.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES).build();
+        this.semanticSchemaCache = Caffeine.newBuilder().maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES).build();
+    }
+
+    /**
+     * Returns the schemas of the given data sets, all online data sets if the ids are empty. Only
+     * the data sets missing in the registry are passed to the builder.
+     */
+    public List<DataSetSchemaResp> getDataSetSchemas(List<Long> dataSetIds,
+            Supplier<List<Long>> onlineDataSetLoader,
+            Function<List<Long>, List<DataSetSchemaResp>> builder) {
+        if (!schemaCacheEnable) {
+            return rebuild(() -> builder.apply(dataSetIds));
+        }
+        List<Long> ids = dataSetIds;
+        if (CollectionUtils.isEmpty(ids)) {
+            ids = onlineDataSetIds.get();
+            if (ids == null) {
+                long current = version.get();
+                ids = Collections.unmodifiableList(new ArrayList<>(onlineDataSetLoader.get()));
+                if (current == version.get()) {
+                    onlineDataSetIds.compareAndSet(null, ids);
+                }
+            }
+        }
+        Map<Long, DataSetSchemaResp> cached = new HashMap<>(dataSetSchemaCache.getAllPresent(ids));
+        List<Long> missingIds = ids.stream().filter(id -> !cached.containsKey(id)).distinct()
+                .collect(Collectors.toList());
+        hitCount.add(cached.size());
+        if (!missingIds.isEmpty()) {
+            missCount.add(missingIds.size());
+            long current = version.get();
+            List<DataSetSchemaResp> built = rebuild(() -> builder.apply(missingIds));
+            for (DataSetSchemaResp dataSetSchemaResp : built) {
+                cached.put(dataSetSchemaResp.getId(), dataSetSchemaResp);
+            }
+            // a schema built while a change happened may already be stale
+            if (current == version.get()) {
+                built.forEach(d -> dataSetSchemaCache.put(d.getId(), d));
+            }
+        }
+        return Collections.unmodifiableList(ids.stream().distinct().map(cached::get)
+                .filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    public SemanticSchemaResp getSemanticSchema(SchemaFilterReq schemaFilterReq,
+            Function<SchemaFilterReq, SemanticSchemaResp> builder) {
+        if (!schemaCacheEnable) {
+            // no version, schemas built without the registry are not shared
+            return rebuild(() -> builder.apply(schemaFilterReq));
+        }
+        SemanticSchemaResp semanticSchemaResp = semanticSchemaCache.getIfPresent(schemaFilterReq);
+        if (semanticSchemaResp != null) {
+            hitCount.increment();
+            return semanticSchemaResp;
+        }
+        missCount.increment();
+        long current = version.get();
+        semanticSchemaResp = rebuild(() -> builder.apply(schemaFilterReq));
+        semanticSchemaResp.setVersion(current);
+        if (current == version.get()) {
+            semanticSchemaCache.put(copyOf(schemaFilterReq), semanticSchemaResp);
+        }
+        return semanticSchemaResp;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public boolean isSchemaCacheEnable() {
+        return schemaCacheEnable;
+    }
+
+    /** drops the schemas depending on any of the given models */
+    public void invalidateModels(Collection<Long> modelIds) {
+        if (CollectionUtils.isEmpty(modelIds)) {
+            invalidateAll();
+            return;
+        }
+        long current = version.incrementAndGet();
+        dataSetSchemaCache.asMap().values()
+                .removeIf(d -> !Collections.disjoint(d.getAllModels(), modelIds));
+        semanticSchemaCache.asMap().values().removeIf(
+                s -> s.getModelIds() == null || !Collections.disjoint(s.getModelIds(), modelIds));
+        translationCache.invalidateModels(modelIds);
+        log.info("schema of models:{} invalidated, version:{}", modelIds, current);
+    }
+
+    /** drops the schemas of a data set, called when the data set itself changes */
+    public void invalidateDataSet(Long dataSetId) {
+        long current = version.incrementAndGet();
+        onlineDataSetIds.set(null);
+        dataSetSchemaCache.invalidate(dataSetId);
+        semanticSchemaCache.asMap().keySet()
+                .removeIf(f -> Objects.equals(f.getDataSetId(), dataSetId));
+        translationCache.invalidateDataSet(dataSetId);
+        log.info("schema of dataSet:{} invalidated, version:{}", dataSetId, current);
+    }
+
+    /** drops the data set schemas of a domain, terms are shared by the data sets of a domain */
+    public void invalidateDomain(Long domainId) {
+        long current = version.incrementAndGet();
+        dataSetSchemaCache.asMap().values()
+                .removeIf(d -> Objects.equals(d.getDomainId(), domainId));
+        semanticSchemaCache.asMap().values().removeIf(s -> s.getDataSetResp() == null
+                || Objects.equals(s.getDataSetResp().getDomainId(), domainId));
+        translationCache.invalidateDomain(domainId);
+        log.info("schema of domain:{} invalidated, version:{}", domainId, current);
+    }
+
+    public void invalidateAll() {
+        long current = version.incrementAndGet();
+        onlineDataSetIds.set(null);
+        dataSetSchemaCache.invalidateAll();
+        semanticSchemaCache.invalidateAll();
+        translationCache.invalidateAll();
+        log.info("schema invalidated, version:{}", current);
+    }
+
+    public SchemaCacheStats getStats() {
+        return SchemaCacheStats.builder().version(version.get()).hitCount(hitCount.sum())
+                .missCount(missCount.sum()).rebuildCount(rebuildCount.sum())
+                .rebuildTime(rebuildTime.sum())
+                .dataSetSchemaSize(dataSetSchemaCache.estimatedSize())
+                .semanticSchemaSize(semanticSchemaCache.estimatedSize()).build();
+    }
+
+    /** runs in the publishing thread so that no stale schema is read once the change is done */
+    @EventListener
+    public void onApplicationEvent(DataEvent dataEvent) {
+        Set<Long> modelIds = new HashSet<>();
+        if (!CollectionUtils.isEmpty(dataEvent.getDataItems())) {
+            for (DataItem dataItem : dataEvent.getDataItems()) {
+                if (StringUtils.isNumeric(dataItem.getModelId())) {
+                    modelIds.add(Long.parseLong(dataItem.getModelId()));
+                }
+            }
+        }
+        invalidateModels(modelIds);
+    }
+
+    @EventListener
+    public void onApplicationEvent(DataUpdateEvent dataUpdateEvent) {
+        if (dataUpdateEvent.getModelId() == null) {
+            invalidateAll();
+            return;
+        }
+        invalidateModels(Collections.singleton(dataUpdateEvent.getModelId()));
+    }
+
+    private <T> T rebuild(Supplier<T> builder) {
+        long start = System.currentTimeMillis();
+        T result = builder.get();
+        long cost = System.currentTimeMillis() - start;
+        rebuildCount.increment();
+        rebuildTime.add(cost);
+        log.debug("schema rebuilt, cost:{}ms", cost);
+        return result;
+    }
+
+    private static SchemaFilterReq copyOf(SchemaFilterReq schemaFilterReq) {
+        // keys must not change after they are stored
+        SchemaFilterReq key = new SchemaFilterReq();
+        key.setDataSetId(schemaFilterReq.getDataSetId());
+        if (schemaFilterReq.getModelIds() != null) {
+            key.setModelIds(new ArrayList<>(schemaFilterReq.getModelIds()));
+        }
+        return key;
+    }
+}
@@ -1,5 +1,7 @@
 package com.tencent.supersonic.headless.server.manager;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.tencent.supersonic.common.pojo.ModelRela;
@@ -15,6 +17,7 @@ import com.tencent.supersonic.headless.server.pojo.yaml.*;
 import com.tencent.supersonic.headless.server.service.SchemaService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Triple;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -28,12 +31,32 @@ public class SemanticSchemaManager {
 
     private final SchemaService schemaService;
 
-    public SemanticSchemaManager(SchemaService schemaService) {
+    /** ontology snapshots keyed by data set, models and the schema version they were built at */
+    private final Cache<String, Ontology> ontologyCache;
+
+    public SemanticSchemaManager(SchemaService schemaService,
+            @Value("${s2.ontology.cache.max.size:500}") long ontologyCacheMaxSize) {
         this.schemaService = schemaService;
+        this.ontologyCache = Caffeine.newBuilder().maximumSize(ontologyCacheMaxSize).build();
     }
 
+    /**
+     * Returns the ontology of the schema, built once per data set and schema version and shared by
+     * all queries on it.
+     */
     public Ontology buildOntology(SemanticSchemaResp semanticSchemaResp) {
+        if (semanticSchemaResp.getVersion() == null) {
+            return createOntology(semanticSchemaResp);
+        }
+        String key = String.join(":", String.valueOf(semanticSchemaResp.getVersion()),
+                String.valueOf(semanticSchemaResp.getDataSetId()),
+                String.valueOf(semanticSchemaResp.getModelIds()));
+        return ontologyCache.get(key, k -> createOntology(semanticSchemaResp));
+    }
+
+    private Ontology createOntology(SemanticSchemaResp semanticSchemaResp) {
         Ontology ontology = new Ontology();
+        ontology.setVersion(semanticSchemaResp.getVersion());
         Map<String, List<MetricSchemaResp>> model2Metrics = Maps.newHashMap();
         semanticSchemaResp.getMetrics().forEach(dim -> {
             if (!model2Metrics.containsKey(dim.getModelBizName())) {
@@ -41,7 +64,7 @@ public class SemanticSchemaManager {
             }
             model2Metrics.get(dim.getModelBizName()).add(dim);
         });
-        ontology.setMetricMap(model2Metrics);
+        ontology.setMetricMap(Collections.unmodifiableMap(model2Metrics));
 
         Map<String, List<DimSchemaResp>> model2Dimensions = Maps.newHashMap();
         semanticSchemaResp.getDimensions().forEach(dim -> {
@@ -50,7 +73,7 @@ public class SemanticSchemaManager {
             }
             model2Dimensions.get(dim.getModelBizName()).add(dim);
         });
-        ontology.setDimensionMap(model2Dimensions);
+        ontology.setDimensionMap(Collections.unmodifiableMap(model2Dimensions));
 
         Map<String, List<DimensionYamlTpl>> dimensionYamlTpls = new HashMap<>();
         List<DataModelYamlTpl> dataModelYamlTpls = new ArrayList<>();
@@ -68,9 +91,10 @@ public class SemanticSchemaManager {
             Map<String, ModelResp> dataModelMap =
                     dataModelYamlTpls.stream().map(SemanticSchemaManager::getDataModel).collect(
                             Collectors.toMap(ModelResp::getName, item -> item, (k1, k2) -> k1));
-            ontology.setModelMap(dataModelMap);
+            ontology.setModelMap(Collections.unmodifiableMap(dataModelMap));
         }
-
+        // prebuilt here so that queries only walk it
+        ontology.getJoinGraph();
         return ontology;
     }
 
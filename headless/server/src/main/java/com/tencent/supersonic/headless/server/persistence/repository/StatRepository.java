@@ -12,4 +12,6 @@ public interface StatRepository {
 
     List<ItemUseResp> getStatInfo(ItemUseReq itemUseCommend);
 
+    List<QueryStat> getQueryStats(ItemUseReq itemUseReq);
+
 }
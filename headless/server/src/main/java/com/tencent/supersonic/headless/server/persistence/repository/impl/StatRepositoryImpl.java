@@ -49,7 +49,7 @@ public class StatRepositoryImpl implements StatRepository {
     @SneakyThrows
     public List<ItemUseResp> getStatInfo(ItemUseReq itemUseReq) {
         List<ItemUseResp> result = new ArrayList<>();
-        List<QueryStatDO> statInfos = getQueryStats(itemUseReq);
+        List<QueryStatDO> statInfos = getQueryStatDOs(itemUseReq);
         Map<String, Long> map = new ConcurrentHashMap<>();
         statInfos.stream().forEach(stat -> {
             String dimensions = stat.getDimensions();
@@ -72,8 +72,20 @@ public class StatRepositoryImpl implements StatRepository {
                 .collect(Collectors.toList());
     }
 
-    private List<QueryStatDO> getQueryStats(ItemUseReq itemUseReq) {
+    @Override
+    public List<QueryStat> getQueryStats(ItemUseReq itemUseReq) {
+        return getQueryStatDOs(itemUseReq).stream().map(statDO -> {
+            QueryStat queryStat = new QueryStat();
+            BeanUtils.copyProperties(statDO, queryStat);
+            return queryStat;
+        }).collect(Collectors.toList());
+    }
+
+    private List<QueryStatDO> getQueryStatDOs(ItemUseReq itemUseReq) {
         QueryWrapper<QueryStatDO> queryWrapper = new QueryWrapper<>();
+        if (StringUtils.isNotBlank(itemUseReq.getStartTime())) {
+            queryWrapper.lambda().ge(QueryStatDO::getCreatedAt, itemUseReq.getStartTime());
+        }
         if (Objects.nonNull(itemUseReq.getModelId())) {
             queryWrapper.lambda().eq(QueryStatDO::getModelId, itemUseReq.getModelId());
         }
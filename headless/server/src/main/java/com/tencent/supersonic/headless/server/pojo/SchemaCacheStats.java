@@ -0,0 +1,24 @@
+package com.tencent.supersonic.headless.server.pojo;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SchemaCacheStats {
+
+    private Long version;
+
+    private Long hitCount;
+
+    private Long missCount;
+
+    private Long rebuildCount;
+
+    /** total rebuild cost in milliseconds */
+    private Long rebuildTime;
+
+    private Long dataSetSchemaSize;
+
+    private Long semanticSchemaSize;
+}
@@ -3,11 +3,13 @@ package com.tencent.supersonic.headless.server.rest;
 import com.tencent.supersonic.auth.api.authentication.utils.UserHolder;
 import com.tencent.supersonic.common.config.ChatModel;
 import com.tencent.supersonic.common.pojo.ChatApp;
+import com.tencent.supersonic.common.pojo.ChatModelCallStats;
 import com.tencent.supersonic.common.pojo.ChatModelConfig;
 import com.tencent.supersonic.common.pojo.ChatModelParameters;
 import com.tencent.supersonic.common.pojo.Parameter;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.enums.AppModule;
+import com.tencent.supersonic.common.service.ChatModelGateway;
 import com.tencent.supersonic.common.service.ChatModelService;
 import com.tencent.supersonic.common.util.ChatAppManager;
 import com.tencent.supersonic.headless.server.utils.ModelConfigHelper;
@@ -31,6 +33,9 @@ public class ChatModelController {
     @Autowired
     private ChatModelService chatModelService;
 
+    @Autowired
+    private ChatModelGateway chatModelGateway;
+
     @PostMapping
     public ChatModel createModel(@RequestBody ChatModel model,
             HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
@@ -68,6 +73,11 @@ public class ChatModelController {
         return ChatModelParameters.getParameters();
     }
 
+    @RequestMapping("/getCallStats")
+    public List<ChatModelCallStats> getCallStats() {
+        return chatModelGateway.getStats();
+    }
+
     @PostMapping("/testConnection")
     public boolean testConnection(@RequestBody ChatModelConfig modelConfig) {
         return ModelConfigHelper.testConnection(modelConfig);
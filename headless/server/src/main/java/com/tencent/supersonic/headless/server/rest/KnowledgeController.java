@@ -13,6 +13,8 @@ import com.tencent.supersonic.headless.api.pojo.request.ValueTaskQueryReq;
 import com.tencent.supersonic.headless.api.pojo.response.DictItemResp;
 import com.tencent.supersonic.headless.api.pojo.response.DictTaskResp;
 import com.tencent.supersonic.headless.api.pojo.response.DictValueDimResp;
+import com.tencent.supersonic.headless.chat.mapper.MapTaskExecutor;
+import com.tencent.supersonic.headless.chat.mapper.MapTaskStats;
 import com.tencent.supersonic.headless.server.service.DictConfService;
 import com.tencent.supersonic.headless.server.service.DictTaskService;
 import com.tencent.supersonic.headless.server.task.DictionaryReloadTask;
@@ -52,6 +54,9 @@ public class KnowledgeController {
     @Autowired
     private EmbeddingService embeddingService;
 
+    @Autowired
+    private MapTaskExecutor mapTaskExecutor;
+
     /**
      * addDictConf-新增item的字典配置 Add configuration information for dictionary entries
      *
@@ -192,4 +197,10 @@ public class KnowledgeController {
         dictionaryReloadTask.reloadKnowledge();
         return true;
     }
+
+    /** Statistics of the mapper detection tasks, e.g. queue depth and task latency */
+    @GetMapping("/map/task/stats")
+    public MapTaskStats getMapTaskStats() {
+        return mapTaskExecutor.getStats();
+    }
 }
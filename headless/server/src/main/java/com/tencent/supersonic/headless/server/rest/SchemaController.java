@@ -5,6 +5,7 @@ import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.enums.AuthType;
 import com.tencent.supersonic.headless.api.pojo.response.DomainResp;
 import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
+import com.tencent.supersonic.headless.server.pojo.SchemaCacheStats;
 import com.tencent.supersonic.headless.server.service.SchemaService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -37,4 +38,9 @@ public class SchemaController {
         User user = UserHolder.findUser(request, response);
         return schemaService.getModelList(user, AuthType.valueOf(authType), domainId);
     }
+
+    @GetMapping("/cache/stats")
+    public SchemaCacheStats getSchemaCacheStats() {
+        return schemaService.getSchemaCacheStats();
+    }
 }
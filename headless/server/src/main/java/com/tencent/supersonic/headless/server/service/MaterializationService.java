@@ -0,0 +1,18 @@
+package com.tencent.supersonic.headless.server.service;
+
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+
+import java.util.List;
+
+/** Build and refresh the materializations answered by the duckDb accelerator */
+public interface MaterializationService {
+
+    /** registers the materializations already exported to parquet */
+    void loadMaterializations();
+
+    /** picks dimension/metric combinations worth pre-aggregating from the query stats */
+    List<Materialization> planMaterializations();
+
+    /** creates planned materializations and exports the date partitions they are missing */
+    void refreshMaterializations();
+}
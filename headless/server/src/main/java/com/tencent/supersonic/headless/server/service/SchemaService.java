@@ -10,6 +10,7 @@ import com.tencent.supersonic.headless.api.pojo.SemanticSchema;
 import com.tencent.supersonic.headless.api.pojo.request.ItemUseReq;
 import com.tencent.supersonic.headless.api.pojo.request.SchemaFilterReq;
 import com.tencent.supersonic.headless.api.pojo.response.*;
+import com.tencent.supersonic.headless.server.pojo.SchemaCacheStats;
 import com.tencent.supersonic.headless.server.pojo.yaml.DataModelYamlTpl;
 import com.tencent.supersonic.headless.server.pojo.yaml.DimensionYamlTpl;
 import com.tencent.supersonic.headless.server.pojo.yaml.MetricYamlTpl;
@@ -29,6 +30,8 @@ public interface SchemaService {
 
     SemanticSchemaResp fetchSemanticSchema(SchemaFilterReq schemaFilterReq);
 
+    SchemaCacheStats getSchemaCacheStats();
+
     List<ModelSchemaResp> fetchModelSchemaResps(List<Long> modelIds);
 
     List<DimensionResp> getDimensions(MetaFilter metaFilter);
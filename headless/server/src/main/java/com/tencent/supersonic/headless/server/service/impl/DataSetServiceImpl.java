@@ -20,6 +20,7 @@ import com.tencent.supersonic.headless.api.pojo.response.DataSetResp;
 import com.tencent.supersonic.headless.api.pojo.response.DimensionResp;
 import com.tencent.supersonic.headless.api.pojo.response.DomainResp;
 import com.tencent.supersonic.headless.api.pojo.response.MetricResp;
+import com.tencent.supersonic.headless.server.manager.SchemaRegistry;
 import com.tencent.supersonic.headless.server.persistence.dataobject.DataSetDO;
 import com.tencent.supersonic.headless.server.persistence.mapper.DataSetDOMapper;
 import com.tencent.supersonic.headless.server.service.*;
@@ -52,6 +53,9 @@ public class DataSetServiceImpl extends ServiceImpl<DataSetDOMapper, DataSetDO>
     @Autowired
     private MetricService metricService;
 
+    @Autowired
+    private SchemaRegistry schemaRegistry;
+
     @Override
     public DataSetResp save(DataSetReq dataSetReq, User user) {
         dataSetReq.createdBy(user.getName());
@@ -61,6 +65,7 @@ public class DataSetServiceImpl extends ServiceImpl<DataSetDOMapper, DataSetDO>
         DataSetResp dataSetResp = convert(dataSetDO);
         save(dataSetDO);
         dataSetResp.setId(dataSetDO.getId());
+        schemaRegistry.invalidateDataSet(dataSetDO.getId());
         return dataSetResp;
     }
 
@@ -71,6 +76,7 @@ public class DataSetServiceImpl extends ServiceImpl<DataSetDOMapper, DataSetDO>
         DataSetResp dataSetResp = convert(dataSetDO);
         // conflictCheck(dataSetResp);
         updateById(dataSetDO);
+        schemaRegistry.invalidateDataSet(dataSetDO.getId());
         return dataSetResp;
     }
 
@@ -109,6 +115,7 @@ public class DataSetServiceImpl extends ServiceImpl<DataSetDOMapper, DataSetDO>
         dataSetDO.setUpdatedBy(user.getName());
         dataSetDO.setUpdatedAt(new Date());
         updateById(dataSetDO);
+        schemaRegistry.invalidateDataSet(id);
     }
 
     @Override
@@ -27,16 +27,25 @@ import com.tencent.supersonic.headless.server.service.DimensionService;
 import com.tencent.supersonic.headless.server.utils.DictUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -52,6 +61,16 @@ public class DictTaskServiceImpl implements DictTaskService {
     @Value("${dict.file.type:txt}")
     private String dictFileType;
 
+    /** values appended to the dictionary file at a time while it is built */
+    @Value("${s2.dict.task.batch.size:20000}")
+    private int dictTaskBatchSize;
+
+    /** dictionary files built at the same time against one database by the daily task */
+    @Value("${s2.dict.task.database.parallelism:2}")
+    private int dictTaskDatabaseParallelism;
+
+    private static final int DESCRIPTION_MAX_LENGTH = 255;
+
     private String dimValue = "DimValue_%d_%d";
 
     private final DictRepository dictRepository;
@@ -60,16 +79,19 @@ public class DictTaskServiceImpl implements DictTaskService {
     private final FileHandler fileHandler;
     private final DictWordService dictWordService;
     private final DimensionService dimensionService;
+    private final ThreadPoolExecutor dictExecutor;
 
     public DictTaskServiceImpl(DictRepository dictRepository, DictUtils dictConverter,
             DictUtils dictUtils, FileHandler fileHandler, DictWordService dictWordService,
-            DimensionService dimensionService) {
+            DimensionService dimensionService,
+            @Qualifier("dictExecutor") ThreadPoolExecutor dictExecutor) {
         this.dictRepository = dictRepository;
         this.dictConverter = dictConverter;
         this.dictUtils = dictUtils;
         this.fileHandler = fileHandler;
         this.dictWordService = dictWordService;
         this.dimensionService = dimensionService;
+        this.dictExecutor = dictExecutor;
     }
 
     @Override
@@ -82,13 +104,18 @@ public class DictTaskServiceImpl implements DictTaskService {
     }
 
     private Long handleDictTaskByItemResp(DictItemResp dictItemResp, User user) {
+        Long idInDb = createDictTask(dictItemResp, user);
+        finishDictTasks(Collections.singletonList(buildDictFile(dictItemResp)));
+        return idInDb;
+    }
+
+    private Long createDictTask(DictItemResp dictItemResp, User user) {
         DictTaskDO dictTaskDO =
                 dictConverter.generateDictTaskDO(dictItemResp, user, TaskStatusEnum.PENDING);
         log.info("[addDictTask] dictTaskDO:{}", dictTaskDO);
         dictRepository.addDictTask(dictTaskDO);
         Long idInDb = dictTaskDO.getId();
         dictItemResp.setId(idInDb);
-        runDictTask(dictItemResp, user);
         return idInDb;
     }
 
@@ -102,34 +129,65 @@ public class DictTaskServiceImpl implements DictTaskService {
         return null;
     }
 
-    private void runDictTask(DictItemResp dictItemResp, User user) {
-        if (Objects.isNull(dictItemResp)) {
-            return;
-        }
-
+    /**
+     * Writes the dictionary file of an item into a temporary file batch by batch, the file is
+     * replaced once all values are written. The number of values written so far is kept in the
+     * description of the task. A failed task is returned with the error status.
+     */
+    private DictTaskDO buildDictFile(DictItemResp dictItemResp) {
         DictTaskDO dictTaskDO = dictRepository.queryDictTaskById(dictItemResp.getId());
         dictTaskDO.setStatus(TaskStatusEnum.RUNNING.getStatus());
         dictRepository.editDictTask(dictTaskDO);
 
-        // 1.Generate item dictionary data
-        List<String> data = dictUtils.fetchItemValue(dictItemResp);
-
-        // 2.Change dictionary file
         String fileName = dictItemResp.fetchDictFileName() + Constants.DOT + dictFileType;
-        fileHandler.writeFile(data, fileName, false);
+        try {
+            AtomicLong written = new AtomicLong();
+            long lineCount = dictUtils.fetchItemValue(dictItemResp, dictTaskBatchSize, lines -> {
+                if (CollectionUtils.isEmpty(lines)) {
+                    return;
+                }
+                fileHandler.writeTempFile(lines, fileName, dictTaskDO.getId());
+                dictTaskDO.setDescription(
+                        String.format("%d values written", written.addAndGet(lines.size())));
+                dictTaskDO.setElapsedMs(DateUtils.calculateDiffMs(dictTaskDO.getCreatedAt()));
+                dictRepository.editDictTask(dictTaskDO);
+            });
+            if (lineCount > 0) {
+                fileHandler.commitTempFile(fileName, dictTaskDO.getId());
+            } else {
+                log.info("no value fetched, dict file:{} is kept", fileName);
+            }
+        } catch (Exception e) {
+            log.error("dictItemResp:{}, buildDictFile error", dictItemResp, e);
+            dictTaskDO.setStatus(TaskStatusEnum.ERROR.getStatus());
+            dictTaskDO.setDescription(StringUtils.abbreviate(e.toString(), DESCRIPTION_MAX_LENGTH));
+        } finally {
+            fileHandler.deleteTempFile(fileName, dictTaskDO.getId());
+        }
+        return dictTaskDO;
+    }
 
-        // 3.Change in-memory dictionary data in real time
-        String status = TaskStatusEnum.SUCCESS.getStatus();
+    /** loads the written dictionary files into the dictionary in use once for all tasks */
+    private void finishDictTasks(List<DictTaskDO> dictTaskDOs) {
+        String error = null;
         try {
             dictWordService.loadDictWord();
         } catch (Exception e) {
             log.error("reloadCustomDictionary error", e);
-            status = TaskStatusEnum.ERROR.getStatus();
-            dictTaskDO.setDescription(e.toString());
+            error = StringUtils.abbreviate(e.toString(), DESCRIPTION_MAX_LENGTH);
+        }
+        for (DictTaskDO dictTaskDO : dictTaskDOs) {
+            if (!TaskStatusEnum.ERROR.getStatus().equals(dictTaskDO.getStatus())) {
+                if (Objects.isNull(error)) {
+                    dictTaskDO.setStatus(TaskStatusEnum.SUCCESS.getStatus());
+                } else {
+                    dictTaskDO.setStatus(TaskStatusEnum.ERROR.getStatus());
+                    dictTaskDO.setDescription(error);
+                }
+            }
+            dictTaskDO.setElapsedMs(DateUtils.calculateDiffMs(dictTaskDO.getCreatedAt()));
+            dictRepository.editDictTask(dictTaskDO);
         }
-        dictTaskDO.setStatus(status);
-        dictTaskDO.setElapsedMs(DateUtils.calculateDiffMs(dictTaskDO.getCreatedAt()));
-        dictRepository.editDictTask(dictTaskDO);
     }
 
     @Override
@@ -151,17 +209,50 @@ public class DictTaskServiceImpl implements DictTaskService {
         return 0L;
     }
 
+    /**
+     * Builds the dictionary files of all online items concurrently, the items of one database are
+     * built by a limited number of workers so the database is not flooded. The dictionary is loaded
+     * once after all files are written.
+     */
     @Override
     @Scheduled(cron = "${knowledge.dimension.value.cron:0 0 0 * * ?}")
     public Boolean dailyDictTask() {
         log.info("[dailyDictTask] start");
         if (!dictFlushDailyEnable) {
             log.info("dictFlushDailyEnable is false, now finish dailyDictTask");
+            return true;
         }
+        long startTime = System.currentTimeMillis();
         DictItemFilter filter = DictItemFilter.builder().status(StatusEnum.ONLINE).build();
         List<DictItemResp> dictItemRespList = dictRepository.queryDictConf(filter);
-        dictItemRespList.stream().forEach(item -> handleDictTaskByItemResp(item, null));
-        log.info("[dailyDictTask] finish");
+        Map<Long, List<DictItemResp>> databaseToItems = new HashMap<>();
+        for (DictItemResp dictItemResp : dictItemRespList) {
+            createDictTask(dictItemResp, null);
+            databaseToItems.computeIfAbsent(dictUtils.fetchDatabaseId(dictItemResp),
+                    k -> new ArrayList<>()).add(dictItemResp);
+        }
+        List<DictTaskDO> dictTaskDOs = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<DictItemResp> items : databaseToItems.values()) {
+            Queue<DictItemResp> queue = new ConcurrentLinkedQueue<>(items);
+            int workers = Math.max(1, Math.min(dictTaskDatabaseParallelism, items.size()));
+            for (int i = 0; i < workers; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    DictItemResp dictItemResp;
+                    while ((dictItemResp = queue.poll()) != null) {
+                        try {
+                            dictTaskDOs.add(buildDictFile(dictItemResp));
+                        } catch (Exception e) {
+                            log.error("dictItemResp:{}, dailyDictTask error", dictItemResp, e);
+                        }
+                    }
+                }, dictExecutor));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        finishDictTasks(dictTaskDOs);
+        log.info("[dailyDictTask] finish {} tasks in {} ms", dictTaskDOs.size(),
+                System.currentTimeMillis() - startTime);
         return true;
     }
 
@@ -11,12 +11,16 @@ import com.tencent.supersonic.headless.server.service.SchemaService;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -30,32 +34,63 @@ public class DictWordService {
     @Autowired
     private KnowledgeBaseService knowledgeBaseService;
 
-    private List<DictWord> preDictWords = new ArrayList<>();
+    /** minutes after which the words are compared again even if the schema version is the same */
+    @Value("${s2.dict.reload.check.interval:10}")
+    private long checkInterval;
 
-    public void loadDictWord() {
-        List<DictWord> dictWords = getAllDictWords();
-        setPreDictWords(dictWords);
+    private Set<DictWord> preDictWords = new HashSet<>();
+
+    private Long preVersion;
+
+    private long preCheckTime;
+
+    public synchronized void loadDictWord() {
+        SemanticSchema semanticSchema = schemaService.getSemanticSchema();
+        List<DictWord> dictWords = getAllDictWords(semanticSchema);
+        setPreDictWords(new HashSet<>(dictWords));
+        setPreVersion(semanticSchema.getVersion());
+        setPreCheckTime(System.currentTimeMillis());
         knowledgeBaseService.reloadAllData(dictWords);
     }
 
-    public void reloadDictWord() {
+    /**
+     * Applies the words added or removed since the last load to the dictionary in use. Nothing is
+     * built while the schema version stays the same, the words are still compared every check
+     * interval to pick up changes made by other instances.
+     */
+    public synchronized void reloadDictWord() {
         long startTime = System.currentTimeMillis();
-        List<DictWord> dictWords = getAllDictWords();
-        List<DictWord> preDictWords = getPreDictWords();
-        if (org.apache.commons.collections.CollectionUtils.isEqualCollection(dictWords,
-                preDictWords)) {
+        SemanticSchema semanticSchema = schemaService.getSemanticSchema();
+        if (Objects.nonNull(semanticSchema.getVersion())
+                && semanticSchema.getVersion().equals(getPreVersion())
+                && startTime - getPreCheckTime() < TimeUnit.MINUTES.toMillis(checkInterval)) {
             log.debug("Dictionary hasn't been reloaded.");
             return;
         }
+        Set<DictWord> dictWords = new HashSet<>(getAllDictWords(semanticSchema));
+        Set<DictWord> preDictWords = getPreDictWords();
+        List<DictWord> addedWords = dictWords.stream().filter(w -> !preDictWords.contains(w))
+                .collect(Collectors.toList());
+        List<DictWord> removedWords = preDictWords.stream().filter(w -> !dictWords.contains(w))
+                .collect(Collectors.toList());
         setPreDictWords(dictWords);
-        knowledgeBaseService.reloadAllData(getAllDictWords());
+        setPreVersion(semanticSchema.getVersion());
+        setPreCheckTime(startTime);
+        if (addedWords.isEmpty() && removedWords.isEmpty()) {
+            log.debug("Dictionary hasn't been reloaded.");
+            return;
+        }
+        knowledgeBaseService.updateDictWords(dictWords, addedWords, removedWords);
         long duration = System.currentTimeMillis() - startTime;
-        log.info("Dictionary has been regularly reloaded in {} milliseconds", duration);
+        log.info("Dictionary has been regularly reloaded with {} added and {} removed words in {}"
+                + " milliseconds", addedWords.size(), removedWords.size(), duration);
     }
 
     public List<DictWord> getAllDictWords() {
-        SemanticSchema semanticSchema = schemaService.getSemanticSchema();
+        return getAllDictWords(schemaService.getSemanticSchema());
+    }
 
+    private List<DictWord> getAllDictWords(SemanticSchema semanticSchema) {
         List<DictWord> words = new ArrayList<>();
 
         addWordsByType(DictWordType.DIMENSION, semanticSchema.getDimensions(), words);
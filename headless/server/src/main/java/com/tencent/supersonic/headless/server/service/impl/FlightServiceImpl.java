@@ -14,11 +14,12 @@ import com.tencent.supersonic.auth.api.authentication.config.AuthenticationConfi
 import com.tencent.supersonic.auth.api.authentication.request.UserReq;
 import com.tencent.supersonic.auth.api.authentication.service.UserService;
 import com.tencent.supersonic.auth.api.authentication.utils.UserHolder;
+import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.headless.api.pojo.Param;
 import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
-import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
 import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
 import com.tencent.supersonic.headless.server.service.FlightService;
 import com.tencent.supersonic.headless.server.utils.FlightUtils;
@@ -46,6 +47,7 @@ import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.VectorLoader;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
@@ -57,12 +59,16 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.protobuf.Any.pack;
 import static com.google.protobuf.ByteString.copyFrom;
@@ -155,6 +161,7 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
         }
         executorService.submit(() -> {
             BufferAllocator rootAllocator = new RootAllocator();
+            ArrowStreamHandler handler = null;
             try {
                 Optional<Param> authOpt = semanticQueryReq.getParams().stream().filter(
                         p -> p.getName().equals(authenticationConfig.getTokenHttpHeaderKey()))
@@ -162,30 +169,9 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
                 if (authOpt.isPresent()) {
                     User user = UserHolder.findUser(authOpt.get().getValue(),
                             authenticationConfig.getTokenHttpHeaderAppKey());
-                    SemanticQueryResp resp = queryService.queryByReq(semanticQueryReq, user);
-                    ResultSet resultSet =
-                            semanticQueryRespToResultSet(resp, semanticQueryReq.getDataSetId());
-                    final Schema schema =
-                            jdbcToArrowSchema(resultSet.getMetaData(), defaultCalendar);
-                    try (final VectorSchemaRoot vectorSchemaRoot =
-                            VectorSchemaRoot.create(schema, rootAllocator)) {
-                        final VectorLoader loader = new VectorLoader(vectorSchemaRoot);
-                        listener.start(vectorSchemaRoot);
-                        final ArrowVectorIterator iterator =
-                                sqlToArrowVectorIterator(resultSet, rootAllocator);
-                        while (iterator.hasNext()) {
-                            final VectorSchemaRoot batch = iterator.next();
-                            if (batch.getRowCount() == 0) {
-                                break;
-                            }
-                            final VectorUnloader unloader = new VectorUnloader(batch);
-                            loader.load(unloader.getRecordBatch());
-                            listener.putNext();
-                            vectorSchemaRoot.clear();
-                        }
-
-                        listener.putNext();
-                    }
+                    handler = new ArrowStreamHandler(listener, rootAllocator,
+                            semanticQueryReq.getDataSetId());
+                    queryService.queryByReqStream(semanticQueryReq, user, handler);
                 }
             } catch (Exception e) {
                 listener.error(CallStatus.INTERNAL
@@ -196,11 +182,116 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
             } finally {
                 preparedStatementCache.invalidate(hander);
                 listener.completed();
+                if (Objects.nonNull(handler)) {
+                    handler.close();
+                }
                 rootAllocator.close();
             }
         });
     }
 
+    /**
+     * Converts each streamed batch into arrow record batches and sends them to the flight listener.
+     * The arrow schema is resolved from the values of the first batch, a column without any value
+     * there takes the type of the result metadata.
+     */
+    private class ArrowStreamHandler implements QueryResultHandler {
+
+        private final ServerStreamListener listener;
+        private final BufferAllocator allocator;
+        private final Long dataSetId;
+        private List<QueryColumn> columns;
+        private RowSetMetaData rowSetMetaData;
+        private VectorSchemaRoot vectorSchemaRoot;
+        private VectorLoader loader;
+        private final Lock readyLock = new ReentrantLock();
+        private final Condition readyCondition = readyLock.newCondition();
+
+        private ArrowStreamHandler(ServerStreamListener listener, BufferAllocator allocator,
+                Long dataSetId) {
+            this.listener = listener;
+            this.allocator = allocator;
+            this.dataSetId = dataSetId;
+            listener.setOnReadyHandler(this::signalReady);
+            listener.setOnCancelHandler(this::signalReady);
+        }
+
+        @Override
+        public void onStart(List<QueryColumn> columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public boolean onBatch(List<Map<String, Object>> rows) throws Exception {
+            if (listener.isCancelled()) {
+                return false;
+            }
+            start(rows);
+            ResultSet resultSet = toResultSet(rowSetMetaData, columns, rows);
+            try (ArrowVectorIterator iterator = sqlToArrowVectorIterator(resultSet, allocator)) {
+                while (iterator.hasNext()) {
+                    try (VectorSchemaRoot batch = iterator.next()) {
+                        if (batch.getRowCount() == 0) {
+                            break;
+                        }
+                        try (ArrowRecordBatch recordBatch =
+                                new VectorUnloader(batch).getRecordBatch()) {
+                            loader.load(recordBatch);
+                        }
+                        awaitReady();
+                        listener.putNext();
+                        vectorSchemaRoot.clear();
+                    }
+                }
+            }
+            return !listener.isCancelled();
+        }
+
+        @Override
+        public void onComplete() throws Exception {
+            start(Collections.emptyList());
+            listener.putNext();
+        }
+
+        private void start(List<Map<String, Object>> rows) throws SQLException {
+            if (Objects.nonNull(vectorSchemaRoot)) {
+                return;
+            }
+            rowSetMetaData = buildMetaData(columns, rows, dataSetId);
+            Schema schema = jdbcToArrowSchema(rowSetMetaData, defaultCalendar);
+            vectorSchemaRoot = VectorSchemaRoot.create(schema, allocator);
+            loader = new VectorLoader(vectorSchemaRoot);
+            listener.start(vectorSchemaRoot);
+        }
+
+        private void awaitReady() throws InterruptedException {
+            readyLock.lock();
+            try {
+                while (!listener.isReady() && !listener.isCancelled()) {
+                    // bounded, a readiness change racing the check is picked up on the next round
+                    readyCondition.await(100, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                readyLock.unlock();
+            }
+        }
+
+        private void signalReady() {
+            readyLock.lock();
+            try {
+                readyCondition.signalAll();
+            } finally {
+                readyLock.unlock();
+            }
+        }
+
+        private void close() {
+            if (Objects.nonNull(vectorSchemaRoot)) {
+                vectorSchemaRoot.close();
+            }
+        }
+    }
+
     @Override
     public void closePreparedStatement(final ActionClosePreparedStatementRequest request,
             final CallContext context, final StreamListener<Result> listener) {
@@ -301,17 +392,15 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
         return auth;
     }
 
-    private ResultSet semanticQueryRespToResultSet(SemanticQueryResp resp, Long dataSetId)
-            throws SQLException {
-        RowSetFactory factory = RowSetProvider.newFactory();
-        CachedRowSet rowset = factory.createCachedRowSet();
+    private RowSetMetaData buildMetaData(List<QueryColumn> columns, List<Map<String, Object>> rows,
+            Long dataSetId) throws SQLException {
         RowSetMetaData rowSetMetaData = new RowSetMetaDataImpl();
-        int columnNum = resp.getColumns().size();
+        int columnNum = columns.size();
         rowSetMetaData.setColumnCount(columnNum);
         for (int i = 1; i <= columnNum; i++) {
-            String columnName = resp.getColumns().get(i - 1).getBizName();
+            String columnName = columns.get(i - 1).getBizName();
             rowSetMetaData.setColumnName(i, columnName);
-            Optional<Map<String, Object>> valOpt = resp.getResultList().stream()
+            Optional<Map<String, Object>> valOpt = rows.stream()
                     .filter(r -> r.containsKey(columnName) && Objects.nonNull(r.get(columnName)))
                     .findFirst();
             if (valOpt.isPresent()) {
@@ -320,16 +409,25 @@ public class FlightServiceImpl extends BasicFlightSqlProducer implements FlightS
                 rowSetMetaData.setNullable(i, FlightUtils.isNullable(type));
             } else {
                 rowSetMetaData.setNullable(i, ResultSetMetaData.columnNullable);
-                rowSetMetaData.setColumnType(i, Types.VARCHAR);
+                rowSetMetaData.setColumnType(i,
+                        FlightUtils.resolveTypeName(columns.get(i - 1).getType()));
             }
             rowSetMetaData.setCatalogName(i, String.valueOf(dataSetId));
             rowSetMetaData.setSchemaName(i, dataSetIdHeaderKey);
         }
+        return rowSetMetaData;
+    }
+
+    private ResultSet toResultSet(RowSetMetaData rowSetMetaData, List<QueryColumn> columns,
+            List<Map<String, Object>> rows) throws SQLException {
+        RowSetFactory factory = RowSetProvider.newFactory();
+        CachedRowSet rowset = factory.createCachedRowSet();
         rowset.setMetaData(rowSetMetaData);
-        for (Map<String, Object> row : resp.getResultList()) {
+        int columnNum = columns.size();
+        for (Map<String, Object> row : rows) {
             rowset.moveToInsertRow();
             for (int i = 1; i <= columnNum; i++) {
-                String columnName = resp.getColumns().get(i - 1).getBizName();
+                String columnName = columns.get(i - 1).getBizName();
                 if (row.containsKey(columnName)) {
                     rowset.updateObject(i, row.get(columnName));
                 } else {
@@ -0,0 +1,412 @@
+package com.tencent.supersonic.headless.server.service.impl;
+
+import com.google.common.collect.Sets;
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import com.tencent.supersonic.common.pojo.User;
+import com.tencent.supersonic.common.pojo.enums.TaskStatusEnum;
+import com.tencent.supersonic.common.util.JsonUtil;
+import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
+import com.tencent.supersonic.headless.api.pojo.QueryStat;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.api.pojo.request.ItemUseReq;
+import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
+import com.tencent.supersonic.headless.core.executor.MaterializationManager;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
+import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import com.tencent.supersonic.headless.core.utils.JdbcDuckDbUtils;
+import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
+import com.tencent.supersonic.headless.server.persistence.repository.StatRepository;
+import com.tencent.supersonic.headless.server.service.MaterializationService;
+import com.tencent.supersonic.headless.server.service.SchemaService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class MaterializationServiceImpl implements MaterializationService {
+
+    private static final String SCHEMA = "s2_materialization";
+
+    private static final String DEFINITION_FILE = "materialization.json";
+
+    private static final String PARTITION_TIME_FORMAT = "yyyy-MM-dd";
+
+    private static final Set<String> RE_AGGREGATABLE_AGGS = Sets.newHashSet("SUM", "MAX", "MIN");
+
+    @Value("${s2.materialization.path:/data1/duck/materialization/}")
+    private String materializationPath;
+
+    @Value("${s2.materialization.maxCount:10}")
+    private Integer maxCount;
+
+    @Value("${s2.materialization.minQueryCount:10}")
+    private Integer minQueryCount;
+
+    @Value("${s2.materialization.statDays:7}")
+    private Integer statDays;
+
+    @Value("${s2.materialization.initDays:30}")
+    private Integer initDays;
+
+    @Value("${s2.materialization.maxRows:1000000}")
+    private Integer maxRows;
+
+    private final MaterializationManager materializationManager;
+    private final DuckDbSource duckDbSource;
+    private final StatRepository statRepository;
+    private final SchemaService schemaService;
+    private final SemanticLayerService semanticLayerService;
+
+    public MaterializationServiceImpl(MaterializationManager materializationManager,
+            DuckDbSource duckDbSource, StatRepository statRepository, SchemaService schemaService,
+            SemanticLayerService semanticLayerService) {
+        this.materializationManager = materializationManager;
+        this.duckDbSource = duckDbSource;
+        this.statRepository = statRepository;
+        this.schemaService = schemaService;
+        this.semanticLayerService = semanticLayerService;
+    }
+
+    @Override
+    public void loadMaterializations() {
+        File[] directories = new File(materializationPath).listFiles(File::isDirectory);
+        if (!materializationManager.isEnabled() || Objects.isNull(directories)) {
+            return;
+        }
+        for (File directory : directories) {
+            Path definition = directory.toPath().resolve(DEFINITION_FILE);
+            if (!Files.exists(definition) || !hasParquetFiles(directory.toPath())) {
+                continue;
+            }
+            try {
+                Materialization materialization = JsonUtil.toObject(
+                        new String(Files.readAllBytes(definition), StandardCharsets.UTF_8),
+                        Materialization.class);
+                materializationManager.register(materialization);
+            } catch (Exception e) {
+                log.error("load materialization from {} error", directory, e);
+            }
+        }
+    }
+
+    @Override
+    public List<Materialization> planMaterializations() {
+        ItemUseReq itemUseReq = new ItemUseReq();
+        itemUseReq.setStartTime(LocalDate.now().minusDays(statDays).toString());
+        Map<Long, DataSetSchema> dataSetSchemas = new HashMap<>();
+        Map<String, Materialization> candidates = new HashMap<>();
+        Map<String, Long> useCounts = new HashMap<>();
+        for (QueryStat queryStat : statRepository.getQueryStats(itemUseReq)) {
+            if (Objects.isNull(queryStat.getDataSetId())
+                    || !TaskStatusEnum.SUCCESS.getStatus().equals(queryStat.getQueryState())) {
+                continue;
+            }
+            DataSetSchema dataSetSchema = dataSetSchemas.computeIfAbsent(queryStat.getDataSetId(),
+                    schemaService::getDataSetSchema);
+            Materialization candidate = buildMaterialization(dataSetSchema, queryStat);
+            if (Objects.nonNull(candidate)) {
+                candidates.putIfAbsent(candidate.getName(), candidate);
+                useCounts.merge(candidate.getName(), 1L, Long::sum);
+            }
+        }
+        List<Materialization> selected =
+                new ArrayList<>(materializationManager.getMaterializations());
+        int existCount = selected.size();
+        candidates.values().stream().filter(c -> useCounts.get(c.getName()) >= minQueryCount)
+                .sorted(Comparator.comparing((Materialization c) -> useCounts.get(c.getName()))
+                        .reversed())
+                .forEach(candidate -> {
+                    if (selected.size() < maxCount
+                            && selected.stream().noneMatch(s -> covers(s, candidate))) {
+                        selected.add(candidate);
+                    }
+                });
+        return selected.subList(existCount, selected.size());
+    }
+
+    @Override
+    public void refreshMaterializations() {
+        if (!materializationManager.isEnabled()) {
+            return;
+        }
+        List<Materialization> materializations =
+                new ArrayList<>(materializationManager.getMaterializations());
+        materializations.addAll(planMaterializations());
+        for (Materialization materialization : materializations) {
+            try {
+                refresh(materialization);
+            } catch (Exception e) {
+                log.error("refresh materialization {} error", materialization.getName(), e);
+            }
+        }
+    }
+
+    private void refresh(Materialization materialization) throws Exception {
+        DataSetSchema dataSetSchema =
+                schemaService.getDataSetSchema(materialization.getDataSetId());
+        if (Objects.isNull(dataSetSchema)) {
+            materializationManager.unregister(materialization);
+            return;
+        }
+        List<String> partitions =
+                Objects.isNull(materialization.getPartitions()) ? Collections.emptyList()
+                        : materialization.getPartitions();
+        if (Objects.isNull(materialization.getEmptyPartitions())) {
+            materialization.setEmptyPartitions(new ArrayList<>());
+        }
+        // only partitions after the latest exported one are built, earlier days are immutable
+        LocalDate end = LocalDate.now().minusDays(1);
+        LocalDate start = partitions.isEmpty() ? end.minusDays(initDays - 1)
+                : LocalDate.parse(partitions.get(partitions.size() - 1)).plusDays(1);
+        boolean exported = false;
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            exported |= exportPartition(materialization, dataSetSchema, date.toString());
+        }
+        if (exported) {
+            saveDefinition(materialization);
+            // a view can not be created over days that all came without rows
+            if (hasParquetFiles(Paths.get(materialization.getPath()))) {
+                materializationManager.register(materialization);
+            }
+        }
+    }
+
+    /**
+     * Exports the rows of one day into a parquet partition. A day without rows is recorded as an
+     * empty partition, so that ranges over it can still be accelerated and it is not queried again.
+     *
+     * @return true if the day is held by the materialization afterwards
+     */
+    private boolean exportPartition(Materialization materialization, DataSetSchema dataSetSchema,
+            String date) throws Exception {
+        String stageTable = materialization.getName() + "_stage";
+        QuerySqlReq querySqlReq = new QuerySqlReq();
+        querySqlReq.setDataSetId(materialization.getDataSetId());
+        querySqlReq.setSql(buildSql(materialization, dataSetSchema, date));
+        querySqlReq.setLimit(maxRows);
+        PartitionWriter partitionWriter = new PartitionWriter(materialization, stageTable);
+        try {
+            JdbcDuckDbUtils.createDatabase(duckDbSource, SCHEMA);
+            semanticLayerService.queryByReqStream(querySqlReq, User.getDefaultUser(),
+                    partitionWriter);
+            if (partitionWriter.rowCount == 0) {
+                log.info("materialization {} partition {} has no rows", materialization.getName(),
+                        date);
+                materialization.getEmptyPartitions().add(date);
+                return true;
+            }
+            if (partitionWriter.rowCount >= maxRows) {
+                log.warn("materialization {} partition {} exceeds {} rows, skipped",
+                        materialization.getName(), date, maxRows);
+                return false;
+            }
+            Files.createDirectories(Paths.get(materialization.getPath()));
+            duckDbSource.execute(String.format(
+                    "COPY %s TO '%s' (FORMAT PARQUET, PARTITION_BY (%s), OVERWRITE_OR_IGNORE true)",
+                    stageTable, materialization.getPath(), materialization.getPartitionName()));
+            log.info("materialization {} exported partition {} with {} rows",
+                    materialization.getName(), date, partitionWriter.rowCount);
+            return true;
+        } finally {
+            duckDbSource.execute("DROP TABLE IF EXISTS " + stageTable);
+        }
+    }
+
+    private String buildSql(Materialization materialization, DataSetSchema dataSetSchema,
+            String date) {
+        List<String> groups = new ArrayList<>();
+        groups.add(materialization.getPartitionName());
+        groups.addAll(materialization.getDimensions());
+        List<String> selects = new ArrayList<>(groups);
+        for (String metric : materialization.getMetrics()) {
+            SchemaElement element = getElement(dataSetSchema.getMetrics(), metric);
+            if (Objects.isNull(element)) {
+                throw new IllegalStateException("metric not found in data set: " + metric);
+            }
+            selects.add(String.format("%s(%s)", element.getDefaultAgg().toUpperCase(), metric));
+        }
+        return String.format("SELECT %s FROM %s WHERE %s = '%s' GROUP BY %s",
+                String.join(",", selects), dataSetSchema.getDataSet().getName(),
+                materialization.getPartitionName(), date, String.join(",", groups));
+    }
+
+    private Materialization buildMaterialization(DataSetSchema dataSetSchema, QueryStat queryStat) {
+        if (Objects.isNull(dataSetSchema)) {
+            return null;
+        }
+        SchemaElement partitionDimension = dataSetSchema.getPartitionDimension();
+        String partitionTimeFormat = dataSetSchema.getPartitionTimeFormat();
+        // the accelerator compares partitions as iso dates
+        if (Objects.isNull(partitionDimension) || (StringUtils.isNotBlank(partitionTimeFormat)
+                && !PARTITION_TIME_FORMAT.equals(partitionTimeFormat))) {
+            return null;
+        }
+        Set<String> dimensions = new TreeSet<>();
+        for (String field : Objects.requireNonNullElse(queryStat.getDimensionListBizName(),
+                Collections.<String>emptyList())) {
+            SchemaElement dimension = getElement(dataSetSchema.getDimensions(), field);
+            // mapped dimension values are rewritten in query results, not in the materialization
+            if (Objects.isNull(dimension)
+                    || !CollectionUtils.isEmpty(dimension.getSchemaValueMaps())) {
+                return null;
+            }
+            if (!dimension.getBizName().equals(partitionDimension.getBizName())) {
+                dimensions.add(dimension.getBizName());
+            }
+        }
+        Set<String> metrics = new TreeSet<>();
+        Map<String, String> metricAggs = new HashMap<>();
+        for (String field : queryStat.getMetricListBizName()) {
+            SchemaElement metric = getElement(dataSetSchema.getMetrics(), field);
+            if (Objects.isNull(metric) || StringUtils.isBlank(metric.getDefaultAgg())
+                    || !RE_AGGREGATABLE_AGGS.contains(metric.getDefaultAgg().toUpperCase())) {
+                return null;
+            }
+            metrics.add(metric.getBizName());
+            metricAggs.put(metric.getBizName(), metric.getDefaultAgg().toUpperCase());
+        }
+        if (metrics.isEmpty()) {
+            return null;
+        }
+        String key = String.format("ds_%s_%s", queryStat.getDataSetId(),
+                DigestUtils.md5Hex(String.join(",", dimensions) + "|" + String.join(",", metrics))
+                        .substring(0, 8));
+        return Materialization.builder().name(SCHEMA + "." + key)
+                .dataSetId(queryStat.getDataSetId()).isPartitioned(true)
+                .partitionName(partitionDimension.getBizName())
+                .path(Paths.get(materializationPath, key).toAbsolutePath().toString())
+                .dimensions(new ArrayList<>(dimensions)).metrics(new ArrayList<>(metrics))
+                .metricAggs(metricAggs).partitions(new ArrayList<>()).build();
+    }
+
+    private boolean covers(Materialization materialization, Materialization candidate) {
+        return materialization.getDataSetId().equals(candidate.getDataSetId())
+                && materialization.getDimensions().containsAll(candidate.getDimensions())
+                && materialization.getMetrics().containsAll(candidate.getMetrics());
+    }
+
+    private SchemaElement getElement(Collection<SchemaElement> elements, String field) {
+        return elements.stream()
+                .filter(e -> field.equalsIgnoreCase(e.getBizName()) || field.equals(e.getName()))
+                .findFirst().orElse(null);
+    }
+
+    private void saveDefinition(Materialization materialization) throws IOException {
+        Path path = Paths.get(materialization.getPath());
+        Files.createDirectories(path);
+        Files.write(path.resolve(DEFINITION_FILE),
+                JsonUtil.toString(materialization).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean hasParquetFiles(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.anyMatch(f -> f.toString().endsWith(".parquet"));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Writes the streamed rows of one date partition into a duckDb stage table. */
+    private class PartitionWriter implements QueryResultHandler {
+
+        private final Materialization materialization;
+
+        private final String stageTable;
+
+        private final List<String> columns = new ArrayList<>();
+
+        /** keys of the result rows holding each column */
+        private final List<String> keys = new ArrayList<>();
+
+        private final List<Boolean> integerMetrics = new ArrayList<>();
+
+        private String insertSql;
+
+        private long rowCount;
+
+        PartitionWriter(Materialization materialization, String stageTable) {
+            this.materialization = materialization;
+            this.stageTable = stageTable;
+            columns.add(materialization.getPartitionName());
+            columns.addAll(materialization.getDimensions());
+            columns.addAll(materialization.getMetrics());
+        }
+
+        @Override
+        public void onStart(List<QueryColumn> queryColumns) {
+            int dimensionCount = columns.size() - materialization.getMetrics().size();
+            List<String> definitions = new ArrayList<>();
+            for (int i = 0; i < columns.size(); i++) {
+                String column = columns.get(i);
+                QueryColumn queryColumn = queryColumns.stream()
+                        .filter(c -> column.equalsIgnoreCase(c.getBizName())).findFirst()
+                        .orElseThrow(() -> new IllegalStateException(
+                                String.format("column %s not found in the query result", column)));
+                keys.add(queryColumn.getBizName());
+                String type = "VARCHAR";
+                if (i >= dimensionCount) {
+                    boolean integer = StringUtils.containsIgnoreCase(queryColumn.getType(), "INT");
+                    integerMetrics.add(integer);
+                    type = integer ? "BIGINT" : "DOUBLE";
+                }
+                definitions.add(String.format("\"%s\" %s", column, type));
+            }
+            duckDbSource.execute(String.format("CREATE OR REPLACE TABLE %s (%s)", stageTable,
+                    String.join(",", definitions)));
+            insertSql = String.format("INSERT INTO %s VALUES (%s)", stageTable,
+                    columns.stream().map(c -> "?").collect(Collectors.joining(",")));
+        }
+
+        @Override
+        public boolean onBatch(List<Map<String, Object>> rows) {
+            int dimensionCount = columns.size() - integerMetrics.size();
+            List<Object[]> batchArgs = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                Object[] args = new Object[columns.size()];
+                for (int i = 0; i < columns.size(); i++) {
+                    Object value = row.get(keys.get(i));
+                    args[i] = i < dimensionCount ? Objects.toString(value, null)
+                            : toNumber(value, integerMetrics.get(i - dimensionCount));
+                }
+                batchArgs.add(args);
+            }
+            duckDbSource.getDuckDbJdbcTemplate().batchUpdate(insertSql, batchArgs);
+            rowCount += rows.size();
+            return true;
+        }
+
+        private Object toNumber(Object value, boolean integer) {
+            if (Objects.isNull(value)) {
+                return null;
+            }
+            BigDecimal number = new BigDecimal(value.toString());
+            return integer ? number.longValue() : number.doubleValue();
+        }
+    }
+}
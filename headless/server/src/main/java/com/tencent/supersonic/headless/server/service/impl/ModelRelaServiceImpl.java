@@ -10,6 +10,7 @@ import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.util.BeanMapper;
 import com.tencent.supersonic.headless.api.pojo.enums.IdentifyType;
 import com.tencent.supersonic.headless.api.pojo.response.ModelResp;
+import com.tencent.supersonic.headless.server.manager.SchemaRegistry;
 import com.tencent.supersonic.headless.server.persistence.dataobject.ModelRelaDO;
 import com.tencent.supersonic.headless.server.persistence.mapper.ModelRelaDOMapper;
 import com.tencent.supersonic.headless.server.service.ModelRelaService;
@@ -30,12 +31,16 @@ public class ModelRelaServiceImpl extends ServiceImpl<ModelRelaDOMapper, ModelRe
     @Autowired
     private ModelService modelService;
 
+    @Autowired
+    private SchemaRegistry schemaRegistry;
+
     @Override
     public void save(ModelRela modelRela, User user) {
         check(modelRela);
         modelRela.createdBy(user.getName());
         ModelRelaDO modelRelaDO = convert(modelRela);
         save(modelRelaDO);
+        invalidateSchema(modelRela);
     }
 
     @Override
@@ -44,6 +49,7 @@ public class ModelRelaServiceImpl extends ServiceImpl<ModelRelaDOMapper, ModelRe
         modelRela.updatedBy(user.getName());
         ModelRelaDO modelRelaDO = convert(modelRela);
         updateById(modelRelaDO);
+        invalidateSchema(modelRela);
     }
 
     private void check(ModelRela modelRela) {
@@ -85,7 +91,16 @@ public class ModelRelaServiceImpl extends ServiceImpl<ModelRelaDOMapper, ModelRe
 
     @Override
     public void delete(Long id) {
+        ModelRelaDO modelRelaDO = getById(id);
         removeById(id);
+        if (modelRelaDO != null) {
+            invalidateSchema(convert(modelRelaDO));
+        }
+    }
+
+    private void invalidateSchema(ModelRela modelRela) {
+        schemaRegistry.invalidateModels(
+                Lists.newArrayList(modelRela.getFromModelId(), modelRela.getToModelId()));
     }
 
     private ModelRela convert(ModelRelaDO modelRelaDO) {
@@ -160,6 +160,7 @@ public class ModelServiceImpl implements ModelService {
         datasourceDO.setUpdatedAt(new Date());
         datasourceDO.setUpdatedBy(user.getName());
         modelRepository.updateModel(datasourceDO);
+        sendEvent(datasourceDO, EventType.DELETE);
     }
 
     @Override
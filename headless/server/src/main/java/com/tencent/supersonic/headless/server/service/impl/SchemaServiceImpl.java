@@ -20,7 +20,9 @@ import com.tencent.supersonic.headless.api.pojo.response.*;
 import com.tencent.supersonic.headless.server.manager.DimensionYamlManager;
 import com.tencent.supersonic.headless.server.manager.MetricYamlManager;
 import com.tencent.supersonic.headless.server.manager.ModelYamlManager;
+import com.tencent.supersonic.headless.server.manager.SchemaRegistry;
 import com.tencent.supersonic.headless.server.pojo.ModelFilter;
+import com.tencent.supersonic.headless.server.pojo.SchemaCacheStats;
 import com.tencent.supersonic.headless.server.pojo.TagFilter;
 import com.tencent.supersonic.headless.server.pojo.yaml.DataModelYamlTpl;
 import com.tencent.supersonic.headless.server.pojo.yaml.DimensionYamlTpl;
@@ -33,7 +35,6 @@ import com.tencent.supersonic.headless.server.utils.StatUtils;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -50,12 +51,6 @@ public class SchemaServiceImpl implements SchemaService {
     protected final Cache<String, List<ItemUseResp>> itemUseCache =
             CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.DAYS).build();
 
-    protected final Cache<DataSetFilterReq, List<DataSetSchemaResp>> dataSetSchemaCache =
-            CacheBuilder.newBuilder().expireAfterWrite(30, TimeUnit.SECONDS).build();
-
-    protected final Cache<SchemaFilterReq, SemanticSchemaResp> semanticSchemaCache =
-            CacheBuilder.newBuilder().expireAfterWrite(30, TimeUnit.SECONDS).build();
-
     private final StatUtils statUtils;
     private final ModelService modelService;
     private final DimensionService dimensionService;
@@ -65,14 +60,12 @@ public class SchemaServiceImpl implements SchemaService {
     private final ModelRelaService modelRelaService;
     private final TermService termService;
     private final DatabaseService databaseService;
-
-    @Value("${s2.schema.cache.enable:true}")
-    private boolean schemaCacheEnable;
+    private final SchemaRegistry schemaRegistry;
 
     public SchemaServiceImpl(ModelService modelService, DimensionService dimensionService,
             MetricService metricService, DomainService domainService, DataSetService dataSetService,
             ModelRelaService modelRelaService, StatUtils statUtils, TermService termService,
-            DatabaseService databaseService) {
+            DatabaseService databaseService, SchemaRegistry schemaRegistry) {
         this.modelService = modelService;
         this.dimensionService = dimensionService;
         this.metricService = metricService;
@@ -82,18 +75,23 @@ public class SchemaServiceImpl implements SchemaService {
         this.statUtils = statUtils;
         this.termService = termService;
         this.databaseService = databaseService;
+        this.schemaRegistry = schemaRegistry;
     }
 
     public List<DataSetSchemaResp> fetchDataSetSchema(DataSetFilterReq filter) {
-        List<DataSetSchemaResp> dataSetList = Lists.newArrayList();
-        if (schemaCacheEnable) {
-            dataSetList = dataSetSchemaCache.getIfPresent(filter);
-        }
-        if (CollectionUtils.isEmpty(dataSetList)) {
-            dataSetList = buildDataSetSchema(filter);
-            dataSetSchemaCache.put(filter, dataSetList);
-        }
-        return dataSetList;
+        return schemaRegistry.getDataSetSchemas(filter.getDataSetIds(), this::getOnlineDataSetIds,
+                dataSetIds -> {
+                    DataSetFilterReq dataSetFilterReq = new DataSetFilterReq();
+                    dataSetFilterReq.setDataSetIds(dataSetIds);
+                    return buildDataSetSchema(dataSetFilterReq);
+                });
+    }
+
+    private List<Long> getOnlineDataSetIds() {
+        MetaFilter metaFilter = new MetaFilter();
+        metaFilter.setStatus(StatusEnum.ONLINE.getCode());
+        return dataSetService.getDataSetList(metaFilter).stream().map(DataSetResp::getId)
+                .collect(Collectors.toList());
     }
 
     public DataSetSchemaResp fetchDataSetSchema(Long dataSetId) {
@@ -138,12 +136,18 @@ public class SchemaServiceImpl implements SchemaService {
 
     @Override
     public SemanticSchema getSemanticSchema() {
-        return new SemanticSchema(getDataSetSchema(Collections.EMPTY_SET));
+        return getSemanticSchema(Collections.EMPTY_SET);
     }
 
     @Override
     public SemanticSchema getSemanticSchema(Set<Long> dataSetIds) {
-        return new SemanticSchema(getDataSetSchema(dataSetIds));
+        long version = schemaRegistry.getVersion();
+        SemanticSchema semanticSchema = new SemanticSchema(getDataSetSchema(dataSetIds));
+        // lets the chat layer share what it derives from the same schema version
+        if (schemaRegistry.isSchemaCacheEnable() && version == schemaRegistry.getVersion()) {
+            semanticSchema.setVersion(version);
+        }
+        return semanticSchema;
     }
 
     public List<DataSetSchemaResp> buildDataSetSchema(DataSetFilterReq filter) {
@@ -385,15 +389,12 @@ public class SchemaServiceImpl implements SchemaService {
 
     @Override
     public SemanticSchemaResp fetchSemanticSchema(SchemaFilterReq schemaFilterReq) {
-        SemanticSchemaResp semanticSchemaResp = null;
-        if (schemaCacheEnable) {
-            semanticSchemaResp = semanticSchemaCache.getIfPresent(schemaFilterReq);
-        }
-        if (semanticSchemaResp == null) {
-            semanticSchemaResp = buildSemanticSchema(schemaFilterReq);
-            semanticSchemaCache.put(schemaFilterReq, semanticSchemaResp);
-        }
-        return semanticSchemaResp;
+        return schemaRegistry.getSemanticSchema(schemaFilterReq, this::buildSemanticSchema);
+    }
+
+    @Override
+    public SchemaCacheStats getSchemaCacheStats() {
+        return schemaRegistry.getStats();
     }
 
     @SneakyThrows
@@ -8,10 +8,12 @@ import com.tencent.supersonic.common.util.JsonUtil;
 import com.tencent.supersonic.headless.api.pojo.request.MetaBatchReq;
 import com.tencent.supersonic.headless.api.pojo.request.TermReq;
 import com.tencent.supersonic.headless.api.pojo.response.TermResp;
+import com.tencent.supersonic.headless.server.manager.SchemaRegistry;
 import com.tencent.supersonic.headless.server.persistence.dataobject.TermDO;
 import com.tencent.supersonic.headless.server.persistence.mapper.TermMapper;
 import com.tencent.supersonic.headless.server.service.TermService;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -24,6 +26,9 @@ import java.util.stream.Collectors;
 @Service
 public class TermServiceImpl extends ServiceImpl<TermMapper, TermDO> implements TermService {
 
+    @Autowired
+    private SchemaRegistry schemaRegistry;
+
     @Override
     public void saveOrUpdate(TermReq termReq, User user) {
         QueryWrapper<TermDO> queryWrapper = new QueryWrapper<>();
@@ -36,11 +41,16 @@ public class TermServiceImpl extends ServiceImpl<TermMapper, TermDO> implements
         termReq.updatedBy(user.getName());
         convert(termReq, termSetDO);
         saveOrUpdate(termSetDO);
+        schemaRegistry.invalidateDomain(termSetDO.getDomainId());
     }
 
     @Override
     public void delete(Long id) {
+        TermDO termDO = getById(id);
         removeById(id);
+        if (termDO != null) {
+            schemaRegistry.invalidateDomain(termDO.getDomainId());
+        }
     }
 
     @Override
@@ -48,7 +58,10 @@ public class TermServiceImpl extends ServiceImpl<TermMapper, TermDO> implements
         if (CollectionUtils.isEmpty(metaBatchReq.getIds())) {
             throw new RuntimeException("术语ID不可为空");
         }
+        List<TermDO> termDOS = listByIds(metaBatchReq.getIds());
         removeBatchByIds(metaBatchReq.getIds());
+        termDOS.stream().map(TermDO::getDomainId).distinct()
+                .forEach(schemaRegistry::invalidateDomain);
     }
 
     @Override
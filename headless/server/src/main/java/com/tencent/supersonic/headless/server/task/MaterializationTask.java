@@ -0,0 +1,39 @@
+package com.tencent.supersonic.headless.server.task;
+
+import com.tencent.supersonic.headless.server.service.MaterializationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@Order(3)
+public class MaterializationTask implements CommandLineRunner {
+
+    @Autowired
+    private MaterializationService materializationService;
+
+    @Override
+    public void run(String... args) {
+        try {
+            materializationService.loadMaterializations();
+        } catch (Exception e) {
+            log.error("loadMaterializations error", e);
+        }
+    }
+
+    /** build new materializations and export the latest date partitions */
+    @Scheduled(cron = "${s2.materialization.refresh.cron:0 0 3 * * ?}")
+    public void refreshMaterializations() {
+        log.info("refreshMaterializations start");
+        try {
+            materializationService.refreshMaterializations();
+        } catch (Exception e) {
+            log.error("refreshMaterializations error", e);
+        }
+        log.info("refreshMaterializations end");
+    }
+}
@@ -2,6 +2,8 @@ package com.tencent.supersonic.headless.server.utils;
 
 import com.tencent.supersonic.common.util.ContextUtils;
 import com.tencent.supersonic.common.util.JsonUtil;
+import com.tencent.supersonic.headless.api.pojo.SchemaElementMatch;
+import com.tencent.supersonic.headless.api.pojo.SchemaMapInfo;
 import com.tencent.supersonic.headless.api.pojo.SemanticParseInfo;
 import com.tencent.supersonic.headless.api.pojo.enums.ChatWorkflowState;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
@@ -9,6 +11,8 @@ import com.tencent.supersonic.headless.api.pojo.response.ParseResp;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticTranslateResp;
 import com.tencent.supersonic.headless.chat.ChatQueryContext;
 import com.tencent.supersonic.headless.chat.corrector.SemanticCorrector;
+import com.tencent.supersonic.headless.chat.mapper.BaseMapper;
+import com.tencent.supersonic.headless.chat.mapper.MapFilter;
 import com.tencent.supersonic.headless.chat.mapper.SchemaMapper;
 import com.tencent.supersonic.headless.chat.parser.SemanticParser;
 import com.tencent.supersonic.headless.chat.query.QueryManager;
@@ -18,11 +22,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,9 +51,32 @@ public class ChatWorkflowEngine {
     private final List<SemanticCorrector> semanticCorrectors =
             CoreComponentFactory.getSemanticCorrectors();
 
+    @Autowired
+    @Qualifier("workflowExecutor")
+    private ThreadPoolExecutor workflowExecutor;
+
+    /** run the independent schema mappers concurrently */
+    @Value("${s2.workflow.mapping.parallel.enable:false}")
+    private boolean parallelMappingEnable;
+
+    /** correct and translate the candidate queries concurrently */
+    @Value("${s2.workflow.parallel.enable:false}")
+    private boolean parallelEnable;
+
+    /** top scored candidates kept in parallel mode, the others are offered as alternatives */
+    @Value("${s2.workflow.parallel.candidates:1}")
+    private int parallelCandidates;
+
+    /** milliseconds a candidate may take to be corrected and translated in parallel mode */
+    @Value("${s2.workflow.parallel.timeout:60000}")
+    private long candidateTimeout;
+
     public void start(ChatWorkflowState initialState, ChatQueryContext queryCtx) {
         ParseResp parseResult = queryCtx.getParseResp();
         queryCtx.setChatWorkflowState(initialState);
+        if (parallelEnable) {
+            queryCtx.setCandidateLimit(parallelCandidates);
+        }
         while (queryCtx.getChatWorkflowState() != ChatWorkflowState.FINISHED) {
             switch (queryCtx.getChatWorkflowState()) {
                 case MAPPING:
@@ -69,6 +109,14 @@ public class ChatWorkflowEngine {
                     }
                     break;
                 case S2SQL_CORRECTING:
+                    if (parallelEnable) {
+                        long parallelStart = System.currentTimeMillis();
+                        performCorrectingAndTranslating(queryCtx, parseResult);
+                        parseResult.getParseTimeCost()
+                                .setSqlTime(System.currentTimeMillis() - parallelStart);
+                        queryCtx.setChatWorkflowState(ChatWorkflowState.FINISHED);
+                        break;
+                    }
                     performCorrecting(queryCtx);
                     queryCtx.setChatWorkflowState(ChatWorkflowState.TRANSLATING);
                     break;
@@ -91,7 +139,94 @@ public class ChatWorkflowEngine {
     private void performMapping(ChatQueryContext queryCtx) {
         if (Objects.isNull(queryCtx.getMapInfo())
                 || MapUtils.isEmpty(queryCtx.getMapInfo().getDataSetElementMatches())) {
-            schemaMappers.forEach(mapper -> mapper.map(queryCtx));
+            if (!parallelMappingEnable) {
+                schemaMappers.forEach(mapper -> mapper.map(queryCtx));
+                return;
+            }
+            // consecutive independent mappers run together, the others in turn
+            List<SchemaMapper> independentMappers = new ArrayList<>();
+            for (SchemaMapper mapper : schemaMappers) {
+                if (mapper.isIndependent()) {
+                    independentMappers.add(mapper);
+                    continue;
+                }
+                performConcurrentMapping(queryCtx, independentMappers);
+                independentMappers.clear();
+                mapper.map(queryCtx);
+            }
+            performConcurrentMapping(queryCtx, independentMappers);
+        }
+    }
+
+    /**
+     * Runs the mappers on the workflow executor, each on a context of its own sharing the request
+     * and the schema. A mapper not done within its timeout is cancelled and its matches are
+     * dropped, which degrades recall rather than the latency. The matches of the others are merged
+     * into the query context in the mapper order, so the result does not depend on which mapper
+     * finished first.
+     */
+    private void performConcurrentMapping(ChatQueryContext queryCtx, List<SchemaMapper> mappers) {
+        if (mappers.size() <= 1) {
+            mappers.forEach(mapper -> mapper.map(queryCtx));
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<ChatQueryContext> mapperCtxs = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (SchemaMapper mapper : mappers) {
+            long timeout = mapper.getTimeout();
+            ChatQueryContext mapperCtx =
+                    buildMapperContext(queryCtx, timeout > 0 ? start + timeout : 0);
+            mapperCtxs.add(mapperCtx);
+            futures.add(workflowExecutor.submit(() -> mapper.map(mapperCtx)));
+        }
+
+        for (int i = 0; i < mappers.size(); i++) {
+            String mapperName = mappers.get(i).getClass().getSimpleName();
+            long deadline = mapperCtxs.get(i).getMappingDeadline();
+            Future<?> future = futures.get(i);
+            try {
+                if (deadline > 0) {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()),
+                            TimeUnit.MILLISECONDS);
+                } else {
+                    future.get();
+                }
+                mergeMapInfo(queryCtx.getMapInfo(), mapperCtxs.get(i).getMapInfo());
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("{} timeout after {}ms, its matches are dropped", mapperName,
+                        deadline - start);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                log.warn("{} failed", mapperName, e.getCause());
+            }
+        }
+        MapFilter.filter(queryCtx);
+    }
+
+    private ChatQueryContext buildMapperContext(ChatQueryContext queryCtx, long deadline) {
+        ChatQueryContext mapperCtx = new ChatQueryContext(queryCtx.getRequest());
+        mapperCtx.setMapInfo(new SchemaMapInfo());
+        mapperCtx.setSemanticSchema(queryCtx.getSemanticSchema());
+        mapperCtx.setModelIdToDataSetIds(queryCtx.getModelIdToDataSetIds());
+        mapperCtx.setChatWorkflowState(queryCtx.getChatWorkflowState());
+        mapperCtx.setMappingDeadline(deadline);
+        mapperCtx.setSegments(queryCtx.getSegments());
+        return mapperCtx;
+    }
+
+    static void mergeMapInfo(SchemaMapInfo mapInfo, SchemaMapInfo mapperMapInfo) {
+        List<Long> dataSetIds = new ArrayList<>(mapperMapInfo.getMatchedDataSetInfos());
+        Collections.sort(dataSetIds);
+        for (Long dataSetId : dataSetIds) {
+            mapInfo.getDataSetElementMatches().computeIfAbsent(dataSetId, k -> new ArrayList<>());
+            for (SchemaElementMatch elementMatch : mapperMapInfo.getMatchedElements(dataSetId)) {
+                BaseMapper.addToSchemaMap(mapInfo, dataSetId, elementMatch);
+            }
         }
     }
 
@@ -107,13 +242,16 @@ public class ChatWorkflowEngine {
         List<SemanticQuery> candidateQueries = queryCtx.getCandidateQueries();
         if (CollectionUtils.isNotEmpty(candidateQueries)) {
             for (SemanticQuery semanticQuery : candidateQueries) {
-                for (SemanticCorrector corrector : semanticCorrectors) {
-                    corrector.correct(queryCtx, semanticQuery.getParseInfo());
-                    if (!ChatWorkflowState.S2SQL_CORRECTING
-                            .equals(queryCtx.getChatWorkflowState())) {
-                        break;
-                    }
-                }
+                correct(queryCtx, semanticQuery.getParseInfo());
+            }
+        }
+    }
+
+    private void correct(ChatQueryContext queryCtx, SemanticParseInfo parseInfo) {
+        for (SemanticCorrector corrector : semanticCorrectors) {
+            corrector.correct(queryCtx, parseInfo);
+            if (!ChatWorkflowState.S2SQL_CORRECTING.equals(queryCtx.getChatWorkflowState())) {
+                break;
             }
         }
     }
@@ -125,41 +263,191 @@ public class ChatWorkflowEngine {
         if (StringUtils.isNotBlank(parseResult.getErrorMsg())) {
             errorMsg.add(parseResult.getErrorMsg());
         }
-        semanticParseInfos.forEach(parseInfo -> {
-            try {
-                SemanticQuery semanticQuery = QueryManager.createQuery(parseInfo.getQueryMode());
-                if (Objects.isNull(semanticQuery)) {
-                    return;
-                }
-                semanticQuery.setParseInfo(parseInfo);
-                SemanticQueryReq semanticQueryReq = semanticQuery.buildSemanticQueryReq();
-                SemanticLayerService queryService =
-                        ContextUtils.getBean(SemanticLayerService.class);
-                SemanticTranslateResp explain =
-                        queryService.translate(semanticQueryReq, queryCtx.getRequest().getUser());
-                if (explain.isOk()) {
-                    parseInfo.getSqlInfo().setQuerySQL(explain.getQuerySQL());
-                    parseResult.setState(ParseResp.ParseState.COMPLETED);
-                } else {
-                    parseResult.setState(ParseResp.ParseState.FAILED);
-                }
-                if (StringUtils.isNotBlank(explain.getErrMsg())) {
-                    errorMsg.add(explain.getErrMsg());
-                }
-                log.info(
-                        "SqlInfoProcessor results:\n"
-                                + "Parsed S2SQL: {}\nCorrected S2SQL: {}\nQuery SQL: {}",
-                        StringUtils.normalizeSpace(parseInfo.getSqlInfo().getParsedS2SQL()),
-                        StringUtils.normalizeSpace(parseInfo.getSqlInfo().getCorrectedS2SQL()),
-                        StringUtils.normalizeSpace(parseInfo.getSqlInfo().getQuerySQL()));
-            } catch (Exception e) {
-                log.warn("get sql info failed:{}", e);
-                errorMsg.add(String.format("S2SQL:%s %s", parseInfo.getSqlInfo().getParsedS2SQL(),
-                        e.getMessage()));
+        semanticParseInfos.forEach(parseInfo -> applyTranslation(parseInfo,
+                translate(queryCtx, parseInfo), parseResult, errorMsg));
+        if (!errorMsg.isEmpty()) {
+            parseResult.setErrorMsg(String.join("\n", errorMsg));
+        }
+    }
+
+    /**
+     * Corrects and translates every candidate on the workflow executor, so the latency is bounded
+     * by the slowest candidate. The candidates are ranked, the first one translated successfully is
+     * selected and the lower ranked ones still running are cancelled. Candidates not done within
+     * the timeout are cancelled too. Cancelled candidates are dropped from the result, their parse
+     * info may still be modified by the running corrector.
+     */
+    private void performCorrectingAndTranslating(ChatQueryContext queryCtx, ParseResp parseResult) {
+        List<SemanticQuery> candidateQueries = queryCtx.getCandidateQueries();
+        List<Future<TranslateResult>> futures = new ArrayList<>();
+        for (SemanticQuery candidateQuery : candidateQueries) {
+            SemanticParseInfo parseInfo = candidateQuery.getParseInfo();
+            futures.add(workflowExecutor.submit(() -> {
+                correct(queryCtx, parseInfo);
+                return translate(queryCtx, parseInfo);
+            }));
+        }
+
+        List<String> errorMsg = new ArrayList<>();
+        if (StringUtils.isNotBlank(parseResult.getErrorMsg())) {
+            errorMsg.add(parseResult.getErrorMsg());
+        }
+        Set<SemanticParseInfo> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<CandidateOutcome<TranslateResult>> outcomes =
+                awaitCandidates(futures, System.currentTimeMillis() + candidateTimeout,
+                        result -> Objects.nonNull(result) && Boolean.TRUE.equals(result.ok));
+        for (int i = 0; i < candidateQueries.size(); i++) {
+            SemanticParseInfo parseInfo = candidateQueries.get(i).getParseInfo();
+            CandidateOutcome<TranslateResult> outcome = outcomes.get(i);
+            switch (outcome.state) {
+                case DONE:
+                    applyTranslation(parseInfo, outcome.result, parseResult, errorMsg);
+                    break;
+                case TIMEOUT:
+                    dropped.add(parseInfo);
+                    log.warn("correct and translate timeout after {}ms, S2SQL:{}", candidateTimeout,
+                            parseInfo.getSqlInfo().getParsedS2SQL());
+                    errorMsg.add(String.format("S2SQL:%s timeout after %sms",
+                            parseInfo.getSqlInfo().getParsedS2SQL(), candidateTimeout));
+                    break;
+                case CANCELLED:
+                    dropped.add(parseInfo);
+                    log.debug("a higher ranked candidate is selected, S2SQL:{} is cancelled",
+                            parseInfo.getSqlInfo().getParsedS2SQL());
+                    break;
+                default:
+                    log.warn("correct failed:{}", outcome.error);
+                    errorMsg.add(String.format("S2SQL:%s %s",
+                            parseInfo.getSqlInfo().getParsedS2SQL(), outcome.error.getMessage()));
+                    break;
             }
-        });
+        }
+
+        if (!dropped.isEmpty()) {
+            queryCtx.setCandidateQueries(candidateQueries.stream()
+                    .filter(q -> !dropped.contains(q.getParseInfo())).collect(Collectors.toList()));
+            parseResult.setSelectedParses(parseResult.getSelectedParses().stream()
+                    .filter(p -> !dropped.contains(p)).collect(Collectors.toList()));
+            if (parseResult.getSelectedParses().isEmpty()) {
+                parseResult.setState(ParseResp.ParseState.FAILED);
+            }
+        }
         if (!errorMsg.isEmpty()) {
             parseResult.setErrorMsg(String.join("\n", errorMsg));
         }
     }
+
+    /**
+     * Waits for the futures in their rank order until the deadline. Once a result is selected, the
+     * lower ranked futures already done are kept and the ones still running are cancelled.
+     */
+    static <T> List<CandidateOutcome<T>> awaitCandidates(List<Future<T>> futures, long deadline,
+            Predicate<T> selector) {
+        List<CandidateOutcome<T>> outcomes = new ArrayList<>();
+        boolean selected = false;
+        for (Future<T> future : futures) {
+            if (selected && !future.isDone()) {
+                future.cancel(true);
+                outcomes.add(new CandidateOutcome<>(CandidateState.CANCELLED, null, null));
+                continue;
+            }
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                T result = future.get(remaining, TimeUnit.MILLISECONDS);
+                outcomes.add(new CandidateOutcome<>(CandidateState.DONE, result, null));
+                selected = selected || selector.test(result);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                outcomes.add(new CandidateOutcome<>(CandidateState.TIMEOUT, null, null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new RuntimeException(e);
+            } catch (CancellationException e) {
+                outcomes.add(new CandidateOutcome<>(CandidateState.CANCELLED, null, null));
+            } catch (ExecutionException e) {
+                outcomes.add(new CandidateOutcome<>(CandidateState.FAILED, null, e.getCause()));
+            }
+        }
+        return outcomes;
+    }
+
+    private TranslateResult translate(ChatQueryContext queryCtx, SemanticParseInfo parseInfo) {
+        try {
+            SemanticQuery semanticQuery = QueryManager.createQuery(parseInfo.getQueryMode());
+            if (Objects.isNull(semanticQuery)) {
+                return null;
+            }
+            semanticQuery.setParseInfo(parseInfo);
+            SemanticQueryReq semanticQueryReq = semanticQuery.buildSemanticQueryReq();
+            SemanticLayerService queryService = ContextUtils.getBean(SemanticLayerService.class);
+            SemanticTranslateResp explain =
+                    queryService.translate(semanticQueryReq, queryCtx.getRequest().getUser());
+            return new TranslateResult(explain.isOk(), explain.getQuerySQL(), explain.getErrMsg());
+        } catch (Exception e) {
+            log.warn("get sql info failed:{}", e);
+            return new TranslateResult(null, null, String.format("S2SQL:%s %s",
+                    parseInfo.getSqlInfo().getParsedS2SQL(), e.getMessage()));
+        }
+    }
+
+    private void applyTranslation(SemanticParseInfo parseInfo, TranslateResult result,
+            ParseResp parseResult, List<String> errorMsg) {
+        if (Objects.isNull(result)) {
+            return;
+        }
+        if (Objects.nonNull(result.ok)) {
+            if (result.ok) {
+                parseInfo.getSqlInfo().setQuerySQL(result.querySQL);
+                parseResult.setState(ParseResp.ParseState.COMPLETED);
+            } else {
+                parseResult.setState(ParseResp.ParseState.FAILED);
+            }
+            log.info(
+                    "SqlInfoProcessor results:\n"
+                            + "Parsed S2SQL: {}\nCorrected S2SQL: {}\nQuery SQL: {}",
+                    StringUtils.normalizeSpace(parseInfo.getSqlInfo().getParsedS2SQL()),
+                    StringUtils.normalizeSpace(parseInfo.getSqlInfo().getCorrectedS2SQL()),
+                    StringUtils.normalizeSpace(parseInfo.getSqlInfo().getQuerySQL()));
+        }
+        if (StringUtils.isNotBlank(result.errMsg)) {
+            errorMsg.add(result.errMsg);
+        }
+    }
+
+    enum CandidateState {
+        DONE, FAILED, TIMEOUT, CANCELLED
+    }
+
+    /** outcome of waiting for a candidate, the result is set only if it is done */
+    static class CandidateOutcome<T> {
+
+        final CandidateState state;
+
+        final T result;
+
+        final Throwable error;
+
+        CandidateOutcome(CandidateState state, T result, Throwable error) {
+            this.state = state;
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    /** outcome of translating a candidate, ok is null if the translation threw */
+    private static class TranslateResult {
+
+        private final Boolean ok;
+
+        private final String querySQL;
+
+        private final String errMsg;
+
+        private TranslateResult(Boolean ok, String querySQL, String errMsg) {
+            this.ok = ok;
+            this.querySQL = querySQL;
+            this.errMsg = errMsg;
+        }
+    }
 }
@@ -11,6 +11,7 @@ import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
 import com.tencent.supersonic.headless.api.pojo.request.QueryStructReq;
 import com.tencent.supersonic.headless.api.pojo.request.SemanticQueryReq;
 import com.tencent.supersonic.headless.api.pojo.response.*;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
 import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
 import com.tencent.supersonic.headless.server.persistence.dataobject.DictConfDO;
 import com.tencent.supersonic.headless.server.persistence.dataobject.DictTaskDO;
@@ -28,6 +29,7 @@ import org.springframework.util.CollectionUtils;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static com.tencent.supersonic.common.pojo.Constants.*;
 
@@ -134,41 +136,80 @@ public class DictUtils {
 
     public List<String> fetchItemValue(DictItemResp dictItemResp) {
         List<String> lines = new ArrayList<>();
+        try {
+            fetchItemValue(dictItemResp, Integer.MAX_VALUE, lines::addAll);
+        } catch (Exception e) {
+            log.error("dictItemResp:{},fetchItemValue error:", dictItemResp, e);
+            lines.clear();
+        }
+        return lines;
+    }
+
+    /**
+     * Streams the values of an item with a single query and passes the dictionary lines to the
+     * consumer in batches. The rows are not held, but a value split from multi-valued rows is
+     * summed with the other rows of the same value, so the distinct values are counted in a map
+     * bounded by the value limit of the item.
+     *
+     * @return the number of lines passed to the consumer
+     */
+    public long fetchItemValue(DictItemResp dictItemResp, int batchSize,
+            Consumer<List<String>> consumer) throws Exception {
+        String bizName = dictItemResp.getBizName();
+        String nature = dictItemResp.getNature();
+        Map<String, Long> valueAndFrequencyPair = new HashMap<>(2000);
         SemanticQueryReq semanticQueryReq = constructQueryReq(dictItemResp);
         semanticQueryReq.setNeedAuth(false);
-        String bizName = dictItemResp.getBizName();
-        try {
-            SemanticQueryResp semanticQueryResp = queryService.queryByReq(semanticQueryReq, null);
-            if (Objects.isNull(semanticQueryResp)
-                    || CollectionUtils.isEmpty(semanticQueryResp.getResultList())) {
-                return lines;
+        queryService.queryByReqStream(semanticQueryReq, null, new QueryResultHandler() {
+            @Override
+            public void onStart(List<QueryColumn> columns) {}
+
+            @Override
+            public boolean onBatch(List<Map<String, Object>> rows) {
+                for (Map<String, Object> line : rows) {
+                    mergeLine(valueAndFrequencyPair, line, bizName);
+                }
+                return true;
             }
-            Map<String, Long> valueAndFrequencyPair = new HashMap<>(2000);
-            for (Map<String, Object> line : semanticQueryResp.getResultList()) {
+        });
 
-                if (CollectionUtils.isEmpty(line) || !line.containsKey(bizName)
-                        || line.get(bizName) == null || line.size() != 2) {
-                    continue;
-                }
-                String dimValue = line.get(bizName).toString();
-                Object metricObject = null;
-                for (String key : line.keySet()) {
-                    if (!bizName.equalsIgnoreCase(key)) {
-                        metricObject = line.get(key);
-                    }
-                }
-                if (!StringUtils.isEmpty(dimValue) && Objects.nonNull(metricObject)) {
-                    Long metric = Math.round(Double.parseDouble(metricObject.toString()));
-                    mergeMultivaluedValue(valueAndFrequencyPair, dimValue, metric);
-                }
+        List<String> lines = new ArrayList<>();
+        long lineCount = 0;
+        for (Map.Entry<String, Long> entry : valueAndFrequencyPair.entrySet()) {
+            constructDictLine(entry.getKey(), entry.getValue(), lines, nature);
+            if (lines.size() >= batchSize) {
+                consumer.accept(lines);
+                lineCount += lines.size();
+                lines = new ArrayList<>();
             }
-            String nature = dictItemResp.getNature();
-            constructDictLines(valueAndFrequencyPair, lines, nature);
-            addWhiteValueLines(dictItemResp, lines, nature);
-        } catch (Exception e) {
-            log.error("dictItemResp:{},fetchItemValue error:", dictItemResp, e);
         }
-        return lines;
+        addWhiteValueLines(dictItemResp, lines, nature);
+        consumer.accept(lines);
+        return lineCount + lines.size();
+    }
+
+    private void mergeLine(Map<String, Long> valueAndFrequencyPair, Map<String, Object> line,
+            String bizName) {
+        if (CollectionUtils.isEmpty(line) || !line.containsKey(bizName) || line.get(bizName) == null
+                || line.size() != 2) {
+            return;
+        }
+        String dimValue = line.get(bizName).toString();
+        Object metricObject = null;
+        for (String key : line.keySet()) {
+            if (!bizName.equalsIgnoreCase(key)) {
+                metricObject = line.get(key);
+            }
+        }
+        if (!StringUtils.isEmpty(dimValue) && Objects.nonNull(metricObject)) {
+            Long metric = Math.round(Double.parseDouble(metricObject.toString()));
+            mergeMultivaluedValue(valueAndFrequencyPair, dimValue, metric);
+        }
+    }
+
+    public Long fetchDatabaseId(DictItemResp dictItemResp) {
+        ModelResp model = modelService.getModel(dictItemResp.getModelId());
+        return Objects.isNull(model) ? null : model.getDatabaseId();
     }
 
     private void addWhiteValueLines(DictItemResp dictItemResp, List<String> lines, String nature) {
@@ -185,18 +226,12 @@ public class DictUtils {
         });
     }
 
-    private void constructDictLines(Map<String, Long> valueAndFrequencyPair, List<String> lines,
+    private void constructDictLine(String value, Long frequency, List<String> lines,
             String nature) {
-        if (CollectionUtils.isEmpty(valueAndFrequencyPair)) {
-            return;
+        if (!StringUtils.isEmpty(value)) {
+            value = value.replace(SPACE, POUND);
         }
-
-        valueAndFrequencyPair.forEach((value, frequency) -> {
-            if (!StringUtils.isEmpty(value)) {
-                value = value.replace(SPACE, POUND);
-            }
-            lines.add(String.format("%s %s %s", value, nature, frequency));
-        });
+        lines.add(String.format("%s %s %s", value, nature, frequency));
     }
 
     private void mergeMultivaluedValue(Map<String, Long> valueAndFrequencyPair, String dimValue,
@@ -222,12 +257,29 @@ public class DictUtils {
 
     private SemanticQueryReq constructQueryReq(DictItemResp dictItemResp) {
         if (TypeEnums.DIMENSION.equals(dictItemResp.getType())) {
-            return constructDimQueryReq(dictItemResp);
+            return constructDimQueryReq(dictItemResp, getItemValueLimit(dictItemResp));
         }
         log.warn("constructQueryReq failed");
         return null;
     }
 
+    /** the number of values fetched for an item */
+    private long getItemValueLimit(DictItemResp dictItemResp) {
+        ItemValueConfig config = dictItemResp.getConfig();
+        long limit =
+                (Objects.isNull(config) || Objects.isNull(config.getLimit())) ? itemValueMaxCount
+                        : config.getLimit();
+        if (limit <= 0 && !isMetricQuery(dictItemResp)) {
+            limit = Integer.MAX_VALUE;
+        }
+        return limit;
+    }
+
+    private boolean isMetricQuery(DictItemResp dictItemResp) {
+        return Objects.nonNull(dictItemResp) && Objects.nonNull(dictItemResp.getConfig())
+                && Objects.nonNull(dictItemResp.getConfig().getMetricId());
+    }
+
     private QuerySqlReq constructTagQueryReq(DictItemResp dictItemResp) {
 
         String sqlPattern = "select %s, %s from tbl %s group by %s order by %s desc limit %d";
@@ -260,18 +312,17 @@ public class DictUtils {
         return querySqlReq;
     }
 
-    private QuerySqlReq constructDimQueryReq(DictItemResp dictItemResp) {
-        if (Objects.nonNull(dictItemResp) && Objects.nonNull(dictItemResp.getConfig())
-                && Objects.nonNull(dictItemResp.getConfig().getMetricId())) {
+    private QuerySqlReq constructDimQueryReq(DictItemResp dictItemResp, long limit) {
+        if (isMetricQuery(dictItemResp)) {
             // 查询默认指标
-            QueryStructReq queryStructReq = generateQueryStruct(dictItemResp);
+            QueryStructReq queryStructReq = generateQueryStruct(dictItemResp, limit);
             return queryStructReq.convert(true);
         }
         // count(1) 作为指标
-        return constructQuerySqlReq(dictItemResp);
+        return constructQuerySqlReq(dictItemResp, limit);
     }
 
-    private QuerySqlReq constructQuerySqlReq(DictItemResp dictItemResp) {
+    private QuerySqlReq constructQuerySqlReq(DictItemResp dictItemResp, long limit) {
 
         ModelResp model = modelService.getModel(dictItemResp.getModelId());
         String sqlPattern =
@@ -279,13 +330,6 @@ public class DictUtils {
         String dimBizName = dictItemResp.getBizName();
         String whereStr = generateWhereStr(dictItemResp);
         String where = StringUtils.isEmpty(whereStr) ? "" : "WHERE" + whereStr;
-        ItemValueConfig config = dictItemResp.getConfig();
-        long limit =
-                (Objects.isNull(config) || Objects.isNull(config.getLimit())) ? itemValueMaxCount
-                        : dictItemResp.getConfig().getLimit();
-        if (limit <= 0) {
-            limit = Integer.MAX_VALUE;
-        }
 
         String sql =
                 String.format(sqlPattern, dimBizName, model.getBizName(), where, dimBizName, limit);
@@ -299,7 +343,7 @@ public class DictUtils {
         return querySqlReq;
     }
 
-    private QueryStructReq generateQueryStruct(DictItemResp dictItemResp) {
+    private QueryStructReq generateQueryStruct(DictItemResp dictItemResp, long limit) {
         QueryStructReq queryStructReq = new QueryStructReq();
 
         Set<Long> modelIds = new HashSet<>(Arrays.asList(dictItemResp.getModelId()));
@@ -324,8 +368,6 @@ public class DictUtils {
 
         fillStructDateInfo(queryStructReq, dictItemResp);
 
-        int limit = Objects.isNull(dictItemResp.getConfig().getLimit()) ? itemValueMaxCount
-                : dictItemResp.getConfig().getLimit();
         queryStructReq.setLimit(limit);
         queryStructReq.setNeedAuth(false);
         return queryStructReq;
@@ -3,6 +3,7 @@ package com.tencent.supersonic.headless.server.utils;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 /** tools for arrow flight sql */
@@ -33,6 +34,56 @@ public class FlightUtils {
         return Types.VARCHAR;
     }
 
+    /**
+     * Resolves the type of a column from the type name of the result metadata. Dates and times are
+     * read as formatted strings, so they stay VARCHAR like any unknown type.
+     */
+    public static int resolveTypeName(String typeName) {
+        if (typeName == null) {
+            return Types.VARCHAR;
+        }
+        String type = typeName.toUpperCase(Locale.ROOT).trim();
+        if (type.startsWith("NULLABLE(") && type.endsWith(")")) {
+            type = type.substring("NULLABLE(".length(), type.length() - 1);
+        }
+        boolean unsigned = type.contains("UNSIGNED");
+        type = type.replaceAll("\\(.*\\)", "").replace("UNSIGNED", "").trim();
+        switch (type) {
+            case "BIGINT":
+            case "INT8":
+            case "INT64":
+            case "UINT32":
+            case "UINT64":
+            case "LONG":
+                return Types.BIGINT;
+            case "INT":
+            case "INTEGER":
+            case "INT2":
+            case "INT4":
+            case "INT16":
+            case "INT32":
+            case "UINT8":
+            case "UINT16":
+            case "TINYINT":
+            case "SMALLINT":
+            case "MEDIUMINT":
+                return unsigned ? Types.BIGINT : Types.INTEGER;
+            case "DOUBLE":
+            case "DOUBLE PRECISION":
+            case "FLOAT":
+            case "FLOAT4":
+            case "FLOAT8":
+            case "FLOAT32":
+            case "FLOAT64":
+            case "REAL":
+            case "DECIMAL":
+            case "NUMERIC":
+                return Types.DOUBLE;
+            default:
+                return Types.VARCHAR;
+        }
+    }
+
     public static int isNullable(int sqlType) throws SQLException {
         switch (sqlType) {
             case Types.VARCHAR:
@@ -0,0 +1,80 @@
+package com.tencent.supersonic.headless.server.manager;
+
+import com.google.common.collect.Lists;
+import com.tencent.supersonic.headless.api.pojo.DataSetDetail;
+import com.tencent.supersonic.headless.api.pojo.DataSetModelConfig;
+import com.tencent.supersonic.headless.api.pojo.response.DataSetSchemaResp;
+import com.tencent.supersonic.headless.core.cache.CacheCommonConfig;
+import com.tencent.supersonic.headless.core.cache.TranslationCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class SchemaRegistryTest {
+
+    @Test
+    void testRebuildInvalidatedDataSetOnly() {
+        CacheCommonConfig cacheCommonConfig = new CacheCommonConfig();
+        cacheCommonConfig.setTranslationCacheMaxSize(100);
+        cacheCommonConfig.setTranslationCacheExpireAfterWrite(10);
+        SchemaRegistry schemaRegistry =
+                new SchemaRegistry(new TranslationCache(cacheCommonConfig), true, 100, 10);
+        List<List<Long>> builtIds = new ArrayList<>();
+        List<Long> dataSetIds = Lists.newArrayList(1L, 2L);
+
+        List<DataSetSchemaResp> schemas =
+                schemaRegistry.getDataSetSchemas(dataSetIds, () -> dataSetIds, ids -> {
+                    builtIds.add(ids);
+                    return ids.stream().map(id -> buildSchema(id, id * 10))
+                            .collect(Collectors.toList());
+                });
+        Assertions.assertEquals(2, schemas.size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> schemas.remove(0));
+
+        schemaRegistry.getDataSetSchemas(dataSetIds, () -> dataSetIds, ids -> {
+            builtIds.add(ids);
+            return new ArrayList<>();
+        });
+        Assertions.assertEquals(1, builtIds.size());
+
+        long version = schemaRegistry.getVersion();
+        schemaRegistry.invalidateModels(Lists.newArrayList(20L));
+        Assertions.assertTrue(schemaRegistry.getVersion() > version);
+        List<DataSetSchemaResp> rebuilt =
+                schemaRegistry.getDataSetSchemas(new ArrayList<>(), () -> dataSetIds, ids -> {
+                    builtIds.add(ids);
+                    return ids.stream().map(id -> buildSchema(id, id * 10))
+                            .collect(Collectors.toList());
+                });
+        Assertions.assertEquals(Lists.newArrayList(2L), builtIds.get(1));
+        Assertions.assertEquals(2, rebuilt.size());
+        Assertions.assertSame(schemas.get(0), rebuilt.get(0));
+        Assertions.assertEquals(3L, schemaRegistry.getStats().getMissCount());
+    }
+
+    @Test
+    void testInvalidateDomainBumpsTranslationVersion() {
+        CacheCommonConfig cacheCommonConfig = new CacheCommonConfig();
+        cacheCommonConfig.setTranslationCacheMaxSize(100);
+        cacheCommonConfig.setTranslationCacheExpireAfterWrite(10);
+        TranslationCache translationCache = new TranslationCache(cacheCommonConfig);
+        SchemaRegistry schemaRegistry = new SchemaRegistry(translationCache, true, 100, 10);
+
+        long version = translationCache.getSchemaVersion();
+        schemaRegistry.invalidateDomain(1L);
+        Assertions.assertTrue(translationCache.getSchemaVersion() > version);
+    }
+
+    private static DataSetSchemaResp buildSchema(Long dataSetId, Long modelId) {
+        DataSetSchemaResp dataSetSchemaResp = new DataSetSchemaResp();
+        dataSetSchemaResp.setId(dataSetId);
+        DataSetDetail dataSetDetail = new DataSetDetail();
+        dataSetDetail.setDataSetModelConfigs(
+                Lists.newArrayList(new DataSetModelConfig(modelId, null, null)));
+        dataSetSchemaResp.setDataSetDetail(dataSetDetail);
+        return dataSetSchemaResp;
+    }
+}
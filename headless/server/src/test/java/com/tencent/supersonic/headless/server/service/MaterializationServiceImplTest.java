@@ -0,0 +1,316 @@
+package com.tencent.supersonic.headless.server.service;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.tencent.supersonic.common.pojo.DimensionConstants;
+import com.tencent.supersonic.common.pojo.QueryColumn;
+import com.tencent.supersonic.common.pojo.enums.TaskStatusEnum;
+import com.tencent.supersonic.common.util.JsonUtil;
+import com.tencent.supersonic.headless.api.pojo.DataSetSchema;
+import com.tencent.supersonic.headless.api.pojo.QueryStat;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.api.pojo.SchemaElementType;
+import com.tencent.supersonic.headless.api.pojo.enums.DimensionType;
+import com.tencent.supersonic.headless.api.pojo.request.QuerySqlReq;
+import com.tencent.supersonic.headless.core.config.ExecutorConfig;
+import com.tencent.supersonic.headless.core.executor.MaterializationManager;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
+import com.tencent.supersonic.headless.core.pojo.DuckDbSource;
+import com.tencent.supersonic.headless.core.pojo.Materialization;
+import com.tencent.supersonic.headless.server.facade.service.SemanticLayerService;
+import com.tencent.supersonic.headless.server.persistence.repository.StatRepository;
+import com.tencent.supersonic.headless.server.service.impl.MaterializationServiceImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+class MaterializationServiceImplTest {
+
+    private static final Pattern PARTITION_FILTER = Pattern.compile("imp_date = '([^']+)'");
+
+    @TempDir
+    Path tempDir;
+
+    private final StatRepository statRepository = Mockito.mock(StatRepository.class);
+
+    private final SchemaService schemaService = Mockito.mock(SchemaService.class);
+
+    private final SemanticLayerService semanticLayerService =
+            Mockito.mock(SemanticLayerService.class);
+
+    private final List<QueryStat> queryStats = new ArrayList<>();
+
+    /** sql of each streamed query */
+    private final List<String> executedSql = new ArrayList<>();
+
+    /** rows returned for a day, one row if not set */
+    private final Map<String, Integer> rowCounts = new HashMap<>();
+
+    private DuckDbSource duckDbSource;
+
+    private MaterializationManager materializationManager;
+
+    private MaterializationServiceImpl materializationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ExecutorConfig executorConfig = new ExecutorConfig();
+        executorConfig.setDuckEnable(true);
+        executorConfig.setDuckDbTemp(tempDir.resolve("tmp").toString());
+        executorConfig.setDuckDbMaximumPoolSize(2);
+        executorConfig.setDuckDbMaxLifetime(60000);
+        executorConfig.setMemoryLimit(1);
+        executorConfig.setThreads(1);
+        duckDbSource = new DuckDbSource(executorConfig);
+        materializationManager = new MaterializationManager(duckDbSource, executorConfig);
+        materializationService = new MaterializationServiceImpl(materializationManager,
+                duckDbSource, statRepository, schemaService, semanticLayerService);
+        ReflectionTestUtils.setField(materializationService, "materializationPath",
+                tempDir.resolve("materialization").toString());
+        ReflectionTestUtils.setField(materializationService, "maxCount", 2);
+        ReflectionTestUtils.setField(materializationService, "minQueryCount", 2);
+        ReflectionTestUtils.setField(materializationService, "statDays", 7);
+        ReflectionTestUtils.setField(materializationService, "initDays", 3);
+        ReflectionTestUtils.setField(materializationService, "maxRows", 3);
+
+        Mockito.when(statRepository.getQueryStats(ArgumentMatchers.any())).thenReturn(queryStats);
+        Mockito.when(schemaService.getDataSetSchema(1L)).thenReturn(buildDataSetSchema());
+        Mockito.doAnswer(invocation -> {
+            String sql = ((QuerySqlReq) invocation.getArgument(0)).getSql();
+            executedSql.add(sql);
+            Matcher matcher = PARTITION_FILTER.matcher(sql);
+            Assertions.assertTrue(matcher.find());
+            stream(matcher.group(1), invocation.getArgument(2));
+            return null;
+        }).when(semanticLayerService).queryByReqStream(ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((HikariDataSource) duckDbSource.getDuckDbJdbcTemplate().getDataSource()).close();
+    }
+
+    @Test
+    void testPlanMaterializations() {
+        addQueryStats(5, Lists.newArrayList("department", "city", "imp_date"),
+                Lists.newArrayList("pv", "uv"));
+        // covered by the materialization above
+        addQueryStats(4, Lists.newArrayList("department"), Lists.newArrayList("pv"));
+        addQueryStats(3, Lists.newArrayList("city"), Lists.newArrayList("uv"));
+        addQueryStats(3, Lists.newArrayList("channel"), Lists.newArrayList("pv"));
+        // beyond maxCount
+        addQueryStats(2, Lists.newArrayList("channel"), Lists.newArrayList("uv"));
+        // below minQueryCount
+        addQueryStats(1, Lists.newArrayList("department", "channel"), Lists.newArrayList("pv"));
+        // a metric that can not be aggregated again
+        addQueryStats(6, Lists.newArrayList("department"), Lists.newArrayList("avg_time"));
+        // failed queries are not counted
+        for (int i = 0; i < 6; i++) {
+            queryStats.add(
+                    buildQueryStat(Lists.newArrayList("channel", "city"), Lists.newArrayList("pv"))
+                            .setQueryState(TaskStatusEnum.ERROR.getStatus()));
+        }
+
+        List<Materialization> materializations = materializationService.planMaterializations();
+
+        Assertions.assertEquals(2, materializations.size());
+        Materialization first = materializations.get(0);
+        Assertions.assertEquals(Lists.newArrayList("city", "department"), first.getDimensions());
+        Assertions.assertEquals(Lists.newArrayList("pv", "uv"), first.getMetrics());
+        Assertions.assertEquals("SUM", first.getMetricAggs().get("pv"));
+        Assertions.assertEquals("MAX", first.getMetricAggs().get("uv"));
+        Assertions.assertEquals("imp_date", first.getPartitionName());
+        Materialization second = materializations.get(1);
+        Assertions.assertEquals(Lists.newArrayList("channel"), second.getDimensions());
+        Assertions.assertEquals(Lists.newArrayList("pv"), second.getMetrics());
+    }
+
+    @Test
+    void testRefreshNewDays() throws Exception {
+        addQueryStats(2, Lists.newArrayList("department", "imp_date"),
+                Lists.newArrayList("uv", "pv"));
+        materializationService.refreshMaterializations();
+
+        // one query per day, grouped by the partition and the dimensions
+        Assertions.assertEquals(days(3, 2, 1), getQueriedDays());
+        for (String day : days(3, 2, 1)) {
+            Assertions
+                    .assertTrue(executedSql.contains(String.format(
+                            "SELECT imp_date,department,SUM(pv),MAX(uv) FROM "
+                                    + "s2_pv_uv WHERE imp_date = '%s' GROUP BY imp_date,department",
+                            day)));
+        }
+        Materialization materialization = getMaterialization();
+        Assertions.assertEquals(days(3, 2, 1), materialization.getPartitions());
+        Assertions.assertEquals(3L, countRows(materialization));
+        Assertions.assertTrue(
+                Files.exists(Paths.get(materialization.getPath(), "materialization.json")));
+
+        // the days held are not exported again
+        executedSql.clear();
+        materializationService.refreshMaterializations();
+        Assertions.assertTrue(executedSql.isEmpty());
+    }
+
+    @Test
+    void testSkipPartitionReachingMaxRows() throws Exception {
+        addQueryStats(2, Lists.newArrayList("department"), Lists.newArrayList("pv"));
+        rowCounts.put(day(2), 3);
+        rowCounts.put(day(1), 3);
+        materializationService.refreshMaterializations();
+
+        Materialization materialization = getMaterialization();
+        Assertions.assertEquals(days(3), materialization.getPartitions());
+        Assertions.assertEquals(1L, countRows(materialization));
+        Assertions.assertFalse(
+                Files.exists(Paths.get(materialization.getPath(), "imp_date=" + day(2))));
+        Assertions.assertFalse(
+                Files.exists(Paths.get(materialization.getPath(), "imp_date=" + day(1))));
+        Assertions.assertEquals(0L,
+                duckDbSource.getDuckDbJdbcTemplate().queryForObject(
+                        "SELECT COUNT(*) FROM information_schema.tables WHERE table_name LIKE ?",
+                        Long.class, "%_stage"));
+
+        // only the days after the last partition held are exported again
+        executedSql.clear();
+        rowCounts.clear();
+        materializationService.refreshMaterializations();
+        Assertions.assertEquals(days(2, 1), getQueriedDays());
+        Assertions.assertEquals(days(3, 2, 1), getMaterialization().getPartitions());
+    }
+
+    @Test
+    void testHoldDaysWithoutRows() throws Exception {
+        addQueryStats(2, Lists.newArrayList("department"), Lists.newArrayList("pv"));
+        rowCounts.put(day(2), 0);
+        rowCounts.put(day(1), 0);
+        materializationService.refreshMaterializations();
+
+        // days without rows are held, so ranges over them can still be accelerated
+        Materialization materialization = getMaterialization();
+        Assertions.assertEquals(days(3, 2, 1), materialization.getPartitions());
+        Assertions.assertEquals(days(2, 1), materialization.getEmptyPartitions());
+        Assertions.assertEquals(1L, countRows(materialization));
+        Materialization definition = JsonUtil.toObject(new String(
+                Files.readAllBytes(Paths.get(materialization.getPath(), "materialization.json")),
+                StandardCharsets.UTF_8), Materialization.class);
+        Assertions.assertEquals(days(2, 1), definition.getEmptyPartitions());
+        Assertions.assertTrue(materializationManager.reload());
+        Assertions.assertEquals(days(3, 2, 1), getMaterialization().getPartitions());
+
+        // and not queried again
+        executedSql.clear();
+        materializationService.refreshMaterializations();
+        Assertions.assertTrue(executedSql.isEmpty());
+    }
+
+    private void stream(String day, QueryResultHandler handler) throws Exception {
+        handler.onStart(Lists.newArrayList(new QueryColumn("pv", "BIGINT"),
+                new QueryColumn("imp_date", "VARCHAR"), new QueryColumn("department", "VARCHAR"),
+                new QueryColumn("uv", "DOUBLE")));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < rowCounts.getOrDefault(day, 1); i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("imp_date", day);
+            row.put("department", "department" + i);
+            row.put("pv", 10L);
+            row.put("uv", 2.0);
+            rows.add(row);
+        }
+        if (!rows.isEmpty()) {
+            handler.onBatch(rows);
+        }
+        handler.onComplete();
+    }
+
+    private Materialization getMaterialization() {
+        List<Materialization> materializations = materializationManager.getMaterializations(1L);
+        Assertions.assertEquals(1, materializations.size());
+        return materializations.get(0);
+    }
+
+    private long countRows(Materialization materialization) {
+        return duckDbSource.getDuckDbJdbcTemplate()
+                .queryForObject("SELECT COUNT(*) FROM " + materialization.getName(), Long.class);
+    }
+
+    private List<String> getQueriedDays() {
+        return executedSql.stream().map(sql -> {
+            Matcher matcher = PARTITION_FILTER.matcher(sql);
+            return matcher.find() ? matcher.group(1) : null;
+        }).collect(Collectors.toList());
+    }
+
+    private List<String> days(int... daysAgo) {
+        List<String> days = new ArrayList<>();
+        for (int dayAgo : daysAgo) {
+            days.add(day(dayAgo));
+        }
+        return days;
+    }
+
+    private String day(int daysAgo) {
+        return LocalDate.now().minusDays(daysAgo).toString();
+    }
+
+    private void addQueryStats(int count, List<String> dimensions, List<String> metrics) {
+        for (int i = 0; i < count; i++) {
+            queryStats.add(buildQueryStat(dimensions, metrics));
+        }
+    }
+
+    private QueryStat buildQueryStat(List<String> dimensions, List<String> metrics) {
+        QueryStat queryStat = new QueryStat().setDataSetId(1L);
+        queryStat.setQueryState(TaskStatusEnum.SUCCESS.getStatus());
+        queryStat.setDimensions(JsonUtil.toString(dimensions));
+        queryStat.setMetrics(JsonUtil.toString(metrics));
+        return queryStat;
+    }
+
+    private DataSetSchema buildDataSetSchema() {
+        DataSetSchema dataSetSchema = new DataSetSchema();
+        dataSetSchema.setDataSet(SchemaElement.builder().dataSetId(1L).name("s2_pv_uv")
+                .bizName("s2_pv_uv").type(SchemaElementType.DATASET).build());
+        Map<String, Object> partitionInfo = new HashMap<>();
+        partitionInfo.put(DimensionConstants.DIMENSION_TYPE, DimensionType.partition_time);
+        partitionInfo.put(DimensionConstants.DIMENSION_TIME_FORMAT, "yyyy-MM-dd");
+        dataSetSchema.setDimensions(Sets.newHashSet(
+                SchemaElement.builder().dataSetId(1L).id(1L).name("数据日期").bizName("imp_date")
+                        .type(SchemaElementType.DIMENSION).extInfo(partitionInfo).build(),
+                buildElement(2L, "department", SchemaElementType.DIMENSION, null),
+                buildElement(3L, "city", SchemaElementType.DIMENSION, null),
+                buildElement(4L, "channel", SchemaElementType.DIMENSION, null)));
+        dataSetSchema
+                .setMetrics(Sets.newHashSet(buildElement(5L, "pv", SchemaElementType.METRIC, "sum"),
+                        buildElement(6L, "uv", SchemaElementType.METRIC, "max"),
+                        buildElement(7L, "avg_time", SchemaElementType.METRIC, "avg")));
+        return dataSetSchema;
+    }
+
+    private SchemaElement buildElement(Long id, String bizName, SchemaElementType type,
+            String defaultAgg) {
+        return SchemaElement.builder().dataSetId(1L).id(id).name(bizName).bizName(bizName)
+                .type(type).defaultAgg(defaultAgg).extInfo(Collections.emptyMap()).build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.tencent.supersonic.headless.server.utils;
+
+import com.google.common.collect.Sets;
+import com.tencent.supersonic.headless.api.pojo.SchemaElement;
+import com.tencent.supersonic.headless.api.pojo.SchemaElementMatch;
+import com.tencent.supersonic.headless.api.pojo.SchemaElementType;
+import com.tencent.supersonic.headless.api.pojo.SchemaMapInfo;
+import com.tencent.supersonic.headless.api.pojo.request.QueryNLReq;
+import com.tencent.supersonic.headless.chat.ChatQueryContext;
+import com.tencent.supersonic.headless.chat.mapper.BaseMapper;
+import com.tencent.supersonic.headless.chat.mapper.MapFilter;
+import com.tencent.supersonic.headless.server.utils.ChatWorkflowEngine.CandidateOutcome;
+import com.tencent.supersonic.headless.server.utils.ChatWorkflowEngine.CandidateState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class ChatWorkflowEngineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCancelAfterSelection() {
+        List<Future<String>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> {
+            TimeUnit.MILLISECONDS.sleep(200);
+            return "failed";
+        }));
+        futures.add(executor.submit(() -> "ok"));
+        futures.add(CompletableFuture.completedFuture("ok"));
+        futures.add(executor.submit(() -> {
+            TimeUnit.SECONDS.sleep(30);
+            return "ok";
+        }));
+
+        long start = System.currentTimeMillis();
+        List<CandidateOutcome<String>> outcomes =
+                ChatWorkflowEngine.awaitCandidates(futures, start + 60000, "ok"::equals);
+        Assertions.assertTrue(System.currentTimeMillis() - start < 10000);
+        Assertions.assertEquals(CandidateState.DONE, outcomes.get(0).state);
+        Assertions.assertEquals("failed", outcomes.get(0).result);
+        Assertions.assertEquals(CandidateState.DONE, outcomes.get(1).state);
+        // lower ranked candidates already done are kept, the running ones are cancelled
+        Assertions.assertEquals(CandidateState.DONE, outcomes.get(2).state);
+        Assertions.assertEquals(CandidateState.CANCELLED, outcomes.get(3).state);
+        Assertions.assertTrue(futures.get(3).isCancelled());
+    }
+
+    @Test
+    void testCancelAfterDeadline() {
+        List<Future<String>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> {
+            TimeUnit.SECONDS.sleep(30);
+            return "ok";
+        }));
+        futures.add(executor.submit(() -> {
+            throw new IllegalStateException("invalid");
+        }));
+        futures.add(executor.submit(() -> "ok"));
+
+        long start = System.currentTimeMillis();
+        List<CandidateOutcome<String>> outcomes =
+                ChatWorkflowEngine.awaitCandidates(futures, start + 200, "ok"::equals);
+        Assertions.assertTrue(System.currentTimeMillis() - start < 10000);
+        Assertions.assertEquals(CandidateState.TIMEOUT, outcomes.get(0).state);
+        Assertions.assertTrue(futures.get(0).isCancelled());
+        Assertions.assertEquals(CandidateState.FAILED, outcomes.get(1).state);
+        Assertions.assertEquals("invalid", outcomes.get(1).error.getMessage());
+        Assertions.assertEquals(CandidateState.DONE, outcomes.get(2).state);
+    }
+
+    @Test
+    void testMergeMapInfoLikeSequentialMapping() {
+        List<List<SchemaElementMatch>> mapperMatches = new ArrayList<>();
+        mapperMatches.add(Arrays.asList(match(1L, 1L, "销量", "销量", 1.0),
+                match(1L, 2L, "访问次数", "访问", 0.6), match(2L, 3L, "部门", "部门", 1.0)));
+        // the same element with a higher similarity, a partial match next to a full one and a
+        // data set not requested
+        mapperMatches.add(Arrays.asList(match(1L, 2L, "访问次数", "访问", 0.8),
+                match(1L, 4L, "销售量", "销量", 0.7), match(3L, 5L, "用户", "用户", 1.0)));
+        QueryNLReq request = new QueryNLReq();
+        request.setDataSetIds(Sets.newHashSet(1L, 2L));
+
+        ChatQueryContext sequentialCtx = new ChatQueryContext(request);
+        for (List<SchemaElementMatch> matches : mapperMatches) {
+            map(sequentialCtx, matches);
+        }
+
+        ChatQueryContext parallelCtx = new ChatQueryContext(request);
+        for (List<SchemaElementMatch> matches : mapperMatches) {
+            ChatQueryContext mapperCtx = new ChatQueryContext(request);
+            map(mapperCtx, matches);
+            ChatWorkflowEngine.mergeMapInfo(parallelCtx.getMapInfo(), mapperCtx.getMapInfo());
+        }
+        MapFilter.filter(parallelCtx);
+
+        SchemaMapInfo expected = sequentialCtx.getMapInfo();
+        SchemaMapInfo actual = parallelCtx.getMapInfo();
+        Assertions.assertEquals(expected.getMatchedDataSetInfos(), actual.getMatchedDataSetInfos());
+        for (Long dataSetId : expected.getMatchedDataSetInfos()) {
+            Assertions.assertEquals(new HashSet<>(expected.getMatchedElements(dataSetId)),
+                    new HashSet<>(actual.getMatchedElements(dataSetId)));
+        }
+        Assertions.assertEquals(2, actual.getMatchedElements(1L).size());
+    }
+
+    private void map(ChatQueryContext chatQueryContext, List<SchemaElementMatch> matches) {
+        for (SchemaElementMatch match : matches) {
+            BaseMapper.addToSchemaMap(chatQueryContext.getMapInfo(),
+                    match.getElement().getDataSetId(), match);
+        }
+        MapFilter.filter(chatQueryContext);
+    }
+
+    private SchemaElementMatch match(Long dataSetId, Long elementId, String word, String detectWord,
+            double similarity) {
+        SchemaElement element = SchemaElement.builder().dataSetId(dataSetId).id(elementId)
+                .name(word).type(SchemaElementType.METRIC).build();
+        return SchemaElementMatch.builder().element(element).word(word).detectWord(detectWord)
+                .similarity(similarity).build();
+    }
+}
@@ -7,16 +7,22 @@ import com.tencent.supersonic.common.pojo.enums.TypeEnums;
 import com.tencent.supersonic.common.util.JsonUtil;
 import com.tencent.supersonic.headless.api.pojo.ItemValueConfig;
 import com.tencent.supersonic.headless.api.pojo.request.DictSingleTaskReq;
+import com.tencent.supersonic.headless.api.pojo.response.DictItemResp;
+import com.tencent.supersonic.headless.api.pojo.response.DictTaskResp;
 import com.tencent.supersonic.headless.server.persistence.dataobject.DictConfDO;
 import com.tencent.supersonic.headless.server.persistence.mapper.DictConfMapper;
 import com.tencent.supersonic.headless.server.service.DictTaskService;
+import com.tencent.supersonic.headless.server.utils.DictUtils;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class DictTest extends BaseTest {
     @Autowired
@@ -25,6 +31,9 @@ public class DictTest extends BaseTest {
     @Autowired
     private DictTaskService taskService;
 
+    @Autowired
+    private DictUtils dictUtils;
+
     @Test
     public void insertConf() {
         DictConfDO confDO = new DictConfDO();
@@ -90,4 +99,35 @@ public class DictTest extends BaseTest {
         taskService.deleteDictTask(taskReq, null);
         System.out.println();
     }
+
+    @Test
+    void testDailyTask() {
+        insertConf();
+        Assertions.assertTrue(taskService.dailyDictTask());
+        DictSingleTaskReq taskReq =
+                DictSingleTaskReq.builder().itemId(1L).type(TypeEnums.DIMENSION).build();
+        DictTaskResp taskResp = taskService.queryLatestDictTask(taskReq, null);
+        Assertions.assertEquals(TaskStatusEnum.SUCCESS.getStatus(), taskResp.getTaskStatus());
+    }
+
+    @Test
+    void testFetchItemValueInBatches() throws Exception {
+        DictConfDO confDO = new DictConfDO();
+        confDO.setType(TypeEnums.DIMENSION.name());
+        confDO.setItemId(1L);
+        confDO.setConfig(JsonUtil.toString(new ItemValueConfig()));
+        confDO.setStatus(StatusEnum.ONLINE.getStatus());
+        DictItemResp dictItemResp = dictUtils.dictDO2Req(confDO);
+        List<List<String>> batches = new ArrayList<>();
+        long lineCount = dictUtils.fetchItemValue(dictItemResp, 1, batches::add);
+
+        List<String> lines = batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        Assertions.assertTrue(batches.size() > 1);
+        Assertions.assertEquals(lineCount, lines.size());
+        // every value is written once, with the counts of its rows summed
+        Assertions.assertEquals(lines.size(),
+                lines.stream().map(line -> line.split(" ")[0]).distinct().count());
+        Assertions.assertEquals(new HashSet<>(dictUtils.fetchItemValue(dictItemResp)),
+                new HashSet<>(lines));
+    }
 }
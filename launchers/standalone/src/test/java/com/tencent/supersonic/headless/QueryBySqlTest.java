@@ -4,11 +4,16 @@ import com.tencent.supersonic.common.pojo.QueryColumn;
 import com.tencent.supersonic.common.pojo.User;
 import com.tencent.supersonic.common.pojo.exception.InvalidPermissionException;
 import com.tencent.supersonic.headless.api.pojo.response.SemanticQueryResp;
+import com.tencent.supersonic.headless.core.executor.QueryResultHandler;
 import com.tencent.supersonic.util.DataUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junitpioneer.jupiter.SetSystemProperty;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import static java.time.LocalDate.now;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
@@ -67,6 +72,29 @@ public class QueryBySqlTest extends BaseTest {
         assertEquals("HR", result.getResultList().get(0).get("department").toString());
     }
 
+    @Test
+    public void testStreamQuery() throws Exception {
+        List<QueryColumn> columns = new ArrayList<>();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        semanticLayerService.queryByReqStream(
+                buildQuerySqlReq("SELECT 部门, SUM(访问次数) AS 总访问次数 FROM 超音数PVUV统计  GROUP BY 部门 "),
+                User.getDefaultUser(), new QueryResultHandler() {
+                    @Override
+                    public void onStart(List<QueryColumn> queryColumns) {
+                        columns.addAll(queryColumns);
+                    }
+
+                    @Override
+                    public boolean onBatch(List<Map<String, Object>> batch) {
+                        rows.addAll(batch);
+                        return true;
+                    }
+                });
+        assertEquals(2, columns.size());
+        assertEquals("部门", columns.get(0).getName());
+        assertEquals(4, rows.size());
+    }
+
     @Test
     public void testDateSumQuery() throws Exception {
         String startDate = now().plusDays(-365).toString();
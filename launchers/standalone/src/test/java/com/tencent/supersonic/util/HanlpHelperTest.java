@@ -0,0 +1,45 @@
+package com.tencent.supersonic.util;
+
+import com.hankcs.hanlp.seg.common.Term;
+import com.tencent.supersonic.headless.chat.knowledge.DictWord;
+import com.tencent.supersonic.headless.chat.knowledge.helper.HanlpHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class HanlpHelperTest {
+
+    @Test
+    void testSegmentCacheKeyedOnDictionaryVersion() {
+        String text = "超音数访问次数";
+        List<Term> terms = HanlpHelper.segment(text);
+        Assertions.assertSame(terms, HanlpHelper.segment(text));
+        Assertions.assertFalse(containsWord(terms, "超音数访问"));
+
+        long version = HanlpHelper.getDictionaryVersion();
+        DictWord first = dictWord("超音数访问");
+        DictWord second = dictWord("超音数次数");
+        HanlpHelper.updateCustomDictionary(Collections.emptyList(), Arrays.asList(first, second));
+        // the words of one update change the version once
+        Assertions.assertEquals(version + 1, HanlpHelper.getDictionaryVersion());
+        List<Term> newTerms = HanlpHelper.segment(text);
+        Assertions.assertNotSame(terms, newTerms);
+        Assertions.assertTrue(containsWord(newTerms, "超音数访问"));
+
+        HanlpHelper.updateCustomDictionary(Arrays.asList(first, second), Collections.emptyList());
+        Assertions.assertEquals(version + 2, HanlpHelper.getDictionaryVersion());
+        Assertions.assertFalse(containsWord(HanlpHelper.segment(text), "超音数访问"));
+    }
+
+    private boolean containsWord(List<Term> terms, String word) {
+        return terms.stream().anyMatch(term -> term.word.equals(word));
+    }
+
+    private DictWord dictWord(String word) {
+        return DictWord.builder().word(word).nature("_99_1").natureWithFrequency("_99_1 100000")
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.tencent.supersonic.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.tencent.supersonic.common.pojo.enums.DictWordType;
+import com.tencent.supersonic.headless.chat.knowledge.DictWord;
+import com.tencent.supersonic.headless.chat.knowledge.KnowledgeBaseService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class KnowledgeUpdateTest {
+
+    @Test
+    void testUpdateDictWords() {
+        KnowledgeBaseService knowledgeBaseService = new KnowledgeBaseService();
+        DictWord dictWord = DictWord.builder().word("增量词条")
+                .natureWithFrequency("_99_1" + DictWordType.DIMENSION.getType() + " 100000")
+                .build();
+        Map<Long, List<Long>> modelIdToDataSetIds = new HashMap<>();
+        modelIdToDataSetIds.put(99L, Lists.newArrayList(9L));
+
+        knowledgeBaseService.updateDictWords(Lists.newArrayList(dictWord),
+                Lists.newArrayList(dictWord), new ArrayList<>());
+        Assertions.assertEquals(1, knowledgeBaseService
+                .prefixSearch("增量", 10, modelIdToDataSetIds, Sets.newHashSet(9L)).size());
+        Assertions.assertEquals(1, knowledgeBaseService.getTerms("增量词条", modelIdToDataSetIds)
+                .stream().filter(term -> term.getWord().equals("增量词条")).count());
+
+        knowledgeBaseService.updateDictWords(new ArrayList<>(), new ArrayList<>(),
+                Lists.newArrayList(dictWord));
+        Assertions.assertEquals(0, knowledgeBaseService
+                .prefixSearch("增量", 10, modelIdToDataSetIds, Sets.newHashSet(9L)).size());
+    }
+}